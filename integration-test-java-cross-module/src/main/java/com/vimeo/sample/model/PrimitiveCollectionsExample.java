@@ -0,0 +1,27 @@
+package com.vimeo.sample.model;
+
+import com.google.gson.annotations.SerializedName;
+import com.vimeo.stag.DoubleArrayList;
+import com.vimeo.stag.IntArrayList;
+import com.vimeo.stag.LongArrayList;
+import com.vimeo.stag.StringIntMap;
+import com.vimeo.stag.UseStag;
+
+/**
+ * A model using the primitive backed collections shipped with Stag.
+ */
+@UseStag
+public class PrimitiveCollectionsExample {
+
+    @SerializedName("ints")
+    public IntArrayList mInts;
+
+    @SerializedName("longs")
+    public LongArrayList mLongs;
+
+    @SerializedName("doubles")
+    public DoubleArrayList mDoubles;
+
+    @SerializedName("counts")
+    public StringIntMap mCounts;
+}
@@ -0,0 +1,48 @@
+package com.vimeo.sample.model;
+
+import com.google.gson.annotations.SerializedName;
+import com.vimeo.stag.TimestampFormat;
+import com.vimeo.stag.UseStag;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * A model using the timestamp and UUID types known to Stag.
+ */
+@UseStag
+public class TimestampExample {
+
+    @TimestampFormat
+    @SerializedName("created")
+    public Date mCreated;
+
+    @TimestampFormat(TimestampFormat.Format.EPOCH_MILLIS)
+    @SerializedName("modified")
+    public Date mModified;
+
+    @TimestampFormat
+    @SerializedName("published")
+    public Instant mPublished;
+
+    @TimestampFormat(TimestampFormat.Format.EPOCH_MILLIS)
+    @SerializedName("expires")
+    public Instant mExpires;
+
+    @TimestampFormat
+    @SerializedName("scheduled")
+    public OffsetDateTime mScheduled;
+
+    @TimestampFormat
+    @SerializedName("birthday")
+    public LocalDate mBirthday;
+
+    @SerializedName("updated")
+    public Instant mUpdated;
+
+    @SerializedName("id")
+    public UUID mId;
+}
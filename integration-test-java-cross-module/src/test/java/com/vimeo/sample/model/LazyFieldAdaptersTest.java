@@ -0,0 +1,54 @@
+package com.vimeo.sample.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.vimeo.sample.model.basic.BasicModel1;
+import com.vimeo.sample.model.basic.BasicModel2;
+import com.vimeo.sample.stag.generated.Stag;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that this module, which is compiled with {@code stag.lazyFieldAdapters}, only resolves
+ * the adapters of fields once they are used.
+ */
+public class LazyFieldAdaptersTest {
+
+    @Test
+    public void fieldAdaptersAreResolvedOnFirstUse() {
+        final List<Class<?>> requestedTypes = new ArrayList<>();
+        // Factories registered later take precedence, so the recording factory sees every request.
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new Stag.Factory())
+                .registerTypeAdapterFactory(new TypeAdapterFactory() {
+                    @Override
+                    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                        requestedTypes.add(type.getRawType());
+                        return null;
+                    }
+                })
+                .create();
+
+        TypeAdapter<IdenticalFieldTypes> adapter = gson.getAdapter(IdenticalFieldTypes.class);
+        assertFalse(requestedTypes.contains(BasicModel1.class));
+        assertFalse(requestedTypes.contains(BasicModel2.class));
+
+        IdenticalFieldTypes model = gson.fromJson("{\"basic_model2\":{}}", IdenticalFieldTypes.class);
+        assertTrue(requestedTypes.contains(BasicModel2.class));
+        assertFalse(requestedTypes.contains(BasicModel1.class));
+
+        model.mBasicModel1 = new BasicModel1();
+        assertEquals(gson.toJson(model), adapter.toJson(model));
+        assertTrue(requestedTypes.contains(BasicModel1.class));
+    }
+}
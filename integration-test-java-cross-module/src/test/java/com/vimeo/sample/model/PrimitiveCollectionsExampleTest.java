@@ -0,0 +1,39 @@
+package com.vimeo.sample.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.vimeo.sample.stag.generated.Stag;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import verification.Utils;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link PrimitiveCollectionsExample}.
+ */
+public class PrimitiveCollectionsExampleTest {
+
+    @Test
+    public void typeAdapterWasGenerated() throws Exception {
+        Utils.verifyTypeAdapterGeneration(PrimitiveCollectionsExample.class);
+    }
+
+    @Test
+    public void primitiveCollectionsAreReadAndWritten() {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+        String json = "{\"ints\":[1,2,3],\"longs\":[20000000000],\"doubles\":[1.5],\"counts\":{\"a\":1,\"b\":2}}";
+
+        PrimitiveCollectionsExample example = gson.fromJson(json, PrimitiveCollectionsExample.class);
+
+        assertEquals(Arrays.asList(1, 2, 3), example.mInts);
+        assertEquals(Arrays.asList(20000000000L), example.mLongs);
+        assertEquals(Arrays.asList(1.5), example.mDoubles);
+        assertEquals(1, example.mCounts.getInt("a", 0));
+        assertEquals(2, example.mCounts.getInt("b", 0));
+        assertEquals(json, gson.toJson(example));
+    }
+}
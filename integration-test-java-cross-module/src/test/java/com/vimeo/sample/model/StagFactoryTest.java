@@ -0,0 +1,122 @@
+package com.vimeo.sample.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.vimeo.sample.model.basic.BasicModel2;
+import com.vimeo.sample.model.json_adapter.JsonAdapterExample;
+import com.vimeo.sample.model1.DuplicateName;
+import com.vimeo.sample.stag.generated.Stag;
+import com.vimeo.stag.StagWarmUp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the generated {@link Stag.Factory}.
+ */
+public class StagFactoryTest {
+
+    private static final Class<?>[] MODELS = {
+            FieldOptionsSerializedName2.class,
+            JsonAdapterExample.class,
+            BasicModel2.class,
+            DuplicateName.class,
+            com.vimeo.sample.model.DuplicateName.class
+    };
+
+    @Test
+    public void dispatchesToEachPackage() {
+        Stag.Factory factory = new Stag.Factory();
+        Gson gson = new Gson();
+        for (Class<?> model : MODELS) {
+            assertNotNull(model.getName(), factory.create(gson, TypeToken.get(model)));
+        }
+    }
+
+    @Test
+    public void dispatchesNestedAndGenericModelsByName() {
+        Stag.Factory factory = new Stag.Factory();
+        Gson gson = new Gson();
+        assertNotNull(factory.create(gson, TypeToken.get(OuterClassWithInnerModel.InnerModel.class)));
+        assertNull(factory.create(gson, TypeToken.get(OuterClassWithInnerModel.class)));
+        assertNotNull(factory.create(gson, new TypeToken<GenericClass<String>>() {}));
+        assertNotNull(factory.create(gson, TypeToken.get(GenericClass.class)));
+    }
+
+    @Test
+    public void unknownTypesAreNotHandled() {
+        Stag.Factory factory = new Stag.Factory();
+        Gson gson = new Gson();
+        assertNull(factory.create(gson, TypeToken.get(String.class)));
+        assertNull(factory.create(gson, TypeToken.get(int.class)));
+        assertNull(factory.create(gson, TypeToken.get(StagFactoryTest.class)));
+        assertNull(factory.create(gson, TypeToken.get(Stag.class)));
+    }
+
+    @Test
+    public void warmUpCreatesAdaptersOfEveryPackage() throws Exception {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<StagWarmUp.PackageReport> reports = Stag.Factory.warmUp(gson, executor, 3);
+            List<String> packageNames = new ArrayList<>();
+            for (StagWarmUp.PackageReport report : reports) {
+                packageNames.add(report.getPackageName());
+                assertTrue(report.getTypeCount() > 0);
+            }
+            assertEquals(4, reports.size());
+            assertTrue(packageNames.contains("com.vimeo.sample.model"));
+            assertTrue(packageNames.contains("com.vimeo.sample.model1"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void concurrentLookupsAgree() throws Exception {
+        final Stag.Factory factory = new Stag.Factory();
+        final Gson gson = new Gson();
+        final int threadCount = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int thread = 0; thread < threadCount; thread++) {
+                results.add(executor.submit(new Callable<Integer>() {
+                    @Override
+                    public Integer call() throws Exception {
+                        start.await();
+                        int found = 0;
+                        for (int idx = 0; idx < 1000; idx++) {
+                            TypeAdapter<?> adapter = factory.create(gson, TypeToken.get(MODELS[idx % MODELS.length]));
+                            if (adapter != null) {
+                                found++;
+                            }
+                        }
+                        return found;
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> result : results) {
+                assertEquals(Integer.valueOf(1000), result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
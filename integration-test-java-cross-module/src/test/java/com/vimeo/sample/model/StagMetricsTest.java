@@ -0,0 +1,67 @@
+package com.vimeo.sample.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.vimeo.sample.model.basic.BasicModel2;
+import com.vimeo.sample.stag.generated.Stag;
+import com.vimeo.stag.InMemoryStagMetrics;
+import com.vimeo.stag.StagMetrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies that this module, which is compiled with {@code stag.instrumentation}, reports to the
+ * installed {@link StagMetrics}.
+ */
+public class StagMetricsTest {
+
+    @After
+    public void tearDown() {
+        StagMetrics.install(StagMetrics.NO_OP);
+    }
+
+    @Test
+    public void adaptersReportReadsAndWritesPerType() {
+        InMemoryStagMetrics metrics = new InMemoryStagMetrics();
+        StagMetrics.install(metrics);
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+
+        IdenticalFieldTypes model = gson.fromJson(
+                "{\"basic_model2\":{\"name\":1,\"unknown\":true},\"second_basic_model2\":{\"duration\":2},\"unknown\":[]}",
+                IdenticalFieldTypes.class);
+        gson.toJson(model);
+
+        InMemoryStagMetrics.TypeMetrics outer = metrics.getTypeMetrics(IdenticalFieldTypes.class);
+        assertNotNull(outer);
+        assertEquals(1, outer.getObjectsRead());
+        assertEquals(2, outer.getFieldsRead());
+        assertEquals(1, outer.getUnknownFieldsSkipped());
+        assertEquals(1, outer.getObjectsWritten());
+
+        InMemoryStagMetrics.TypeMetrics inner = metrics.getTypeMetrics(BasicModel2.class);
+        assertNotNull(inner);
+        assertEquals(2, inner.getObjectsRead());
+        assertEquals(2, inner.getFieldsRead());
+        assertEquals(1, inner.getUnknownFieldsSkipped());
+        assertEquals(2, inner.getObjectsWritten());
+        // The time spent on an object includes the objects nested in it.
+        assertTrue(outer.getReadNanos() >= inner.getReadNanos());
+    }
+
+    @Test
+    public void adaptersCreatedWithoutMetricsDoNotReport() {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+        gson.getAdapter(BasicModel2.class);
+
+        InMemoryStagMetrics metrics = new InMemoryStagMetrics();
+        StagMetrics.install(metrics);
+        gson.fromJson("{\"name\":1}", BasicModel2.class);
+
+        assertTrue(metrics.getTypeMetrics().isEmpty());
+    }
+}
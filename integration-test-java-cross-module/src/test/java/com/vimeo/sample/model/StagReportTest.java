@@ -0,0 +1,121 @@
+package com.vimeo.sample.model;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.vimeo.sample.model.json_adapter.JsonAdapterExample;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Verifies the {@code stag-report.json} that the processor writes to the generated package.
+ */
+public class StagReportTest {
+
+    private static final String REPORT = "/com/vimeo/sample/stag/generated/stag-report.json";
+
+    @Test
+    public void reportListsTheStrategyOfEveryField() throws Exception {
+        JsonObject report = readReport();
+
+        JsonObject primitives = getClass(report, PrimitiveTypesExample.class.getCanonicalName());
+        assertEquals("PRIMITIVE", getField(primitives, "simpleInt").get("strategy").getAsString());
+
+        JsonObject nestedModel = getClass(report, NestedModel.class.getCanonicalName());
+        assertEquals("KNOWN_TYPE_ADAPTER", getField(nestedModel, "test1").get("strategy").getAsString());
+        assertEquals("GENERATED_ADAPTER", getField(nestedModel, "nestedEnum").get("strategy").getAsString());
+
+        JsonObject jsonAdapterExample = getClass(report, JsonAdapterExample.class.getCanonicalName());
+        assertEquals("JSON_ADAPTER", getField(jsonAdapterExample, "created_time").get("strategy").getAsString());
+        assertEquals("JSON_ADAPTER_TREE", getField(jsonAdapterExample, "user").get("strategy").getAsString());
+
+        JsonObject arrayTypes = getClass(report, ClassWithArrayTypes.class.getCanonicalName());
+        JsonObject stringList = getField(arrayTypes, "stringList");
+        assertEquals("KNOWN_TYPE_ADAPTER", stringList.get("strategy").getAsString());
+        assertEquals("KNOWN_TYPE_ADAPTER", stringList.getAsJsonArray("elementStrategies").get(0).getAsString());
+
+        JsonObject genericClass = getClass(report, GenericClass.class.getCanonicalName() + "<T>");
+        assertEquals("RUNTIME_LOOKUP", getField(genericClass, "name").get("strategy").getAsString());
+
+        // Looked up at runtime, but the lookup resolves to the adapter Stag generated for the model.
+        JsonObject externalModel = getClass(report, ExternalModelExample.class.getCanonicalName() + "<T>");
+        assertEquals("GENERATED_ADAPTER",
+                     getField(externalModel, "parametrizedInternalGenericExample").get("strategy").getAsString());
+    }
+
+    @Test
+    public void reportNamesTheGeneratedAdapterClasses() throws Exception {
+        JsonObject report = readReport();
+
+        JsonObject primitives = getClass(report, PrimitiveTypesExample.class.getCanonicalName());
+        assertEquals(PrimitiveTypesExample.class.getName() + "$TypeAdapter", primitives.get("adapter").getAsString());
+
+        for (JsonElement element : report.getAsJsonArray("classes")) {
+            String adapter = element.getAsJsonObject().get("adapter").getAsString();
+            assertEquals(adapter, Class.forName(adapter).getName());
+        }
+    }
+
+    @Test
+    public void reportRecordsProcessorTime() throws Exception {
+        JsonObject report = readReport();
+
+        long totalNanos = report.get("processorNanos").getAsLong();
+        long classNanos = 0;
+        for (JsonElement element : report.getAsJsonArray("classes")) {
+            long nanos = element.getAsJsonObject().get("processorNanos").getAsLong();
+            assertTrue(nanos > 0);
+            classNanos += nanos;
+        }
+        assertEquals(totalNanos, classNanos);
+        assertTrue(report.getAsJsonObject("fieldStrategies").get("PRIMITIVE").getAsInt() > 0);
+        assertNull(report.getAsJsonObject("fieldStrategies").get("UNKNOWN"));
+    }
+
+    @NotNull
+    private static JsonObject readReport() throws Exception {
+        InputStream inputStream = StagReportTest.class.getResourceAsStream(REPORT);
+        assertNotNull(inputStream);
+        try {
+            return new JsonParser().parse(new InputStreamReader(inputStream, Charset.forName("UTF-8"))).getAsJsonObject();
+        } finally {
+            inputStream.close();
+        }
+    }
+
+    @NotNull
+    private static JsonObject getClass(@NotNull JsonObject report, @NotNull String type) {
+        JsonObject result = find(report.getAsJsonArray("classes"), "type", type);
+        assertNotNull(type, result);
+        return result;
+    }
+
+    @NotNull
+    private static JsonObject getField(@NotNull JsonObject classReport, @NotNull String name) {
+        JsonObject result = find(classReport.getAsJsonArray("fields"), "name", name);
+        assertNotNull(name, result);
+        return result;
+    }
+
+    @Nullable
+    private static JsonObject find(@NotNull JsonArray array, @NotNull String key, @NotNull String value) {
+        for (JsonElement element : array) {
+            if (value.equals(element.getAsJsonObject().get(key).getAsString())) {
+                return element.getAsJsonObject();
+            }
+        }
+        return null;
+    }
+}
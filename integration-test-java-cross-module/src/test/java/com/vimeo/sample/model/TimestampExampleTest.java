@@ -0,0 +1,102 @@
+package com.vimeo.sample.model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.vimeo.sample.stag.generated.Stag;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Locale;
+import java.util.UUID;
+
+import verification.Utils;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for {@link TimestampExample}.
+ */
+public class TimestampExampleTest {
+
+    @Test
+    public void typeAdapterWasGenerated() throws Exception {
+        Utils.verifyTypeAdapterGeneration(TimestampExample.class);
+    }
+
+    @Test
+    public void timestampsAreReadAndWrittenInTheirFormats() {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+        String json = "{" +
+                "\"created\":\"2018-04-09T13:45:30.123Z\"," +
+                "\"modified\":1523281530123," +
+                "\"published\":\"2018-04-09T13:45:30Z\"," +
+                "\"expires\":1523281530000," +
+                "\"scheduled\":\"2018-04-09T09:45:30-04:00\"," +
+                "\"birthday\":\"2018-04-09\"," +
+                "\"id\":\"123e4567-e89b-12d3-a456-426655440000\"" +
+                "}";
+
+        TimestampExample example = gson.fromJson(json, TimestampExample.class);
+
+        assertEquals(new Date(1523281530123L), example.mCreated);
+        assertEquals(new Date(1523281530123L), example.mModified);
+        assertEquals(Instant.ofEpochSecond(1523281530L), example.mPublished);
+        assertEquals(Instant.ofEpochSecond(1523281530L), example.mExpires);
+        assertEquals(OffsetDateTime.of(2018, 4, 9, 9, 45, 30, 0, ZoneOffset.ofHours(-4)), example.mScheduled);
+        assertEquals(LocalDate.of(2018, 4, 9), example.mBirthday);
+        assertEquals(UUID.fromString("123e4567-e89b-12d3-a456-426655440000"), example.mId);
+        assertEquals(json, gson.toJson(example));
+    }
+
+    @Test
+    public void fieldsWithoutTimestampFormatUseTheAdaptersRegisteredWithGson() {
+        TypeAdapter<Instant> epochSeconds = new TypeAdapter<Instant>() {
+            @Override
+            public void write(JsonWriter out, Instant value) throws IOException {
+                out.value(value.getEpochSecond());
+            }
+
+            @Override
+            public Instant read(JsonReader in) throws IOException {
+                return Instant.ofEpochSecond(in.nextLong());
+            }
+        }.nullSafe();
+        TypeAdapter<UUID> upperCase = new TypeAdapter<UUID>() {
+            @Override
+            public void write(JsonWriter out, UUID value) throws IOException {
+                out.value(value.toString().toUpperCase(Locale.US));
+            }
+
+            @Override
+            public UUID read(JsonReader in) throws IOException {
+                return UUID.fromString(in.nextString());
+            }
+        }.nullSafe();
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(Instant.class, epochSeconds)
+                .registerTypeAdapter(UUID.class, upperCase)
+                .registerTypeAdapterFactory(new Stag.Factory())
+                .create();
+        String json = "{" +
+                "\"published\":\"2018-04-09T13:45:30Z\"," +
+                "\"updated\":1523281530," +
+                "\"id\":\"123E4567-E89B-12D3-A456-426655440000\"" +
+                "}";
+
+        TimestampExample example = gson.fromJson(json, TimestampExample.class);
+
+        assertEquals(Instant.ofEpochSecond(1523281530L), example.mPublished);
+        assertEquals(Instant.ofEpochSecond(1523281530L), example.mUpdated);
+        assertEquals(UUID.fromString("123e4567-e89b-12d3-a456-426655440000"), example.mId);
+        assertEquals(json, gson.toJson(example));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2017 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.sample_java_model;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.vimeo.sample_java_model.stag.generated.Stag;
+import com.vimeo.stag.AllocationBudgets;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+/**
+ * Measures the bytes that a representative set of generated type adapters allocate per model read
+ * and per model written, and compares them against the budgets checked in to
+ * {@code allocation-budgets.properties}. The adapters for the library types are covered by the
+ * allocation budget test in stag-library, which shares its {@link AllocationBudgets} harness with
+ * this test; this test catches regressions in the generated code.
+ */
+public class AllocationBudgetTest {
+
+    private static final String BUDGETS_RESOURCE = "allocation-budgets.properties";
+
+    // Written to on every read so that the models being measured are never optimized away.
+    private static Object sSink;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(AllocationBudgets.isSupported());
+    }
+
+    @Test
+    public void generatedAdaptersStayWithinTheirAllocationBudgets() throws IOException {
+        AllocationBudgets budgets = new AllocationBudgets(AllocationBudgetTest.class, BUDGETS_RESOURCE);
+
+        // The nested models are resolved through the Gson instance, so it needs the Stag factory.
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+        Stag.Factory factory = new Stag.Factory();
+        measure(budgets, factory.create(gson, TypeToken.get(AlternateNameModel.class)), "AlternateNameModel",
+                "{\"Nougat\":\"7.0\",\"7.0\":\"Nougat\"}");
+        measure(budgets, factory.create(gson, TypeToken.get(BooleanFields.class)), "BooleanFields",
+                "{\"test1\":true,\"test2\":false,\"test3\":true,\"test4\":false,"
+                        + "\"test5\":true,\"test6\":false,\"test7\":true,\"test8\":false}");
+        measure(budgets, factory.create(gson, TypeToken.get(ConcreteDataList.class)), "ConcreteDataList",
+                "{\"page\":2,\"paging\":{\"type\":\"next\",\"base_value\":1},\"data\":["
+                        + "{\"type\":\"video0\",\"base_value\":0},{\"type\":\"video1\",\"base_value\":1},"
+                        + "{\"type\":\"video2\",\"base_value\":2},{\"type\":\"video3\",\"base_value\":3}]}");
+        measure(budgets, factory.create(gson, TypeToken.get(ExternalModel1.class)), "ExternalModel1",
+                "{\"field1\":\"outer\",\"genericField\":{\"field2\":\"inner\",\"genericField\":\"generic\"}}");
+        measure(budgets, factory.create(gson, TypeToken.get(NativeArrayTypes.class)), "NativeArrayTypes",
+                "{\"mStrings\":[\"a\",\"b\",\"c\",\"d\"],\"mIntegers\":[1,2,3,4,5,6,7,8],"
+                        + "\"mBooleans\":[true,false,true],\"mInts\":[10,20,30,40,50,60,70,80],\"mBools\":[false,true]}");
+        measure(budgets, factory.create(gson, TypeToken.get(PublicFieldsNoHungarian.class)), "PublicFieldsNoHungarian",
+                "{\"name\":\"first\",\"name_2\":\"second\"}");
+
+        assertEquals("allocations over budget, measured bytes per model", "[]", budgets.getFailures().toString());
+        assertEquals("budgets without a model", "[]", budgets.getUnusedBudgets().toString());
+    }
+
+    private static <T> void measure(@NotNull AllocationBudgets budgets, final TypeAdapter<T> adapter,
+                                    @NotNull String name, @NotNull String json) throws IOException {
+        assertNotNull("Type adapter should have been generated by Stag for " + name, adapter);
+        final T value = adapter.fromJson(json);
+        budgets.check(name, json, new AllocationBudgets.Subject() {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sSink = adapter.read(reader);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                adapter.write(writer, value);
+            }
+        });
+    }
+}
@@ -1,9 +1,19 @@
 package com.vimeo.sample_java_model;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.vimeo.sample_java_model.stag.generated.Stag;
+import com.vimeo.stag.StagJsonReader;
+
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import verification.Utils;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
 /**
  * Created by restainoa on 2/2/17.
  */
@@ -18,4 +28,30 @@ public class AlternateNameModel1Test {
     public void verifyTypeAdapterCorrectness() {
         Utils.verifyTypeAdapterCorrectness(AlternateNameModel1.class);
     }
+
+    @Test
+    public void alternateNamesAreReadAndPrimaryNamesAreWritten() {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+
+        assertEquals(AlternateNameModel1.ANDROID_VERSION, gson.fromJson("\"7.0\"", AlternateNameModel1.class));
+        assertEquals(AlternateNameModel1.ANDROID_VERSION, gson.fromJson("\"5.0\"", AlternateNameModel1.class));
+        assertEquals(AlternateNameModel1.ANDROID_VERSION_NAME, gson.fromJson("\"Kitkat\"", AlternateNameModel1.class));
+        assertNull(gson.fromJson("\"unknown\"", AlternateNameModel1.class));
+
+        assertEquals("\"7.0\"", gson.toJson(AlternateNameModel1.ANDROID_VERSION));
+        assertEquals("\"Nougat\"", gson.toJson(AlternateNameModel1.ANDROID_VERSION_NAME));
+    }
+
+    @Test
+    public void alternateNamesAreSelectedByStagJsonReader() throws Exception {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+
+        assertEquals(AlternateNameModel1.ANDROID_VERSION, gson.fromJson(stagReader("\"5.0\""), AlternateNameModel1.class));
+        assertEquals(AlternateNameModel1.ANDROID_VERSION_NAME, gson.fromJson(stagReader("\"Kit\\u006bat\""), AlternateNameModel1.class));
+        assertNull(gson.fromJson(stagReader("\"unknown\""), AlternateNameModel1.class));
+    }
+
+    private static StagJsonReader stagReader(String json) {
+        return new StagJsonReader(json.getBytes(StandardCharsets.UTF_8));
+    }
 }
@@ -1,9 +1,18 @@
 package com.vimeo.sample_java_model;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.vimeo.sample_java_model.stag.generated.Stag;
+import com.vimeo.stag.StagJsonReader;
+
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
+
 import verification.Utils;
 
+import static org.junit.Assert.assertEquals;
+
 /**
  * Created by restainoa on 2/2/17.
  */
@@ -18,4 +27,18 @@ public class AlternateNameModelTest {
     public void verifyTypeAdapterCorrectness() {
         Utils.verifyTypeAdapterCorrectness(AlternateNameModel.class);
     }
+
+    @Test
+    public void alternateNamesAreSelectedByStagJsonReader() throws Exception {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+        String json = "{\"unknown\":{\"Nougat\":1},\"Lollipop\":\"a\",\"4\\u002e0\":\"b\"}";
+
+        AlternateNameModel expected = gson.fromJson(json, AlternateNameModel.class);
+        AlternateNameModel model = gson.fromJson(new StagJsonReader(json.getBytes(StandardCharsets.UTF_8)),
+                                                 AlternateNameModel.class);
+
+        assertEquals("a", model.getAndroidVersions());
+        assertEquals("b", model.getAndroidNameVersions());
+        assertEquals(expected, model);
+    }
 }
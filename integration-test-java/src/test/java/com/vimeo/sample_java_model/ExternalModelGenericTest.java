@@ -1,9 +1,18 @@
 package com.vimeo.sample_java_model;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.vimeo.sample_java_model.stag.generated.Stag;
+
 import org.junit.Test;
 
 import verification.Utils;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 /**
  * Created by restainoa on 2/2/17.
  */
@@ -14,4 +23,31 @@ public class ExternalModelGenericTest {
         Utils.verifyTypeAdapterGeneration(ExternalModelGeneric.class);
     }
 
+    @Test
+    public void specializedTypeAdapterIsUsedForReferencedParameterization() throws Exception {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+
+        // ExternalModel1 refers to ExternalModelGeneric<String>, so the adapter is specialized for it.
+        TypeAdapter<ExternalModelGeneric<String>> adapter = gson.getAdapter(new TypeToken<ExternalModelGeneric<String>>() {});
+        assertTrue(adapter instanceof ExternalModelGeneric$TypeAdapter$String);
+
+        ExternalModelGeneric<String> model = adapter.fromJson("{\"field2\":\"a\",\"genericField\":\"b\"}");
+        assertEquals("a", model.getField2());
+        assertEquals("b", model.getGenericField());
+        assertEquals("{\"field2\":\"a\",\"genericField\":\"b\"}", adapter.toJson(model));
+    }
+
+    @Test
+    public void genericTypeAdapterIsUsedForOtherParameterizations() throws Exception {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+
+        TypeAdapter<ExternalModelGeneric<Integer>> adapter = gson.getAdapter(new TypeToken<ExternalModelGeneric<Integer>>() {});
+        assertTrue(adapter instanceof ExternalModelGeneric$TypeAdapter);
+
+        ExternalModelGeneric<Integer> model = adapter.fromJson("{\"field2\":\"a\",\"genericField\":1}");
+        assertEquals(Integer.valueOf(1), model.getGenericField());
+
+        assertTrue(gson.getAdapter(ExternalModelGeneric.class) instanceof ExternalModelGeneric$TypeAdapter);
+    }
+
 }
@@ -30,16 +30,19 @@ import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import com.vimeo.sample_java_model.SwappableParserExampleModel.TestObject;
 import com.vimeo.sample_java_model.stag.generated.Stag;
+import com.vimeo.stag.ReflectiveFallbackAudit;
 
 import org.jetbrains.annotations.NotNull;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.List;
 
 import verification.Utils;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 /**
  * Unit tests for {@link SwappableParserExampleModel}.
@@ -83,6 +86,40 @@ public class SwappableParserExampleModelTest {
         assertEquals(model2.testField2.testField, "test");
     }
 
+    @Test
+    public void test_ReflectiveFallbackAuditRecordsTestObject() {
+        final ReflectiveFallbackAudit audit = new ReflectiveFallbackAudit();
+        final Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new Stag.Factory())
+                .registerTypeAdapterFactory(audit)
+                .create();
+
+        final SwappableParserExampleModel model = gson.fromJson(swappableParserExampleJsonWithTestObjectField("test"),
+                                                                SwappableParserExampleModel.class);
+        assertEquals("test", model.testField2.testField);
+
+        final List<ReflectiveFallbackAudit.Fallback> fallbacks = audit.getFallbacks();
+        assertEquals(1, fallbacks.size());
+        assertEquals(TestObject.class, fallbacks.get(0).getType().getRawType());
+        assertEquals(ReflectiveFallbackAudit.Kind.REFLECTIVE, fallbacks.get(0).getKind());
+        assertEquals(SwappableParserExampleModel.class.getName() + ".testField2", fallbacks.get(0).getPath());
+    }
+
+    @Test
+    public void test_ReflectiveFallbackAuditFailsFast() {
+        final Gson gson = new GsonBuilder()
+                .registerTypeAdapterFactory(new Stag.Factory())
+                .registerTypeAdapterFactory(new ReflectiveFallbackAudit(true))
+                .create();
+
+        try {
+            gson.getAdapter(SwappableParserExampleModel.class);
+            fail("Expected the audit to reject TestObject");
+        } catch (IllegalStateException e) {
+            assertTrue(e.getMessage().contains(TestObject.class.getName()));
+        }
+    }
+
     /**
      * Creates JSON representing a {@link SwappableParserExampleModel}
      * with a nested {@link TestObject} field that contains a string
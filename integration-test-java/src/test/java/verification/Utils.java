@@ -27,9 +27,12 @@ import com.google.gson.Gson;
 import com.google.gson.TypeAdapter;
 import com.google.gson.reflect.TypeToken;
 import com.vimeo.sample_java_model.stag.generated.Stag;
+import com.vimeo.stag.StagJsonReader;
+import com.vimeo.stag.StagJsonWriter;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 
 import uk.co.jemos.podam.api.PodamFactory;
@@ -80,7 +83,8 @@ public final class Utils {
     /**
      * Verifies that the type adapter for a class is correct. It does this by manufacturing an
      * instance of the class, writing it to JSON, and then reading that object back out of JSON
-     * and comparing the two instances.
+     * and comparing the two instances. The JSON is written and read both with the Gson streams
+     * and with a {@link StagJsonWriter} and {@link StagJsonReader}.
      *
      * @param clazz the {@link Class} to use to get the {@link TypeAdapter}.
      */
@@ -92,14 +96,26 @@ public final class Utils {
         final TypeAdapter<T> typeAdapter = getTypeAdapter(clazz);
         
         T newObject = null;
+        T stagReaderObject = null;
+        String json = null;
+        String stagWriterJson = null;
         if (typeAdapter != null) {
-            final String json = typeAdapter.toJson(object);
+            json = typeAdapter.toJson(object);
             try {
                 newObject = typeAdapter.fromJson(json);
+                stagReaderObject = typeAdapter.read(new StagJsonReader(json.getBytes("UTF-8")));
+
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                StagJsonWriter writer = new StagJsonWriter(outputStream);
+                typeAdapter.write(writer, object);
+                writer.flush();
+                stagWriterJson = new String(outputStream.toByteArray(), "UTF-8");
             } catch (IOException ignored) {}
         }
 
         assertEquals(object, newObject);
+        assertEquals(json, stagWriterJson);
+        assertEquals(object, stagReaderObject);
     }
 
 }
@@ -26,35 +26,31 @@ package com.vimeo.sample.model;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
+import com.vimeo.stag.KnownTypeAdapters;
 
 import java.io.IOException;
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.util.Date;
-import java.util.Locale;
 
 /**
  * The dates returned by the API differ from the
  * default parser provided by gson. Registering
  * this parser with gson ensures that we can
  * correctly handle dates.
+ * <p>
+ * The API returns ISO-8601 dates, which are
+ * handled by {@link KnownTypeAdapters#ISO_8601_DATE}.
+ * Unlike a shared {@link java.text.SimpleDateFormat},
+ * it is thread-safe and does not lock.
  */
 public class DateParser extends TypeAdapter<Date> {
 
-    private static final SimpleDateFormat dateFormat =
-            new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZZZZZ", Locale.ENGLISH);
-
     @Override
     public void write(JsonWriter out, Date value) throws IOException {
-        out.value(dateFormat.format(value));
+        KnownTypeAdapters.ISO_8601_DATE.write(out, value);
     }
 
     @Override
     public Date read(JsonReader in) throws IOException {
-        try {
-            return dateFormat.parse(in.nextString());
-        } catch (ParseException e) {
-            throw new IOException("Date parsing failed", e);
-        }
+        return KnownTypeAdapters.ISO_8601_DATE.read(in);
     }
 }
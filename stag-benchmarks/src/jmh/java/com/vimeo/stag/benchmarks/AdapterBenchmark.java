@@ -0,0 +1,122 @@
+package com.vimeo.stag.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.internal.bind.ReflectiveTypeAdapterFactory;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.vimeo.stag.StagJsonReader;
+import com.vimeo.stag.StagJsonWriter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes and decodes a model with the adapter of a {@link Gson} instance, with Stag registered
+ * or without it. Subclasses pick the model in their setup and pass it to {@link #prepare(Object)}.
+ * <p>
+ * Besides strings, the model is decoded from a {@code byte[]} and an {@link InputStream} and
+ * encoded to an {@link OutputStream} of UTF-8. With Stag, these go through {@link StagJsonReader}
+ * and {@link StagJsonWriter}, which work on the bytes directly. Without it, they go through Gson's
+ * own reader and writer wrapped around an {@link InputStreamReader} or {@link OutputStreamWriter},
+ * since Gson's map adapter cannot read from a {@link StagJsonReader}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public abstract class AdapterBenchmark {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Param({"true", "false"})
+    public boolean stag;
+
+    private TypeAdapter<Object> mAdapter;
+    private Object mModel;
+    private String mJson;
+    private byte[] mJsonBytes;
+
+    @SuppressWarnings("unchecked")
+    protected void prepare(Object model) throws IOException {
+        Gson gson = Gsons.create(stag);
+        mAdapter = (TypeAdapter<Object>) gson.getAdapter(model.getClass());
+        if (stag && mAdapter instanceof ReflectiveTypeAdapterFactory.Adapter) {
+            throw new IllegalStateException("Stag did not provide an adapter for " + model.getClass());
+        }
+        mModel = model;
+        mJson = mAdapter.toJson(model);
+        mJsonBytes = mJson.getBytes(UTF_8);
+
+        // Maps may be written in a different order, so the trees are compared rather than the strings.
+        JsonParser parser = new JsonParser();
+        if (!parser.parse(mAdapter.toJson(mAdapter.fromJson(mJson))).equals(parser.parse(mJson))) {
+            throw new IllegalStateException("The model does not survive a round trip: " + mJson);
+        }
+        String bytesJson = new String(encodeOutputStream(), UTF_8);
+        if (!parser.parse(mAdapter.toJson(decodeBytes())).equals(parser.parse(mJson))
+                || !parser.parse(mAdapter.toJson(decodeInputStream())).equals(parser.parse(mJson))
+                || !parser.parse(bytesJson).equals(parser.parse(mJson))) {
+            throw new IllegalStateException("The model does not survive a round trip through bytes: " + bytesJson);
+        }
+    }
+
+    @Benchmark
+    public String encode() {
+        return mAdapter.toJson(mModel);
+    }
+
+    @Benchmark
+    public Object decode() throws IOException {
+        return mAdapter.fromJson(mJson);
+    }
+
+    @Benchmark
+    public byte[] encodeOutputStream() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream(mJsonBytes.length);
+        JsonWriter writer = stag
+                ? new StagJsonWriter(outputStream)
+                : new JsonWriter(new OutputStreamWriter(outputStream, UTF_8));
+        mAdapter.write(writer, mModel);
+        writer.flush();
+        return outputStream.toByteArray();
+    }
+
+    @Benchmark
+    public Object decodeBytes() throws IOException {
+        JsonReader reader = stag
+                ? new StagJsonReader(mJsonBytes)
+                : new JsonReader(new InputStreamReader(new ByteArrayInputStream(mJsonBytes), UTF_8));
+        return mAdapter.read(reader);
+    }
+
+    @Benchmark
+    public Object decodeInputStream() throws IOException {
+        InputStream inputStream = new ByteArrayInputStream(mJsonBytes);
+        JsonReader reader = stag
+                ? new StagJsonReader(inputStream)
+                : new JsonReader(new InputStreamReader(inputStream, UTF_8));
+        return mAdapter.read(reader);
+    }
+}
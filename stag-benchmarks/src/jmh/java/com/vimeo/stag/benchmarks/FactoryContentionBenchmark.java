@@ -0,0 +1,95 @@
+package com.vimeo.stag.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.vimeo.stag.benchmarks.model.CollectionModel;
+import com.vimeo.stag.benchmarks.model.DeepModel;
+import com.vimeo.stag.benchmarks.model.EnumModel;
+import com.vimeo.stag.benchmarks.model.FlatModel;
+import com.vimeo.stag.benchmarks.model.WideModel;
+import com.vimeo.stag.benchmarks.stag.generated.Stag;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Calls {@code Stag.Factory.create} directly from one thread and from as many threads as there
+ * are cores, all sharing one factory, to show whether the package dispatch serializes threads.
+ * Types the factory does not know measure the dispatch alone, while known types also create
+ * their adapter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class FactoryContentionBenchmark {
+
+    private static final TypeToken<?>[] KNOWN_TYPES = {
+            TypeToken.get(FlatModel.class),
+            TypeToken.get(DeepModel.class),
+            TypeToken.get(WideModel.class),
+            TypeToken.get(CollectionModel.class),
+            TypeToken.get(EnumModel.class)
+    };
+
+    private static final TypeToken<?>[] UNKNOWN_TYPES = {
+            TypeToken.get(String.class),
+            TypeToken.get(Integer.class),
+            TypeToken.get(ArrayList.class),
+            TypeToken.get(HashMap.class),
+            TypeToken.get(List.class)
+    };
+
+    // Field adapters are looked up in this instance, where they are cached after the first call.
+    private final Gson mGson = Gsons.create(true);
+    private final Stag.Factory mFactory = new Stag.Factory();
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int mIndex;
+
+        int next(int length) {
+            mIndex = mIndex + 1 == length ? 0 : mIndex + 1;
+            return mIndex;
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object dispatchMissSingleThread(Cursor cursor) {
+        return mFactory.create(mGson, UNKNOWN_TYPES[cursor.next(UNKNOWN_TYPES.length)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object dispatchMissContended(Cursor cursor) {
+        return mFactory.create(mGson, UNKNOWN_TYPES[cursor.next(UNKNOWN_TYPES.length)]);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object createSingleThread(Cursor cursor) {
+        return mFactory.create(mGson, KNOWN_TYPES[cursor.next(KNOWN_TYPES.length)]);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Object createContended(Cursor cursor) {
+        return mFactory.create(mGson, KNOWN_TYPES[cursor.next(KNOWN_TYPES.length)]);
+    }
+}
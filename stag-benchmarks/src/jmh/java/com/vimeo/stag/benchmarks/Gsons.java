@@ -0,0 +1,26 @@
+package com.vimeo.stag.benchmarks;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.vimeo.stag.benchmarks.stag.generated.Stag;
+
+final class Gsons {
+
+    private Gsons() {
+        throw new UnsupportedOperationException("This class is not instantiable");
+    }
+
+    /**
+     * Creates a {@link Gson} instance with the Stag factories of this module and of the
+     * integration-test-java module registered, or a plain one that uses reflection.
+     */
+    static Gson create(boolean stag) {
+        if (!stag) {
+            return new Gson();
+        }
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new com.vimeo.sample_java_model.stag.generated.Stag.Factory())
+                .registerTypeAdapterFactory(new Stag.Factory())
+                .create();
+    }
+}
@@ -0,0 +1,76 @@
+package com.vimeo.stag.benchmarks;
+
+import com.vimeo.sample_java_model.AlternateNameModel;
+import com.vimeo.sample_java_model.BooleanFields;
+import com.vimeo.sample_java_model.ConcreteDataList;
+import com.vimeo.sample_java_model.ExternalModel1;
+import com.vimeo.sample_java_model.NativeArrayTypes;
+import com.vimeo.sample_java_model.PublicFieldsNoHungarian;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.io.IOException;
+
+/**
+ * Compares Stag with reflection for the models of the integration-test-java module.
+ */
+public class IntegrationModelBenchmark extends AdapterBenchmark {
+
+    @Param({"AlternateNameModel", "BooleanFields", "ConcreteDataList", "ExternalModel1", "NativeArrayTypes",
+            "PublicFieldsNoHungarian"})
+    public String model;
+
+    @Setup
+    public void setUp() throws IOException {
+        // The fixture is always read with Stag, so that both sides encode the same object.
+        prepare(Gsons.create(true).fromJson(getJson(model), getType(model)));
+    }
+
+    private static Class<?> getType(String model) {
+        switch (model) {
+            case "AlternateNameModel":
+                return AlternateNameModel.class;
+            case "BooleanFields":
+                return BooleanFields.class;
+            case "ConcreteDataList":
+                return ConcreteDataList.class;
+            case "ExternalModel1":
+                return ExternalModel1.class;
+            case "NativeArrayTypes":
+                return NativeArrayTypes.class;
+            case "PublicFieldsNoHungarian":
+                return PublicFieldsNoHungarian.class;
+            default:
+                throw new IllegalArgumentException("Unknown model: " + model);
+        }
+    }
+
+    private static String getJson(String model) {
+        switch (model) {
+            case "AlternateNameModel":
+                return "{\"Nougat\":\"7.0\",\"7.0\":\"Nougat\"}";
+            case "BooleanFields":
+                return "{\"test1\":true,\"test2\":false,\"test3\":true,\"test4\":false,"
+                        + "\"test5\":true,\"test6\":false,\"test7\":true,\"test8\":false}";
+            case "ConcreteDataList":
+                StringBuilder builder = new StringBuilder("{\"page\":2,\"paging\":{\"type\":\"next\",\"base_value\":1},\"data\":[");
+                for (int idx = 0; idx < 32; idx++) {
+                    if (idx > 0) {
+                        builder.append(',');
+                    }
+                    builder.append("{\"type\":\"video").append(idx).append("\",\"base_value\":").append(idx).append('}');
+                }
+                return builder.append("]}").toString();
+            case "ExternalModel1":
+                return "{\"field1\":\"outer\",\"genericField\":{\"field2\":\"inner\",\"genericField\":\"generic\"}}";
+            case "NativeArrayTypes":
+                return "{\"mStrings\":[\"a\",\"b\",\"c\",\"d\"],\"mIntegers\":[1,2,3,4,5,6,7,8],"
+                        + "\"mBooleans\":[true,false,true],\"mInts\":[10,20,30,40,50,60,70,80],\"mBools\":[false,true]}";
+            case "PublicFieldsNoHungarian":
+                return "{\"name\":\"first\",\"name_2\":\"second\"}";
+            default:
+                throw new IllegalArgumentException("Unknown model: " + model);
+        }
+    }
+}
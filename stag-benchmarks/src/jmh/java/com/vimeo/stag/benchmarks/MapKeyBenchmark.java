@@ -0,0 +1,41 @@
+package com.vimeo.stag.benchmarks;
+
+import com.vimeo.stag.benchmarks.model.MapKeyModels;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.io.IOException;
+
+/**
+ * Compares how maps with string, number and enum keys are encoded and decoded. Stag converts
+ * the keys to and from JSON names directly, while Gson's map adapter promotes each name to a
+ * value and runs it through the adapter of the key type.
+ */
+public class MapKeyBenchmark extends AdapterBenchmark {
+
+    private static final int SIZE = 256;
+
+    @Param({"string", "integer", "long", "enum"})
+    public String keyType;
+
+    @Setup
+    public void setUp() throws IOException {
+        prepare(createModel(keyType));
+    }
+
+    private static Object createModel(String keyType) {
+        switch (keyType) {
+            case "string":
+                return MapKeyModels.createStringKeys(SIZE);
+            case "integer":
+                return MapKeyModels.createIntegerKeys(SIZE);
+            case "long":
+                return MapKeyModels.createLongKeys(SIZE);
+            case "enum":
+                return MapKeyModels.createEnumKeys();
+            default:
+                throw new IllegalArgumentException("Unknown key type: " + keyType);
+        }
+    }
+}
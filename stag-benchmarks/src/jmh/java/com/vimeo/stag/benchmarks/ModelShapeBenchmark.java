@@ -0,0 +1,44 @@
+package com.vimeo.stag.benchmarks;
+
+import com.vimeo.stag.benchmarks.model.CollectionModel;
+import com.vimeo.stag.benchmarks.model.DeepModel;
+import com.vimeo.stag.benchmarks.model.EnumModel;
+import com.vimeo.stag.benchmarks.model.FlatModel;
+import com.vimeo.stag.benchmarks.model.WideModel;
+
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import java.io.IOException;
+
+/**
+ * Compares Stag with reflection across the synthetic model shapes in
+ * {@link com.vimeo.stag.benchmarks.model}.
+ */
+public class ModelShapeBenchmark extends AdapterBenchmark {
+
+    @Param({"flat", "deep", "wide", "collections", "enums"})
+    public String shape;
+
+    @Setup
+    public void setUp() throws IOException {
+        prepare(createModel(shape));
+    }
+
+    private static Object createModel(String shape) {
+        switch (shape) {
+            case "flat":
+                return FlatModel.create(42);
+            case "deep":
+                return DeepModel.create(32);
+            case "wide":
+                return WideModel.create(42);
+            case "collections":
+                return CollectionModel.create(64);
+            case "enums":
+                return EnumModel.create(42);
+            default:
+                throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+    }
+}
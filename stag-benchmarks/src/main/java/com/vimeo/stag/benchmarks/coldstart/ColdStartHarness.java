@@ -0,0 +1,213 @@
+package com.vimeo.stag.benchmarks.coldstart;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.vimeo.stag.benchmarks.stag.generated.Stag;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures the cold start of Gson with the Stag factory registered against plain reflective Gson.
+ * JMH only measures the steady state, while command line tools and short lived processes mostly
+ * pay for the first parse, so every run of {@link ColdStartProbe} happens in a fresh JVM. The
+ * harness reports the median time of each phase, the median wall time of the whole process and the
+ * number of classes loaded during each phase.
+ * <p>
+ * Usage: {@code ColdStartHarness [forks per mode]}. The classes are counted in one extra fork per
+ * mode started with {@code -verbose:class}, which also warms the file system cache, because
+ * printing every loaded class would slow down the timed forks. The timed forks of the two modes are
+ * interleaved so that drift in the machine affects both equally.
+ */
+public final class ColdStartHarness {
+
+    private static final int DEFAULT_FORKS = 10;
+    private static final String[] MODES = {"reflective", "stag"};
+    private static final String[] PHASES = {"startup", "create", "getAdapter", "decode"};
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private ColdStartHarness() {
+        throw new UnsupportedOperationException("This class is not instantiable");
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int forks = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_FORKS;
+        if (forks < 1) {
+            throw new IllegalArgumentException("At least one fork per mode is required: " + forks);
+        }
+
+        File fixtures = writeFixtures();
+        try {
+            List<Run> classRuns = new ArrayList<>();
+            List<List<Run>> timedRuns = new ArrayList<>();
+            for (String mode : MODES) {
+                classRuns.add(fork(mode, fixtures, true));
+                timedRuns.add(new ArrayList<Run>());
+            }
+            for (int fork = 0; fork < forks; fork++) {
+                for (int modeIndex = 0; modeIndex < MODES.length; modeIndex++) {
+                    timedRuns.get(modeIndex).add(fork(MODES[modeIndex], fixtures, false));
+                }
+            }
+            report(forks, timedRuns, classRuns);
+        } finally {
+            if (!fixtures.delete()) {
+                fixtures.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Writes the root models of {@link ColdStartProbe#createRootModels()} to a temporary file, one
+     * line of JSON each. The probe only reads this file, so it never encodes before it decodes.
+     */
+    private static File writeFixtures() throws IOException {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new Stag.Factory()).create();
+        File file = File.createTempFile("stag-cold-start", ".json");
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8)) {
+            for (Object model : ColdStartProbe.createRootModels()) {
+                writer.write(gson.toJson(model));
+                writer.write('\n');
+            }
+        }
+        return file;
+    }
+
+    private static Run fork(String mode, File fixtures, boolean verboseClass)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        if (verboseClass) {
+            command.add("-verbose:class");
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ColdStartProbe.class.getName());
+        command.add(mode);
+        command.add(fixtures.getAbsolutePath());
+        ProcessBuilder builder = new ProcessBuilder(command);
+        builder.redirectErrorStream(true);
+
+        long start = System.nanoTime();
+        Process process = builder.start();
+        Run run = new Run();
+        List<String> output = new ArrayList<>();
+        int phase = -1;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (isClassLoad(line)) {
+                    // Classes loaded before the begin marker belong to the startup of the JVM and
+                    // the probe, those loaded after the decode marker to its shutdown.
+                    int index = phase < 0 ? 0 : phase;
+                    if (index < PHASES.length) {
+                        run.mLoadedClasses[index]++;
+                    }
+                } else if (line.equals(ColdStartProbe.MARKER_BEGIN)) {
+                    phase = 1;
+                } else if (line.equals(ColdStartProbe.MARKER_CREATE)
+                        || line.equals(ColdStartProbe.MARKER_GET_ADAPTER)
+                        || line.equals(ColdStartProbe.MARKER_DECODE)) {
+                    phase++;
+                } else if (line.startsWith(ColdStartProbe.RESULT_PREFIX)) {
+                    String[] nanos = line.substring(ColdStartProbe.RESULT_PREFIX.length()).split(" ");
+                    for (int idx = 0; idx < nanos.length; idx++) {
+                        run.mPhaseNanos[idx + 1] = Long.parseLong(nanos[idx]);
+                    }
+                    run.mComplete = true;
+                } else {
+                    output.add(line);
+                }
+            }
+        }
+        int exitCode = process.waitFor();
+        run.mProcessNanos = System.nanoTime() - start;
+        if (exitCode != 0 || !run.mComplete) {
+            throw new IllegalStateException("The " + mode + " probe failed with exit code " + exitCode
+                    + ":\n" + join(output));
+        }
+        return run;
+    }
+
+    /**
+     * Whether the line is a class load reported by {@code -verbose:class}, which prints
+     * {@code [Loaded name from source]} up to Java 8 and logs to the {@code class,load} tag since.
+     */
+    private static boolean isClassLoad(String line) {
+        return line.startsWith("[Loaded ") || line.contains("[class,load]");
+    }
+
+    private static void report(int forks, List<List<Run>> timedRuns, List<Run> classRuns) {
+        System.out.println(String.format(Locale.US, "Cold start, median time of %d forks per mode", forks));
+        StringBuilder header = new StringBuilder(String.format(Locale.US, "%-24s", ""));
+        for (String mode : MODES) {
+            header.append(String.format(Locale.US, "%14s", mode));
+        }
+        System.out.println(header);
+
+        for (int phase = 1; phase < PHASES.length; phase++) {
+            StringBuilder row = new StringBuilder(String.format(Locale.US, "%-24s", PHASES[phase] + " (ms)"));
+            for (List<Run> modeRuns : timedRuns) {
+                long[] values = new long[modeRuns.size()];
+                for (int idx = 0; idx < values.length; idx++) {
+                    values[idx] = modeRuns.get(idx).mPhaseNanos[phase];
+                }
+                row.append(String.format(Locale.US, "%14.2f", median(values) / 1e6));
+            }
+            System.out.println(row);
+        }
+
+        StringBuilder processRow = new StringBuilder(String.format(Locale.US, "%-24s", "process (ms)"));
+        for (List<Run> modeRuns : timedRuns) {
+            long[] values = new long[modeRuns.size()];
+            for (int idx = 0; idx < values.length; idx++) {
+                values[idx] = modeRuns.get(idx).mProcessNanos;
+            }
+            processRow.append(String.format(Locale.US, "%14.2f", median(values) / 1e6));
+        }
+        System.out.println(processRow);
+
+        for (int phase = 0; phase < PHASES.length; phase++) {
+            StringBuilder row = new StringBuilder(String.format(Locale.US, "%-24s", PHASES[phase] + " (classes)"));
+            for (Run classRun : classRuns) {
+                row.append(String.format(Locale.US, "%14d", classRun.mLoadedClasses[phase]));
+            }
+            System.out.println(row);
+        }
+    }
+
+    private static long median(long[] values) {
+        long[] sorted = Arrays.copyOf(values, values.length);
+        Arrays.sort(sorted);
+        return sorted[sorted.length / 2];
+    }
+
+    private static String join(List<String> lines) {
+        StringBuilder builder = new StringBuilder();
+        for (String line : lines) {
+            builder.append(line).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * The measurements of a single fork, indexed by phase.
+     */
+    private static final class Run {
+
+        final long[] mPhaseNanos = new long[PHASES.length];
+        final long[] mLoadedClasses = new long[PHASES.length];
+        long mProcessNanos;
+        boolean mComplete;
+    }
+}
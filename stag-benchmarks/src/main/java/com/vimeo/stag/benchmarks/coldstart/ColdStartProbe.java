@@ -0,0 +1,133 @@
+package com.vimeo.stag.benchmarks.coldstart;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.vimeo.stag.benchmarks.model.CollectionModel;
+import com.vimeo.stag.benchmarks.model.DeepModel;
+import com.vimeo.stag.benchmarks.model.EnumModel;
+import com.vimeo.stag.benchmarks.model.FlatModel;
+import com.vimeo.stag.benchmarks.model.WideModel;
+import com.vimeo.stag.benchmarks.stag.generated.Stag;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The program that {@link ColdStartHarness} runs in a fresh JVM. It times the creation of the
+ * {@link Gson} instance, the first {@link Gson#getAdapter(Class)} for each of the root models and
+ * the first decode of each of them, and prints a marker after each phase so that the harness can
+ * attribute the classes reported by {@code -verbose:class} to the phase that loaded them.
+ * <p>
+ * Usage: {@code ColdStartProbe <stag|reflective> <fixture file>}, where the fixture file holds
+ * one line of JSON per root model, in the order of {@link #createRootModels()}.
+ */
+public final class ColdStartProbe {
+
+    static final String MARKER_BEGIN = "coldstart:begin";
+    static final String MARKER_CREATE = "coldstart:create";
+    static final String MARKER_GET_ADAPTER = "coldstart:getAdapter";
+    static final String MARKER_DECODE = "coldstart:decode";
+    static final String RESULT_PREFIX = "coldstart:result ";
+
+    static final int ROOT_MODEL_COUNT = 5;
+
+    private ColdStartProbe() {
+        throw new UnsupportedOperationException("This class is not instantiable");
+    }
+
+    /**
+     * Creates the root models that the fixture file is written from, in the order that the probe
+     * decodes them.
+     */
+    static Object[] createRootModels() {
+        return new Object[]{
+                FlatModel.create(42),
+                DeepModel.create(8),
+                WideModel.create(42),
+                CollectionModel.create(16),
+                EnumModel.create(42)
+        };
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: ColdStartProbe <stag|reflective> <fixture file>");
+        }
+        boolean stag = "stag".equals(args[0]);
+        List<String> fixtures = readFixtures(args[1]);
+        System.out.println(MARKER_BEGIN);
+
+        long start = System.nanoTime();
+        Gson gson = GsonCreator.create(stag);
+        long created = System.nanoTime();
+        System.out.println(MARKER_CREATE);
+
+        // The class literals are only resolved here, so loading the models counts towards this phase.
+        Class<?>[] rootModels = {
+                FlatModel.class,
+                DeepModel.class,
+                WideModel.class,
+                CollectionModel.class,
+                EnumModel.class
+        };
+        long getAdapterStart = System.nanoTime();
+        for (Class<?> rootModel : rootModels) {
+            gson.getAdapter(rootModel);
+        }
+        long getAdapterEnd = System.nanoTime();
+        System.out.println(MARKER_GET_ADAPTER);
+
+        long decodeStart = System.nanoTime();
+        for (int idx = 0; idx < rootModels.length; idx++) {
+            if (gson.fromJson(fixtures.get(idx), rootModels[idx]) == null) {
+                throw new IllegalStateException("Decoded a null " + rootModels[idx]);
+            }
+        }
+        long decodeEnd = System.nanoTime();
+        System.out.println(MARKER_DECODE);
+
+        System.out.println(RESULT_PREFIX + (created - start) + ' ' + (getAdapterEnd - getAdapterStart)
+                + ' ' + (decodeEnd - decodeStart));
+    }
+
+    private static List<String> readFixtures(String path) throws IOException {
+        List<String> fixtures = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(path),
+                Charset.forName("UTF-8")))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                fixtures.add(line);
+            }
+        }
+        if (fixtures.size() != ROOT_MODEL_COUNT) {
+            throw new IllegalArgumentException("Expected " + ROOT_MODEL_COUNT + " fixtures in " + path
+                    + " but found " + fixtures.size());
+        }
+        return fixtures;
+    }
+
+    /**
+     * Creates the {@link Gson} instance. Verifying a class that passes {@link Stag.Factory} as a
+     * {@link com.google.gson.TypeAdapterFactory} loads the factory interface, so this is kept out
+     * of the probe itself, whose classes are loaded before the begin marker.
+     */
+    private static final class GsonCreator {
+
+        private GsonCreator() {
+            throw new UnsupportedOperationException("This class is not instantiable");
+        }
+
+        static Gson create(boolean stag) {
+            GsonBuilder builder = new GsonBuilder();
+            if (stag) {
+                builder.registerTypeAdapterFactory(new Stag.Factory());
+            }
+            return builder.create();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.vimeo.stag.benchmarks.model;
+
+import com.google.gson.annotations.SerializedName;
+import com.vimeo.stag.UseStag;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A model made mostly of lists, arrays and maps.
+ */
+@UseStag
+public class CollectionModel {
+
+    @SerializedName("tags")
+    List<String> mTags;
+
+    @SerializedName("ids")
+    List<Integer> mIds;
+
+    @SerializedName("counts")
+    int[] mCounts;
+
+    @SerializedName("attributes")
+    Map<String, String> mAttributes;
+
+    @SerializedName("groups")
+    Map<String, List<Integer>> mGroups;
+
+    @SerializedName("items")
+    List<FlatModel> mItems;
+
+    public static CollectionModel create(int size) {
+        CollectionModel model = new CollectionModel();
+        model.mTags = new ArrayList<>();
+        model.mIds = new ArrayList<>();
+        model.mCounts = new int[size];
+        model.mAttributes = new HashMap<>();
+        model.mGroups = new HashMap<>();
+        model.mItems = new ArrayList<>();
+        for (int idx = 0; idx < size; idx++) {
+            model.mTags.add("tag" + idx);
+            model.mIds.add(100000 + idx);
+            model.mCounts[idx] = idx * idx;
+            model.mAttributes.put("key" + idx, "value" + idx);
+            List<Integer> group = new ArrayList<>();
+            for (int member = 0; member < 4; member++) {
+                group.add(idx * 4 + member);
+            }
+            model.mGroups.put("group" + idx, group);
+            if (idx % 4 == 0) {
+                model.mItems.add(FlatModel.create(idx));
+            }
+        }
+        return model;
+    }
+}
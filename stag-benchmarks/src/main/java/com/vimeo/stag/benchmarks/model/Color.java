@@ -0,0 +1,22 @@
+package com.vimeo.stag.benchmarks.model;
+
+import com.google.gson.annotations.SerializedName;
+import com.vimeo.stag.UseStag;
+
+@UseStag
+public enum Color {
+    @SerializedName("red")
+    RED,
+    @SerializedName("orange")
+    ORANGE,
+    @SerializedName("yellow")
+    YELLOW,
+    @SerializedName("green")
+    GREEN,
+    @SerializedName("blue")
+    BLUE,
+    @SerializedName("indigo")
+    INDIGO,
+    @SerializedName("violet")
+    VIOLET
+}
@@ -0,0 +1,32 @@
+package com.vimeo.stag.benchmarks.model;
+
+import com.google.gson.annotations.SerializedName;
+import com.vimeo.stag.UseStag;
+
+/**
+ * A model nested in itself, to measure the cost of descending into child adapters.
+ */
+@UseStag
+public class DeepModel {
+
+    @SerializedName("name")
+    String mName;
+
+    @SerializedName("depth")
+    int mDepth;
+
+    @SerializedName("child")
+    DeepModel mChild;
+
+    public static DeepModel create(int depth) {
+        DeepModel root = null;
+        for (int level = depth; level > 0; level--) {
+            DeepModel model = new DeepModel();
+            model.mName = "level " + level;
+            model.mDepth = level;
+            model.mChild = root;
+            root = model;
+        }
+        return root;
+    }
+}
@@ -0,0 +1,49 @@
+package com.vimeo.stag.benchmarks.model;
+
+import com.google.gson.annotations.SerializedName;
+import com.vimeo.stag.UseStag;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A model made mostly of enums, to measure the cost of matching constant names.
+ */
+@UseStag
+public class EnumModel {
+
+    @SerializedName("primary")
+    Color mPrimary;
+
+    @SerializedName("secondary")
+    Color mSecondary;
+
+    @SerializedName("status")
+    Status mStatus;
+
+    @SerializedName("previous_status")
+    Status mPreviousStatus;
+
+    @SerializedName("palette")
+    List<Color> mPalette;
+
+    @SerializedName("history")
+    List<Status> mHistory;
+
+    public static EnumModel create(int seed) {
+        Color[] colors = Color.values();
+        Status[] statuses = Status.values();
+        EnumModel model = new EnumModel();
+        model.mPrimary = colors[seed % colors.length];
+        model.mSecondary = colors[(seed + 3) % colors.length];
+        model.mStatus = statuses[seed % statuses.length];
+        model.mPreviousStatus = statuses[(seed + 1) % statuses.length];
+        model.mPalette = new ArrayList<>();
+        model.mHistory = new ArrayList<>();
+        for (int idx = 0; idx < 32; idx++) {
+            model.mPalette.add(colors[(seed + idx) % colors.length]);
+            model.mHistory.add(statuses[(seed + idx) % statuses.length]);
+        }
+        return model;
+    }
+}
@@ -0,0 +1,56 @@
+package com.vimeo.stag.benchmarks.model;
+
+import com.google.gson.annotations.SerializedName;
+import com.vimeo.stag.UseStag;
+
+/**
+ * A model with only primitive, boxed and string fields.
+ */
+@UseStag
+public class FlatModel {
+
+    @SerializedName("id")
+    String mId;
+
+    @SerializedName("name")
+    String mName;
+
+    @SerializedName("description")
+    String mDescription;
+
+    @SerializedName("count")
+    int mCount;
+
+    @SerializedName("created_at")
+    long mCreatedAt;
+
+    @SerializedName("score")
+    double mScore;
+
+    @SerializedName("ratio")
+    float mRatio;
+
+    @SerializedName("active")
+    boolean mActive;
+
+    @SerializedName("boxed_count")
+    Integer mBoxedCount;
+
+    @SerializedName("boxed_time")
+    Long mBoxedTime;
+
+    public static FlatModel create(int seed) {
+        FlatModel model = new FlatModel();
+        model.mId = "id-" + seed;
+        model.mName = "Name " + seed;
+        model.mDescription = "A description of the model with seed " + seed + " that is a little longer";
+        model.mCount = seed * 31;
+        model.mCreatedAt = 1500000000000L + seed;
+        model.mScore = seed / 7.0;
+        model.mRatio = seed / 3.0f;
+        model.mActive = seed % 2 == 0;
+        model.mBoxedCount = seed;
+        model.mBoxedTime = 1500000000000L - seed;
+        return model;
+    }
+}
@@ -0,0 +1,83 @@
+package com.vimeo.stag.benchmarks.model;
+
+import com.google.gson.annotations.SerializedName;
+import com.vimeo.stag.UseStag;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Models that each hold a single map with a different key type, to compare how map keys are
+ * decoded from and encoded to JSON names.
+ */
+public final class MapKeyModels {
+
+    private MapKeyModels() {
+        throw new UnsupportedOperationException("This class is not instantiable");
+    }
+
+    @UseStag
+    public static class StringKeys {
+        @SerializedName("values")
+        Map<String, Integer> mValues;
+    }
+
+    @UseStag
+    public static class IntegerKeys {
+        @SerializedName("values")
+        Map<Integer, Integer> mValues;
+    }
+
+    @UseStag
+    public static class LongKeys {
+        @SerializedName("values")
+        Map<Long, Integer> mValues;
+    }
+
+    @UseStag
+    public static class EnumKeys {
+        @SerializedName("values")
+        Map<Status, Integer> mValues;
+    }
+
+    public static StringKeys createStringKeys(int size) {
+        StringKeys model = new StringKeys();
+        model.mValues = new HashMap<>();
+        for (int idx = 0; idx < size; idx++) {
+            model.mValues.put("key" + idx, idx);
+        }
+        return model;
+    }
+
+    public static IntegerKeys createIntegerKeys(int size) {
+        IntegerKeys model = new IntegerKeys();
+        model.mValues = new HashMap<>();
+        for (int idx = 0; idx < size; idx++) {
+            model.mValues.put(100000 + idx, idx);
+        }
+        return model;
+    }
+
+    public static LongKeys createLongKeys(int size) {
+        LongKeys model = new LongKeys();
+        model.mValues = new HashMap<>();
+        for (int idx = 0; idx < size; idx++) {
+            model.mValues.put(1500000000000L + idx, idx);
+        }
+        return model;
+    }
+
+    /**
+     * An enum keyed map can hold at most one entry per constant, so the size is the number of
+     * constants. {@link Status} is used because Gson writes map keys with {@code String.valueOf},
+     * so it cannot read back keys of an enum with {@code @SerializedName} constants.
+     */
+    public static EnumKeys createEnumKeys() {
+        EnumKeys model = new EnumKeys();
+        model.mValues = new HashMap<>();
+        for (Status status : Status.values()) {
+            model.mValues.put(status, status.ordinal());
+        }
+        return model;
+    }
+}
@@ -0,0 +1,11 @@
+package com.vimeo.stag.benchmarks.model;
+
+import com.vimeo.stag.UseStag;
+
+@UseStag
+public enum Status {
+    AVAILABLE,
+    TRANSCODING,
+    UPLOADING,
+    FAILED
+}
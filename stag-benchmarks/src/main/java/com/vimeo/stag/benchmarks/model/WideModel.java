@@ -0,0 +1,208 @@
+package com.vimeo.stag.benchmarks.model;
+
+import com.google.gson.annotations.SerializedName;
+import com.vimeo.stag.UseStag;
+
+/**
+ * A model with many fields, to measure the cost of matching field names.
+ */
+@UseStag
+public class WideModel {
+
+    @SerializedName("field_0")
+    int mField0;
+
+    @SerializedName("field_1")
+    String mField1;
+
+    @SerializedName("field_2")
+    long mField2;
+
+    @SerializedName("field_3")
+    double mField3;
+
+    @SerializedName("field_4")
+    boolean mField4;
+
+    @SerializedName("field_5")
+    Integer mField5;
+
+    @SerializedName("field_6")
+    int mField6;
+
+    @SerializedName("field_7")
+    String mField7;
+
+    @SerializedName("field_8")
+    long mField8;
+
+    @SerializedName("field_9")
+    double mField9;
+
+    @SerializedName("field_10")
+    boolean mField10;
+
+    @SerializedName("field_11")
+    Integer mField11;
+
+    @SerializedName("field_12")
+    int mField12;
+
+    @SerializedName("field_13")
+    String mField13;
+
+    @SerializedName("field_14")
+    long mField14;
+
+    @SerializedName("field_15")
+    double mField15;
+
+    @SerializedName("field_16")
+    boolean mField16;
+
+    @SerializedName("field_17")
+    Integer mField17;
+
+    @SerializedName("field_18")
+    int mField18;
+
+    @SerializedName("field_19")
+    String mField19;
+
+    @SerializedName("field_20")
+    long mField20;
+
+    @SerializedName("field_21")
+    double mField21;
+
+    @SerializedName("field_22")
+    boolean mField22;
+
+    @SerializedName("field_23")
+    Integer mField23;
+
+    @SerializedName("field_24")
+    int mField24;
+
+    @SerializedName("field_25")
+    String mField25;
+
+    @SerializedName("field_26")
+    long mField26;
+
+    @SerializedName("field_27")
+    double mField27;
+
+    @SerializedName("field_28")
+    boolean mField28;
+
+    @SerializedName("field_29")
+    Integer mField29;
+
+    @SerializedName("field_30")
+    int mField30;
+
+    @SerializedName("field_31")
+    String mField31;
+
+    @SerializedName("field_32")
+    long mField32;
+
+    @SerializedName("field_33")
+    double mField33;
+
+    @SerializedName("field_34")
+    boolean mField34;
+
+    @SerializedName("field_35")
+    Integer mField35;
+
+    @SerializedName("field_36")
+    int mField36;
+
+    @SerializedName("field_37")
+    String mField37;
+
+    @SerializedName("field_38")
+    long mField38;
+
+    @SerializedName("field_39")
+    double mField39;
+
+    @SerializedName("field_40")
+    boolean mField40;
+
+    @SerializedName("field_41")
+    Integer mField41;
+
+    @SerializedName("field_42")
+    int mField42;
+
+    @SerializedName("field_43")
+    String mField43;
+
+    @SerializedName("field_44")
+    long mField44;
+
+    @SerializedName("field_45")
+    double mField45;
+
+    @SerializedName("field_46")
+    boolean mField46;
+
+    @SerializedName("field_47")
+    Integer mField47;
+
+    public static WideModel create(int seed) {
+        WideModel model = new WideModel();
+        model.mField0 = (seed + 0) * 17;
+        model.mField1 = "value " + (seed + 1);
+        model.mField2 = 1500000000000L + (seed + 2);
+        model.mField3 = (seed + 3) / 3.0;
+        model.mField4 = (seed + 4) % 2 == 0;
+        model.mField5 = (seed + 5);
+        model.mField6 = (seed + 6) * 17;
+        model.mField7 = "value " + (seed + 7);
+        model.mField8 = 1500000000000L + (seed + 8);
+        model.mField9 = (seed + 9) / 3.0;
+        model.mField10 = (seed + 10) % 2 == 0;
+        model.mField11 = (seed + 11);
+        model.mField12 = (seed + 12) * 17;
+        model.mField13 = "value " + (seed + 13);
+        model.mField14 = 1500000000000L + (seed + 14);
+        model.mField15 = (seed + 15) / 3.0;
+        model.mField16 = (seed + 16) % 2 == 0;
+        model.mField17 = (seed + 17);
+        model.mField18 = (seed + 18) * 17;
+        model.mField19 = "value " + (seed + 19);
+        model.mField20 = 1500000000000L + (seed + 20);
+        model.mField21 = (seed + 21) / 3.0;
+        model.mField22 = (seed + 22) % 2 == 0;
+        model.mField23 = (seed + 23);
+        model.mField24 = (seed + 24) * 17;
+        model.mField25 = "value " + (seed + 25);
+        model.mField26 = 1500000000000L + (seed + 26);
+        model.mField27 = (seed + 27) / 3.0;
+        model.mField28 = (seed + 28) % 2 == 0;
+        model.mField29 = (seed + 29);
+        model.mField30 = (seed + 30) * 17;
+        model.mField31 = "value " + (seed + 31);
+        model.mField32 = 1500000000000L + (seed + 32);
+        model.mField33 = (seed + 33) / 3.0;
+        model.mField34 = (seed + 34) % 2 == 0;
+        model.mField35 = (seed + 35);
+        model.mField36 = (seed + 36) * 17;
+        model.mField37 = "value " + (seed + 37);
+        model.mField38 = 1500000000000L + (seed + 38);
+        model.mField39 = (seed + 39) / 3.0;
+        model.mField40 = (seed + 40) % 2 == 0;
+        model.mField41 = (seed + 41);
+        model.mField42 = (seed + 42) * 17;
+        model.mField43 = "value " + (seed + 43);
+        model.mField44 = 1500000000000L + (seed + 44);
+        model.mField45 = (seed + 45) / 3.0;
+        model.mField46 = (seed + 46) % 2 == 0;
+        model.mField47 = (seed + 47);
+        return model;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Recorded when the {@code Stag.Factory} of a module compiled with {@code stag.instrumentation}
+ * creates a type adapter. The event is committed once the adapter has been created, so it has no
+ * duration of its own and is not filtered by a recording threshold; the time it took is in
+ * {@code elapsed}.
+ */
+@Name("com.vimeo.stag.AdapterCreation")
+@Label("Stag Adapter Creation")
+@Category("Stag")
+@Description("A type adapter created by Stag.Factory")
+@StackTrace(false)
+public final class AdapterCreationEvent extends jdk.jfr.Event {
+
+    @Label("Type")
+    Class<?> type;
+
+    @Label("Elapsed")
+    @Description("The time it took to create the adapter, including class loading and the adapters of its fields")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+
+    @Label("Cold")
+    @Description("Whether this is the first adapter created for the type since the application started")
+    boolean cold;
+}
@@ -0,0 +1,58 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Recorded when an entry point of the Stag library, such as {@code JsonLinesReader}, has decoded
+ * a root object. The event is committed once the object has been decoded, so it has no duration of
+ * its own and is not filtered by a recording threshold; the time it took is in {@code elapsed}.
+ */
+@Name("com.vimeo.stag.Decode")
+@Label("Stag Decode")
+@Category("Stag")
+@Description("A root object decoded by a Stag entry point")
+@StackTrace(false)
+public final class DecodeEvent extends jdk.jfr.Event {
+
+    @Label("Type")
+    Class<?> type;
+
+    @Label("Bytes")
+    @Description("The size of the encoded object, or -1 if the entry point does not know it")
+    @DataAmount
+    long bytes;
+
+    @Label("Elapsed")
+    @Description("The time it took to decode the object")
+    @Timespan(Timespan.NANOSECONDS)
+    long elapsed;
+}
@@ -0,0 +1,189 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag.jfr;
+
+import com.vimeo.stag.StagMetrics;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+
+/**
+ * {@link StagMetrics} that records JDK Flight Recorder events, so that Stag can be correlated with
+ * GC and lock events in the same recording. Install it before creating the {@link com.google.gson.Gson}
+ * instance:
+ * <pre>
+ *     StagMetrics.install(new JfrStagMetrics());
+ * </pre>
+ * It records an {@link AdapterCreationEvent} for every adapter created by the {@code Stag.Factory}
+ * of a module compiled with {@code stag.instrumentation}, and a {@link DecodeEvent} or
+ * {@link EncodeEvent} for every root object read or written by an entry point of the library.
+ * The per object reports of the generated adapters are not recorded, since there would be far too
+ * many of them. Register a {@link ReflectiveFallbackRecorder} to record reflective fallbacks too.
+ * <p>
+ * Stag reports the time an object or adapter took after the fact, so the events are committed
+ * without a JFR duration of their own and carry the time in their {@code elapsed} field instead.
+ * A {@code threshold} in the recording settings therefore does not apply to them; events shorter
+ * than the thresholds passed to the constructor are dropped before they are even created. Each
+ * event can still be enabled and disabled in the recording settings. While no recording is
+ * running, {@link #isEnabled()} is false, so the library does not read the clock and the overhead
+ * is a single volatile read per object.
+ */
+public final class JfrStagMetrics extends StagMetrics implements Closeable {
+
+    // Class loading happens once per process, so whether a creation is cold is tracked globally.
+    // The keys are weak so that the types, and their class loaders, can still be unloaded.
+    @NotNull
+    private static final Set<Class<?>> CREATED_TYPES =
+            Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<Class<?>, Boolean>()));
+
+    private final long mAdapterCreationThresholdNanos;
+    private final long mDecodeThresholdNanos;
+    private final long mEncodeThresholdNanos;
+    @NotNull
+    private final FlightRecorderListener mListener = new FlightRecorderListener() {
+        @Override
+        public void recorderInitialized(FlightRecorder recorder) {
+            updateRecording();
+        }
+
+        @Override
+        public void recordingStateChanged(Recording recording) {
+            updateRecording();
+        }
+    };
+    private volatile boolean mRecording;
+
+    /**
+     * Creates metrics that record every event.
+     */
+    public JfrStagMetrics() {
+        this(0, 0, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Creates metrics that only record the events that took at least as long as their threshold.
+     *
+     * @param adapterCreationThreshold the threshold of {@link AdapterCreationEvent}.
+     * @param decodeThreshold          the threshold of {@link DecodeEvent}.
+     * @param encodeThreshold          the threshold of {@link EncodeEvent}.
+     * @param unit                     the unit of the thresholds.
+     */
+    public JfrStagMetrics(long adapterCreationThreshold, long decodeThreshold, long encodeThreshold, @NotNull TimeUnit unit) {
+        mAdapterCreationThresholdNanos = unit.toNanos(adapterCreationThreshold);
+        mDecodeThresholdNanos = unit.toNanos(decodeThreshold);
+        mEncodeThresholdNanos = unit.toNanos(encodeThreshold);
+        if (FlightRecorder.isAvailable()) {
+            FlightRecorder.addListener(mListener);
+            if (FlightRecorder.isInitialized()) {
+                updateRecording();
+            }
+        }
+    }
+
+    /**
+     * Stops tracking whether a recording is running. The metrics are disabled afterwards.
+     */
+    @Override
+    public void close() {
+        FlightRecorder.removeListener(mListener);
+        mRecording = false;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return mRecording;
+    }
+
+    @Override
+    public void onRead(@NotNull Class<?> type, int fieldsRead, int unknownFieldsSkipped, long durationNanos) {
+    }
+
+    @Override
+    public void onWrite(@NotNull Class<?> type, long durationNanos) {
+    }
+
+    @Override
+    public void onAdapterCreated(@NotNull Class<?> type, long durationNanos) {
+        boolean cold = CREATED_TYPES.add(type);
+        if (durationNanos < mAdapterCreationThresholdNanos) {
+            return;
+        }
+        AdapterCreationEvent event = new AdapterCreationEvent();
+        if (event.isEnabled()) {
+            event.type = type;
+            event.elapsed = durationNanos;
+            event.cold = cold;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onRootRead(@NotNull Class<?> type, long bytes, long durationNanos) {
+        if (durationNanos < mDecodeThresholdNanos) {
+            return;
+        }
+        DecodeEvent event = new DecodeEvent();
+        if (event.isEnabled()) {
+            event.type = type;
+            event.bytes = bytes;
+            event.elapsed = durationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void onRootWrite(@NotNull Class<?> type, long bytes, long durationNanos) {
+        if (durationNanos < mEncodeThresholdNanos) {
+            return;
+        }
+        EncodeEvent event = new EncodeEvent();
+        if (event.isEnabled()) {
+            event.type = type;
+            event.bytes = bytes;
+            event.elapsed = durationNanos;
+            event.commit();
+        }
+    }
+
+    private void updateRecording() {
+        boolean recording = false;
+        for (Recording candidate : FlightRecorder.getFlightRecorder().getRecordings()) {
+            if (candidate.getState() == RecordingState.RUNNING) {
+                recording = true;
+                break;
+            }
+        }
+        mRecording = recording;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded when {@link ReflectiveFallbackRecorder} sees Gson resolve a type with its reflective
+ * adapter, or with the adapter of a serializer or deserializer, instead of a Stag adapter. The
+ * stack trace shows what asked for the adapter.
+ */
+@Name("com.vimeo.stag.ReflectiveFallback")
+@Label("Stag Reflective Fallback")
+@Category("Stag")
+@Description("A type resolved by Gson's reflective or tree adapter while Stag was registered")
+public final class ReflectiveFallbackEvent extends jdk.jfr.Event {
+
+    @Label("Type")
+    Class<?> type;
+
+    @Label("Type Name")
+    @Description("The full type, including its type arguments")
+    String typeName;
+
+    @Label("Kind")
+    @Description("REFLECTIVE for Gson's reflective adapter, TREE for the adapter of a JsonSerializer or JsonDeserializer")
+    String kind;
+}
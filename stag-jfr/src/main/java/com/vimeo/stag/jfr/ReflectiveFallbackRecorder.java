@@ -0,0 +1,63 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag.jfr;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.vimeo.stag.ReflectiveFallbackAudit;
+
+/**
+ * Records a {@link ReflectiveFallbackEvent} for every type that Gson resolves with its reflective
+ * adapter, or with the adapter of a {@link com.google.gson.JsonSerializer} or
+ * {@link com.google.gson.JsonDeserializer}, the same fallbacks that {@link ReflectiveFallbackAudit}
+ * reports. It does not change which adapters are used. Since Gson consults the factories
+ * registered later first, register it after {@code Stag.Factory}:
+ * <pre>
+ *     Gson gson = new GsonBuilder()
+ *             .registerTypeAdapterFactory(new Stag.Factory())
+ *             .registerTypeAdapterFactory(new ReflectiveFallbackRecorder())
+ *             .create();
+ * </pre>
+ * Gson caches adapters, so each type is recorded once per {@link Gson} instance.
+ */
+public final class ReflectiveFallbackRecorder implements TypeAdapterFactory {
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        TypeAdapter<T> typeAdapter = gson.getDelegateAdapter(this, type);
+        ReflectiveFallbackAudit.Kind kind = ReflectiveFallbackAudit.getFallbackKind(typeAdapter);
+        if (kind != null) {
+            ReflectiveFallbackEvent event = new ReflectiveFallbackEvent();
+            if (event.isEnabled()) {
+                event.type = type.getRawType();
+                event.typeName = type.toString();
+                event.kind = kind.name();
+                event.commit();
+            }
+        }
+        return typeAdapter;
+    }
+}
@@ -0,0 +1,159 @@
+package com.vimeo.stag.jfr;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JfrStagMetricsTest {
+
+    private static final String ADAPTER_CREATION = "com.vimeo.stag.AdapterCreation";
+    private static final String DECODE = "com.vimeo.stag.Decode";
+    private static final String ENCODE = "com.vimeo.stag.Encode";
+    private static final String REFLECTIVE_FALLBACK = "com.vimeo.stag.ReflectiveFallback";
+
+    private JfrStagMetrics mMetrics;
+    private Recording mRecording;
+
+    @Before
+    public void setUp() {
+        mMetrics = new JfrStagMetrics(0, 1, 1, TimeUnit.MILLISECONDS);
+        mRecording = new Recording();
+        mRecording.enable(ADAPTER_CREATION);
+        mRecording.enable(DECODE);
+        mRecording.enable(ENCODE);
+        mRecording.enable(REFLECTIVE_FALLBACK);
+    }
+
+    @After
+    public void tearDown() {
+        mMetrics.close();
+        mRecording.close();
+    }
+
+    @Test
+    public void isEnabledOnlyWhileRecording() {
+        assertThat(mMetrics.isEnabled()).isFalse();
+
+        mRecording.start();
+        assertThat(mMetrics.isEnabled()).isTrue();
+
+        mRecording.stop();
+        assertThat(mMetrics.isEnabled()).isFalse();
+    }
+
+    @Test
+    public void hooksRecordEvents() throws IOException {
+        mRecording.start();
+        mMetrics.onAdapterCreated(Model.class, 500);
+        mMetrics.onAdapterCreated(Model.class, 400);
+        mMetrics.onRootRead(Model.class, 42, TimeUnit.MILLISECONDS.toNanos(2));
+        mMetrics.onRootWrite(String.class, -1, TimeUnit.MILLISECONDS.toNanos(3));
+        List<RecordedEvent> events = stopAndRead();
+
+        List<RecordedEvent> creations = filter(events, ADAPTER_CREATION);
+        assertThat(creations).hasSize(2);
+        assertThat(creations.get(0).getClass("type").getName()).isEqualTo(Model.class.getName());
+        assertThat(creations.get(0).getLong("elapsed")).isEqualTo(500);
+        assertThat(creations.get(0).getBoolean("cold")).isTrue();
+        assertThat(creations.get(1).getBoolean("cold")).isFalse();
+
+        List<RecordedEvent> decodes = filter(events, DECODE);
+        assertThat(decodes).hasSize(1);
+        assertThat(decodes.get(0).getClass("type").getName()).isEqualTo(Model.class.getName());
+        assertThat(decodes.get(0).getLong("bytes")).isEqualTo(42);
+        assertThat(decodes.get(0).getLong("elapsed")).isEqualTo(TimeUnit.MILLISECONDS.toNanos(2));
+
+        List<RecordedEvent> encodes = filter(events, ENCODE);
+        assertThat(encodes).hasSize(1);
+        assertThat(encodes.get(0).getClass("type").getName()).isEqualTo(String.class.getName());
+        assertThat(encodes.get(0).getLong("bytes")).isEqualTo(-1);
+    }
+
+    @Test
+    public void eventsBelowThresholdAreDropped() throws IOException {
+        mRecording.start();
+        mMetrics.onRootRead(Model.class, 42, TimeUnit.MICROSECONDS.toNanos(999));
+        mMetrics.onRootWrite(Model.class, 42, TimeUnit.MICROSECONDS.toNanos(10));
+        mMetrics.onRootRead(Model.class, 42, TimeUnit.MILLISECONDS.toNanos(1));
+        List<RecordedEvent> events = stopAndRead();
+
+        assertThat(filter(events, DECODE)).hasSize(1);
+        assertThat(filter(events, ENCODE)).isEmpty();
+    }
+
+    @Test
+    public void reflectiveFallbackRecorderRecordsReflectiveAdapters() throws IOException {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(TreeModel.class, new JsonDeserializer<TreeModel>() {
+                    @Override
+                    public TreeModel deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) {
+                        return new TreeModel();
+                    }
+                })
+                .registerTypeAdapterFactory(new ReflectiveFallbackRecorder())
+                .create();
+
+        mRecording.start();
+        gson.getAdapter(String.class);
+        gson.getAdapter(Model.class);
+        gson.getAdapter(TreeModel.class);
+        List<RecordedEvent> events = stopAndRead();
+
+        List<RecordedEvent> fallbacks = filter(events, REFLECTIVE_FALLBACK);
+        assertThat(fallbacks).hasSize(2);
+        assertThat(fallbacks.get(0).getClass("type").getName()).isEqualTo(Model.class.getName());
+        assertThat(fallbacks.get(0).getString("typeName")).isEqualTo(Model.class.getName());
+        assertThat(fallbacks.get(0).getString("kind")).isEqualTo("REFLECTIVE");
+        assertThat(fallbacks.get(0).getStackTrace()).isNotNull();
+        assertThat(fallbacks.get(1).getClass("type").getName()).isEqualTo(TreeModel.class.getName());
+        assertThat(fallbacks.get(1).getString("kind")).isEqualTo("TREE");
+    }
+
+    private List<RecordedEvent> stopAndRead() throws IOException {
+        mRecording.stop();
+        File file = File.createTempFile("stag", ".jfr");
+        try {
+            mRecording.dump(file.toPath());
+            return RecordingFile.readAllEvents(file.toPath());
+        } finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private static List<RecordedEvent> filter(List<RecordedEvent> events, String name) {
+        List<RecordedEvent> filtered = new ArrayList<>();
+        for (RecordedEvent event : events) {
+            if (event.getEventType().getName().equals(name)) {
+                filtered.add(event);
+            }
+        }
+        return filtered;
+    }
+
+    private static class Model {
+        String mName;
+    }
+
+    private static class TreeModel {
+    }
+}
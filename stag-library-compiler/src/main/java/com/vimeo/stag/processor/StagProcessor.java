@@ -35,12 +35,15 @@ import com.vimeo.stag.processor.generators.StagGenerator.SubFactoriesInfo;
 import com.vimeo.stag.processor.generators.TypeAdapterGenerator;
 import com.vimeo.stag.processor.generators.model.AnnotatedClass;
 import com.vimeo.stag.processor.generators.model.ClassInfo;
+import com.vimeo.stag.processor.generators.model.FieldStrategy;
 import com.vimeo.stag.processor.generators.model.SupportedTypesModel;
+import com.vimeo.stag.processor.generators.model.accessor.FieldAccessor;
 import com.vimeo.stag.processor.generators.model.accessor.MethodFieldAccessor.Notation;
 import com.vimeo.stag.processor.utils.ElementUtils;
 import com.vimeo.stag.processor.utils.FileGenUtils;
 import com.vimeo.stag.processor.utils.KnownTypeAdapterFactoriesUtils;
 import com.vimeo.stag.processor.utils.MessagerUtils;
+import com.vimeo.stag.processor.utils.StagReport;
 import com.vimeo.stag.processor.utils.TypeUtils;
 import com.vimeo.stag.processor.utils.logging.ConsoleLogger;
 import com.vimeo.stag.processor.utils.logging.DebugLog;
@@ -50,7 +53,11 @@ import com.vimeo.stag.processor.utils.logging.NoOpLogger;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -68,11 +75,14 @@ import javax.lang.model.SourceVersion;
 import javax.lang.model.element.Element;
 import javax.lang.model.element.ElementKind;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeMirror;
 
 @AutoService(Processor.class)
 @SupportedAnnotationTypes(value = {"com.vimeo.stag.UseStag"})
-@SupportedOptions(value = {StagProcessor.OPTION_PACKAGE_NAME, StagProcessor.OPTION_DEBUG, StagProcessor.OPTION_HUNGARIAN_NOTATION, StagProcessor.OPTION_SERIALIZE_NULLS})
+@SupportedOptions(value = {StagProcessor.OPTION_PACKAGE_NAME, StagProcessor.OPTION_DEBUG, StagProcessor.OPTION_HUNGARIAN_NOTATION, StagProcessor.OPTION_SERIALIZE_NULLS,
+        StagProcessor.OPTION_LAZY_FIELD_ADAPTERS, StagProcessor.OPTION_INSTRUMENTATION, StagProcessor.OPTION_REPORT_TIMING})
 @SupportedSourceVersion(SourceVersion.RELEASE_7)
 public final class StagProcessor extends AbstractProcessor {
 
@@ -80,7 +90,12 @@ public final class StagProcessor extends AbstractProcessor {
     static final String OPTION_PACKAGE_NAME = "stagGeneratedPackageName";
     static final String OPTION_HUNGARIAN_NOTATION = "stagAssumeHungarianNotation";
     static final String OPTION_SERIALIZE_NULLS = "stag.serializeNulls";
+    static final String OPTION_LAZY_FIELD_ADAPTERS = "stag.lazyFieldAdapters";
+    static final String OPTION_INSTRUMENTATION = "stag.instrumentation";
+    static final String OPTION_REPORT_TIMING = "stag.reportTiming";
     private static final String DEFAULT_GENERATED_PACKAGE_NAME = "com.vimeo.stag.generated";
+    // Bounds the specializations of models that refer to themselves with ever deeper type arguments.
+    private static final int MAX_SPECIALIZATION_DEPTH = 3;
     private boolean mHasBeenProcessed;
 
     private static boolean getDebugBoolean(@NotNull ProcessingEnvironment processingEnvironment) {
@@ -107,6 +122,30 @@ public final class StagProcessor extends AbstractProcessor {
         return false;
     }
 
+    private static boolean isLazyFieldAdaptersEnabled(@NotNull ProcessingEnvironment processingEnvironment) {
+        String lazyString = processingEnvironment.getOptions().get(OPTION_LAZY_FIELD_ADAPTERS);
+        if (lazyString != null) {
+            return Boolean.valueOf(lazyString);
+        }
+        return false;
+    }
+
+    private static boolean isInstrumentationEnabled(@NotNull ProcessingEnvironment processingEnvironment) {
+        String instrumentationString = processingEnvironment.getOptions().get(OPTION_INSTRUMENTATION);
+        if (instrumentationString != null) {
+            return Boolean.valueOf(instrumentationString);
+        }
+        return false;
+    }
+
+    private static boolean isReportTimingEnabled(@NotNull ProcessingEnvironment processingEnvironment) {
+        String reportTimingString = processingEnvironment.getOptions().get(OPTION_REPORT_TIMING);
+        if (reportTimingString != null) {
+            return Boolean.valueOf(reportTimingString);
+        }
+        return false;
+    }
+
     @NotNull
     private static String getOptionalPackageName(@NotNull ProcessingEnvironment processingEnvironment) {
         String packageName = processingEnvironment.getOptions().get(OPTION_PACKAGE_NAME);
@@ -169,6 +208,8 @@ public final class StagProcessor extends AbstractProcessor {
 
         boolean assumeHungarianNotation = getAssumeHungarianNotation(processingEnv);
         boolean enableSerializeNulls = isSerializeNullsEnabled(processingEnv);
+        boolean lazyFieldAdapters = isLazyFieldAdaptersEnabled(processingEnv);
+        boolean instrumentation = isInstrumentationEnabled(processingEnv);
 
         TypeUtils.initialize(processingEnv.getTypeUtils());
         ElementUtils.initialize(processingEnv.getElementUtils());
@@ -194,13 +235,23 @@ public final class StagProcessor extends AbstractProcessor {
             }
 
             StagGenerator stagFactoryGenerator = new StagGenerator(supportedTypes);
+            StagReport report = new StagReport(isReportTimingEnabled(processingEnv));
 
             Map<String, List<ClassInfo>> adapterFactoryMap = new LinkedHashMap<>();
+            Map<String, AnnotatedClass> genericModels = new LinkedHashMap<>();
+            List<Map<FieldAccessor, TypeMirror>> generatedMembers = new ArrayList<>();
 
             for (AnnotatedClass annotatedClass : supportedTypesModel.getSupportedTypes()) {
                 TypeElement element = annotatedClass.getElement();
                 if ((TypeUtils.isConcreteType(element) || TypeUtils.isParameterizedType(element)) && !TypeUtils.isAbstract(element)) {
-                    generateTypeAdapter(supportedTypesModel, element, stagFactoryGenerator, enableSerializeNulls);
+                    generateTypeAdapter(supportedTypesModel, element, stagFactoryGenerator, enableSerializeNulls, lazyFieldAdapters,
+                                        instrumentation, report);
+                    if (element.getKind() != ElementKind.ENUM) {
+                        generatedMembers.add(annotatedClass.getMemberVariables());
+                        if (TypeUtils.isParameterizedType(element)) {
+                            genericModels.put(element.getQualifiedName().toString(), annotatedClass);
+                        }
+                    }
 
                     ClassInfo classInfo = new ClassInfo(element.asType());
                     ArrayList<ClassInfo> result = new ArrayList<>();
@@ -214,15 +265,30 @@ public final class StagProcessor extends AbstractProcessor {
                 }
             }
 
+            Map<String, List<ClassInfo>> specializationMap = new LinkedHashMap<>();
+            for (ClassInfo specialization : generateSpecializedTypeAdapters(supportedTypesModel, genericModels, generatedMembers,
+                                                                            stagFactoryGenerator, enableSerializeNulls,
+                                                                            lazyFieldAdapters, instrumentation, report)) {
+                List<ClassInfo> specializations = specializationMap.get(specialization.getPackageName());
+                if (specializations == null) {
+                    specializations = new ArrayList<>();
+                    specializationMap.put(specialization.getPackageName(), specializations);
+                }
+                specializations.add(specialization);
+            }
+
             List<StagGenerator.SubFactoriesInfo> generatedStagFactoryWrappers = new ArrayList<>();
             for (Map.Entry<String, List<ClassInfo>> stringListEntry : adapterFactoryMap.entrySet()) {
                 List<ClassInfo> classInfos = stringListEntry.getValue();
-                generateAdapterFactory(classInfos, stringListEntry.getKey());
+                List<ClassInfo> specializations = specializationMap.get(stringListEntry.getKey());
+                generateAdapterFactory(classInfos, specializations != null ? specializations : Collections.<ClassInfo>emptyList(),
+                                       stringListEntry.getKey());
                 generatedStagFactoryWrappers.add(new StagGenerator.SubFactoriesInfo(classInfos.get(0), stringListEntry.getKey() + "." + StagFactoryGenerator.NAME));
             }
 
-            generateStagFactory(packageName, generatedStagFactoryWrappers);
+            generateStagFactory(packageName, generatedStagFactoryWrappers, instrumentation);
             KnownTypeAdapterFactoriesUtils.writeKnownTypes(processingEnv, packageName, supportedTypes);
+            report.write(processingEnv, packageName);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -232,8 +298,9 @@ public final class StagProcessor extends AbstractProcessor {
         return true;
     }
 
-    private void generateAdapterFactory(@NotNull List<ClassInfo> classInfos, @NotNull String packageName) throws IOException {
-        StagFactoryGenerator stagFactoryGenerator = new StagFactoryGenerator(classInfos, StagFactoryGenerator.NAME);
+    private void generateAdapterFactory(@NotNull List<ClassInfo> classInfos, @NotNull List<ClassInfo> specializations,
+                                        @NotNull String packageName) throws IOException {
+        StagFactoryGenerator stagFactoryGenerator = new StagFactoryGenerator(classInfos, specializations, StagFactoryGenerator.NAME);
 
         // Create the type spec
         TypeSpec typeAdapterSpec = stagFactoryGenerator.getTypeAdapterFactorySpec();
@@ -242,9 +309,10 @@ public final class StagProcessor extends AbstractProcessor {
         writeTypeSpecToFile(typeAdapterSpec, packageName);
     }
 
-    private void generateStagFactory(@NotNull String packageName, List<SubFactoriesInfo> generatedStagFactoryWrappers) throws IOException {
+    private void generateStagFactory(@NotNull String packageName, List<SubFactoriesInfo> generatedStagFactoryWrappers,
+                                     boolean instrumentation) throws IOException {
         // Create the type spec
-        TypeSpec typeSpec = StagGenerator.createStagSpec(generatedStagFactoryWrappers);
+        TypeSpec typeSpec = StagGenerator.createStagSpec(generatedStagFactoryWrappers, instrumentation);
 
         // Write the type spec to a file
         writeTypeSpecToFile(typeSpec, packageName);
@@ -252,19 +320,152 @@ public final class StagProcessor extends AbstractProcessor {
 
     private void generateTypeAdapter(@NotNull SupportedTypesModel supportedTypesModel,
                                      @NotNull TypeElement element,
-                                     @NotNull StagGenerator stagGenerator, boolean enableSerializeNulls) throws IOException {
-
+                                     @NotNull StagGenerator stagGenerator, boolean enableSerializeNulls,
+                                     boolean lazyFieldAdapters, boolean instrumentation,
+                                     @NotNull StagReport report) throws IOException {
         ClassInfo classInfo = new ClassInfo(element.asType());
 
+        // The same span as for the specialized adapters: creating the generator, the spec and the file.
+        long startNanos = System.nanoTime();
         AdapterGenerator independentAdapter = element.getKind() == ElementKind.ENUM ?
                 new EnumTypeAdapterGenerator(classInfo, element) :
-                new TypeAdapterGenerator(supportedTypesModel, classInfo, enableSerializeNulls);
+                new TypeAdapterGenerator(supportedTypesModel, classInfo, enableSerializeNulls, lazyFieldAdapters, instrumentation);
 
         // Create the type spec
         TypeSpec typeAdapterSpec = independentAdapter.createTypeAdapterSpec(stagGenerator);
 
         // Write the type spec to a file
         writeTypeSpecToFile(typeAdapterSpec, classInfo.getPackageName());
+
+        long processorNanos = System.nanoTime() - startNanos;
+        report.addTypeAdapter(classInfo, independentAdapter instanceof TypeAdapterGenerator
+                                      ? ((TypeAdapterGenerator) independentAdapter).getFieldStrategies()
+                                      : Collections.<FieldStrategy>emptyList(),
+                              processorNanos);
+    }
+
+    /**
+     * Generates type adapters specialized for the concrete parameterizations of the generic models,
+     * such as {@code Model<String>}, that the member variables of the models refer to. The members
+     * of a specialized adapter are fully typed, so it does not need the type arguments at runtime.
+     * The members of the specializations are searched as well, so that {@code Model<String>}
+     * containing an {@code Other<T>} also specializes {@code Other<String>}.
+     *
+     * @return the class info of every specialized adapter that was generated.
+     */
+    @NotNull
+    private List<ClassInfo> generateSpecializedTypeAdapters(@NotNull SupportedTypesModel supportedTypesModel,
+                                                            @NotNull Map<String, AnnotatedClass> genericModels,
+                                                            @NotNull List<Map<FieldAccessor, TypeMirror>> members,
+                                                            @NotNull StagGenerator stagGenerator, boolean enableSerializeNulls,
+                                                            boolean lazyFieldAdapters, boolean instrumentation,
+                                                            @NotNull StagReport report) throws IOException {
+        List<ClassInfo> specializations = new ArrayList<>();
+        if (genericModels.isEmpty()) {
+            return specializations;
+        }
+
+        Set<String> specializedTypes = new HashSet<>();
+        Set<String> adapterClassNames = new HashSet<>();
+        Deque<Map<FieldAccessor, TypeMirror>> pendingMembers = new ArrayDeque<>(members);
+        while (!pendingMembers.isEmpty()) {
+            List<DeclaredType> types = new ArrayList<>();
+            for (TypeMirror memberType : pendingMembers.removeFirst().values()) {
+                collectSpecializableTypes(memberType, genericModels, types);
+            }
+
+            for (DeclaredType type : types) {
+                if (!specializedTypes.add(type.toString())) {
+                    continue;
+                }
+                AnnotatedClass genericModel = genericModels.get(getQualifiedName(type));
+                Map<FieldAccessor, TypeMirror> specializedMembers =
+                        TypeUtils.getSpecializedMembers(type, genericModel.getElement(), genericModel.getMemberVariables());
+                if (specializedMembers == null) {
+                    continue;
+                }
+
+                String suffix = getSpecializationSuffix(type);
+                ClassInfo classInfo = new ClassInfo(type, suffix);
+                for (int index = 2; !adapterClassNames.add(classInfo.getTypeAdapterQualifiedClassName()); index++) {
+                    classInfo = new ClassInfo(type, suffix + index);
+                }
+
+                long startNanos = System.nanoTime();
+                TypeAdapterGenerator adapterGenerator = new TypeAdapterGenerator(supportedTypesModel, classInfo, specializedMembers,
+                                                                                 enableSerializeNulls, lazyFieldAdapters,
+                                                                                 instrumentation);
+                writeTypeSpecToFile(adapterGenerator.createTypeAdapterSpec(stagGenerator), classInfo.getPackageName());
+                long processorNanos = System.nanoTime() - startNanos;
+                report.addTypeAdapter(classInfo, adapterGenerator.getFieldStrategies(), processorNanos);
+
+                specializations.add(classInfo);
+                pendingMembers.add(specializedMembers);
+            }
+        }
+        return specializations;
+    }
+
+    private static void collectSpecializableTypes(@NotNull TypeMirror type, @NotNull Map<String, AnnotatedClass> genericModels,
+                                                  @NotNull List<DeclaredType> types) {
+        if (type instanceof ArrayType) {
+            collectSpecializableTypes(((ArrayType) type).getComponentType(), genericModels, types);
+        } else if (type instanceof DeclaredType) {
+            DeclaredType declaredType = (DeclaredType) type;
+            for (TypeMirror typeArgument : declaredType.getTypeArguments()) {
+                collectSpecializableTypes(typeArgument, genericModels, types);
+            }
+            if (TypeUtils.isParameterizedType(declaredType) && genericModels.containsKey(getQualifiedName(declaredType)) &&
+                TypeUtils.isFullySpecified(declaredType) && getTypeArgumentDepth(declaredType) <= MAX_SPECIALIZATION_DEPTH) {
+                types.add(declaredType);
+            }
+        }
+    }
+
+    private static int getTypeArgumentDepth(@NotNull TypeMirror type) {
+        int depth = 0;
+        List<? extends TypeMirror> typeArguments = TypeUtils.getTypeArguments(type);
+        if (typeArguments != null) {
+            for (TypeMirror typeArgument : typeArguments) {
+                depth = Math.max(depth, 1 + getTypeArgumentDepth(typeArgument));
+            }
+        }
+        return depth;
+    }
+
+    /**
+     * Names the specialization after the simple names of its type arguments, so that the adapter
+     * for {@code Model<List<String>>} is {@code Model$TypeAdapter$List$String}.
+     */
+    @NotNull
+    private static String getSpecializationSuffix(@NotNull TypeMirror type) {
+        StringBuilder suffix = new StringBuilder();
+        List<? extends TypeMirror> typeArguments = TypeUtils.getTypeArguments(type);
+        if (typeArguments != null) {
+            for (TypeMirror typeArgument : typeArguments) {
+                if (suffix.length() > 0) {
+                    suffix.append('$');
+                }
+                int arrayDimensions = 0;
+                while (typeArgument instanceof ArrayType) {
+                    typeArgument = ((ArrayType) typeArgument).getComponentType();
+                    arrayDimensions++;
+                }
+                suffix.append(((DeclaredType) typeArgument).asElement().getSimpleName());
+                if (TypeUtils.isParameterizedType(typeArgument)) {
+                    suffix.append('$').append(getSpecializationSuffix(typeArgument));
+                }
+                for (int idx = 0; idx < arrayDimensions; idx++) {
+                    suffix.append("Array");
+                }
+            }
+        }
+        return suffix.toString();
+    }
+
+    @NotNull
+    private static String getQualifiedName(@NotNull DeclaredType type) {
+        return ((TypeElement) type.asElement()).getQualifiedName().toString();
     }
 
     private void writeTypeSpecToFile(@NotNull TypeSpec typeSpec, @NotNull String packageName) throws IOException {
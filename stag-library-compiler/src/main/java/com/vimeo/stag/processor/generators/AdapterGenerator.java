@@ -30,10 +30,13 @@ import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
+import com.vimeo.stag.processor.utils.TypeUtils;
 
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.List;
+
 import javax.lang.model.element.Element;
 import javax.lang.model.element.Modifier;
 import javax.lang.model.type.TypeMirror;
@@ -94,7 +97,36 @@ public abstract class AdapterGenerator {
     static FieldSpec createTypeTokenSpec(@NotNull TypeMirror typeMirror) {
         ParameterizedTypeName typeTokenType = ParameterizedTypeName.get(ClassName.get(TypeToken.class), TypeVariableName.get(typeMirror));
         FieldSpec.Builder typeTokenBuilder = FieldSpec.builder(typeTokenType, "TYPE_TOKEN", Modifier.PUBLIC, Modifier.STATIC, Modifier.FINAL);
-        typeTokenBuilder.initializer("TypeToken.get(" + typeMirror.toString() + ".class)");
+        if (TypeUtils.isParameterizedType(typeMirror)) {
+            typeTokenBuilder.initializer("(TypeToken<" + typeMirror.toString() + ">) " + getParameterizedTypeTokenCode(typeMirror));
+        } else {
+            typeTokenBuilder.initializer("TypeToken.get(" + typeMirror.toString() + ".class)");
+        }
         return typeTokenBuilder.build();
     }
+
+    /**
+     * Creates the code for a {@link TypeToken} describing a fully specified parameterized type.
+     *
+     * @param typeMirror the type, which must be fully specified.
+     * @return the code for the type token.
+     * @see TypeUtils#isFullySpecified(TypeMirror)
+     */
+    @NotNull
+    private static String getParameterizedTypeTokenCode(@NotNull TypeMirror typeMirror) {
+        StringBuilder code = new StringBuilder("TypeToken.getParameterized(")
+                .append(TypeUtils.getClassNameFromTypeMirror(typeMirror)).append(".class");
+        List<? extends TypeMirror> typeArguments = TypeUtils.getTypeArguments(typeMirror);
+        if (typeArguments != null) {
+            for (TypeMirror typeArgument : typeArguments) {
+                code.append(", ");
+                if (TypeUtils.isParameterizedType(typeArgument)) {
+                    code.append(getParameterizedTypeTokenCode(typeArgument)).append(".getType()");
+                } else {
+                    code.append(typeArgument.toString()).append(".class");
+                }
+            }
+        }
+        return code.append(")").toString();
+    }
 }
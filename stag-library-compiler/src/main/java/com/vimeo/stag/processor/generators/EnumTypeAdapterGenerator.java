@@ -27,21 +27,25 @@ import com.google.gson.Gson;
 import com.google.gson.TypeAdapter;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
 import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
+import com.vimeo.stag.KnownTypeAdapters;
 import com.vimeo.stag.processor.generators.model.ClassInfo;
 import com.vimeo.stag.processor.utils.FileGenUtils;
 
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import javax.lang.model.element.Element;
@@ -52,6 +56,8 @@ import javax.lang.model.type.TypeMirror;
 
 public class EnumTypeAdapterGenerator extends AdapterGenerator {
 
+    private static final ClassName STAG_JSON_READER = ClassName.get("com.vimeo.stag", "StagJsonReader");
+
     @NotNull
     private final ClassInfo mInfo;
 
@@ -72,7 +78,18 @@ public class EnumTypeAdapterGenerator extends AdapterGenerator {
                 .addModifiers(Modifier.PUBLIC)
                 .addAnnotation(Override.class)
                 .addException(IOException.class)
-                .addStatement("writer.value(object == null ? null : CONSTANT_TO_NAME.get(object))")
+                .addStatement("writer.value(toJsonString(object))")
+                .build();
+    }
+
+    @NotNull
+    private static MethodSpec getToJsonStringMethodSpec(@NotNull TypeName typeName) {
+        return MethodSpec.methodBuilder("toJsonString")
+                .addParameter(typeName, "object")
+                .returns(String.class)
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Override.class)
+                .addStatement("return object == null ? null : ORDINAL_TO_NAME[object.ordinal()]")
                 .build();
     }
 
@@ -88,7 +105,56 @@ public class EnumTypeAdapterGenerator extends AdapterGenerator {
                 .addStatement("reader.nextNull()")
                 .addStatement("return null")
                 .endControlFlow()
-                .addStatement("return NAME_TO_CONSTANT.get(reader.nextString())")
+                .beginControlFlow("if (reader instanceof $T && reader.peek() == com.google.gson.stream.JsonToken.STRING)",
+                                  STAG_JSON_READER)
+                .addStatement("int index = (($T) reader).selectString(JSON_NAMES)", STAG_JSON_READER)
+                .beginControlFlow("if (index != -1)")
+                .addStatement("return JSON_NAME_CONSTANTS[index]")
+                .endControlFlow()
+                .endControlFlow()
+                .addStatement("return fromJsonString(reader.nextString())")
+                .build();
+    }
+
+    /**
+     * Generates a method that matches the JSON string against the constant names and their alternate
+     * names with a string switch, rather than looking the string up in a map.
+     */
+    @NotNull
+    private static MethodSpec getFromJsonStringMethodSpec(@NotNull TypeName typeName,
+                                                          @NotNull Map<String, Element> nameToConstant) {
+        Map<Element, List<String>> constantToNames = new LinkedHashMap<>();
+        for (Map.Entry<String, Element> entry : nameToConstant.entrySet()) {
+            List<String> names = constantToNames.get(entry.getValue());
+            if (names == null) {
+                names = new ArrayList<>();
+                constantToNames.put(entry.getValue(), names);
+            }
+            names.add(entry.getKey());
+        }
+
+        CodeBlock.Builder switchBuilder = CodeBlock.builder()
+                .beginControlFlow("switch (string)");
+        for (Map.Entry<Element, List<String>> entry : constantToNames.entrySet()) {
+            for (String name : entry.getValue()) {
+                switchBuilder.add("case $S:\n", name);
+            }
+            switchBuilder.indent()
+                    .addStatement("return $T.$L", typeName, entry.getKey().getSimpleName())
+                    .unindent();
+        }
+        switchBuilder.add("default:\n")
+                .indent()
+                .addStatement("return null")
+                .unindent()
+                .endControlFlow();
+
+        return MethodSpec.methodBuilder("fromJsonString")
+                .addParameter(String.class, "string")
+                .returns(typeName)
+                .addModifiers(Modifier.PUBLIC)
+                .addAnnotation(Override.class)
+                .addCode(switchBuilder.build())
                 .build();
     }
 
@@ -112,7 +178,8 @@ public class EnumTypeAdapterGenerator extends AdapterGenerator {
         String className = FileGenUtils.unescapeEscapedString(mInfo.getTypeAdapterClassName());
         TypeSpec.Builder adapterBuilder = TypeSpec.classBuilder(className)
                 .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
-                .superclass(ParameterizedTypeName.get(ClassName.get(TypeAdapter.class), typeVariableName));
+                .superclass(ParameterizedTypeName.get(ClassName.get(TypeAdapter.class), typeVariableName))
+                .addSuperinterface(ParameterizedTypeName.get(ClassName.get(KnownTypeAdapters.JsonStringConverter.class), typeVariableName));
 
 
         Map<String, Element> nameToConstant = new LinkedHashMap<>();
@@ -139,38 +206,44 @@ public class EnumTypeAdapterGenerator extends AdapterGenerator {
 
         adapterBuilder.addField(createTypeTokenSpec(typeMirror));
 
-        TypeName typeName =
-                ParameterizedTypeName.get(ClassName.get(HashMap.class), TypeVariableName.get(String.class),
-                                          TypeVariableName.get(typeMirror));
-        adapterBuilder.addField(typeName, "NAME_TO_CONSTANT", Modifier.PRIVATE, Modifier.STATIC,
-                                Modifier.FINAL);
-
-        typeName = ParameterizedTypeName.get(ClassName.get(HashMap.class), TypeVariableName.get(typeMirror),
-                                             TypeVariableName.get(String.class));
-        adapterBuilder.addField(typeName, "CONSTANT_TO_NAME", Modifier.PRIVATE, Modifier.STATIC,
+        adapterBuilder.addField(String[].class, "ORDINAL_TO_NAME", Modifier.PRIVATE, Modifier.STATIC,
                                 Modifier.FINAL);
 
+        // The names are indexed with ordinal() at runtime, so that they stay correct even if the
+        // enum is compiled separately from its adapter.
         CodeBlock.Builder staticBlockBuilder = CodeBlock.builder();
-        staticBlockBuilder.addStatement("NAME_TO_CONSTANT = new HashMap<>(" + nameToConstant.size() + ")");
-        for (Map.Entry<String, Element> entry : nameToConstant.entrySet()) {
-            staticBlockBuilder.addStatement(
-                    "NAME_TO_CONSTANT.put(\"" + entry.getKey() + "\", " + typeVariableName + "." +
-                    entry.getValue().getSimpleName().toString() + ")");
-        }
-
-        staticBlockBuilder.add("\n");
-        staticBlockBuilder.addStatement("CONSTANT_TO_NAME = new HashMap<>(" + constantToName.size() + ")");
+        staticBlockBuilder.addStatement("ORDINAL_TO_NAME = new String[$T.values().length]", typeVariableName);
         for (Map.Entry<Element, String> entry : constantToName.entrySet()) {
-            staticBlockBuilder.addStatement("CONSTANT_TO_NAME.put(" + typeVariableName + "." +
-                                            entry.getKey().getSimpleName().toString() + ", \"" +
-                                            entry.getValue() + "\")");
+            staticBlockBuilder.addStatement("ORDINAL_TO_NAME[$T.$L.ordinal()] = $S", typeVariableName,
+                                            entry.getKey().getSimpleName(), entry.getValue());
         }
 
         adapterBuilder.addStaticBlock(staticBlockBuilder.build());
 
+        // A StagJsonReader selects the constant by matching the raw bytes of the names, so that
+        // known names don't have to be decoded into strings.
+        CodeBlock.Builder names = CodeBlock.builder();
+        CodeBlock.Builder constants = CodeBlock.builder();
+        String separator = "";
+        for (Map.Entry<String, Element> entry : nameToConstant.entrySet()) {
+            names.add("$L$S", separator, entry.getKey());
+            constants.add("$L$T.$L", separator, typeVariableName, entry.getValue().getSimpleName());
+            separator = ", ";
+        }
+        adapterBuilder.addField(FieldSpec.builder(STAG_JSON_READER.nestedClass("Options"), "JSON_NAMES",
+                                                  Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                        .initializer("$T.of($L)", STAG_JSON_READER.nestedClass("Options"), names.build())
+                                        .build());
+        adapterBuilder.addField(FieldSpec.builder(ArrayTypeName.of(typeVariableName), "JSON_NAME_CONSTANTS",
+                                                  Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                        .initializer("{$L}", constants.build())
+                                        .build());
+
         adapterBuilder.addMethod(constructorBuilder.build());
         adapterBuilder.addMethod(writeMethod);
         adapterBuilder.addMethod(readMethod);
+        adapterBuilder.addMethod(getToJsonStringMethodSpec(typeVariableName));
+        adapterBuilder.addMethod(getFromJsonStringMethodSpec(typeVariableName, nameToConstant));
 
         return adapterBuilder.build();
     }
@@ -5,16 +5,20 @@ import com.google.gson.TypeAdapter;
 import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
 import com.squareup.javapoet.AnnotationSpec;
+import com.squareup.javapoet.ArrayTypeName;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
+import com.squareup.javapoet.WildcardTypeName;
 import com.vimeo.stag.processor.generators.model.ClassInfo;
 
 import org.jetbrains.annotations.NotNull;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import javax.lang.model.element.Modifier;
@@ -23,11 +27,25 @@ import javax.lang.model.type.TypeMirror;
 public class StagFactoryGenerator {
 
     @NotNull public static final String NAME = "StagFactory";
+    @NotNull public static final String METHOD_GET_TYPES = "getTypes";
     @NotNull private final List<ClassInfo> mClassInfoList;
+    @NotNull private final List<ClassInfo> mSpecializations;
     @NotNull private final String mFileName;
 
     public StagFactoryGenerator(@NotNull List<ClassInfo> classInfoList, @NotNull String fileName) {
+        this(classInfoList, Collections.<ClassInfo>emptyList(), fileName);
+    }
+
+    /**
+     * @param classInfoList   the models in the package.
+     * @param specializations the concrete parameterizations of the generic models in the package
+     *                        that have specialized type adapters.
+     * @param fileName        the name of the factory class.
+     */
+    public StagFactoryGenerator(@NotNull List<ClassInfo> classInfoList, @NotNull List<ClassInfo> specializations,
+                                @NotNull String fileName) {
         mClassInfoList = new ArrayList<>(classInfoList);
+        mSpecializations = new ArrayList<>(specializations);
         mFileName = fileName;
     }
 
@@ -36,57 +54,64 @@ public class StagFactoryGenerator {
         TypeSpec.Builder adapterBuilder = TypeSpec.classBuilder(mFileName)
                 .addModifiers(Modifier.PUBLIC, Modifier.FINAL)
                 .addSuperinterface(TypeAdapterFactory.class)
-                .addMethod(getCreateMethodSpec());
+                .addMethod(getCreateMethodSpec())
+                .addMethod(getCreateByClassMethodSpec())
+                .addMethod(getTypesMethodSpec());
 
         return adapterBuilder.build();
     }
 
+    /**
+     * Dispatches on the class name, so that a lookup costs one string hash instead of a
+     * comparison per model, and only loads the model class whose name matches. If the name
+     * matches no model, which happens for the other classes of the package but also when the
+     * models have been renamed, for instance by an obfuscator, the lookup falls back to comparing
+     * the class against every model with {@link #getCreateByClassMethodSpec()}.
+     */
     @NotNull
     private MethodSpec getCreateMethodSpec() {
         TypeVariableName genericType = TypeVariableName.get("T");
-        AnnotationSpec suppressedWarnings = AnnotationSpec.builder(SuppressWarnings.class)
-                .addMember("value", "\"unchecked\"")
-                .addMember("value", "\"rawtypes\"")
-                .build();
         MethodSpec.Builder builder = MethodSpec.methodBuilder("create")
                 .addTypeVariable(genericType)
                 .addParameter(Gson.class, "gson")
                 .addParameter(ParameterizedTypeName.get(ClassName.get(TypeToken.class), genericType), "type")
                 .returns(ParameterizedTypeName.get(ClassName.get(TypeAdapter.class), genericType))
-                .addAnnotation(suppressedWarnings)
+                .addAnnotation(getSuppressedWarnings())
                 .addAnnotation(Override.class)
                 .addModifiers(Modifier.PUBLIC)
-                .addCode("Class<? super T> clazz = type.getRawType();\n");
+                .addCode("Class<? super T> clazz = type.getRawType();\n")
+                .beginControlFlow("switch (clazz.getName())");
 
         for (ClassInfo classInfo : mClassInfoList) {
+            builder.addCode("case $S:\n$>", classInfo.getBinaryName());
             builder.beginControlFlow("if (clazz == " + classInfo.getClassAndPackage() + ".class)");
-            List<? extends TypeMirror> typeArguments = classInfo.getTypeArguments();
-            if (typeArguments == null || typeArguments.isEmpty()) {
-                builder.addStatement("return (TypeAdapter<T>) new " + classInfo.getTypeAdapterQualifiedClassName() + "(gson)");
-            } else {
-                builder.addStatement("java.lang.reflect.Type parameters = type.getType()");
-                builder.beginControlFlow("if (parameters instanceof java.lang.reflect.ParameterizedType)");
-                builder.addStatement(
-                        "java.lang.reflect.ParameterizedType parameterizedType = (java.lang.reflect.ParameterizedType) parameters");
-                builder.addStatement(
-                        "java.lang.reflect.Type[] parametersType = parameterizedType.getActualTypeArguments()");
-                String statement = "return (TypeAdapter<T>) new " + classInfo.getTypeAdapterQualifiedClassName() + "(gson";
-                for (int idx = 0; idx < typeArguments.size(); idx++) {
-                    statement += ", parametersType[" + idx + "]";
-                }
-                statement += ")";
-                builder.addStatement(statement);
-                builder.endControlFlow();
-                builder.beginControlFlow("else");
-                builder.addStatement("TypeToken objectToken = TypeToken.get(Object.class)");
-                statement = "return (TypeAdapter<T>) new " + classInfo.getTypeAdapterQualifiedClassName() + "(gson";
-                for (int idx = 0; idx < typeArguments.size(); idx++) {
-                    statement += ", objectToken.getType()";
-                }
-                statement += ")";
-                builder.addStatement(statement);
-                builder.endControlFlow();
-            }
+            addReturnTypeAdapterStatements(builder, classInfo);
+            builder.endControlFlow();
+            builder.addStatement("break");
+            builder.addCode("$<");
+        }
+
+        builder.endControlFlow();
+        builder.addStatement("return createByClass(gson, type, clazz)");
+
+        return builder.build();
+    }
+
+    @NotNull
+    private MethodSpec getCreateByClassMethodSpec() {
+        TypeVariableName genericType = TypeVariableName.get("T");
+        MethodSpec.Builder builder = MethodSpec.methodBuilder("createByClass")
+                .addTypeVariable(genericType)
+                .addParameter(Gson.class, "gson")
+                .addParameter(ParameterizedTypeName.get(ClassName.get(TypeToken.class), genericType), "type")
+                .addParameter(ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.supertypeOf(genericType)), "clazz")
+                .returns(ParameterizedTypeName.get(ClassName.get(TypeAdapter.class), genericType))
+                .addAnnotation(getSuppressedWarnings())
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC);
+
+        for (ClassInfo classInfo : mClassInfoList) {
+            builder.beginControlFlow("if (clazz == " + classInfo.getClassAndPackage() + ".class)");
+            addReturnTypeAdapterStatements(builder, classInfo);
             builder.endControlFlow();
         }
 
@@ -94,4 +119,73 @@ public class StagFactoryGenerator {
 
         return builder.build();
     }
+
+    /**
+     * Lists the types this factory creates adapters for, for {@code Stag.Factory.warmUp}. The
+     * array is created on each call rather than kept in a field.
+     */
+    @NotNull
+    private MethodSpec getTypesMethodSpec() {
+        CodeBlock.Builder types = CodeBlock.builder().add("return new Class<?>[] {\n$>$>");
+        for (int index = 0; index < mClassInfoList.size(); index++) {
+            types.add(index == 0 ? "$L.class" : ",\n$L.class", mClassInfoList.get(index).getClassAndPackage());
+        }
+        types.add("$<$<\n};\n");
+
+        return MethodSpec.methodBuilder(METHOD_GET_TYPES)
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(ArrayTypeName.of(ParameterizedTypeName.get(ClassName.get(Class.class), WildcardTypeName.subtypeOf(Object.class))))
+                .addCode(types.build())
+                .build();
+    }
+
+    @NotNull
+    private static AnnotationSpec getSuppressedWarnings() {
+        return AnnotationSpec.builder(SuppressWarnings.class)
+                .addMember("value", "\"unchecked\"")
+                .addMember("value", "\"rawtypes\"")
+                .build();
+    }
+
+    /**
+     * Returns the specialized adapter if the requested type is one of the parameterizations that
+     * the adapters were specialized for, and otherwise the generic adapter, which is given the
+     * type arguments at runtime.
+     */
+    private void addReturnTypeAdapterStatements(@NotNull MethodSpec.Builder builder, @NotNull ClassInfo classInfo) {
+        List<? extends TypeMirror> typeArguments = classInfo.getTypeArguments();
+        if (typeArguments == null || typeArguments.isEmpty()) {
+            builder.addStatement("return (TypeAdapter<T>) new " + classInfo.getTypeAdapterQualifiedClassName() + "(gson)");
+        } else {
+            for (ClassInfo specialization : mSpecializations) {
+                if (specialization.getBinaryName().equals(classInfo.getBinaryName())) {
+                    builder.beginControlFlow("if (type.equals(" + specialization.getTypeAdapterQualifiedClassName() + ".TYPE_TOKEN))");
+                    builder.addStatement("return (TypeAdapter<T>) new " + specialization.getTypeAdapterQualifiedClassName() + "(gson)");
+                    builder.endControlFlow();
+                }
+            }
+            builder.addStatement("java.lang.reflect.Type parameters = type.getType()");
+            builder.beginControlFlow("if (parameters instanceof java.lang.reflect.ParameterizedType)");
+            builder.addStatement(
+                    "java.lang.reflect.ParameterizedType parameterizedType = (java.lang.reflect.ParameterizedType) parameters");
+            builder.addStatement(
+                    "java.lang.reflect.Type[] parametersType = parameterizedType.getActualTypeArguments()");
+            String statement = "return (TypeAdapter<T>) new " + classInfo.getTypeAdapterQualifiedClassName() + "(gson";
+            for (int idx = 0; idx < typeArguments.size(); idx++) {
+                statement += ", parametersType[" + idx + "]";
+            }
+            statement += ")";
+            builder.addStatement(statement);
+            builder.endControlFlow();
+            builder.beginControlFlow("else");
+            builder.addStatement("TypeToken objectToken = TypeToken.get(Object.class)");
+            statement = "return (TypeAdapter<T>) new " + classInfo.getTypeAdapterQualifiedClassName() + "(gson";
+            for (int idx = 0; idx < typeArguments.size(); idx++) {
+                statement += ", objectToken.getType()";
+            }
+            statement += ")";
+            builder.addStatement(statement);
+            builder.endControlFlow();
+        }
+    }
 }
@@ -29,11 +29,13 @@ import com.google.gson.TypeAdapterFactory;
 import com.google.gson.reflect.TypeToken;
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
 import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
+import com.vimeo.stag.StagWarmUp;
 import com.vimeo.stag.processor.codegen.SwitchCodeBlockBuilder;
 import com.vimeo.stag.processor.generators.model.ClassInfo;
 import com.vimeo.stag.processor.utils.TypeUtils;
@@ -41,11 +43,12 @@ import com.vimeo.stag.processor.utils.TypeUtils;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import javax.lang.model.element.Modifier;
 import javax.lang.model.type.TypeMirror;
@@ -56,6 +59,14 @@ public class StagGenerator {
     private static final String CLASS_STAG = "Stag";
     @NotNull
     private static final String CLASS_TYPE_ADAPTER_FACTORY = "Factory";
+    @NotNull
+    private static final String CLASS_PACKAGE_TABLE = "PackageTable";
+    @NotNull
+    private static final String METHOD_WARM_UP = "warmUp";
+    @NotNull
+    private static final String FIELD_METRICS = "metrics";
+    @NotNull
+    private static final ClassName STAG_METRICS = ClassName.get("com.vimeo.stag", "StagMetrics");
 
     @NotNull
     private final Map<String, ClassInfo> mKnownClasses;
@@ -81,44 +92,36 @@ public class StagGenerator {
      * for the annotated classes. Creates the spec for the class.
      *
      * @param generatedStagFactoryWrappers List of Sub Factories that have been created
+     * @param instrumentation              whether the factory reports the adapters it creates
+     *                                     to {@code StagMetrics}.
      * @return A non null TypeSpec for the factory class.
      */
     @NotNull
-    public static TypeSpec createStagSpec(List<SubFactoriesInfo> generatedStagFactoryWrappers) {
+    public static TypeSpec createStagSpec(List<SubFactoriesInfo> generatedStagFactoryWrappers, boolean instrumentation) {
         TypeSpec.Builder stagBuilder =
                 TypeSpec.classBuilder(CLASS_STAG).addModifiers(Modifier.PUBLIC, Modifier.FINAL);
-        stagBuilder.addType(getAdapterFactorySpec(generatedStagFactoryWrappers));
+        stagBuilder.addType(getAdapterFactorySpec(generatedStagFactoryWrappers, instrumentation));
 
         return stagBuilder.build();
     }
 
     @NotNull
-    private static TypeSpec getAdapterFactorySpec(@NotNull List<SubFactoriesInfo> generatedStagFactoryWrappers) {
+    private static TypeSpec getAdapterFactorySpec(@NotNull List<SubFactoriesInfo> generatedStagFactoryWrappers,
+                                                  boolean instrumentation) {
         TypeVariableName genericTypeName = TypeVariableName.get("T");
+        int factoryCount = generatedStagFactoryWrappers.size();
 
         TypeSpec.Builder adapterFactoryBuilder = TypeSpec.classBuilder(CLASS_TYPE_ADAPTER_FACTORY)
                 .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
                 .addSuperinterface(TypeAdapterFactory.class);
 
-        ParameterizedTypeName hashMapOfStringToInteger = ParameterizedTypeName.get(HashMap.class, String.class, Integer.class);
-        FieldSpec.Builder packageToIndexMapField = FieldSpec.builder(hashMapOfStringToInteger,
-                                                                     "packageToIndexMap", Modifier.FINAL, Modifier.PRIVATE).initializer("new " + hashMapOfStringToInteger.toString() + "( " + generatedStagFactoryWrappers.size() + ")");
-        adapterFactoryBuilder.addField(packageToIndexMapField.build());
-
-        TypeVariableName typeAdapterFactoryArray = TypeVariableName.get("TypeAdapterFactory[]");
-        FieldSpec.Builder typeAdapterFactoryArrayField = FieldSpec.builder(typeAdapterFactoryArray,
-                                                                           "typeAdapterFactoryArray", Modifier.FINAL, Modifier.PRIVATE).initializer("new TypeAdapterFactory[" + generatedStagFactoryWrappers.size() + "]");
+        ParameterizedTypeName atomicArrayOfFactories = ParameterizedTypeName.get(AtomicReferenceArray.class, TypeAdapterFactory.class);
+        FieldSpec.Builder typeAdapterFactoryArrayField = FieldSpec.builder(atomicArrayOfFactories,
+                                                                           "typeAdapterFactoryArray", Modifier.FINAL, Modifier.PRIVATE)
+                .initializer("new $T($L)", atomicArrayOfFactories, factoryCount);
         adapterFactoryBuilder.addField(typeAdapterFactoryArrayField.build());
 
-        MethodSpec.Builder getPackageNameMethodBuilder = MethodSpec.methodBuilder("getPackageName")
-                .addTypeVariable(genericTypeName)
-                .returns(String.class)
-                .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
-                .addParameter(ParameterizedTypeName.get(ClassName.get(Class.class), genericTypeName), "clazz")
-                .addStatement("String name = clazz.getName()")
-                .addStatement("int last = name.lastIndexOf('.')")
-                .addStatement("return last == -1 ? null : name.substring(0, last)");
-        adapterFactoryBuilder.addMethod(getPackageNameMethodBuilder.build());
+        adapterFactoryBuilder.addType(getPackageTableSpec(generatedStagFactoryWrappers));
 
         MethodSpec.Builder createTypeAdapterFactoryMethodBuilder = MethodSpec.methodBuilder("createTypeAdapterFactory")
                 .returns(TypeAdapterFactory.class)
@@ -129,7 +132,7 @@ public class StagGenerator {
         SwitchCodeBlockBuilder factorySwitchBuilder = new SwitchCodeBlockBuilder()
                 .beginSwitch("switch(index)");
 
-        for (int index = 0; index < generatedStagFactoryWrappers.size(); index++) {
+        for (int index = 0; index < factoryCount; index++) {
             factorySwitchBuilder
                     .beginCase("case $L", index)
                     .addStatement("result = new $L()", generatedStagFactoryWrappers.get(index).classAndPackageName)
@@ -143,66 +146,33 @@ public class StagGenerator {
                 .addStatement("return result");
         adapterFactoryBuilder.addMethod(createTypeAdapterFactoryMethodBuilder.build());
 
+        // Sub factories are created lazily. If two threads race to create the same one, the
+        // first one published wins and the other is dropped, so no lock is ever taken.
         MethodSpec.Builder getTypeAdapterFactoryMethodBuilder = MethodSpec.methodBuilder("getTypeAdapterFactory")
                 .returns(TypeAdapterFactory.class)
                 .addModifiers(Modifier.PRIVATE)
                 .addParameter(int.class, "index")
-                .addStatement("TypeAdapterFactory typeAdapterFactory = typeAdapterFactoryArray[index]")
+                .addStatement("TypeAdapterFactory typeAdapterFactory = typeAdapterFactoryArray.get(index)")
                 .beginControlFlow("if (typeAdapterFactory == null)")
                 .addStatement("typeAdapterFactory = createTypeAdapterFactory(index)")
-                .addStatement("typeAdapterFactoryArray[index] = typeAdapterFactory")
+                .beginControlFlow("if (!typeAdapterFactoryArray.compareAndSet(index, null, typeAdapterFactory))")
+                .addStatement("typeAdapterFactory = typeAdapterFactoryArray.get(index)")
+                .endControlFlow()
                 .endControlFlow()
                 .addStatement("return typeAdapterFactory");
         adapterFactoryBuilder.addMethod(getTypeAdapterFactoryMethodBuilder.build());
 
-        MethodSpec.Builder getTypeAdapterMethodBuilder = MethodSpec.methodBuilder("getTypeAdapterFactory")
-                .returns(ClassName.get(TypeAdapterFactory.class))
-                .addModifiers(Modifier.PRIVATE)
-                .addParameter(ParameterizedTypeName.get(ClassName.get(Class.class), TypeVariableName.get("?")), "clazz")
-                .addParameter(String.class, "currentPackageName")
-                .addParameter(int.class, "index")
-                .addStatement("String packageName = getPackageName(clazz)")
-                .addStatement("packageToIndexMap.put(packageName, index)")
-                .beginControlFlow("if (currentPackageName.equals(packageName))")
-                .addStatement("return getTypeAdapterFactory(index)")
-                .endControlFlow()
-                .addStatement("return null");
-        adapterFactoryBuilder.addMethod(getTypeAdapterMethodBuilder.build());
-
-        MethodSpec.Builder getSubTypeAdapterMethodBuilder = MethodSpec.methodBuilder("getSubFactory")
-                .returns(ClassName.get(TypeAdapterFactory.class))
-                .addAnnotation(AnnotationSpec.builder(SuppressWarnings.class)
-                                       .addMember("value", "\"fallthrough\"")
-                                       .build())
-                .addModifiers(Modifier.PRIVATE, Modifier.SYNCHRONIZED)
-                .addParameter(String.class, "currentPackageName")
-                .addStatement("Integer index = packageToIndexMap.get(currentPackageName);")
-                .beginControlFlow("if (index != null)")
-                .addStatement("TypeAdapterFactory typeAdapterFactory = getTypeAdapterFactory(index)")
-                .addStatement("return typeAdapterFactory")
-                .endControlFlow()
-                .addStatement("TypeAdapterFactory result = null");
-
-        SwitchCodeBlockBuilder subFactorySwitchBuilder = new SwitchCodeBlockBuilder()
-                .beginSwitch("switch(packageToIndexMap.size())");
-
-        for (int index = 0; index < generatedStagFactoryWrappers.size(); index++) {
-            subFactorySwitchBuilder
-                    .beginCase("case $L", index)
-                    .addStatement("result = getTypeAdapterFactory($L.class, currentPackageName, $L)", generatedStagFactoryWrappers.get(index).representativeClassInfo.getClassAndPackage(), index)
-                    .beginControlFlow("if (result != null)")
-                    .addStatement("return result")
-                    .endControlFlow();
-        }
-
-        subFactorySwitchBuilder
-                .beginCase("default")
-                .addStatement("return null")
-                .endSwitch();
-
-        getSubTypeAdapterMethodBuilder.addCode(subFactorySwitchBuilder.build());
-
-        adapterFactoryBuilder.addMethod(getSubTypeAdapterMethodBuilder.build());
+        adapterFactoryBuilder.addMethod(getWarmUpMethodSpec(generatedStagFactoryWrappers));
+        adapterFactoryBuilder.addMethod(MethodSpec.methodBuilder(METHOD_WARM_UP)
+                                                .addJavadoc("Creates the adapters of every type known to this factory in {@code gson}, running one task\n"
+                                                                    + "per package on {@code executor}. See {@link $T}.\n", StagWarmUp.class)
+                                                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                                                .returns(ParameterizedTypeName.get(List.class, StagWarmUp.PackageReport.class))
+                                                .addParameter(Gson.class, "gson")
+                                                .addParameter(Executor.class, "executor")
+                                                .addException(InterruptedException.class)
+                                                .addStatement("return $L(gson, executor, 0)", METHOD_WARM_UP)
+                                                .build());
 
         String suppressWarningValue = "value";
         MethodSpec.Builder createMethodBuilder = MethodSpec.methodBuilder("create")
@@ -218,19 +188,145 @@ public class StagGenerator {
                 .addParameter(ParameterizedTypeName.get(ClassName.get(TypeToken.class), genericTypeName),
                               "type")
 
-                .addStatement("Class<? super T> clazz = type.getRawType()")
-                .addStatement("String currentPackageName = getPackageName(clazz)")
-                .beginControlFlow("if (currentPackageName == null)")
+                .addStatement("int index = $L.getFactoryIndex(type.getRawType().getName())", CLASS_PACKAGE_TABLE)
+                .beginControlFlow("if (index == -1)")
                 .addStatement("return null")
-                .endControlFlow()
-                .addStatement("TypeAdapterFactory typeAdapterFactory = getSubFactory(currentPackageName)")
-                .addStatement("return typeAdapterFactory != null ? typeAdapterFactory.create(gson, type) : null");
+                .endControlFlow();
+
+        if (instrumentation) {
+            adapterFactoryBuilder.addField(FieldSpec.builder(STAG_METRICS, FIELD_METRICS, Modifier.FINAL, Modifier.PRIVATE)
+                                                   .initializer("$T.getInstance()", STAG_METRICS)
+                                                   .build());
+            createMethodBuilder
+                    .beginControlFlow("if (!$L.isEnabled())", FIELD_METRICS)
+                    .addStatement("return getTypeAdapterFactory(index).create(gson, type)")
+                    .endControlFlow()
+                    .addStatement("long startNanos = System.nanoTime()")
+                    .addStatement("TypeAdapter<T> typeAdapter = getTypeAdapterFactory(index).create(gson, type)")
+                    .beginControlFlow("if (typeAdapter != null)")
+                    .addStatement("$L.onAdapterCreated(type.getRawType(), System.nanoTime() - startNanos)", FIELD_METRICS)
+                    .endControlFlow()
+                    .addStatement("return typeAdapter");
+        } else {
+            createMethodBuilder.addStatement("return getTypeAdapterFactory(index).create(gson, type)");
+        }
 
         adapterFactoryBuilder.addMethod(createMethodBuilder.build());
 
         return adapterFactoryBuilder.build();
     }
 
+    @NotNull
+    private static MethodSpec getWarmUpMethodSpec(@NotNull List<SubFactoriesInfo> generatedStagFactoryWrappers) {
+        CodeBlock.Builder types = CodeBlock.builder().add("Class<?>[][] types = {");
+        for (int index = 0; index < generatedStagFactoryWrappers.size(); index++) {
+            types.add(index == 0 ? "\n$>$>$L.$L()" : ",\n$L.$L()",
+                      generatedStagFactoryWrappers.get(index).classAndPackageName, StagFactoryGenerator.METHOD_GET_TYPES);
+        }
+        if (!generatedStagFactoryWrappers.isEmpty()) {
+            types.add("$<$<\n");
+        }
+        types.add("};\n");
+
+        return MethodSpec.methodBuilder(METHOD_WARM_UP)
+                .addJavadoc("Creates the adapters of every type known to this factory in {@code gson}, running one task\n"
+                                    + "per package on {@code executor}, and then writes and reads back an instance of each type\n"
+                                    + "{@code roundTrips} times. See {@link $T}.\n", StagWarmUp.class)
+                .addModifiers(Modifier.PUBLIC, Modifier.STATIC)
+                .returns(ParameterizedTypeName.get(List.class, StagWarmUp.PackageReport.class))
+                .addParameter(Gson.class, "gson")
+                .addParameter(Executor.class, "executor")
+                .addParameter(int.class, "roundTrips")
+                .addException(InterruptedException.class)
+                .addCode(types.build())
+                .addStatement("return $T.warmUp(gson, executor, roundTrips, types)", StagWarmUp.class)
+                .build();
+    }
+
+    /**
+     * Generates a holder class with an open addressing hash table from package name to sub
+     * factory index. The table is built from class literals when the holder is initialized,
+     * rather than from package names known at compile time, so that it still matches after the
+     * packages have been renamed by an obfuscator. Lookups hash the package prefix of the class
+     * name in place, so they neither lock nor allocate.
+     */
+    @NotNull
+    private static TypeSpec getPackageTableSpec(@NotNull List<SubFactoriesInfo> generatedStagFactoryWrappers) {
+        int tableSize = Integer.highestOneBit(Math.max(1, generatedStagFactoryWrappers.size()) * 2) * 2;
+
+        TypeSpec.Builder packageTableBuilder = TypeSpec.classBuilder(CLASS_PACKAGE_TABLE)
+                .addModifiers(Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL);
+
+        packageTableBuilder.addField(FieldSpec.builder(int.class, "MASK", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                             .initializer("$L", tableSize - 1).build());
+        packageTableBuilder.addField(FieldSpec.builder(String[].class, "PACKAGE_NAMES", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                             .initializer("new String[$L]", tableSize).build());
+        packageTableBuilder.addField(FieldSpec.builder(int[].class, "PACKAGE_HASHES", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                             .initializer("new int[$L]", tableSize).build());
+        packageTableBuilder.addField(FieldSpec.builder(int[].class, "FACTORY_INDICES", Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                             .initializer("new int[$L]", tableSize).build());
+
+        CodeBlock.Builder representatives = CodeBlock.builder().add("Class<?>[] representatives = {");
+        for (int index = 0; index < generatedStagFactoryWrappers.size(); index++) {
+            representatives.add(index == 0 ? "\n$>$>$L.class" : ",\n$L.class",
+                                generatedStagFactoryWrappers.get(index).representativeClassInfo.getClassAndPackage());
+        }
+        if (!generatedStagFactoryWrappers.isEmpty()) {
+            representatives.add("$<$<\n");
+        }
+        representatives.add("};\n");
+
+        packageTableBuilder.addStaticBlock(CodeBlock.builder()
+                                                   .add(representatives.build())
+                                                   .beginControlFlow("for (int index = 0; index < representatives.length; index++)")
+                                                   .addStatement("String name = representatives[index].getName()")
+                                                   .addStatement("int packageLength = name.lastIndexOf('.')")
+                                                   .addStatement("int hash = hashPackage(name, packageLength)")
+                                                   .addStatement("int slot = hash & MASK")
+                                                   .beginControlFlow("while (PACKAGE_NAMES[slot] != null)")
+                                                   .addStatement("slot = (slot + 1) & MASK")
+                                                   .endControlFlow()
+                                                   .addStatement("PACKAGE_NAMES[slot] = name.substring(0, packageLength)")
+                                                   .addStatement("PACKAGE_HASHES[slot] = hash")
+                                                   .addStatement("FACTORY_INDICES[slot] = index")
+                                                   .endControlFlow()
+                                                   .build());
+
+        packageTableBuilder.addMethod(MethodSpec.methodBuilder("hashPackage")
+                                              .returns(int.class)
+                                              .addModifiers(Modifier.PRIVATE, Modifier.STATIC)
+                                              .addParameter(String.class, "name")
+                                              .addParameter(int.class, "packageLength")
+                                              .addStatement("int hash = 0")
+                                              .beginControlFlow("for (int i = 0; i < packageLength; i++)")
+                                              .addStatement("hash = 31 * hash + name.charAt(i)")
+                                              .endControlFlow()
+                                              .addStatement("return hash")
+                                              .build());
+
+        packageTableBuilder.addMethod(MethodSpec.methodBuilder("getFactoryIndex")
+                                              .returns(int.class)
+                                              .addModifiers(Modifier.STATIC)
+                                              .addParameter(String.class, "name")
+                                              .addStatement("int packageLength = name.lastIndexOf('.')")
+                                              .beginControlFlow("if (packageLength == -1)")
+                                              .addStatement("return -1")
+                                              .endControlFlow()
+                                              .addStatement("int hash = hashPackage(name, packageLength)")
+                                              .addStatement("int slot = hash & MASK")
+                                              .addStatement("String packageName")
+                                              .beginControlFlow("while ((packageName = PACKAGE_NAMES[slot]) != null)")
+                                              .beginControlFlow("if (PACKAGE_HASHES[slot] == hash && packageName.length() == packageLength && name.startsWith(packageName))")
+                                              .addStatement("return FACTORY_INDICES[slot]")
+                                              .endControlFlow()
+                                              .addStatement("slot = (slot + 1) & MASK")
+                                              .endControlFlow()
+                                              .addStatement("return -1")
+                                              .build());
+
+        return packageTableBuilder.build();
+    }
+
     public static class SubFactoriesInfo {
 
         @NotNull final ClassInfo representativeClassInfo;
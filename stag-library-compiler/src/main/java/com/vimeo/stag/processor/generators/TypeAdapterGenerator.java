@@ -29,6 +29,7 @@ import com.google.gson.internal.bind.TreeTypeAdapter;
 import com.google.gson.reflect.TypeToken;
 import com.squareup.javapoet.AnnotationSpec;
 import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.ParameterizedTypeName;
 import com.squareup.javapoet.TypeName;
@@ -36,8 +37,11 @@ import com.squareup.javapoet.TypeSpec;
 import com.squareup.javapoet.TypeVariableName;
 import com.vimeo.stag.KnownTypeAdapters;
 import com.vimeo.stag.KnownTypeAdapters.ArrayTypeAdapter;
+import com.vimeo.stag.TimestampFormat;
+import com.vimeo.stag.processor.generators.model.AdapterStrategy;
 import com.vimeo.stag.processor.generators.model.AnnotatedClass;
 import com.vimeo.stag.processor.generators.model.ClassInfo;
+import com.vimeo.stag.processor.generators.model.FieldStrategy;
 import com.vimeo.stag.processor.generators.model.SupportedTypesModel;
 import com.vimeo.stag.processor.generators.model.accessor.FieldAccessor;
 import com.vimeo.stag.processor.generators.typeadapter.ReadSpecGenerator;
@@ -52,9 +56,14 @@ import org.jetbrains.annotations.Nullable;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Modifier;
@@ -67,17 +76,43 @@ import javax.lang.model.type.TypeVariable;
 public class TypeAdapterGenerator extends AdapterGenerator {
 
     private static final String TYPE_ADAPTER_FIELD_PREFIX = "mTypeAdapter";
+    private static final String TYPES_FIELD = "mTypes";
+    private static final String TYPE_TOKEN_CONSTANT_PREFIX = "TYPE_TOKEN_";
+    private static final ClassName STAG_METRICS = ClassName.get("com.vimeo.stag", "StagMetrics");
+    public static final String METRICS_FIELD = "mMetrics";
 
     @NotNull
     private final ClassInfo mInfo;
     @NotNull
     private final SupportedTypesModel mSupportedTypesModel;
     private boolean mEnableSerializeNulls;
+    private final boolean mLazyFieldAdapters;
+    private final boolean mInstrumentation;
+    @Nullable
+    private final Map<FieldAccessor, TypeMirror> mSpecializedMembers;
+    @Nullable
+    private List<FieldStrategy> mFieldStrategies;
+
+    public TypeAdapterGenerator(@NotNull SupportedTypesModel supportedTypesModel, @NotNull ClassInfo info, boolean enableSerializeNulls,
+                                boolean lazyFieldAdapters, boolean instrumentation) {
+        this(supportedTypesModel, info, null, enableSerializeNulls, lazyFieldAdapters, instrumentation);
+    }
 
-    public TypeAdapterGenerator(@NotNull SupportedTypesModel supportedTypesModel, @NotNull ClassInfo info, boolean enableSerializeNulls) {
+    /**
+     * Creates a generator for a type adapter. If the class info describes a concrete
+     * parameterization of a generic model, the specialized members are the members of the
+     * model with the type arguments substituted, and the generated adapter is fully typed
+     * instead of taking the type arguments in its constructor.
+     */
+    public TypeAdapterGenerator(@NotNull SupportedTypesModel supportedTypesModel, @NotNull ClassInfo info,
+                                @Nullable Map<FieldAccessor, TypeMirror> specializedMembers,
+                                boolean enableSerializeNulls, boolean lazyFieldAdapters, boolean instrumentation) {
         mSupportedTypesModel = supportedTypesModel;
         mInfo = info;
+        mSpecializedMembers = specializedMembers;
         mEnableSerializeNulls = enableSerializeNulls;
+        mLazyFieldAdapters = lazyFieldAdapters;
+        mInstrumentation = instrumentation;
     }
 
     @NotNull
@@ -99,21 +134,27 @@ public class TypeAdapterGenerator extends AdapterGenerator {
     }
 
     /**
-     * This is used to generate the type token code for the types that are unknown.
+     * This is used to generate the type token code for the types that are unknown. The type token
+     * variable that the code refers to, if any, is added to the dependencies.
      */
     @Nullable
     private static String getTypeTokenCode(@NotNull TypeMirror fieldType,
                                            @NotNull StagGenerator stagGenerator,
                                            @NotNull Map<TypeMirror, String> typeVarsMap,
-                                           @NotNull AdapterFieldInfo adapterFieldInfo) {
+                                           @NotNull AdapterFieldInfo adapterFieldInfo,
+                                           @NotNull Dependencies dependencies) {
+        Dependencies tokenDependencies = new Dependencies();
         if (fieldType.getKind() == TypeKind.TYPEVAR) {
-            return adapterFieldInfo.updateAndGetTypeTokenFieldName(fieldType, "(com.google.gson.reflect.TypeToken<" + fieldType.toString() + ">) com.google.gson.reflect.TypeToken.get(" + typeVarsMap.get(fieldType) + ")");
+            tokenDependencies.usesTypeArguments = true;
+            return adapterFieldInfo.updateAndGetTypeTokenFieldName(fieldType, "(com.google.gson.reflect.TypeToken<" + fieldType.toString() + ">) com.google.gson.reflect.TypeToken.get(" + typeVarsMap.get(fieldType) + ")",
+                                                                   tokenDependencies, dependencies);
         } else if (!TypeUtils.isParameterizedType(fieldType)) {
             ClassInfo classInfo = stagGenerator.getKnownClass(fieldType);
             if (classInfo != null) {
                 return classInfo.getTypeAdapterQualifiedClassName() + ".TYPE_TOKEN";
             } else {
-                return adapterFieldInfo.updateAndGetTypeTokenFieldName(fieldType, "com.google.gson.reflect.TypeToken.get(" + fieldType.toString() + ".class)");
+                return adapterFieldInfo.updateAndGetTypeTokenFieldName(fieldType, "com.google.gson.reflect.TypeToken.get(" + fieldType.toString() + ".class)",
+                                                                       tokenDependencies, dependencies);
             }
         } else if (fieldType instanceof DeclaredType) {
             /*
@@ -147,7 +188,7 @@ public class TypeAdapterGenerator extends AdapterGenerator {
                         if (TypeUtils.isParameterizedType(upperBound)) {
                             TypeMirror replacedQualifiedType = getReplacedTypeMirror(upperBound, fieldTypeVarsMap);
                             fieldTypeVarsMap.put(classArg, replacedQualifiedType);
-                            upperBoundString += getTypeTokenCode(replacedQualifiedType, stagGenerator, typeVarsMap, adapterFieldInfo) + ".getType()";
+                            upperBoundString += getTypeTokenCode(replacedQualifiedType, stagGenerator, typeVarsMap, adapterFieldInfo, tokenDependencies) + ".getType()";
                         } else {
                             upperBoundString += upperBound.toString() + ".class";
                             fieldTypeVarsMap.put(classArg, upperBound);
@@ -159,14 +200,15 @@ public class TypeAdapterGenerator extends AdapterGenerator {
                     // When the class is non parametrized and we can call xxxxx.class directly
                     result.append(", ").append(parameterTypeMirror.toString()).append(".class");
                 } else {
-                    result.append(", ").append(getTypeTokenCode(parameterTypeMirror, stagGenerator, typeVarsMap, adapterFieldInfo)).append(".getType()");
+                    result.append(", ").append(getTypeTokenCode(parameterTypeMirror, stagGenerator, typeVarsMap, adapterFieldInfo, tokenDependencies)).append(".getType()");
                 }
                 paramIndex++;
             }
             result.append(")");
-            return adapterFieldInfo.updateAndGetTypeTokenFieldName(fieldType, result.toString());
+            return adapterFieldInfo.updateAndGetTypeTokenFieldName(fieldType, result.toString(), tokenDependencies, dependencies);
         } else {
-            return adapterFieldInfo.updateAndGetTypeTokenFieldName(fieldType, "com.google.gson.reflect.TypeToken.get(" + fieldType.toString() + ".class)");
+            return adapterFieldInfo.updateAndGetTypeTokenFieldName(fieldType, "com.google.gson.reflect.TypeToken.get(" + fieldType.toString() + ".class)",
+                                                                   tokenDependencies, dependencies);
         }
     }
 
@@ -186,12 +228,14 @@ public class TypeAdapterGenerator extends AdapterGenerator {
     private static String getInitializationCodeForKnownJsonAdapterType(@NotNull ExecutableElement adapterType,
                                                                        @NotNull StagGenerator stagGenerator,
                                                                        @NotNull Map<TypeMirror, String> typeVarsMap,
-                                                                       @NotNull MethodSpec.Builder constructorBuilder,
+                                                                       @NotNull List<String> setupStatements,
                                                                        @NotNull TypeMirror fieldType,
                                                                        @NotNull TypeUtils.JsonAdapterType jsonAdapterType,
                                                                        @NotNull AdapterFieldInfo adapterFieldInfo,
                                                                        boolean isNullSafe,
-                                                                       @NotNull String keyFieldName) {
+                                                                       @NotNull String keyFieldName,
+                                                                       @NotNull List<AdapterStrategy> strategies,
+                                                                       @NotNull Dependencies dependencies) {
         String fieldAdapterAccessor = "new " + FileGenUtils.escapeStringForCodeBlock(adapterType.getEnclosingElement().toString());
         if (jsonAdapterType == TypeUtils.JsonAdapterType.TYPE_ADAPTER) {
             ArrayList<String> constructorParameters = new ArrayList<>();
@@ -199,6 +243,7 @@ public class TypeAdapterGenerator extends AdapterGenerator {
                 for (VariableElement parameter : adapterType.getParameters()) {
                     if (parameter.asType().toString().equals(TypeUtils.className(Gson.class))) {
                         constructorParameters.add("gson");
+                        dependencies.usesGson = true;
                     } else {
                         throw new IllegalStateException("Not supported " + parameter.asType() + "parameter for @JsonAdapter value");
                     }
@@ -215,9 +260,12 @@ public class TypeAdapterGenerator extends AdapterGenerator {
             }
             constructorParameterStr.append(")");
             fieldAdapterAccessor += constructorParameterStr;
+            strategies.add(AdapterStrategy.JSON_ADAPTER);
         } else if (jsonAdapterType == TypeUtils.JsonAdapterType.TYPE_ADAPTER_FACTORY) {
-            String typeTokenAccessorCode = getTypeTokenCode(fieldType, stagGenerator, typeVarsMap, adapterFieldInfo);
+            String typeTokenAccessorCode = getTypeTokenCode(fieldType, stagGenerator, typeVarsMap, adapterFieldInfo, dependencies);
             fieldAdapterAccessor += "().create(gson, " + typeTokenAccessorCode + ")";
+            dependencies.usesGson = true;
+            strategies.add(AdapterStrategy.JSON_ADAPTER);
         } else if (jsonAdapterType == TypeUtils.JsonAdapterType.JSON_SERIALIZER
                 || jsonAdapterType == TypeUtils.JsonAdapterType.JSON_DESERIALIZER
                 || jsonAdapterType == TypeUtils.JsonAdapterType.JSON_SERIALIZER_DESERIALIZER) {
@@ -227,7 +275,7 @@ public class TypeAdapterGenerator extends AdapterGenerator {
                 String varName = keyFieldName + "SerializerDeserializer";
                 String initializer = adapterType.getEnclosingElement().toString() + " " + varName + " = " +
                         "new " + adapterType;
-                constructorBuilder.addStatement(initializer);
+                setupStatements.add(initializer);
                 serializer = varName;
                 deserializer = varName;
             } else if (jsonAdapterType == TypeUtils.JsonAdapterType.JSON_SERIALIZER) {
@@ -235,8 +283,10 @@ public class TypeAdapterGenerator extends AdapterGenerator {
             } else if (jsonAdapterType == TypeUtils.JsonAdapterType.JSON_DESERIALIZER) {
                 deserializer = "new " + adapterType;
             }
-            String typeTokenAccessorCode = getTypeTokenCode(fieldType, stagGenerator, typeVarsMap, adapterFieldInfo);
+            String typeTokenAccessorCode = getTypeTokenCode(fieldType, stagGenerator, typeVarsMap, adapterFieldInfo, dependencies);
+            dependencies.usesGson = true;
             fieldAdapterAccessor = "new " + TypeVariableName.get(TreeTypeAdapter.class) + "(" + serializer + ", " + deserializer + ", gson, " + typeTokenAccessorCode + ", null)";
+            strategies.add(AdapterStrategy.JSON_ADAPTER_TREE);
         } else {
             throw new IllegalArgumentException(
                     "@JsonAdapter value must be TypeAdapter, TypeAdapterFactory, "
@@ -254,52 +304,71 @@ public class TypeAdapterGenerator extends AdapterGenerator {
     }
 
     /**
-     * Returns the adapter code for the unknown types.
+     * Returns the adapter code for the unknown types, which are looked up with {@code gson.getAdapter}
+     * and resolve to a generated adapter if Stag knows the type.
      */
     private static String getAdapterForUnknownGenericType(@NotNull TypeMirror fieldType,
                                                           @NotNull StagGenerator stagGenerator,
                                                           @NotNull Map<TypeMirror, String> typeVarsMap,
-                                                          @NotNull AdapterFieldInfo adapterFieldInfo) {
-
-        String fieldName = adapterFieldInfo.getFieldName(fieldType);
-        if (fieldName == null) {
-            fieldName = TYPE_ADAPTER_FIELD_PREFIX + adapterFieldInfo.size();
+                                                          @NotNull AdapterFieldInfo adapterFieldInfo,
+                                                          @NotNull List<AdapterStrategy> strategies) {
+
+        String accessor = adapterFieldInfo.getFieldName(fieldType);
+        if (accessor == null) {
+            String fieldName = TYPE_ADAPTER_FIELD_PREFIX + adapterFieldInfo.size();
+            Dependencies dependencies = new Dependencies();
+            dependencies.usesGson = true;
             String fieldInitializationCode = "gson.getAdapter(" +
-                    getTypeTokenCode(fieldType, stagGenerator, typeVarsMap, adapterFieldInfo) + ")";
-            adapterFieldInfo.addField(fieldType, fieldName, fieldInitializationCode);
+                    getTypeTokenCode(fieldType, stagGenerator, typeVarsMap, adapterFieldInfo, dependencies) + ")";
+            boolean generated = stagGenerator.getKnownClass(fieldType) != null
+                    || (fieldType instanceof DeclaredType
+                    && stagGenerator.getKnownClass(((DeclaredType) fieldType).asElement().asType()) != null);
+            strategies.add(generated ? AdapterStrategy.GENERATED_ADAPTER : AdapterStrategy.RUNTIME_LOOKUP);
+            accessor = adapterFieldInfo.addField(fieldType, fieldName, fieldInitializationCode, dependencies,
+                                                 strategies.subList(strategies.size() - 1, strategies.size()));
+        } else {
+            strategies.addAll(adapterFieldInfo.getStrategies(fieldType));
         }
-        return fieldName;
+        return accessor;
     }
 
     /**
-     * Returns the adapter code for the known types.
+     * Returns the adapter code for the known types. The strategy chosen for the type is added to
+     * the end of the strategies, after the strategies of the adapters it delegates to.
      */
     private static String getAdapterAccessor(@NotNull TypeMirror fieldType,
                                              @NotNull StagGenerator stagGenerator,
                                              @NotNull Map<TypeMirror, String> typeVarsMap,
-                                             @NotNull AdapterFieldInfo adapterFieldInfo) {
+                                             @NotNull AdapterFieldInfo adapterFieldInfo,
+                                             @NotNull List<AdapterStrategy> strategies) {
 
         String knownTypeAdapter = KnownTypeAdapterUtils.getKnownTypeAdapterForType(fieldType);
 
         if (knownTypeAdapter != null) {
+            strategies.add(AdapterStrategy.KNOWN_TYPE_ADAPTER);
             return knownTypeAdapter;
         }
 
         String fieldName = adapterFieldInfo.getFieldName(fieldType);
         if (fieldName != null) {
+            strategies.addAll(adapterFieldInfo.getStrategies(fieldType));
             return fieldName;
         }
 
+        int firstStrategy = strategies.size();
+
         if (TypeUtils.isNativeArray(fieldType)) {
             /*
              * If the fieldType is of type native arrays such as String[] or int[]
              */
             TypeMirror arrayInnerType = TypeUtils.getArrayInnerType(fieldType);
             if (TypeUtils.isSupportedPrimitive(arrayInnerType.toString())) {
+                strategies.add(AdapterStrategy.KNOWN_TYPE_ADAPTER);
                 return KnownTypeAdapterUtils.getNativePrimitiveArrayTypeAdapter(fieldType);
             } else {
                 String adapterAccessor = getAdapterAccessor(arrayInnerType, stagGenerator, typeVarsMap,
-                        adapterFieldInfo);
+                        adapterFieldInfo, strategies);
+                strategies.add(AdapterStrategy.KNOWN_TYPE_ADAPTER);
                 String nativeArrayInstantiator =
                         KnownTypeAdapterUtils.getNativeArrayInstantiator(arrayInnerType);
                 return "new " + TypeUtils.className(ArrayTypeAdapter.class) + "<" +
@@ -310,15 +379,16 @@ public class TypeAdapterGenerator extends AdapterGenerator {
             DeclaredType declaredType = (DeclaredType) fieldType;
             List<? extends TypeMirror> typeArguments = declaredType.getTypeArguments();
             TypeMirror param = typeArguments.get(0);
-            String paramAdapterAccessor = getAdapterAccessor(param, stagGenerator, typeVarsMap, adapterFieldInfo);
+            String paramAdapterAccessor = getAdapterAccessor(param, stagGenerator, typeVarsMap, adapterFieldInfo, strategies);
             String listInstantiator = KnownTypeAdapterUtils.getListInstantiator(fieldType);
             String adapterCode =
                     "new " + TypeUtils.className(KnownTypeAdapters.ListTypeAdapter.class) + "<" + param.toString() + "," +
                             fieldType.toString() + ">" +
                             "(" + paramAdapterAccessor + ", " + listInstantiator + ")";
+            strategies.add(AdapterStrategy.KNOWN_TYPE_ADAPTER);
             fieldName = TYPE_ADAPTER_FIELD_PREFIX + adapterFieldInfo.size();
-            adapterFieldInfo.addField(fieldType, fieldName, adapterCode);
-            return fieldName;
+            return adapterFieldInfo.addField(fieldType, fieldName, adapterCode, new Dependencies(),
+                                             strategies.subList(firstStrategy, strategies.size()));
 
         } else if (TypeUtils.isSupportedMap(fieldType)) {
             DeclaredType declaredType = (DeclaredType) fieldType;
@@ -330,8 +400,8 @@ public class TypeAdapterGenerator extends AdapterGenerator {
             if (typeArguments != null && typeArguments.size() == 2) {
                 TypeMirror keyType = typeArguments.get(0);
                 TypeMirror valueType = typeArguments.get(1);
-                keyAdapterAccessor = getAdapterAccessor(keyType, stagGenerator, typeVarsMap, adapterFieldInfo);
-                valueAdapterAccessor = getAdapterAccessor(valueType, stagGenerator, typeVarsMap, adapterFieldInfo);
+                keyAdapterAccessor = getAdapterAccessor(keyType, stagGenerator, typeVarsMap, adapterFieldInfo, strategies);
+                valueAdapterAccessor = getAdapterAccessor(valueType, stagGenerator, typeVarsMap, adapterFieldInfo, strategies);
                 arguments = "<" + keyType.toString() + ", " + valueType.toString() + ", " +
                         fieldType.toString() + ">";
             } else {
@@ -343,55 +413,108 @@ public class TypeAdapterGenerator extends AdapterGenerator {
             String adapterCode = "new " + TypeUtils.className(KnownTypeAdapters.MapTypeAdapter.class) + arguments +
                     "(" + keyAdapterAccessor + ", " + valueAdapterAccessor + ", " +
                     mapInstantiator + ")";
+            strategies.add(AdapterStrategy.KNOWN_TYPE_ADAPTER);
             fieldName = TYPE_ADAPTER_FIELD_PREFIX + adapterFieldInfo.size();
-            adapterFieldInfo.addField(fieldType, fieldName, adapterCode);
-            return fieldName;
+            return adapterFieldInfo.addField(fieldType, fieldName, adapterCode, new Dependencies(),
+                                             strategies.subList(firstStrategy, strategies.size()));
         } else {
-            return getAdapterForUnknownGenericType(fieldType, stagGenerator, typeVarsMap, adapterFieldInfo);
+            return getAdapterForUnknownGenericType(fieldType, stagGenerator, typeVarsMap, adapterFieldInfo, strategies);
         }
     }
 
     @NotNull
     private static AdapterFieldInfo addAdapterFields(@NotNull StagGenerator stagGenerator,
-                                                     @NotNull MethodSpec.Builder constructorBuilder,
                                                      @NotNull Map<FieldAccessor, TypeMirror> memberVariables,
-                                                     @NotNull Map<TypeMirror, String> typeVarsMap) {
+                                                     @NotNull Map<TypeMirror, String> typeVarsMap,
+                                                     boolean lazyFieldAdapters) {
 
-        AdapterFieldInfo result = new AdapterFieldInfo(memberVariables.size());
+        AdapterFieldInfo result = new AdapterFieldInfo(memberVariables.size(), lazyFieldAdapters);
         for (Map.Entry<FieldAccessor, TypeMirror> entry : memberVariables.entrySet()) {
             FieldAccessor fieldAccessor = entry.getKey();
             TypeMirror fieldType = entry.getValue();
 
             String adapterAccessor = null;
+            List<AdapterStrategy> strategies = new ArrayList<>();
             TypeMirror optionalJsonAdapter = fieldAccessor.getJsonAdapterType();
             if (optionalJsonAdapter != null) {
                 ExecutableElement constructor = ElementUtils.getFirstConstructor(optionalJsonAdapter);
                 if (constructor != null) {
                     TypeUtils.JsonAdapterType jsonAdapterType1 = TypeUtils.getJsonAdapterType(optionalJsonAdapter);
+                    List<String> setupStatements = new ArrayList<>();
+                    Dependencies dependencies = new Dependencies();
                     String initiazationCode = getInitializationCodeForKnownJsonAdapterType(constructor, stagGenerator,
-                            typeVarsMap, constructorBuilder, fieldType,
-                            jsonAdapterType1, result, fieldAccessor.isJsonAdapterNullSafe(), fieldAccessor.getJsonName());
+                            typeVarsMap, setupStatements, fieldType,
+                            jsonAdapterType1, result, fieldAccessor.isJsonAdapterNullSafe(), fieldAccessor.getJsonName(),
+                            strategies, dependencies);
 
                     String fieldName = TYPE_ADAPTER_FIELD_PREFIX + result.size();
-                    result.addFieldToAccessor(fieldAccessor.getJsonName(), fieldName, fieldType, initiazationCode);
+                    result.addFieldToAccessor(fieldAccessor.getJsonName(), fieldName, fieldType, initiazationCode, setupStatements,
+                                              dependencies);
                 } else {
                     throw new IllegalStateException("Unsupported @JsonAdapter value: " + optionalJsonAdapter);
                 }
+            } else if (fieldAccessor.getTimestampFormat() != null) {
+                TimestampFormat.Format timestampFormat = fieldAccessor.getTimestampFormat();
+                String timestampAdapter = KnownTypeAdapterUtils.getTimestampTypeAdapter(fieldType, timestampFormat);
+                if (timestampAdapter == null) {
+                    throw new IllegalStateException("@TimestampFormat(" + timestampFormat + ") is not supported for type: " + fieldType);
+                }
+                String fieldName = TYPE_ADAPTER_FIELD_PREFIX + result.size();
+                result.addFieldToAccessor(fieldAccessor.getJsonName(), fieldName, fieldType, timestampAdapter,
+                                          Collections.<String>emptyList(), new Dependencies());
+                strategies.add(AdapterStrategy.KNOWN_TYPE_ADAPTER);
             } else if (KnownTypeAdapterUtils.hasNativePrimitiveTypeAdapter(fieldType)) {
                 adapterAccessor = KnownTypeAdapterUtils.getNativePrimitiveTypeAdapter(fieldType);
+                strategies.add(AdapterStrategy.PRIMITIVE);
             } else if (TypeUtils.containsTypeVarParams(fieldType)) {
-                adapterAccessor = getAdapterForUnknownGenericType(fieldType, stagGenerator, typeVarsMap, result);
+                adapterAccessor = getAdapterForUnknownGenericType(fieldType, stagGenerator, typeVarsMap, result, strategies);
             } else {
-                adapterAccessor = getAdapterAccessor(fieldType, stagGenerator, typeVarsMap, result);
+                adapterAccessor = getAdapterAccessor(fieldType, stagGenerator, typeVarsMap, result, strategies);
             }
 
             if (adapterAccessor != null) {
                 result.addTypeToAdapterAccessor(fieldType, adapterAccessor);
             }
+
+            // The strategy of the field adapter itself comes last, after those it delegates to.
+            AdapterStrategy strategy = strategies.remove(strategies.size() - 1);
+            List<AdapterStrategy> elementStrategies = new ArrayList<>();
+            for (AdapterStrategy elementStrategy : strategies) {
+                if (!elementStrategies.contains(elementStrategy)) {
+                    elementStrategies.add(elementStrategy);
+                }
+            }
+            result.mFieldStrategies.add(new FieldStrategy(fieldAccessor.getJsonName(), fieldType, strategy, elementStrategies));
         }
         return result;
     }
 
+    /**
+     * Returns the {@link AdapterStrategy} that {@link #addAdapterFields} chose for each field, in
+     * the order of the fields.
+     *
+     * @throws IllegalStateException if the type adapter spec has not been created yet.
+     */
+    @NotNull
+    public List<FieldStrategy> getFieldStrategies() {
+        if (mFieldStrategies == null) {
+            throw new IllegalStateException("The type adapter spec of " + mInfo.getType() + " has not been created yet");
+        }
+        return mFieldStrategies;
+    }
+
+    @NotNull
+    private Map<FieldAccessor, TypeMirror> getMemberVariables() {
+        if (mSpecializedMembers != null) {
+            return mSpecializedMembers;
+        }
+        AnnotatedClass annotatedClass = mSupportedTypesModel.getSupportedType(mInfo.getType());
+        if (annotatedClass == null) {
+            throw new IllegalStateException("The AnnotatedClass class can't be null in TypeAdapterGenerator : " + mInfo.getType().toString());
+        }
+        return annotatedClass.getMemberVariables();
+    }
+
     /**
      * Generates the TypeSpec for the TypeAdapter
      * that this class generates.
@@ -430,7 +553,7 @@ public class TypeAdapterGenerator extends AdapterGenerator {
                     String simpleName = typeVariable.asElement().getSimpleName().toString();
                     adapterBuilder.addTypeVariable(TypeVariableName.get(simpleName, TypeVariableName.get(typeVariable.getUpperBound())));
                     //If the classInfo has unknown types, pass type... as param in constructor.
-                    String paramName = "type[" + String.valueOf(idx) + "]";
+                    String paramName = (mLazyFieldAdapters ? TYPES_FIELD : "type") + "[" + String.valueOf(idx) + "]";
                     typeVarsMap.put(typeVariable, paramName);
                     idx++;
                 }
@@ -440,45 +563,69 @@ public class TypeAdapterGenerator extends AdapterGenerator {
         if (idx > 0) {
             constructorBuilder.addParameter(Type[].class, "type");
             constructorBuilder.varargs(true);
+            if (mLazyFieldAdapters) {
+                adapterBuilder.addField(Type[].class, TYPES_FIELD, Modifier.PRIVATE, Modifier.FINAL);
+                constructorBuilder.addStatement("this.$L = type", TYPES_FIELD);
+            }
         } else {
             //Create Type token as a static public final member variable
             // to be used from outside and by other adapters
             adapterBuilder.addField(createTypeTokenSpec(typeMirror));
         }
 
-        AnnotatedClass annotatedClass = mSupportedTypesModel.getSupportedType(typeMirror);
-        if (annotatedClass == null) {
-            throw new IllegalStateException("The AnnotatedClass class can't be null in TypeAdapterGenerator : " + typeMirror.toString());
-        }
-        Map<FieldAccessor, TypeMirror> memberVariables = annotatedClass.getMemberVariables();
+        Map<FieldAccessor, TypeMirror> memberVariables = getMemberVariables();
 
         AdapterFieldInfo adapterFieldInfo =
-                addAdapterFields(stagGenerator, constructorBuilder, memberVariables, typeVarsMap);
-
-        MethodSpec writeMethod = WriteSpecGenerator.getWriteMethodSpec(typeVariableName, memberVariables, adapterFieldInfo, mEnableSerializeNulls);
-        MethodSpec readMethod = ReadSpecGenerator.getReadMethodSpec(typeVariableName, memberVariables, adapterFieldInfo);
+                addAdapterFields(stagGenerator, memberVariables, typeVarsMap, mLazyFieldAdapters);
+        mFieldStrategies = adapterFieldInfo.mFieldStrategies;
+
+        // The metrics report the raw class, which is also what a specialization of a generic model reports.
+        String metricsType = mInstrumentation ? TypeUtils.getClassNameFromTypeMirror(typeMirror) + ".class" : null;
+        MethodSpec writeMethod = WriteSpecGenerator.getWriteMethodSpec(typeVariableName, memberVariables, adapterFieldInfo,
+                                                                       mEnableSerializeNulls, metricsType);
+        MethodSpec readMethod = ReadSpecGenerator.getReadMethodSpec(typeVariableName, memberVariables, adapterFieldInfo, metricsType);
+
+        for (FieldInfo fieldInfo : adapterFieldInfo.mTypeTokenAccessorFields.values()) {
+            if (fieldInfo.isConstant) {
+                adapterBuilder.addField(FieldSpec.builder(getTypeTokenFieldTypeName(fieldInfo.type), fieldInfo.fieldName,
+                                                          Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                                                .initializer(fieldInfo.initializationCode)
+                                                .build());
+            }
+        }
 
+        adapterBuilder.addField(ReadSpecGenerator.getJsonNamesFieldSpec(memberVariables));
+        adapterBuilder.addField(WriteSpecGenerator.getJsonNameTokensFieldSpec(memberVariables));
         adapterBuilder.addField(Gson.class, "mGson", Modifier.FINAL, Modifier.PRIVATE);
         constructorBuilder.addStatement("this.mGson = gson");
-
-        for (Map.Entry<String, FieldInfo> fieldInfo : adapterFieldInfo.mTypeTokenAccessorFields.entrySet()) {
-            String originalFieldName = FileGenUtils.unescapeEscapedString(fieldInfo.getValue().accessorVariable);
-            TypeName typeName = getTypeTokenFieldTypeName(fieldInfo.getValue().type);
-            constructorBuilder.addStatement(typeName.toString() + " " + originalFieldName + " = " + fieldInfo.getValue().initializationCode);
+        if (mInstrumentation) {
+            adapterBuilder.addField(STAG_METRICS, METRICS_FIELD, Modifier.FINAL, Modifier.PRIVATE);
+            constructorBuilder.addStatement("this.$L = $T.getInstance()", METRICS_FIELD, STAG_METRICS);
         }
 
-        for (Map.Entry<String, FieldInfo> fieldInfo : adapterFieldInfo.mFieldAdapterAccessor.entrySet()) {
-            String originalFieldName = FileGenUtils.unescapeEscapedString(fieldInfo.getValue().accessorVariable);
-            TypeName typeName = getAdapterFieldTypeName(fieldInfo.getValue().type);
-            adapterBuilder.addField(typeName, originalFieldName, Modifier.PRIVATE, Modifier.FINAL);
-            constructorBuilder.addStatement("this." + originalFieldName + " = " + fieldInfo.getValue().initializationCode);
-        }
+        List<FieldInfo> adapterFields = new ArrayList<>(adapterFieldInfo.mFieldAdapterAccessor.values());
+        adapterFields.addAll(adapterFieldInfo.mAdapterFields.values());
 
-        for (Map.Entry<String, FieldInfo> fieldInfo : adapterFieldInfo.mAdapterFields.entrySet()) {
-            String originalFieldName = FileGenUtils.unescapeEscapedString(fieldInfo.getValue().accessorVariable);
-            TypeName typeName = getAdapterFieldTypeName(fieldInfo.getValue().type);
-            adapterBuilder.addField(typeName, originalFieldName, Modifier.PRIVATE, Modifier.FINAL);
-            constructorBuilder.addStatement("this." + originalFieldName + " = " + fieldInfo.getValue().initializationCode);
+        if (mLazyFieldAdapters) {
+            for (FieldInfo fieldInfo : adapterFields) {
+                addLazyAdapterField(adapterBuilder, fieldInfo, adapterFieldInfo);
+            }
+        } else {
+            for (FieldInfo fieldInfo : adapterFieldInfo.mTypeTokenAccessorFields.values()) {
+                if (!fieldInfo.isConstant) {
+                    addTypeTokenStatement(constructorBuilder, fieldInfo);
+                }
+            }
+
+            for (FieldInfo fieldInfo : adapterFields) {
+                String originalFieldName = FileGenUtils.unescapeEscapedString(fieldInfo.fieldName);
+                TypeName typeName = getAdapterFieldTypeName(fieldInfo.type);
+                adapterBuilder.addField(typeName, originalFieldName, Modifier.PRIVATE, Modifier.FINAL);
+                for (String setupStatement : fieldInfo.setupStatements) {
+                    constructorBuilder.addStatement(setupStatement);
+                }
+                constructorBuilder.addStatement("this." + originalFieldName + " = " + fieldInfo.initializationCode);
+            }
         }
 
         adapterBuilder.addMethod(constructorBuilder.build());
@@ -488,6 +635,59 @@ public class TypeAdapterGenerator extends AdapterGenerator {
         return adapterBuilder.build();
     }
 
+    private static void addTypeTokenStatement(@NotNull MethodSpec.Builder builder, @NotNull FieldInfo fieldInfo) {
+        String originalFieldName = FileGenUtils.unescapeEscapedString(fieldInfo.fieldName);
+        TypeName typeName = getTypeTokenFieldTypeName(fieldInfo.type);
+        builder.addStatement(typeName.toString() + " " + originalFieldName + " = " + fieldInfo.initializationCode);
+    }
+
+    /**
+     * Adds a non final adapter field along with a getter that creates the adapter the first time
+     * it is used. The getter uses the racy single check idiom, so if two threads race to create
+     * the adapter, both create it and the last one written wins. Type adapters are immutable once
+     * created, so either one is correct.
+     */
+    private static void addLazyAdapterField(@NotNull TypeSpec.Builder adapterBuilder,
+                                            @NotNull FieldInfo fieldInfo,
+                                            @NotNull AdapterFieldInfo adapterFieldInfo) {
+        String originalFieldName = FileGenUtils.unescapeEscapedString(fieldInfo.fieldName);
+        TypeName typeName = getAdapterFieldTypeName(fieldInfo.type);
+        adapterBuilder.addField(typeName, originalFieldName, Modifier.PRIVATE);
+
+        List<FieldInfo> typeTokens = adapterFieldInfo.getReferencedTypeTokens(fieldInfo.dependencies);
+        MethodSpec.Builder getterBuilder = MethodSpec.methodBuilder(AdapterFieldInfo.getLazyAccessorName(originalFieldName))
+                .addModifiers(Modifier.PRIVATE)
+                .returns(typeName)
+                .addStatement("$T typeAdapter = $L", typeName, originalFieldName)
+                .beginControlFlow("if (typeAdapter == null)");
+        if (fieldInfo.dependencies.usesGson) {
+            getterBuilder.addStatement("$T gson = mGson", Gson.class);
+        }
+        for (FieldInfo typeToken : typeTokens) {
+            addTypeTokenStatement(getterBuilder, typeToken);
+        }
+        for (String setupStatement : fieldInfo.setupStatements) {
+            getterBuilder.addStatement(setupStatement);
+        }
+        getterBuilder.addStatement("typeAdapter = " + fieldInfo.initializationCode)
+                .addStatement("$L = typeAdapter", originalFieldName)
+                .endControlFlow()
+                .addStatement("return typeAdapter");
+        adapterBuilder.addMethod(getterBuilder.build());
+    }
+
+    /**
+     * The variables that the initialization code of an adapter or a type token refers to, recorded
+     * while the code is built so that a lazy getter declares exactly the variables it uses.
+     */
+    private static class Dependencies {
+
+        boolean usesGson;
+        boolean usesTypeArguments;
+        @NotNull
+        final Set<FieldInfo> typeTokens = new LinkedHashSet<>();
+    }
+
     private static class FieldInfo {
 
         @NotNull
@@ -495,12 +695,31 @@ public class TypeAdapterGenerator extends AdapterGenerator {
         @NotNull
         final String initializationCode;
         @NotNull
+        final String fieldName;
+        @NotNull
         final String accessorVariable;
+        @NotNull
+        final List<String> setupStatements;
+        @NotNull
+        final Dependencies dependencies;
+        final boolean isConstant;
 
-        FieldInfo(@NotNull TypeMirror type, @NotNull String initializationCode, @NotNull String accessorVariable) {
+        FieldInfo(@NotNull TypeMirror type, @NotNull String initializationCode, @NotNull String fieldName,
+                  @NotNull String accessorVariable, @NotNull List<String> setupStatements,
+                  @NotNull Dependencies dependencies) {
+            this(type, initializationCode, fieldName, accessorVariable, setupStatements, dependencies, false);
+        }
+
+        FieldInfo(@NotNull TypeMirror type, @NotNull String initializationCode, @NotNull String fieldName,
+                  @NotNull String accessorVariable, @NotNull List<String> setupStatements,
+                  @NotNull Dependencies dependencies, boolean isConstant) {
             this.type = type;
             this.initializationCode = initializationCode;
+            this.fieldName = fieldName;
             this.accessorVariable = accessorVariable;
+            this.setupStatements = setupStatements;
+            this.dependencies = dependencies;
+            this.isConstant = isConstant;
         }
     }
 
@@ -518,12 +737,61 @@ public class TypeAdapterGenerator extends AdapterGenerator {
         //Type.toString -> Accessor Map
         @NotNull
         private final Map<String, String> mAdapterAccessor;
+        //Type.toString -> Strategies of the adapter field, the adapter's own last
+        @NotNull
+        private final Map<String, List<AdapterStrategy>> mAdapterStrategies;
+        @NotNull
+        final List<FieldStrategy> mFieldStrategies;
+        private final boolean mLazy;
 
-        AdapterFieldInfo(int capacity) {
+        AdapterFieldInfo(int capacity, boolean lazy) {
             mAdapterFields = new LinkedHashMap<>(capacity);
+            mAdapterStrategies = new HashMap<>(capacity);
+            mFieldStrategies = new ArrayList<>(capacity);
             mAdapterAccessor = new LinkedHashMap<>(capacity);
             mFieldAdapterAccessor = new LinkedHashMap<>(capacity);
             mTypeTokenAccessorFields = new LinkedHashMap<>();
+            mLazy = lazy;
+        }
+
+        /**
+         * Returns the name of the getter that lazily creates the adapter in {@code fieldName},
+         * for instance {@code getTypeAdapter0} for {@code mTypeAdapter0}.
+         */
+        @NotNull
+        static String getLazyAccessorName(@NotNull String fieldName) {
+            return "get" + fieldName.substring(1);
+        }
+
+        @NotNull
+        private String getAccessor(@NotNull String fieldName) {
+            return mLazy ? getLazyAccessorName(fieldName) + "()" : fieldName;
+        }
+
+        /**
+         * Returns the type token variables that the dependencies refer to, directly or through other
+         * type tokens, in the order in which they have to be declared. Constant type tokens are
+         * fields of the adapter class, so they are not included.
+         */
+        @NotNull
+        List<FieldInfo> getReferencedTypeTokens(@NotNull Dependencies dependencies) {
+            Set<FieldInfo> typeTokens = new HashSet<>();
+            collectTypeTokens(dependencies, typeTokens);
+            List<FieldInfo> result = new ArrayList<>(typeTokens.size());
+            for (FieldInfo typeToken : mTypeTokenAccessorFields.values()) {
+                if (typeTokens.contains(typeToken)) {
+                    result.add(typeToken);
+                }
+            }
+            return result;
+        }
+
+        private static void collectTypeTokens(@NotNull Dependencies dependencies, @NotNull Set<FieldInfo> typeTokens) {
+            for (FieldInfo typeToken : dependencies.typeTokens) {
+                if (!typeToken.isConstant && typeTokens.add(typeToken)) {
+                    collectTypeTokens(typeToken.dependencies, typeTokens);
+                }
+            }
         }
 
         public String getAdapterAccessor(@NotNull TypeMirror typeMirror, @NotNull String fieldName) {
@@ -531,12 +799,27 @@ public class TypeAdapterGenerator extends AdapterGenerator {
             return adapterAccessor != null ? adapterAccessor.accessorVariable : mAdapterAccessor.get(typeMirror.toString());
         }
 
-        String updateAndGetTypeTokenFieldName(@NotNull TypeMirror fieldType, @NotNull String initializationCode) {
+        /**
+         * Returns the variable of the type token for the type, creating it from the initialization
+         * code and its dependencies if it does not exist yet, and adds it to the dependencies of
+         * the code that uses it.
+         */
+        String updateAndGetTypeTokenFieldName(@NotNull TypeMirror fieldType, @NotNull String initializationCode,
+                                              @NotNull Dependencies tokenDependencies, @NotNull Dependencies dependencies) {
             FieldInfo result = mTypeTokenAccessorFields.get(fieldType.toString());
             if (result == null) {
-                result = new FieldInfo(fieldType, initializationCode, "typeToken" + mTypeTokenAccessorFields.size());
+                // Type tokens that don't depend on the type arguments of the adapter are the same for
+                // every instance, so they are created once as constants of the adapter class.
+                boolean isConstant = !tokenDependencies.usesTypeArguments;
+                for (FieldInfo typeToken : tokenDependencies.typeTokens) {
+                    isConstant &= typeToken.isConstant;
+                }
+                String name = (isConstant ? TYPE_TOKEN_CONSTANT_PREFIX : "typeToken") + mTypeTokenAccessorFields.size();
+                result = new FieldInfo(fieldType, initializationCode, name, name, Collections.<String>emptyList(),
+                                       tokenDependencies, isConstant);
                 mTypeTokenAccessorFields.put(fieldType.toString(), result);
             }
+            dependencies.typeTokens.add(result);
             return result.accessorVariable;
         }
 
@@ -549,16 +832,34 @@ public class TypeAdapterGenerator extends AdapterGenerator {
             return mAdapterFields.size() + mFieldAdapterAccessor.size();
         }
 
-        void addField(@NotNull TypeMirror fieldType, @NotNull String fieldName, @NotNull String fieldInitializationCode) {
-            mAdapterFields.put(fieldType.toString(), new FieldInfo(fieldType, fieldInitializationCode, fieldName));
+        /**
+         * Returns the strategies that were recorded when the adapter field for the type was added,
+         * so that fields reusing the adapter report the same strategies.
+         */
+        @NotNull
+        List<AdapterStrategy> getStrategies(@NotNull TypeMirror fieldType) {
+            List<AdapterStrategy> strategies = mAdapterStrategies.get(fieldType.toString());
+            return strategies != null ? strategies : Collections.<AdapterStrategy>emptyList();
+        }
+
+        @NotNull
+        String addField(@NotNull TypeMirror fieldType, @NotNull String fieldName, @NotNull String fieldInitializationCode,
+                        @NotNull Dependencies dependencies, @NotNull List<AdapterStrategy> strategies) {
+            String accessor = getAccessor(fieldName);
+            mAdapterFields.put(fieldType.toString(), new FieldInfo(fieldType, fieldInitializationCode, fieldName, accessor,
+                                                                   Collections.<String>emptyList(), dependencies));
+            mAdapterStrategies.put(fieldType.toString(), new ArrayList<>(strategies));
+            return accessor;
         }
 
         void addTypeToAdapterAccessor(@NotNull TypeMirror typeMirror, String accessorCode) {
             mAdapterAccessor.put(typeMirror.toString(), accessorCode);
         }
 
-        void addFieldToAccessor(@NotNull String fieldName, @NotNull String variableName, TypeMirror fieldType, @NotNull String fieldInitializationCode) {
-            mFieldAdapterAccessor.put(fieldName, new FieldInfo(fieldType, fieldInitializationCode, variableName));
+        void addFieldToAccessor(@NotNull String fieldName, @NotNull String variableName, TypeMirror fieldType, @NotNull String fieldInitializationCode,
+                                @NotNull List<String> setupStatements, @NotNull Dependencies dependencies) {
+            mFieldAdapterAccessor.put(fieldName, new FieldInfo(fieldType, fieldInitializationCode, variableName,
+                                                               getAccessor(variableName), setupStatements, dependencies));
         }
     }
 }
@@ -0,0 +1,65 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag.processor.generators.model;
+
+/**
+ * How a generated type adapter reads and writes a field.
+ */
+public enum AdapterStrategy {
+
+    /**
+     * One of the static primitive helpers in {@code KnownTypeAdapters}, such as
+     * {@code PrimitiveIntTypeAdapter}, which read and write the field without boxing it.
+     */
+    PRIMITIVE,
+
+    /**
+     * A constant adapter from {@code KnownTypeAdapters} or Gson's {@code TypeAdapters}, as for
+     * strings and boxed primitives, or one of the list, map, array and timestamp adapters in
+     * {@code KnownTypeAdapters}.
+     */
+    KNOWN_TYPE_ADAPTER,
+
+    /**
+     * An adapter generated by Stag, in this module or in another one.
+     */
+    GENERATED_ADAPTER,
+
+    /**
+     * Looked up with {@code gson.getAdapter} when the adapter is created, which falls back to
+     * Gson's reflective adapter unless another factory handles the type.
+     */
+    RUNTIME_LOOKUP,
+
+    /**
+     * The {@code TypeAdapter} or {@code TypeAdapterFactory} passed to {@code @JsonAdapter}.
+     */
+    JSON_ADAPTER,
+
+    /**
+     * The {@code TreeTypeAdapter} created for the {@code JsonSerializer} or {@code JsonDeserializer}
+     * passed to {@code @JsonAdapter}, which goes through a {@code JsonElement} tree.
+     */
+    JSON_ADAPTER_TREE
+}
@@ -40,9 +40,23 @@ public final class ClassInfo {
     @NotNull private final String mPackageName;
     @NotNull private final String mTypeName;
     @NotNull private final TypeMirror mType;
+    @Nullable private final String mSpecializationSuffix;
 
     public ClassInfo(@NotNull TypeMirror typeMirror) {
+        this(typeMirror, null);
+    }
+
+    /**
+     * Creates the class info for a concrete parameterization of a generic model, such as
+     * {@code Model<String>}, whose type adapter is specialized for that parameterization.
+     *
+     * @param typeMirror           the concrete parameterized type.
+     * @param specializationSuffix the suffix appended to the name of the type adapter class, or
+     *                             null if the type adapter is not specialized.
+     */
+    public ClassInfo(@NotNull TypeMirror typeMirror, @Nullable String specializationSuffix) {
         mType = typeMirror;
+        mSpecializationSuffix = specializationSuffix;
         mPackageName = ElementUtils.getPackage(mType);
 
         String classAndPackage = TypeUtils.getClassNameFromTypeMirror(mType);
@@ -70,7 +84,21 @@ public final class ClassInfo {
      */
     @NotNull
     public String getTypeAdapterClassName() {
-        return FileGenUtils.escapeStringForCodeBlock(mClassName + "$TypeAdapter");
+        String className = mClassName + "$TypeAdapter";
+        if (mSpecializationSuffix != null) {
+            className += "$" + mSpecializationSuffix;
+        }
+        return FileGenUtils.escapeStringForCodeBlock(className);
+    }
+
+    /**
+     * Whether the {@link com.google.gson.TypeAdapter} class for this model class is specialized
+     * for a concrete parameterization of a generic model.
+     *
+     * @return true if the type adapter is specialized, false otherwise.
+     */
+    public boolean isSpecialization() {
+        return mSpecializationSuffix != null;
     }
 
     /**
@@ -95,6 +123,17 @@ public final class ClassInfo {
         return mTypeName;
     }
 
+    /**
+     * The binary name of this class, which is the name returned by {@link Class#getName()} at
+     * runtime unless the class has been renamed.
+     *
+     * @return a valid binary class name.
+     */
+    @NotNull
+    public String getBinaryName() {
+        return mPackageName + "." + mClassName;
+    }
+
     /**
      * The TypeMirror object backing this
      * ClassInfo object.
@@ -124,7 +163,9 @@ public final class ClassInfo {
         ClassInfo classInfo = (ClassInfo) o;
 
         return mClassName.equals(classInfo.mClassName) && mPackageName.equals(classInfo.mPackageName) &&
-               mTypeName.equals(classInfo.mTypeName) && TypeUtils.areEqual(mType, classInfo.mType);
+               mTypeName.equals(classInfo.mTypeName) && TypeUtils.areEqual(mType, classInfo.mType) &&
+               (mSpecializationSuffix != null ? mSpecializationSuffix.equals(classInfo.mSpecializationSuffix)
+                       : classInfo.mSpecializationSuffix == null);
 
     }
 
@@ -134,6 +175,7 @@ public final class ClassInfo {
         result = 31 * result + mPackageName.hashCode();
         result = 31 * result + mTypeName.hashCode();
         result = 31 * result + mType.hashCode();
+        result = 31 * result + (mSpecializationSuffix != null ? mSpecializationSuffix.hashCode() : 0);
         return result;
     }
 }
@@ -0,0 +1,73 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag.processor.generators.model;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+
+import javax.lang.model.type.TypeMirror;
+
+/**
+ * The {@link AdapterStrategy} chosen for a field of a model.
+ */
+public final class FieldStrategy {
+
+    @NotNull private final String mJsonName;
+    @NotNull private final TypeMirror mType;
+    @NotNull private final AdapterStrategy mStrategy;
+    @NotNull private final List<AdapterStrategy> mElementStrategies;
+
+    public FieldStrategy(@NotNull String jsonName, @NotNull TypeMirror type, @NotNull AdapterStrategy strategy,
+                         @NotNull List<AdapterStrategy> elementStrategies) {
+        mJsonName = jsonName;
+        mType = type;
+        mStrategy = strategy;
+        mElementStrategies = elementStrategies;
+    }
+
+    @NotNull
+    public String getJsonName() {
+        return mJsonName;
+    }
+
+    @NotNull
+    public TypeMirror getType() {
+        return mType;
+    }
+
+    @NotNull
+    public AdapterStrategy getStrategy() {
+        return mStrategy;
+    }
+
+    /**
+     * The distinct strategies of the adapters that the field adapter delegates to, such as the
+     * adapter of the elements of a list, in the order they are first used.
+     */
+    @NotNull
+    public List<AdapterStrategy> getElementStrategies() {
+        return mElementStrategies;
+    }
+}
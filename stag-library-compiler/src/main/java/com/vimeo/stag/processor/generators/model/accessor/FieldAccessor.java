@@ -2,6 +2,7 @@ package com.vimeo.stag.processor.generators.model.accessor;
 
 import com.google.gson.annotations.JsonAdapter;
 import com.google.gson.annotations.SerializedName;
+import com.vimeo.stag.TimestampFormat;
 import com.vimeo.stag.processor.utils.Preconditions;
 
 import org.jetbrains.annotations.NotNull;
@@ -134,6 +135,21 @@ public abstract class FieldAccessor {
         return annotation.nullSafe();
     }
 
+    /**
+     * If the field was annotated with the
+     * {@link TimestampFormat} annotation, this
+     * method will get the format held by that
+     * annotation.
+     *
+     * @return the format that the field was annotated with,
+     * or null if the field was not annotated.
+     */
+    @Nullable
+    public final TimestampFormat.Format getTimestampFormat() {
+        TimestampFormat annotation = mVariableElement.getAnnotation(TimestampFormat.class);
+        return annotation != null ? annotation.value() : null;
+    }
+
     /**
      * Returns the accessor in its
      * {@link TypeMirror} form.
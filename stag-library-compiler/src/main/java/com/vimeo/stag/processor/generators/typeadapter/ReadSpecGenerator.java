@@ -1,6 +1,9 @@
 package com.vimeo.stag.processor.generators.typeadapter;
 
 import com.google.gson.stream.JsonReader;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeName;
 import com.vimeo.stag.processor.generators.TypeAdapterGenerator;
@@ -8,9 +11,11 @@ import com.vimeo.stag.processor.generators.model.accessor.FieldAccessor;
 import com.vimeo.stag.processor.utils.TypeUtils;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -18,10 +23,39 @@ import javax.lang.model.element.Modifier;
 import javax.lang.model.type.TypeMirror;
 
 public class ReadSpecGenerator {
+
+    private static final ClassName STAG_JSON_READER = ClassName.get("com.vimeo.stag", "StagJsonReader");
+    private static final ClassName STAG_JSON_READER_OPTIONS = STAG_JSON_READER.nestedClass("Options");
+    private static final String JSON_NAMES_FIELD = "JSON_NAMES";
+
+    /**
+     * Returns the static field holding the JSON names of the {@code elements}, which the read
+     * method selects from when it is handed a StagJsonReader. Each primary and alternate name has
+     * its own index, in the order in which the read method switches over them.
+     */
+    @NotNull
+    public static FieldSpec getJsonNamesFieldSpec(@NotNull Map<FieldAccessor, TypeMirror> elements) {
+        CodeBlock.Builder names = CodeBlock.builder();
+        List<String> jsonNames = getJsonNames(elements);
+        for (int index = 0; index < jsonNames.size(); index++) {
+            names.add(index == 0 ? "$S" : ", $S", jsonNames.get(index));
+        }
+        return FieldSpec.builder(STAG_JSON_READER_OPTIONS, JSON_NAMES_FIELD,
+                Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("$T.of($L)", STAG_JSON_READER_OPTIONS, names.build())
+                .build();
+    }
+
+    /**
+     * Returns the read method of the adapter. If {@code metricsType} is not null, the method counts
+     * the fields it reads and skips and reports them, along with the time it took, to the
+     * {@code StagMetrics} of the adapter. Otherwise, the method does not refer to the metrics at all.
+     */
     @NotNull
     public static MethodSpec getReadMethodSpec(@NotNull TypeName typeName,
                                                @NotNull Map<FieldAccessor, TypeMirror> elements,
-                                               @NotNull TypeAdapterGenerator.AdapterFieldInfo adapterFieldInfo) {
+                                               @NotNull TypeAdapterGenerator.AdapterFieldInfo adapterFieldInfo,
+                                               @Nullable String metricsType) {
         MethodSpec.Builder builder = MethodSpec.methodBuilder("read")
                 .addParameter(JsonReader.class, "reader")
                 .returns(typeName)
@@ -42,29 +76,61 @@ public class ReadSpecGenerator {
         builder.addStatement("return null");
         builder.endControlFlow();
 
+        if (metricsType != null) {
+            builder.addStatement("long startNanos = $L.isEnabled() ? System.nanoTime() : 0L", TypeAdapterGenerator.METRICS_FIELD);
+            builder.addStatement("int fieldsRead = 0");
+            builder.addStatement("int unknownFieldsSkipped = 0");
+        }
         builder.addStatement("reader.beginObject()");
         builder.addStatement(typeName + " object = new " + typeName + "()");
 
+        builder.addStatement("$T stagReader = reader instanceof $T ? ($T) reader : null",
+                STAG_JSON_READER, STAG_JSON_READER, STAG_JSON_READER);
+
         builder.beginControlFlow("while (reader.hasNext())");
-        builder.addStatement("String name = reader.nextName()");
-        builder.beginControlFlow("switch (name)");
+        builder.addStatement("int field");
+        builder.beginControlFlow("if (stagReader != null)");
+        builder.addStatement("field = stagReader.selectName($L)", JSON_NAMES_FIELD);
+        builder.beginControlFlow("if (field == -1)");
+        builder.addStatement("stagReader.skipName()");
+        builder.endControlFlow();
+        builder.nextControlFlow("else");
+        builder.beginControlFlow("switch (reader.nextName())");
+        List<String> jsonNames = getJsonNames(elements);
+        for (int index = 0; index < jsonNames.size(); index++) {
+            builder.addCode("case \"" + jsonNames.get(index) + "\":\n");
+            builder.addStatement("\tfield = " + index);
+            builder.addStatement("\tbreak");
+        }
+        builder.addCode("default:\n");
+        builder.addStatement("\tfield = -1");
+        builder.endControlFlow();
+        builder.endControlFlow();
+
+        if (metricsType != null) {
+            builder.beginControlFlow("if (field == -1)");
+            builder.addStatement("unknownFieldsSkipped++");
+            builder.nextControlFlow("else");
+            builder.addStatement("fieldsRead++");
+            builder.endControlFlow();
+        }
+
+        builder.beginControlFlow("switch (field)");
 
 
         final List<FieldAccessor> nonNullFields = new ArrayList<>();
 
+        int index = 0;
         for (Map.Entry<FieldAccessor, TypeMirror> element : elements.entrySet()) {
             final FieldAccessor fieldAccessor = element.getKey();
             String name = fieldAccessor.getJsonName();
 
             final TypeMirror elementValue = element.getValue();
 
-            builder.addCode("case \"" + name + "\":\n");
-
-            String[] alternateJsonNames = fieldAccessor.getAlternateJsonNames();
-            if (alternateJsonNames != null && alternateJsonNames.length > 0) {
-                for (String alternateJsonName : alternateJsonNames) {
-                    builder.addCode("case \"" + alternateJsonName + "\":\n");
-                }
+            // The primary name and each of the alternate names have their own index.
+            int nameCount = 1 + getAlternateJsonNames(fieldAccessor).length;
+            for (int nameIndex = 0; nameIndex < nameCount; nameIndex++) {
+                builder.addCode("case " + index++ + ":\n");
             }
 
             String variableType = element.getValue().toString();
@@ -103,8 +169,31 @@ public class ReadSpecGenerator {
             builder.endControlFlow();
         }
 
+        if (metricsType != null) {
+            builder.beginControlFlow("if ($L.isEnabled())", TypeAdapterGenerator.METRICS_FIELD);
+            builder.addStatement("$L.onRead($L, fieldsRead, unknownFieldsSkipped, System.nanoTime() - startNanos)",
+                    TypeAdapterGenerator.METRICS_FIELD, metricsType);
+            builder.endControlFlow();
+        }
+
         builder.addStatement("return object");
 
         return builder.build();
     }
+
+    @NotNull
+    private static List<String> getJsonNames(@NotNull Map<FieldAccessor, TypeMirror> elements) {
+        List<String> jsonNames = new ArrayList<>();
+        for (FieldAccessor fieldAccessor : elements.keySet()) {
+            jsonNames.add(fieldAccessor.getJsonName());
+            Collections.addAll(jsonNames, getAlternateJsonNames(fieldAccessor));
+        }
+        return jsonNames;
+    }
+
+    @NotNull
+    private static String[] getAlternateJsonNames(@NotNull FieldAccessor fieldAccessor) {
+        String[] alternateJsonNames = fieldAccessor.getAlternateJsonNames();
+        return alternateJsonNames != null ? alternateJsonNames : new String[0];
+    }
 }
@@ -1,6 +1,9 @@
 package com.vimeo.stag.processor.generators.typeadapter;
 
 import com.google.gson.stream.JsonWriter;
+import com.squareup.javapoet.ClassName;
+import com.squareup.javapoet.CodeBlock;
+import com.squareup.javapoet.FieldSpec;
 import com.squareup.javapoet.MethodSpec;
 import com.squareup.javapoet.TypeName;
 import com.vimeo.stag.processor.generators.TypeAdapterGenerator;
@@ -8,6 +11,7 @@ import com.vimeo.stag.processor.generators.model.accessor.FieldAccessor;
 import com.vimeo.stag.processor.utils.TypeUtils;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
 import java.util.Map;
@@ -17,9 +21,38 @@ import javax.lang.model.type.TypeMirror;
 
 public class WriteSpecGenerator {
 
+    private static final ClassName STAG_JSON_WRITER = ClassName.get("com.vimeo.stag", "StagJsonWriter");
+    private static final ClassName STAG_JSON_WRITER_NAMES = STAG_JSON_WRITER.nestedClass("Names");
+    private static final String JSON_NAME_TOKENS_FIELD = "JSON_NAME_TOKENS";
+
+    /**
+     * Returns the static field holding the pre-encoded JSON names of the {@code memberVariables},
+     * which the write method uses when it is handed a StagJsonWriter. The names are indexed in the
+     * order in which the fields are written.
+     */
+    @NotNull
+    public static FieldSpec getJsonNameTokensFieldSpec(@NotNull Map<FieldAccessor, TypeMirror> memberVariables) {
+        CodeBlock.Builder names = CodeBlock.builder();
+        String separator = "";
+        for (FieldAccessor fieldAccessor : memberVariables.keySet()) {
+            names.add("$L$S", separator, fieldAccessor.getJsonName());
+            separator = ", ";
+        }
+        return FieldSpec.builder(STAG_JSON_WRITER_NAMES, JSON_NAME_TOKENS_FIELD,
+                Modifier.PRIVATE, Modifier.STATIC, Modifier.FINAL)
+                .initializer("$T.of($L)", STAG_JSON_WRITER_NAMES, names.build())
+                .build();
+    }
+
+    /**
+     * Returns the write method of the adapter. If {@code metricsType} is not null, the method reports
+     * the time it took to the {@code StagMetrics} of the adapter. Otherwise, the method does not
+     * refer to the metrics at all.
+     */
     @NotNull
     public static MethodSpec getWriteMethodSpec(@NotNull TypeName typeName, @NotNull Map<FieldAccessor, TypeMirror> memberVariables,
-                                                @NotNull TypeAdapterGenerator.AdapterFieldInfo adapterFieldInfo, boolean serializeNulls) {
+                                                @NotNull TypeAdapterGenerator.AdapterFieldInfo adapterFieldInfo, boolean serializeNulls,
+                                                @Nullable String metricsType) {
         final MethodSpec.Builder methodBuilder = MethodSpec.methodBuilder("write")
                 .addParameter(JsonWriter.class, "writer")
                 .addParameter(typeName, "object")
@@ -32,8 +65,12 @@ public class WriteSpecGenerator {
         methodBuilder.addStatement("writer.nullValue()");
         methodBuilder.addStatement("return");
         methodBuilder.endControlFlow();
+        if (metricsType != null) {
+            methodBuilder.addStatement("long startNanos = $L.isEnabled() ? System.nanoTime() : 0L", TypeAdapterGenerator.METRICS_FIELD);
+        }
         methodBuilder.addStatement("writer.beginObject()");
 
+        int nameIndex = 0;
         for (Map.Entry<FieldAccessor, TypeMirror> element : memberVariables.entrySet()) {
             FieldAccessor fieldAccessor = element.getKey();
             final String getterCode = fieldAccessor.createGetterCode();
@@ -43,25 +80,31 @@ public class WriteSpecGenerator {
 
             boolean isPrimitive = TypeUtils.isSupportedPrimitive(variableType);
             if (serializeNulls) {
-                specForSerializedNullsEnabled(methodBuilder, element, adapterFieldInfo, fieldAccessor, getterCode, name, isPrimitive);
+                specForSerializedNullsEnabled(methodBuilder, element, adapterFieldInfo, fieldAccessor, getterCode, name, nameIndex, isPrimitive);
             } else {
-                specForSerializedNullsDisabled(methodBuilder, element, adapterFieldInfo, fieldAccessor, getterCode, name, isPrimitive);
+                specForSerializedNullsDisabled(methodBuilder, element, adapterFieldInfo, fieldAccessor, getterCode, name, nameIndex, isPrimitive);
             }
+            nameIndex++;
         }
 
         methodBuilder.addCode("\n");
         methodBuilder.addStatement("writer.endObject()");
+        if (metricsType != null) {
+            methodBuilder.beginControlFlow("if ($L.isEnabled())", TypeAdapterGenerator.METRICS_FIELD);
+            methodBuilder.addStatement("$L.onWrite($L, System.nanoTime() - startNanos)", TypeAdapterGenerator.METRICS_FIELD, metricsType);
+            methodBuilder.endControlFlow();
+        }
         return methodBuilder.build();
     }
 
     private static void specForSerializedNullsDisabled(@NotNull MethodSpec.Builder methodBuilder, @NotNull Map.Entry<FieldAccessor, TypeMirror> element,
                                                        @NotNull TypeAdapterGenerator.AdapterFieldInfo adapterFieldInfo, @NotNull FieldAccessor fieldAccessor,
-                                                       @NotNull String getterCode, @NotNull String name, boolean isPrimitive) {
+                                                       @NotNull String getterCode, @NotNull String name, int nameIndex, boolean isPrimitive) {
         methodBuilder.addCode("\n");
         if (!isPrimitive) {
             methodBuilder.beginControlFlow("if (object." + getterCode + " != null) ");
         }
-        methodBuilder.addStatement("writer.name(\"" + name + "\")");
+        methodBuilder.addStatement("$T.writeName(writer, $L, $L)", STAG_JSON_WRITER, JSON_NAME_TOKENS_FIELD, nameIndex);
         if (!isPrimitive) {
             methodBuilder.addStatement(
                     adapterFieldInfo.getAdapterAccessor(element.getValue(), name) + ".write(writer, object." +
@@ -83,9 +126,9 @@ public class WriteSpecGenerator {
 
     private static void specForSerializedNullsEnabled(@NotNull MethodSpec.Builder methodBuilder, @NotNull Map.Entry<FieldAccessor, TypeMirror> element,
                                                       @NotNull TypeAdapterGenerator.AdapterFieldInfo adapterFieldInfo,
-                                                      @NotNull FieldAccessor fieldAccessor, @NotNull String getterCode, @NotNull String name, boolean isPrimitive) {
+                                                      @NotNull FieldAccessor fieldAccessor, @NotNull String getterCode, @NotNull String name, int nameIndex, boolean isPrimitive) {
         methodBuilder.addCode("\n");
-        methodBuilder.addStatement("writer.name(\"" + name + "\")");
+        methodBuilder.addStatement("$T.writeName(writer, $L, $L)", STAG_JSON_WRITER, JSON_NAME_TOKENS_FIELD, nameIndex);
         if (!isPrimitive) {
             methodBuilder.beginControlFlow("if (object." + getterCode + " != null) ");
         }
@@ -6,7 +6,12 @@ import com.google.gson.JsonNull;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.internal.bind.TypeAdapters;
+import com.vimeo.stag.DoubleArrayList;
+import com.vimeo.stag.IntArrayList;
 import com.vimeo.stag.KnownTypeAdapters;
+import com.vimeo.stag.LongArrayList;
+import com.vimeo.stag.StringIntMap;
+import com.vimeo.stag.TimestampFormat;
 import com.vimeo.stag.processor.utils.logging.DebugLog;
 
 import org.jetbrains.annotations.NotNull;
@@ -15,11 +20,15 @@ import org.jetbrains.annotations.Nullable;
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Currency;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -48,6 +57,8 @@ public final class KnownTypeAdapterUtils {
     @NotNull private static final HashMap<String, String> SUPPORTED_MAP_INSTANTIATORS = new HashMap<>();
     @NotNull private static final HashMap<String, String> KNOWN_PRIMITIVE_ARRAY_TYPE_ADAPTERS = new HashMap<>();
     @NotNull private static final HashMap<String, String> KNOWN_PRIMITIVE_TYPE_ADAPTERS = new HashMap<>();
+    @NotNull private static final HashMap<String, String> ISO_8601_TIMESTAMP_TYPE_ADAPTERS = new HashMap<>();
+    @NotNull private static final HashMap<String, String> EPOCH_MILLIS_TIMESTAMP_TYPE_ADAPTERS = new HashMap<>();
 
     static {
         KNOWN_TYPE_ADAPTERS.put(BitSet.class.getName(), typeAdapters(TypeAdapters.BIT_SET));
@@ -81,6 +92,21 @@ public final class KnownTypeAdapterUtils {
         KNOWN_TYPE_ADAPTERS.put(JsonArray.class.getName(), knownTypeAdapters(KnownTypeAdapters.JSON_ARRAY));
         KNOWN_TYPE_ADAPTERS.put(JsonPrimitive.class.getName(), knownTypeAdapters(KnownTypeAdapters.JSON_PRIMITIVE));
         KNOWN_TYPE_ADAPTERS.put(JsonNull.class.getName(), knownTypeAdapters(KnownTypeAdapters.JSON_NULL));
+        KNOWN_TYPE_ADAPTERS.put(IntArrayList.class.getName(), knownTypeAdapters(KnownTypeAdapters.INT_ARRAY_LIST));
+        KNOWN_TYPE_ADAPTERS.put(LongArrayList.class.getName(), knownTypeAdapters(KnownTypeAdapters.LONG_ARRAY_LIST));
+        KNOWN_TYPE_ADAPTERS.put(DoubleArrayList.class.getName(), knownTypeAdapters(KnownTypeAdapters.DOUBLE_ARRAY_LIST));
+        KNOWN_TYPE_ADAPTERS.put(StringIntMap.class.getName(), knownTypeAdapters(KnownTypeAdapters.STRING_INT_MAP));
+
+        // Timestamp types are only read with Stag's adapters when the field opts in with
+        // @TimestampFormat, so that adapters registered with Gson for them keep being used.
+        ISO_8601_TIMESTAMP_TYPE_ADAPTERS.put(Date.class.getName(), knownTypeAdapters(KnownTypeAdapters.ISO_8601_DATE));
+        ISO_8601_TIMESTAMP_TYPE_ADAPTERS.put(Instant.class.getName(), javaTimeTypeAdapters(KnownTypeAdapters.JavaTime.ISO_8601_INSTANT));
+        ISO_8601_TIMESTAMP_TYPE_ADAPTERS.put(OffsetDateTime.class.getName(), javaTimeTypeAdapters(KnownTypeAdapters.JavaTime.ISO_8601_OFFSET_DATE_TIME));
+        ISO_8601_TIMESTAMP_TYPE_ADAPTERS.put(LocalDate.class.getName(), javaTimeTypeAdapters(KnownTypeAdapters.JavaTime.ISO_8601_LOCAL_DATE));
+
+        EPOCH_MILLIS_TIMESTAMP_TYPE_ADAPTERS.put(Date.class.getName(), knownTypeAdapters(KnownTypeAdapters.EPOCH_MILLIS_DATE));
+        EPOCH_MILLIS_TIMESTAMP_TYPE_ADAPTERS.put(Instant.class.getName(), javaTimeTypeAdapters(KnownTypeAdapters.JavaTime.EPOCH_MILLIS_INSTANT));
+        EPOCH_MILLIS_TIMESTAMP_TYPE_ADAPTERS.put(OffsetDateTime.class.getName(), javaTimeTypeAdapters(KnownTypeAdapters.JavaTime.EPOCH_MILLIS_OFFSET_DATE_TIME));
 
         KNOWN_PRIMITIVE_ARRAY_TYPE_ADAPTERS.put(int[].class.getSimpleName(), className(KnownTypeAdapters.PrimitiveIntegerArrayAdapter.class));
         KNOWN_PRIMITIVE_ARRAY_TYPE_ADAPTERS.put(long[].class.getSimpleName(), className(KnownTypeAdapters.PrimitiveLongArrayAdapter.class));
@@ -120,13 +146,18 @@ public final class KnownTypeAdapterUtils {
         return fieldToString(KnownTypeAdapters.class, object);
     }
 
+    @NotNull
+    private static String javaTimeTypeAdapters(@NotNull Object object) {
+        return fieldToString(KnownTypeAdapters.JavaTime.class, object);
+    }
+
     @NotNull
     private static String fieldToString(@NotNull Class clazz, @NotNull Object object) {
         Field[] fields = clazz.getFields();
         for (Field field : fields) {
             try {
                 if (field.get(null) == object) {
-                    return clazz.getName() + '.' + field.getName();
+                    return clazz.getCanonicalName() + '.' + field.getName();
                 }
             } catch (IllegalAccessException e) {
                 DebugLog.log(e.getMessage());
@@ -141,6 +172,24 @@ public final class KnownTypeAdapterUtils {
         return KNOWN_TYPE_ADAPTERS.get(typeMirror.toString());
     }
 
+    /**
+     * Get the type adapter for a field annotated with {@link TimestampFormat}.
+     *
+     * @param typeMirror the type of the field.
+     * @param format     the format the field was annotated with.
+     * @return the type adapter, or null if the format is not supported for the type.
+     */
+    @Nullable
+    public static String getTimestampTypeAdapter(@NotNull TypeMirror typeMirror, @NotNull TimestampFormat.Format format) {
+        switch (format) {
+            case EPOCH_MILLIS:
+                return EPOCH_MILLIS_TIMESTAMP_TYPE_ADAPTERS.get(typeMirror.toString());
+            case ISO_8601:
+            default:
+                return ISO_8601_TIMESTAMP_TYPE_ADAPTERS.get(typeMirror.toString());
+        }
+    }
+
     /**
      * Get the instantiator for {@link List} types
      *
@@ -0,0 +1,146 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag.processor.utils;
+
+import com.google.gson.stream.JsonWriter;
+import com.vimeo.stag.processor.generators.model.AdapterStrategy;
+import com.vimeo.stag.processor.generators.model.ClassInfo;
+import com.vimeo.stag.processor.generators.model.FieldStrategy;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.annotation.processing.ProcessingEnvironment;
+
+/**
+ * Collects the adapter strategy of every field of every generated type adapter, and optionally the
+ * time the processor spent on each of them, and writes them to {@value #REPORT_RESOURCE} in the
+ * generated package. The time differs from build to build, so it is left out unless asked for to
+ * keep the report, which ends up next to the compiled classes, reproducible.
+ */
+public final class StagReport {
+
+    public static final String REPORT_RESOURCE = "stag-report.json";
+
+    @NotNull
+    private final List<Entry> mEntries = new ArrayList<>();
+    private final boolean mTiming;
+
+    /**
+     * @param timing true to include the time spent on each type adapter in the report.
+     */
+    public StagReport(boolean timing) {
+        mTiming = timing;
+    }
+
+    /**
+     * Adds a generated type adapter to the report.
+     *
+     * @param classInfo       the class info of the model.
+     * @param fieldStrategies the strategies of the fields of the model.
+     * @param processorNanos  the time spent generating and writing the type adapter, which is only
+     *                        written if timing is enabled.
+     */
+    public void addTypeAdapter(@NotNull ClassInfo classInfo, @NotNull List<FieldStrategy> fieldStrategies,
+                               long processorNanos) {
+        mEntries.add(new Entry(classInfo, fieldStrategies, processorNanos));
+    }
+
+    public void write(@NotNull ProcessingEnvironment processingEnv,
+                      @NotNull String generatedPackageName) throws IOException {
+        Map<AdapterStrategy, Integer> strategyCounts = new EnumMap<>(AdapterStrategy.class);
+        long totalProcessorNanos = 0;
+        for (Entry entry : mEntries) {
+            totalProcessorNanos += entry.mProcessorNanos;
+            for (FieldStrategy fieldStrategy : entry.mFieldStrategies) {
+                Integer count = strategyCounts.get(fieldStrategy.getStrategy());
+                strategyCounts.put(fieldStrategy.getStrategy(), count == null ? 1 : count + 1);
+            }
+        }
+
+        StringWriter stringWriter = new StringWriter();
+        JsonWriter writer = new JsonWriter(stringWriter);
+        writer.setIndent("  ");
+        writer.beginObject();
+        if (mTiming) {
+            writer.name("processorNanos").value(totalProcessorNanos);
+        }
+        writer.name("fieldStrategies").beginObject();
+        for (Map.Entry<AdapterStrategy, Integer> strategyCount : strategyCounts.entrySet()) {
+            writer.name(strategyCount.getKey().name()).value(strategyCount.getValue());
+        }
+        writer.endObject();
+        writer.name("classes").beginArray();
+        for (Entry entry : mEntries) {
+            writer.beginObject();
+            writer.name("type").value(entry.mClassInfo.getType().toString());
+            writer.name("adapter").value(FileGenUtils.unescapeEscapedString(entry.mClassInfo.getTypeAdapterQualifiedClassName()));
+            if (mTiming) {
+                writer.name("processorNanos").value(entry.mProcessorNanos);
+            }
+            writer.name("fields").beginArray();
+            for (FieldStrategy fieldStrategy : entry.mFieldStrategies) {
+                writer.beginObject();
+                writer.name("name").value(fieldStrategy.getJsonName());
+                writer.name("type").value(fieldStrategy.getType().toString());
+                writer.name("strategy").value(fieldStrategy.getStrategy().name());
+                if (!fieldStrategy.getElementStrategies().isEmpty()) {
+                    writer.name("elementStrategies").beginArray();
+                    for (AdapterStrategy elementStrategy : fieldStrategy.getElementStrategies()) {
+                        writer.value(elementStrategy.name());
+                    }
+                    writer.endArray();
+                }
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+        writer.close();
+
+        FileGenUtils.writeToResource(processingEnv.getFiler(), generatedPackageName, REPORT_RESOURCE,
+                                     stringWriter.toString() + "\n");
+    }
+
+    private static final class Entry {
+
+        @NotNull final ClassInfo mClassInfo;
+        @NotNull final List<FieldStrategy> mFieldStrategies;
+        final long mProcessorNanos;
+
+        Entry(@NotNull ClassInfo classInfo, @NotNull List<FieldStrategy> fieldStrategies, long processorNanos) {
+            mClassInfo = classInfo;
+            mFieldStrategies = fieldStrategies;
+            mProcessorNanos = processorNanos;
+        }
+    }
+}
@@ -380,6 +380,107 @@ public final class TypeUtils {
         return map;
     }
 
+    /**
+     * Determines whether the type is fully specified, which is to say that it names a class
+     * and every type argument, at every level of nesting, is itself fully specified. Type
+     * variables and wildcards are not fully specified, and neither are arrays of parameterized
+     * types or types nested in a parameterized outer type. Unlike {@link #isConcreteType(TypeMirror)},
+     * this is strict enough that the type can be written down as a class literal or a call to
+     * {@code TypeToken.getParameterized}.
+     *
+     * @param typeMirror the type to check.
+     * @return true if the type is fully specified, false otherwise.
+     */
+    public static boolean isFullySpecified(@NotNull TypeMirror typeMirror) {
+        if (typeMirror instanceof ArrayType) {
+            TypeMirror componentType = ((ArrayType) typeMirror).getComponentType();
+            return !isParameterizedType(componentType) && isFullySpecified(componentType);
+        }
+        if (isPrimitive(typeMirror, getUtils())) {
+            return true;
+        }
+        if (!(typeMirror instanceof DeclaredType)) {
+            return false;
+        }
+        DeclaredType declaredType = (DeclaredType) typeMirror;
+        if (isParameterizedType(declaredType.getEnclosingType())) {
+            return false;
+        }
+        for (TypeMirror type : declaredType.getTypeArguments()) {
+            if (type.getKind().isPrimitive() || !isFullySpecified(type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Substitutes the type arguments of a concrete parameterization of a generic class into the
+     * member variables of that class. For instance, given {@literal Model<String>} and the
+     * members of {@literal Model<T>}, a member of type {@literal List<T>} becomes a member of
+     * type {@literal List<String>}.
+     *
+     * @param concreteType   the fully specified parameterization of the generic class.
+     * @param genericElement the generic class.
+     * @param members        the member variables of the generic class mapped to their types.
+     * @return the member variables mapped to their concrete types (in the same order), or null
+     * if a member type can not be resolved.
+     */
+    @Nullable
+    public static LinkedHashMap<FieldAccessor, TypeMirror> getSpecializedMembers(@NotNull DeclaredType concreteType,
+                                                                                 @NotNull TypeElement genericElement,
+                                                                                 @NotNull Map<FieldAccessor, TypeMirror> members) {
+        List<? extends TypeMirror> concreteTypes = getParameterizedTypes(concreteType);
+        List<? extends TypeMirror> genericTypes = getParameterizedTypes(genericElement);
+
+        LinkedHashMap<FieldAccessor, TypeMirror> map = new LinkedHashMap<>();
+        for (Entry<FieldAccessor, TypeMirror> member : members.entrySet()) {
+            TypeMirror resolvedType = substituteTypeVars(member.getValue(), genericTypes, concreteTypes);
+            if (resolvedType == null) {
+                return null;
+            }
+            map.put(member.getKey(), resolvedType);
+        }
+        return map;
+    }
+
+    @Nullable
+    private static TypeMirror substituteTypeVars(@NotNull TypeMirror type,
+                                                 @NotNull List<? extends TypeMirror> genericTypes,
+                                                 @NotNull List<? extends TypeMirror> concreteTypes) {
+        if (type.getKind() == TypeKind.TYPEVAR) {
+            int index = genericTypes.indexOf(type);
+            return index >= 0 ? concreteTypes.get(index) : null;
+        }
+        if (type instanceof ArrayType) {
+            TypeMirror componentType = substituteTypeVars(((ArrayType) type).getComponentType(), genericTypes, concreteTypes);
+            return componentType != null ? getUtils().getArrayType(componentType) : null;
+        }
+        if (type instanceof WildcardType) {
+            TypeMirror extendsBound = ((WildcardType) type).getExtendsBound();
+            TypeMirror superBound = ((WildcardType) type).getSuperBound();
+            TypeMirror resolvedExtendsBound = extendsBound != null ? substituteTypeVars(extendsBound, genericTypes, concreteTypes) : null;
+            TypeMirror resolvedSuperBound = superBound != null ? substituteTypeVars(superBound, genericTypes, concreteTypes) : null;
+            if ((extendsBound != null && resolvedExtendsBound == null) || (superBound != null && resolvedSuperBound == null)) {
+                return null;
+            }
+            return getUtils().getWildcardType(resolvedExtendsBound, resolvedSuperBound);
+        }
+        if (!(type instanceof DeclaredType) || !isParameterizedType(type)) {
+            return type;
+        }
+        DeclaredType declaredType = (DeclaredType) type;
+        List<? extends TypeMirror> typeArguments = declaredType.getTypeArguments();
+        TypeMirror[] resolvedArguments = new TypeMirror[typeArguments.size()];
+        for (int idx = 0; idx < resolvedArguments.length; idx++) {
+            resolvedArguments[idx] = substituteTypeVars(typeArguments.get(idx), genericTypes, concreteTypes);
+            if (resolvedArguments[idx] == null) {
+                return null;
+            }
+        }
+        return getUtils().getDeclaredType((TypeElement) declaredType.asElement(), resolvedArguments);
+    }
+
     /**
      * Gets the primitive type mirror type.
      *
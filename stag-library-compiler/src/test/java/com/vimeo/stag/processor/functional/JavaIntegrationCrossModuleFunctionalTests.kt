@@ -36,6 +36,11 @@ class JavaIntegrationCrossModuleFunctionalTests {
         assertThatClassCompilationIsSuccessful(JsonAdapterExample::class)
     }
 
+    @Test
+    fun `TimestampExample compiles successfully`() {
+        assertThatClassCompilationIsSuccessful(TimestampExample::class)
+    }
+
     @Test
     fun `AccessModifiers compiles successfully`() {
         assertThatClassCompilationIsSuccessful(AccessModifiers::class)
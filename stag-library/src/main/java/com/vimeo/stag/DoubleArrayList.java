@@ -0,0 +1,154 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A growable {@link java.util.List} of {@link Double} that stores its elements in a {@code double[]}
+ * rather than as boxed objects. The {@code getDouble}, {@code setDouble} and {@code addDouble} methods
+ * read and write elements without boxing, and {@link KnownTypeAdapters#DOUBLE_ARRAY_LIST} reads and
+ * writes the list without boxing. The methods inherited from {@link java.util.List} box and unbox
+ * as needed, and reject null elements.
+ */
+public final class DoubleArrayList extends PrimitiveArrayList<Double> {
+
+    @NotNull
+    private double[] mElements;
+
+    public DoubleArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public DoubleArrayList(int initialCapacity) {
+        checkCapacity(initialCapacity);
+        mElements = new double[initialCapacity];
+    }
+
+    public DoubleArrayList(@NotNull double[] elements) {
+        mElements = elements.clone();
+        mSize = elements.length;
+    }
+
+    /**
+     * Returns the element at the specified position without boxing it.
+     */
+    public double getDouble(int index) {
+        checkIndex(index);
+        return mElements[index];
+    }
+
+    /**
+     * Replaces the element at the specified position without boxing it.
+     *
+     * @return the element previously at the specified position.
+     */
+    public double setDouble(int index, double element) {
+        checkIndex(index);
+        double previous = mElements[index];
+        mElements[index] = element;
+        return previous;
+    }
+
+    /**
+     * Appends the element to the end of this list without boxing it.
+     */
+    public void addDouble(double element) {
+        int index = appendIndex();
+        mElements[index] = element;
+    }
+
+    /**
+     * Returns a copy of the elements of this list as a {@code double[]}.
+     */
+    @NotNull
+    public double[] toDoubleArray() {
+        return Arrays.copyOf(mElements, mSize);
+    }
+
+    @Override
+    public Double get(int index) {
+        return getDouble(index);
+    }
+
+    @Override
+    public Double set(int index, @NotNull Double element) {
+        return setDouble(index, element);
+    }
+
+    @Override
+    public boolean add(@NotNull Double element) {
+        addDouble(element);
+        return true;
+    }
+
+    @Override
+    public void add(int index, @NotNull Double element) {
+        double value = element;
+        openGap(index);
+        mElements[index] = value;
+    }
+
+    @Override
+    public Double remove(int index) {
+        checkIndex(index);
+        double previous = mElements[index];
+        closeGap(index);
+        return previous;
+    }
+
+    @Override
+    Object elements() {
+        return mElements;
+    }
+
+    @Override
+    int capacity() {
+        return mElements.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+        mElements = Arrays.copyOf(mElements, capacity);
+    }
+
+    @Override
+    boolean elementsEqual(PrimitiveArrayList<?> other) {
+        double[] otherElements = ((DoubleArrayList) other).mElements;
+        for (int index = 0; index < mSize; index++) {
+            if (Double.doubleToLongBits(mElements[index]) != Double.doubleToLongBits(otherElements[index])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    int elementHashCode(int index) {
+        long bits = Double.doubleToLongBits(mElements[index]);
+        return (int) (bits ^ (bits >>> 32));
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link StagMetrics} that keeps per type totals in memory, to be read with {@link #getTypeMetrics()}.
+ * The totals are kept in {@link LongAdder}s, so that threads reporting at the same time do not
+ * contend on the same counters. This requires Java 8 or Android API level 24.
+ */
+public final class InMemoryStagMetrics extends StagMetrics {
+
+    /**
+     * The totals of one model type.
+     */
+    public static final class TypeMetrics {
+
+        private final long mObjectsRead;
+        private final long mFieldsRead;
+        private final long mUnknownFieldsSkipped;
+        private final long mReadNanos;
+        private final long mObjectsWritten;
+        private final long mWriteNanos;
+
+        TypeMetrics(long objectsRead, long fieldsRead, long unknownFieldsSkipped, long readNanos,
+                    long objectsWritten, long writeNanos) {
+            mObjectsRead = objectsRead;
+            mFieldsRead = fieldsRead;
+            mUnknownFieldsSkipped = unknownFieldsSkipped;
+            mReadNanos = readNanos;
+            mObjectsWritten = objectsWritten;
+            mWriteNanos = writeNanos;
+        }
+
+        public long getObjectsRead() {
+            return mObjectsRead;
+        }
+
+        public long getFieldsRead() {
+            return mFieldsRead;
+        }
+
+        public long getUnknownFieldsSkipped() {
+            return mUnknownFieldsSkipped;
+        }
+
+        /**
+         * The total time spent reading objects of the type, including the objects nested in them.
+         */
+        public long getReadNanos() {
+            return mReadNanos;
+        }
+
+        public long getObjectsWritten() {
+            return mObjectsWritten;
+        }
+
+        /**
+         * The total time spent writing objects of the type, including the objects nested in them.
+         */
+        public long getWriteNanos() {
+            return mWriteNanos;
+        }
+    }
+
+    private static final class Counters {
+
+        @NotNull final LongAdder mObjectsRead = new LongAdder();
+        @NotNull final LongAdder mFieldsRead = new LongAdder();
+        @NotNull final LongAdder mUnknownFieldsSkipped = new LongAdder();
+        @NotNull final LongAdder mReadNanos = new LongAdder();
+        @NotNull final LongAdder mObjectsWritten = new LongAdder();
+        @NotNull final LongAdder mWriteNanos = new LongAdder();
+    }
+
+    @NotNull
+    private final ConcurrentMap<Class<?>, Counters> mCounters = new ConcurrentHashMap<>();
+
+    @Override
+    public void onRead(@NotNull Class<?> type, int fieldsRead, int unknownFieldsSkipped, long durationNanos) {
+        Counters counters = getCounters(type);
+        counters.mObjectsRead.increment();
+        counters.mFieldsRead.add(fieldsRead);
+        counters.mUnknownFieldsSkipped.add(unknownFieldsSkipped);
+        counters.mReadNanos.add(durationNanos);
+    }
+
+    @Override
+    public void onWrite(@NotNull Class<?> type, long durationNanos) {
+        Counters counters = getCounters(type);
+        counters.mObjectsWritten.increment();
+        counters.mWriteNanos.add(durationNanos);
+    }
+
+    /**
+     * The totals of the given type, which are consistent with each other unless objects of the type
+     * are being read or written at the same time.
+     *
+     * @param type the model type.
+     * @return the totals, or null if no object of the type has been read or written.
+     */
+    @Nullable
+    public TypeMetrics getTypeMetrics(@NotNull Class<?> type) {
+        Counters counters = mCounters.get(type);
+        return counters != null ? snapshot(counters) : null;
+    }
+
+    /**
+     * The totals of every type that has been read or written.
+     *
+     * @return a copy of the totals, keyed by type.
+     */
+    @NotNull
+    public Map<Class<?>, TypeMetrics> getTypeMetrics() {
+        Map<Class<?>, TypeMetrics> typeMetrics = new LinkedHashMap<>();
+        for (Map.Entry<Class<?>, Counters> entry : mCounters.entrySet()) {
+            typeMetrics.put(entry.getKey(), snapshot(entry.getValue()));
+        }
+        return typeMetrics;
+    }
+
+    /**
+     * Discards the totals of every type.
+     */
+    public void reset() {
+        mCounters.clear();
+    }
+
+    @NotNull
+    private Counters getCounters(@NotNull Class<?> type) {
+        Counters counters = mCounters.get(type);
+        if (counters == null) {
+            Counters newCounters = new Counters();
+            counters = mCounters.putIfAbsent(type, newCounters);
+            if (counters == null) {
+                counters = newCounters;
+            }
+        }
+        return counters;
+    }
+
+    @NotNull
+    private static TypeMetrics snapshot(@NotNull Counters counters) {
+        return new TypeMetrics(counters.mObjectsRead.sum(), counters.mFieldsRead.sum(),
+                               counters.mUnknownFieldsSkipped.sum(), counters.mReadNanos.sum(),
+                               counters.mObjectsWritten.sum(), counters.mWriteNanos.sum());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Arrays;
+
+/**
+ * A growable {@link java.util.List} of {@link Integer} that stores its elements in a {@code int[]}
+ * rather than as boxed objects. The {@code getInt}, {@code setInt} and {@code addInt} methods
+ * read and write elements without boxing, and {@link KnownTypeAdapters#INT_ARRAY_LIST} reads and
+ * writes the list without boxing. The methods inherited from {@link java.util.List} box and unbox
+ * as needed, and reject null elements.
+ */
+public final class IntArrayList extends PrimitiveArrayList<Integer> {
+
+    @NotNull
+    private int[] mElements;
+
+    public IntArrayList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public IntArrayList(int initialCapacity) {
+        checkCapacity(initialCapacity);
+        mElements = new int[initialCapacity];
+    }
+
+    public IntArrayList(@NotNull int[] elements) {
+        mElements = elements.clone();
+        mSize = elements.length;
+    }
+
+    /**
+     * Returns the element at the specified position without boxing it.
+     */
+    public int getInt(int index) {
+        checkIndex(index);
+        return mElements[index];
+    }
+
+    /**
+     * Replaces the element at the specified position without boxing it.
+     *
+     * @return the element previously at the specified position.
+     */
+    public int setInt(int index, int element) {
+        checkIndex(index);
+        int previous = mElements[index];
+        mElements[index] = element;
+        return previous;
+    }
+
+    /**
+     * Appends the element to the end of this list without boxing it.
+     */
+    public void addInt(int element) {
+        int index = appendIndex();
+        mElements[index] = element;
+    }
+
+    /**
+     * Returns a copy of the elements of this list as a {@code int[]}.
+     */
+    @NotNull
+    public int[] toIntArray() {
+        return Arrays.copyOf(mElements, mSize);
+    }
+
+    @Override
+    public Integer get(int index) {
+        return getInt(index);
+    }
+
+    @Override
+    public Integer set(int index, @NotNull Integer element) {
+        return setInt(index, element);
+    }
+
+    @Override
+    public boolean add(@NotNull Integer element) {
+        addInt(element);
+        return true;
+    }
+
+    @Override
+    public void add(int index, @NotNull Integer element) {
+        int value = element;
+        openGap(index);
+        mElements[index] = value;
+    }
+
+    @Override
+    public Integer remove(int index) {
+        checkIndex(index);
+        int previous = mElements[index];
+        closeGap(index);
+        return previous;
+    }
+
+    @Override
+    Object elements() {
+        return mElements;
+    }
+
+    @Override
+    int capacity() {
+        return mElements.length;
+    }
+
+    @Override
+    void resize(int capacity) {
+        mElements = Arrays.copyOf(mElements, capacity);
+    }
+
+    @Override
+    boolean elementsEqual(PrimitiveArrayList<?> other) {
+        int[] otherElements = ((IntArrayList) other).mElements;
+        for (int index = 0; index < mSize; index++) {
+            if (mElements[index] != otherElements[index]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    int elementHashCode(int index) {
+        return mElements[index];
+    }
+}
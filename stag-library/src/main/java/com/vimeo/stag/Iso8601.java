@@ -0,0 +1,424 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.JsonSyntaxException;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A thread-safe ISO-8601 parser and formatter that does not depend on {@link java.text.DateFormat}
+ * or {@code java.time}, used by the timestamp adapters in {@link KnownTypeAdapters}.
+ * <p>
+ * Accepted strings are a calendar date ({@code yyyy-MM-dd}), optionally followed by a time
+ * ({@code 'T'HH:mm[:ss[.fraction]]}) and a zone designator ({@code Z}, {@code +hh}, {@code +hhmm},
+ * {@code +hh:mm}, {@code +hhmmss} or {@code +hh:mm:ss}). The zone is required when a time is
+ * present. A date without a time stands for midnight UTC. Like {@code java.time}, years outside of
+ * {@code 0000} to {@code 9999} are written and read with a sign and at least four digits, such
+ * as {@code +10000-01-01} or {@code -0001-01-01}.
+ */
+final class Iso8601 {
+
+    private static final int SECONDS_PER_DAY = 86400;
+    private static final int NANOS_PER_MILLI = 1000000;
+    private static final int MAX_OFFSET_SECONDS = 18 * 3600;
+    /**
+     * The largest year of {@code java.time.Instant}, and so the largest year that is accepted.
+     */
+    private static final int MAX_YEAR = 1000000000;
+    /**
+     * The longest formatted timestamp, {@code -1000000000-MM-ddTHH:mm:ss.nnnnnnnnn+hh:mm:ss}.
+     */
+    private static final int MAX_LENGTH = 46;
+
+    /**
+     * Days from 0000-03-01 to 1970-01-01 in the proleptic Gregorian calendar.
+     */
+    private static final long DAYS_0000_TO_1970 = 719468L;
+    private static final int DAYS_PER_400_YEARS = 146097;
+
+    private Iso8601() {
+        throw new UnsupportedOperationException("Iso8601 cannot be instantiated");
+    }
+
+    /**
+     * The fields of a parsed ISO-8601 string.
+     */
+    static final class Timestamp {
+
+        int mYear;
+        int mMonth;
+        int mDay;
+        int mHour;
+        int mMinute;
+        int mSecond;
+        int mNano;
+        int mOffsetSeconds;
+        boolean mHasTime;
+
+        /**
+         * Returns the seconds since the epoch of this timestamp.
+         */
+        long getEpochSecond() {
+            return toEpochDay(mYear, mMonth, mDay) * SECONDS_PER_DAY
+                   + mHour * 3600 + mMinute * 60 + mSecond - mOffsetSeconds;
+        }
+
+        /**
+         * Returns the milliseconds since the epoch of this timestamp.
+         */
+        long getEpochMillis() {
+            long epochSecond = getEpochSecond();
+            long milliOfSecond = mNano / NANOS_PER_MILLI;
+            if (epochSecond < 0 && milliOfSecond > 0) {
+                // Keeps the intermediate product in range for timestamps just above Long.MIN_VALUE.
+                epochSecond++;
+                milliOfSecond -= 1000;
+            }
+            if (epochSecond > Long.MAX_VALUE / 1000 || epochSecond < Long.MIN_VALUE / 1000 ||
+                (epochSecond == Long.MAX_VALUE / 1000 && milliOfSecond > Long.MAX_VALUE % 1000) ||
+                (epochSecond == Long.MIN_VALUE / 1000 && milliOfSecond < Long.MIN_VALUE % 1000)) {
+                throw new JsonSyntaxException("ISO-8601 timestamp out of range for milliseconds: year " + mYear);
+            }
+            return epochSecond * 1000 + milliOfSecond;
+        }
+    }
+
+    /**
+     * Parses an ISO-8601 string.
+     *
+     * @param string the string to parse.
+     * @return the parsed fields.
+     * @throws JsonSyntaxException if the string is not a supported ISO-8601 string.
+     */
+    @NotNull
+    static Timestamp parse(@NotNull String string) {
+        Timestamp timestamp = new Timestamp();
+        int length = string.length();
+
+        int position = parseYear(string, timestamp);
+        expect(string, position, '-');
+        timestamp.mMonth = parseDigits(string, position + 1, 2);
+        expect(string, position + 3, '-');
+        timestamp.mDay = parseDigits(string, position + 4, 2);
+        if (timestamp.mMonth < 1 || timestamp.mMonth > 12 ||
+            timestamp.mDay < 1 || timestamp.mDay > lengthOfMonth(timestamp.mYear, timestamp.mMonth)) {
+            throw invalid(string);
+        }
+        position += 6;
+        if (position == length) {
+            return timestamp;
+        }
+
+        char separator = string.charAt(position);
+        if (separator != 'T' && separator != 't' && separator != ' ') {
+            throw invalid(string);
+        }
+        timestamp.mHasTime = true;
+        timestamp.mHour = parseDigits(string, position + 1, 2);
+        expect(string, position + 3, ':');
+        timestamp.mMinute = parseDigits(string, position + 4, 2);
+        position += 6;
+        if (position < length && string.charAt(position) == ':') {
+            timestamp.mSecond = parseDigits(string, position + 1, 2);
+            position += 3;
+            if (position < length && (string.charAt(position) == '.' || string.charAt(position) == ',')) {
+                position++;
+                int start = position;
+                int nano = 0;
+                while (position < length && isDigit(string.charAt(position))) {
+                    if (position - start < 9) {
+                        nano = nano * 10 + (string.charAt(position) - '0');
+                    }
+                    position++;
+                }
+                int digits = position - start;
+                if (digits == 0) {
+                    throw invalid(string);
+                }
+                for (int idx = digits; idx < 9; idx++) {
+                    nano *= 10;
+                }
+                timestamp.mNano = nano;
+            }
+        }
+        if (timestamp.mHour > 23 || timestamp.mMinute > 59 || timestamp.mSecond > 59) {
+            throw invalid(string);
+        }
+
+        if (position == length) {
+            throw new JsonSyntaxException("Missing time zone in ISO-8601 timestamp: " + string);
+        }
+        char zone = string.charAt(position);
+        if (zone == 'Z' || zone == 'z') {
+            position++;
+        } else if (zone == '+' || zone == '-') {
+            int offsetHours = parseDigits(string, position + 1, 2);
+            int offsetMinutes = 0;
+            int offsetSecondsOfMinute = 0;
+            position += 3;
+            boolean extended = position < length && string.charAt(position) == ':';
+            if (extended) {
+                // The minutes are required after a colon, so "+05:" is rejected.
+                position++;
+                offsetMinutes = parseDigits(string, position, 2);
+                position += 2;
+                if (position < length && string.charAt(position) == ':') {
+                    offsetSecondsOfMinute = parseDigits(string, position + 1, 2);
+                    position += 3;
+                }
+            } else if (position < length) {
+                offsetMinutes = parseDigits(string, position, 2);
+                position += 2;
+                if (position < length) {
+                    offsetSecondsOfMinute = parseDigits(string, position, 2);
+                    position += 2;
+                }
+            }
+            int offsetSeconds = offsetHours * 3600 + offsetMinutes * 60 + offsetSecondsOfMinute;
+            if (offsetMinutes > 59 || offsetSecondsOfMinute > 59 || offsetSeconds > MAX_OFFSET_SECONDS) {
+                throw invalid(string);
+            }
+            timestamp.mOffsetSeconds = zone == '-' ? -offsetSeconds : offsetSeconds;
+        } else {
+            throw invalid(string);
+        }
+        if (position != length) {
+            throw invalid(string);
+        }
+        return timestamp;
+    }
+
+    /**
+     * Formats an instant as an ISO-8601 string in UTC.
+     *
+     * @param epochMillis the milliseconds since the epoch.
+     */
+    @NotNull
+    static String formatEpochMillis(long epochMillis) {
+        return format(floorDiv(epochMillis, 1000), (int) floorMod(epochMillis, 1000) * NANOS_PER_MILLI, 0);
+    }
+
+    /**
+     * Formats a timestamp as an ISO-8601 string. The fraction of a second is omitted if it is zero,
+     * and otherwise written with 3, 6 or 9 digits.
+     *
+     * @param epochSecond   the seconds since the epoch.
+     * @param nano          the nanoseconds within the second.
+     * @param offsetSeconds the offset from UTC to write, zero being written as {@code Z} and an
+     *                      offset with seconds as {@code +hh:mm:ss}.
+     */
+    @NotNull
+    static String format(long epochSecond, int nano, int offsetSeconds) {
+        long localSecond = epochSecond + offsetSeconds;
+        long epochDay = floorDiv(localSecond, SECONDS_PER_DAY);
+        int secondOfDay = (int) floorMod(localSecond, SECONDS_PER_DAY);
+
+        char[] buffer = new char[MAX_LENGTH];
+        int position = formatDate(epochDay, buffer);
+        buffer[position++] = 'T';
+        position = writeDigits(buffer, position, secondOfDay / 3600, 2);
+        buffer[position++] = ':';
+        position = writeDigits(buffer, position, secondOfDay / 60 % 60, 2);
+        buffer[position++] = ':';
+        position = writeDigits(buffer, position, secondOfDay % 60, 2);
+        if (nano != 0) {
+            buffer[position++] = '.';
+            if (nano % NANOS_PER_MILLI == 0) {
+                position = writeDigits(buffer, position, nano / NANOS_PER_MILLI, 3);
+            } else if (nano % 1000 == 0) {
+                position = writeDigits(buffer, position, nano / 1000, 6);
+            } else {
+                position = writeDigits(buffer, position, nano, 9);
+            }
+        }
+        if (offsetSeconds == 0) {
+            buffer[position++] = 'Z';
+        } else {
+            int absOffset = Math.abs(offsetSeconds);
+            buffer[position++] = offsetSeconds < 0 ? '-' : '+';
+            position = writeDigits(buffer, position, absOffset / 3600, 2);
+            buffer[position++] = ':';
+            position = writeDigits(buffer, position, absOffset / 60 % 60, 2);
+            if (absOffset % 60 != 0) {
+                buffer[position++] = ':';
+                position = writeDigits(buffer, position, absOffset % 60, 2);
+            }
+        }
+        return new String(buffer, 0, position);
+    }
+
+    /**
+     * Formats a date as an ISO-8601 calendar date.
+     *
+     * @param epochDay the days since the epoch.
+     */
+    @NotNull
+    static String formatDate(long epochDay) {
+        char[] buffer = new char[10];
+        int length = formatDate(epochDay, buffer);
+        if (length < 0) {
+            // Only dates with an expanded year do not fit.
+            buffer = new char[MAX_LENGTH];
+            length = formatDate(epochDay, buffer);
+        }
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     * Returns the days since the epoch of the date, using the algorithm described in
+     * http://howardhinnant.github.io/date_algorithms.html.
+     */
+    static long toEpochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * DAYS_PER_400_YEARS + dayOfEra - DAYS_0000_TO_1970;
+    }
+
+    /**
+     * Writes the date at the start of the buffer and returns its length, or -1 if the year is
+     * expanded and does not fit into the buffer.
+     */
+    private static int formatDate(long epochDay, @NotNull char[] buffer) {
+        long shifted = epochDay + DAYS_0000_TO_1970;
+        long era = floorDiv(shifted, DAYS_PER_400_YEARS);
+        long dayOfEra = shifted - era * DAYS_PER_400_YEARS;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long shiftedMonth = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * shiftedMonth + 2) / 5 + 1);
+        int month = (int) (shiftedMonth < 10 ? shiftedMonth + 3 : shiftedMonth - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        int position = 0;
+        if (year >= 0 && year <= 9999) {
+            position = writeDigits(buffer, position, (int) year, 4);
+        } else {
+            long absYear = Math.abs(year);
+            int digits = 4;
+            for (long limit = 10000; digits < 19 && absYear >= limit; limit *= 10) {
+                digits++;
+            }
+            if (buffer.length < digits + 7) {
+                return -1;
+            }
+            buffer[position++] = year < 0 ? '-' : '+';
+            position = writeDigits(buffer, position, absYear, digits);
+        }
+        buffer[position++] = '-';
+        position = writeDigits(buffer, position, month, 2);
+        buffer[position++] = '-';
+        return writeDigits(buffer, position, day, 2);
+    }
+
+    private static int writeDigits(@NotNull char[] buffer, int position, long value, int digits) {
+        for (int idx = position + digits - 1; idx >= position; idx--) {
+            buffer[idx] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return position + digits;
+    }
+
+    /**
+     * Parses the year, either as exactly four digits or as a sign followed by at least four
+     * digits, and returns the position after it.
+     */
+    private static int parseYear(@NotNull String string, @NotNull Timestamp timestamp) {
+        char first = string.isEmpty() ? 0 : string.charAt(0);
+        if (first != '+' && first != '-') {
+            timestamp.mYear = parseDigits(string, 0, 4);
+            return 4;
+        }
+        int position = 1;
+        long year = 0;
+        while (position < string.length() && isDigit(string.charAt(position))) {
+            year = year * 10 + (string.charAt(position) - '0');
+            if (year > MAX_YEAR) {
+                throw invalid(string);
+            }
+            position++;
+        }
+        if (position < 5) {
+            throw invalid(string);
+        }
+        timestamp.mYear = (int) (first == '-' ? -year : year);
+        return position;
+    }
+
+    private static int parseDigits(@NotNull String string, int position, int digits) {
+        if (position + digits > string.length()) {
+            throw invalid(string);
+        }
+        int value = 0;
+        for (int idx = position; idx < position + digits; idx++) {
+            char c = string.charAt(idx);
+            if (!isDigit(c)) {
+                throw invalid(string);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static void expect(@NotNull String string, int position, char expected) {
+        if (position >= string.length() || string.charAt(position) != expected) {
+            throw invalid(string);
+        }
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && year % 100 != 0) || year % 400 == 0 ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    private static long floorDiv(long x, long y) {
+        long quotient = x / y;
+        return (x % y != 0 && (x ^ y) < 0) ? quotient - 1 : quotient;
+    }
+
+    private static long floorMod(long x, long y) {
+        return x - floorDiv(x, y) * y;
+    }
+
+    @NotNull
+    private static JsonSyntaxException invalid(@NotNull String string) {
+        return new JsonSyntaxException("Invalid ISO-8601 timestamp: " + string);
+    }
+}
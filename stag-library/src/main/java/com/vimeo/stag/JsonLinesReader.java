@@ -0,0 +1,288 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads records from newline delimited JSON (JSON lines, or NDJSON), where every line of the
+ * UTF-8 encoded input holds one JSON value. Lines are read into a single buffer and each record
+ * is decoded in place by a single {@link StagJsonReader} that is reset for every line, so no
+ * per-record readers or strings are created.
+ * <pre>
+ *     JsonLinesReader&lt;Event&gt; reader = JsonLinesReader.create(gson, Event.class, inputStream);
+ *     reader.setMalformedLineHandler(handler);
+ *     reader.readBatches(1000, callback);
+ * </pre>
+ * Blank lines are skipped, and a carriage return before a newline is ignored. By default, a line
+ * that can't be read fails with a {@link JsonSyntaxException} that names its line number. If a
+ * {@link MalformedLineHandler} is set, such lines are reported to it and skipped instead.
+ */
+public final class JsonLinesReader<T> implements Closeable {
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Receives records in batches from {@link #readBatches(int, BatchCallback)}.
+     */
+    public interface BatchCallback<T> {
+
+        /**
+         * Called with the next batch of records. The list is reused for the following batch, so
+         * it must be copied if the records are needed after this method returns.
+         */
+        void onBatch(@NotNull List<T> batch) throws IOException;
+    }
+
+    /**
+     * Receives the lines that can't be read, which are then skipped.
+     */
+    public interface MalformedLineHandler {
+
+        /**
+         * Called with the one based number of a line that could not be read and the reason.
+         */
+        void onMalformedLine(long lineNumber, @NotNull Exception exception);
+    }
+
+    @NotNull
+    private final TypeAdapter<T> mTypeAdapter;
+    @NotNull
+    private final InputStream mInputStream;
+    @NotNull
+    private final StagJsonReader mReader = new StagJsonReader(new byte[0]);
+    @NotNull
+    private final StagMetrics mMetrics;
+    @Nullable
+    private MalformedLineHandler mMalformedLineHandler;
+
+    @NotNull
+    private byte[] mBuffer = new byte[DEFAULT_BUFFER_SIZE];
+    private int mPos;
+    private int mLimit;
+    private boolean mEndOfInput;
+    private int mLineStart;
+
+    private long mLineNumber;
+    private boolean mHasRecord;
+    @Nullable
+    private T mRecord;
+
+    public JsonLinesReader(@NotNull TypeAdapter<T> typeAdapter, @NotNull InputStream inputStream) {
+        mTypeAdapter = typeAdapter;
+        mInputStream = inputStream;
+        mMetrics = StagMetrics.getInstance();
+    }
+
+    /**
+     * Creates a reader for records of {@code type}, read with the adapter {@code gson} provides
+     * for it.
+     */
+    @NotNull
+    public static <T> JsonLinesReader<T> create(@NotNull Gson gson, @NotNull Class<T> type,
+                                                @NotNull InputStream inputStream) {
+        return new JsonLinesReader<>(gson.getAdapter(type), inputStream);
+    }
+
+    /**
+     * Sets the handler that malformed lines are reported to, or null to fail on the first
+     * malformed line.
+     */
+    public void setMalformedLineHandler(@Nullable MalformedLineHandler malformedLineHandler) {
+        mMalformedLineHandler = malformedLineHandler;
+    }
+
+    /**
+     * Returns the one based number of the line of the last record that was read, or of the line
+     * being read if a record is being read.
+     */
+    public long getLineNumber() {
+        return mLineNumber;
+    }
+
+    /**
+     * Returns true if there is another record, reading it if necessary.
+     */
+    public boolean hasNext() throws IOException {
+        while (!mHasRecord) {
+            int length = nextLine();
+            if (length < 0) {
+                return false;
+            }
+            readRecord(mLineStart, length);
+        }
+        return true;
+    }
+
+    /**
+     * Returns the next record, which is null if its line is {@code null}.
+     *
+     * @throws NoSuchElementException if there are no more records.
+     */
+    @Nullable
+    public T next() throws IOException {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        T record = mRecord;
+        mRecord = null;
+        mHasRecord = false;
+        return record;
+    }
+
+    /**
+     * Reads all of the remaining records and hands them to {@code callback} in batches of
+     * {@code batchSize}, the last of which may be smaller. Returns the number of records read.
+     */
+    public long readBatches(int batchSize, @NotNull BatchCallback<T> callback) throws IOException {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Illegal batch size: " + batchSize);
+        }
+        List<T> batch = new ArrayList<>(batchSize);
+        long count = 0;
+        while (hasNext()) {
+            batch.add(next());
+            count++;
+            if (batch.size() == batchSize) {
+                callback.onBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            callback.onBatch(batch);
+        }
+        return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+        mInputStream.close();
+    }
+
+    /**
+     * Decodes the line of {@code length} bytes at {@code start}, leaving blank lines and, if
+     * there is a handler, malformed lines without a record.
+     */
+    private void readRecord(int start, int length) {
+        if (isBlank(start, length)) {
+            return;
+        }
+        mReader.reset(mBuffer, start, length);
+        try {
+            long startNanos = mMetrics.isEnabled() ? System.nanoTime() : 0L;
+            T record = mTypeAdapter.read(mReader);
+            if (mReader.peek() != JsonToken.END_DOCUMENT) {
+                throw new MalformedJsonException("Expected the end of the line but was " + mReader.peek());
+            }
+            if (record != null && mMetrics.isEnabled()) {
+                mMetrics.onRootRead(record.getClass(), length, System.nanoTime() - startNanos);
+            }
+            mRecord = record;
+            mHasRecord = true;
+        } catch (IOException | IllegalStateException | NumberFormatException | JsonParseException e) {
+            if (mMalformedLineHandler == null) {
+                throw new JsonSyntaxException("Malformed JSON on line " + mLineNumber, e);
+            }
+            mMalformedLineHandler.onMalformedLine(mLineNumber, e);
+        }
+    }
+
+    private boolean isBlank(int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            byte b = mBuffer[i];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Finds the next line, and returns its length without the line terminator, or -1 at the end
+     * of the input. The line starts at {@link #mLineStart}, and {@link #mPos} is moved past it.
+     */
+    private int nextLine() throws IOException {
+        int searchFrom = mPos;
+        while (true) {
+            for (int i = searchFrom; i < mLimit; i++) {
+                if (mBuffer[i] == '\n') {
+                    return line(i, i + 1);
+                }
+            }
+            if (mEndOfInput) {
+                return mPos < mLimit ? line(mLimit, mLimit) : -1;
+            }
+            searchFrom = mLimit - mPos;
+            fillBuffer();
+            searchFrom += mPos;
+        }
+    }
+
+    private int line(int end, int next) {
+        mLineNumber++;
+        mLineStart = mPos;
+        mPos = next;
+        if (end > mLineStart && mBuffer[end - 1] == '\r') {
+            end--;
+        }
+        return end - mLineStart;
+    }
+
+    /**
+     * Moves the partial line to the front of the buffer, growing it if the line fills all of it,
+     * and reads more input after it.
+     */
+    private void fillBuffer() throws IOException {
+        int remaining = mLimit - mPos;
+        if (remaining == mBuffer.length) {
+            mBuffer = Arrays.copyOf(mBuffer, mBuffer.length * 2);
+        } else if (mPos > 0) {
+            System.arraycopy(mBuffer, mPos, mBuffer, 0, remaining);
+        }
+        mPos = 0;
+        mLimit = remaining;
+        int read = mInputStream.read(mBuffer, mLimit, mBuffer.length - mLimit);
+        if (read == -1) {
+            mEndOfInput = true;
+        } else {
+            mLimit += read;
+        }
+    }
+}
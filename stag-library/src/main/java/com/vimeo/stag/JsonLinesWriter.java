@@ -0,0 +1,179 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Writes records as newline delimited JSON (JSON lines, or NDJSON), one UTF-8 encoded JSON value
+ * per line. All records are written by a single {@link StagJsonWriter}, so no per-record writers
+ * or strings are created. Output is buffered, so {@link #flush()} or {@link #close()} must be
+ * called once writing is done.
+ * <p>
+ * {@link #writeAllParallel(List, ForkJoinPool)} encodes large batches on a {@link ForkJoinPool}
+ * while still writing the lines in the order of the batch.
+ */
+public final class JsonLinesWriter<T> implements Closeable, Flushable {
+
+    /**
+     * The number of records encoded by each parallel task.
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 256;
+
+    @NotNull
+    private final TypeAdapter<T> mTypeAdapter;
+    @NotNull
+    private final OutputStream mOutputStream;
+    @NotNull
+    private final StagJsonWriter mWriter;
+    @NotNull
+    private final StagMetrics mMetrics;
+
+    public JsonLinesWriter(@NotNull TypeAdapter<T> typeAdapter, @NotNull OutputStream outputStream) {
+        mTypeAdapter = typeAdapter;
+        mOutputStream = outputStream;
+        mWriter = new StagJsonWriter(outputStream);
+        mMetrics = StagMetrics.getInstance();
+    }
+
+    /**
+     * Creates a writer for records of {@code type}, written with the adapter {@code gson}
+     * provides for it.
+     */
+    @NotNull
+    public static <T> JsonLinesWriter<T> create(@NotNull Gson gson, @NotNull Class<T> type,
+                                                @NotNull OutputStream outputStream) {
+        return new JsonLinesWriter<>(gson.getAdapter(type), outputStream);
+    }
+
+    /**
+     * Writes {@code record} followed by a newline.
+     */
+    public void write(@Nullable T record) throws IOException {
+        if (record == null || !mMetrics.isEnabled()) {
+            mTypeAdapter.write(mWriter, record);
+            mWriter.endLine();
+            return;
+        }
+        long startBytes = mWriter.getBytesWritten();
+        long startNanos = System.nanoTime();
+        mTypeAdapter.write(mWriter, record);
+        mWriter.endLine();
+        mMetrics.onRootWrite(record.getClass(), mWriter.getBytesWritten() - startBytes, System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Writes each of the {@code records} on its own line.
+     */
+    public void writeAll(@NotNull Iterable<? extends T> records) throws IOException {
+        for (T record : records) {
+            write(record);
+        }
+    }
+
+    /**
+     * Writes each of the {@code records} on its own line, in order, encoding chunks of records on
+     * {@code pool} in parallel. Chunks are written as soon as they and all of the chunks before
+     * them have been encoded, and at most a few chunks per thread are encoded ahead of the output.
+     */
+    public void writeAllParallel(@NotNull final List<? extends T> records, @NotNull ForkJoinPool pool) throws IOException {
+        int maxPending = pool.getParallelism() * 2;
+        Queue<Future<byte[]>> pending = new ArrayDeque<>();
+        try {
+            for (int start = 0; start < records.size(); start += PARALLEL_CHUNK_SIZE) {
+                if (pending.size() == maxPending) {
+                    writeChunk(pending.remove());
+                }
+                final List<? extends T> chunk = records.subList(start, Math.min(records.size(), start + PARALLEL_CHUNK_SIZE));
+                pending.add(pool.submit(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws IOException {
+                        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                        JsonLinesWriter<T> writer = new JsonLinesWriter<>(mTypeAdapter, outputStream);
+                        writer.writeAll(chunk);
+                        writer.mWriter.flush();
+                        return outputStream.toByteArray();
+                    }
+                }));
+            }
+            while (!pending.isEmpty()) {
+                writeChunk(pending.remove());
+            }
+        } finally {
+            for (Future<byte[]> future : pending) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        mWriter.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mWriter.flush();
+        mOutputStream.close();
+    }
+
+    private void writeChunk(@NotNull Future<byte[]> chunk) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = chunk.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JsonIOException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new JsonIOException(cause);
+        }
+        // Flush what has been written sequentially first, so that the lines stay in order.
+        mWriter.flush();
+        mOutputStream.write(bytes);
+    }
+}
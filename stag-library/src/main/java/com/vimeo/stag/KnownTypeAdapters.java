@@ -36,8 +36,15 @@ import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -424,6 +431,64 @@ public final class KnownTypeAdapters {
         T[] construct(int size);
     }
 
+    /**
+     * The initial capacity of the scratch buffer used by the primitive array adapters below.
+     * Elements are decoded straight into a primitive buffer which grows by doubling, and the
+     * result is trimmed to its exact size once the array has been read, so no element is
+     * ever boxed.
+     */
+    private static final int PRIMITIVE_ARRAY_INITIAL_CAPACITY = 16;
+
+    /**
+     * The initial capacity of the scratch buffers handed out by {@link ObjectScratchBuffers}.
+     * Elements are read into a buffer which grows by doubling, and are then copied into an array
+     * of the exact size once the end of the JSON array has been reached.
+     */
+    private static final int OBJECT_ARRAY_INITIAL_CAPACITY = 16;
+
+    /**
+     * The largest scratch buffer that {@link ObjectScratchBuffers} keeps around between reads.
+     * Larger buffers are still used while reading, but are dropped afterwards so that a single
+     * huge array does not pin its memory for the lifetime of the thread.
+     */
+    private static final int MAX_RETAINED_SCRATCH_BUFFER_SIZE = 1024;
+
+    private static final ThreadLocal<ObjectScratchBuffers> OBJECT_SCRATCH_BUFFERS = new ThreadLocal<ObjectScratchBuffers>() {
+        @Override
+        protected ObjectScratchBuffers initialValue() {
+            return new ObjectScratchBuffers();
+        }
+    };
+
+    /**
+     * A per thread stack of growable {@link Object} buffers used by {@link ArrayTypeAdapter} to
+     * collect elements before copying them into an exactly sized array. Each nesting level of an
+     * array read (nested arrays, or arrays of models which themselves contain arrays) gets its
+     * own buffer, so reads are reentrant.
+     */
+    private static final class ObjectScratchBuffers {
+
+        private Object[][] mBuffers = new Object[4][];
+        private int mDepth;
+
+        @NotNull
+        Object[] acquire() {
+            if (mDepth == mBuffers.length) {
+                mBuffers = Arrays.copyOf(mBuffers, mDepth << 1);
+            }
+            Object[] buffer = mBuffers[mDepth];
+            if (buffer == null) {
+                buffer = new Object[OBJECT_ARRAY_INITIAL_CAPACITY];
+            }
+            mBuffers[mDepth++] = null;
+            return buffer;
+        }
+
+        void release(@NotNull Object[] buffer) {
+            mBuffers[--mDepth] = buffer.length <= MAX_RETAINED_SCRATCH_BUFFER_SIZE ? buffer : null;
+        }
+    }
+
     /**
      * Type Adapter for [] types. eg String[] or Integer[].
      * For primitive array types such as int[], long[] etc, use the next set of adapters
@@ -462,20 +527,31 @@ public final class KnownTypeAdapters {
             }
             reader.beginArray();
 
-            ArrayList<T> object = new ArrayList<>();
-            while (reader.hasNext()) {
-                object.add(mValueTypeAdapter.read(reader));
-            }
+            ObjectScratchBuffers scratchBuffers = OBJECT_SCRATCH_BUFFERS.get();
+            Object[] buffer = scratchBuffers.acquire();
+            int size = 0;
+            try {
+                while (reader.hasNext()) {
+                    if (size == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, size << 1);
+                    }
+                    buffer[size++] = mValueTypeAdapter.read(reader);
+                }
 
-            reader.endArray();
+                reader.endArray();
 
-            T[] result = this.mObjectCreator.construct(object.size());
-            return object.toArray(result);
+                T[] result = this.mObjectCreator.construct(size);
+                System.arraycopy(buffer, 0, result, 0, size);
+                return result;
+            } finally {
+                Arrays.fill(buffer, 0, size, null);
+                scratchBuffers.release(buffer);
+            }
         }
     }
 
     /**
-     * Type Adapter for Integer[] type. This can be directly accessed to read and write
+     * Type Adapter for int[] type. This can be directly accessed to read and write
      */
     public static final class PrimitiveIntegerArrayAdapter {
 
@@ -497,15 +573,25 @@ public final class KnownTypeAdapters {
 
         @Nullable
         public static int[] read(@NotNull JsonReader reader) throws IOException {
-            ArrayList<Integer> arrayList = INTEGER_ARRAY_LIST_ADAPTER.read(reader);
-            int[] result = null;
-            if (arrayList != null) {
-                result = new int[arrayList.size()];
-                for (int idx = 0; idx < arrayList.size(); idx++) {
-                    result[idx] = arrayList.get(idx);
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            int[] buffer = new int[PRIMITIVE_ARRAY_INITIAL_CAPACITY];
+            int size = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size << 1);
+                }
+                try {
+                    buffer[size++] = reader.nextInt();
+                } catch (NumberFormatException e) {
+                    throw new JsonSyntaxException(e);
                 }
             }
-            return result;
+            reader.endArray();
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
         }
     }
 
@@ -532,15 +618,25 @@ public final class KnownTypeAdapters {
 
         @Nullable
         public static long[] read(@NotNull JsonReader reader) throws IOException {
-            ArrayList<Long> arrayList = LONG_ARRAY_LIST_ADAPTER.read(reader);
-            long[] result = null;
-            if (arrayList != null) {
-                result = new long[arrayList.size()];
-                for (int idx = 0; idx < arrayList.size(); idx++) {
-                    result[idx] = arrayList.get(idx);
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            long[] buffer = new long[PRIMITIVE_ARRAY_INITIAL_CAPACITY];
+            int size = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size << 1);
+                }
+                try {
+                    buffer[size++] = reader.nextLong();
+                } catch (NumberFormatException e) {
+                    throw new JsonSyntaxException(e);
                 }
             }
-            return result;
+            reader.endArray();
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
         }
     }
 
@@ -567,15 +663,21 @@ public final class KnownTypeAdapters {
 
         @Nullable
         public static double[] read(@NotNull JsonReader reader) throws IOException {
-            ArrayList<Double> arrayList = DOUBLE_ARRAY_LIST_ADAPTER.read(reader);
-            double[] result = null;
-            if (arrayList != null) {
-                result = new double[arrayList.size()];
-                for (int idx = 0; idx < arrayList.size(); idx++) {
-                    result[idx] = arrayList.get(idx);
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            double[] buffer = new double[PRIMITIVE_ARRAY_INITIAL_CAPACITY];
+            int size = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size << 1);
                 }
+                buffer[size++] = reader.nextDouble();
             }
-            return result;
+            reader.endArray();
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
         }
     }
 
@@ -602,15 +704,25 @@ public final class KnownTypeAdapters {
 
         @Nullable
         public static short[] read(@NotNull JsonReader reader) throws IOException {
-            ArrayList<Short> arrayList = SHORT_ARRAY_LIST_ADAPTER.read(reader);
-            short[] result = null;
-            if (arrayList != null) {
-                result = new short[arrayList.size()];
-                for (int idx = 0; idx < arrayList.size(); idx++) {
-                    result[idx] = arrayList.get(idx);
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            short[] buffer = new short[PRIMITIVE_ARRAY_INITIAL_CAPACITY];
+            int size = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size << 1);
+                }
+                try {
+                    buffer[size++] = (short) reader.nextInt();
+                } catch (NumberFormatException e) {
+                    throw new JsonSyntaxException(e);
                 }
             }
-            return result;
+            reader.endArray();
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
         }
     }
 
@@ -637,15 +749,21 @@ public final class KnownTypeAdapters {
 
         @Nullable
         public static float[] read(@NotNull JsonReader reader) throws IOException {
-            ArrayList<Float> arrayList = FLOAT_ARRAY_LIST_ADAPTER.read(reader);
-            float[] result = null;
-            if (arrayList != null) {
-                result = new float[arrayList.size()];
-                for (int idx = 0; idx < arrayList.size(); idx++) {
-                    result[idx] = arrayList.get(idx);
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            float[] buffer = new float[PRIMITIVE_ARRAY_INITIAL_CAPACITY];
+            int size = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size << 1);
                 }
+                buffer[size++] = (float) reader.nextDouble();
             }
-            return result;
+            reader.endArray();
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
         }
     }
 
@@ -672,15 +790,26 @@ public final class KnownTypeAdapters {
 
         @Nullable
         public static boolean[] read(@NotNull JsonReader reader) throws IOException {
-            ArrayList<Boolean> arrayList = BOOLEAN_ARRAY_LIST_ADAPTER.read(reader);
-            boolean[] result = null;
-            if (arrayList != null) {
-                result = new boolean[arrayList.size()];
-                for (int idx = 0; idx < arrayList.size(); idx++) {
-                    result[idx] = arrayList.get(idx);
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            boolean[] buffer = new boolean[PRIMITIVE_ARRAY_INITIAL_CAPACITY];
+            int size = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size << 1);
+                }
+                if (reader.peek() == JsonToken.STRING) {
+                    // support strings for compatibility with GSON 1.7
+                    buffer[size++] = Boolean.parseBoolean(reader.nextString());
+                } else {
+                    buffer[size++] = reader.nextBoolean();
                 }
             }
-            return result;
+            reader.endArray();
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
         }
     }
 
@@ -707,15 +836,25 @@ public final class KnownTypeAdapters {
 
         @Nullable
         public static byte[] read(@NotNull JsonReader reader) throws IOException {
-            ArrayList<Byte> byteArrayList = BYTE_ARRAY_LIST_ADAPTER.read(reader);
-            byte[] result = null;
-            if (byteArrayList != null) {
-                result = new byte[byteArrayList.size()];
-                for (int idx = 0; idx < byteArrayList.size(); idx++) {
-                    result[idx] = byteArrayList.get(idx);
+            if (reader.peek() == JsonToken.NULL) {
+                reader.nextNull();
+                return null;
+            }
+            byte[] buffer = new byte[PRIMITIVE_ARRAY_INITIAL_CAPACITY];
+            int size = 0;
+            reader.beginArray();
+            while (reader.hasNext()) {
+                if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, size << 1);
+                }
+                try {
+                    buffer[size++] = (byte) reader.nextInt();
+                } catch (NumberFormatException e) {
+                    throw new JsonSyntaxException(e);
                 }
             }
-            return result;
+            reader.endArray();
+            return size == buffer.length ? buffer : Arrays.copyOf(buffer, size);
         }
     }
 
@@ -746,6 +885,163 @@ public final class KnownTypeAdapters {
         }
     }
 
+    /**
+     * Type Adapter for {@link IntArrayList}, which reads and writes elements without boxing them.
+     */
+    public static final TypeAdapter<IntArrayList> INT_ARRAY_LIST = new TypeAdapter<IntArrayList>() {
+
+        @Override
+        public void write(JsonWriter out, IntArrayList value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int idx = 0, size = value.size(); idx < size; idx++) {
+                out.value(value.getInt(idx));
+            }
+            out.endArray();
+        }
+
+        @Override
+        public IntArrayList read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            IntArrayList list = new IntArrayList();
+            in.beginArray();
+            while (in.hasNext()) {
+                try {
+                    list.addInt(in.nextInt());
+                } catch (NumberFormatException e) {
+                    throw new JsonSyntaxException(e);
+                }
+            }
+            in.endArray();
+            return list;
+        }
+    };
+
+    /**
+     * Type Adapter for {@link LongArrayList}, which reads and writes elements without boxing them.
+     */
+    public static final TypeAdapter<LongArrayList> LONG_ARRAY_LIST = new TypeAdapter<LongArrayList>() {
+
+        @Override
+        public void write(JsonWriter out, LongArrayList value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int idx = 0, size = value.size(); idx < size; idx++) {
+                out.value(value.getLong(idx));
+            }
+            out.endArray();
+        }
+
+        @Override
+        public LongArrayList read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            LongArrayList list = new LongArrayList();
+            in.beginArray();
+            while (in.hasNext()) {
+                try {
+                    list.addLong(in.nextLong());
+                } catch (NumberFormatException e) {
+                    throw new JsonSyntaxException(e);
+                }
+            }
+            in.endArray();
+            return list;
+        }
+    };
+
+    /**
+     * Type Adapter for {@link DoubleArrayList}, which reads and writes elements without boxing them.
+     */
+    public static final TypeAdapter<DoubleArrayList> DOUBLE_ARRAY_LIST = new TypeAdapter<DoubleArrayList>() {
+
+        @Override
+        public void write(JsonWriter out, DoubleArrayList value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginArray();
+            for (int idx = 0, size = value.size(); idx < size; idx++) {
+                out.value(value.getDouble(idx));
+            }
+            out.endArray();
+        }
+
+        @Override
+        public DoubleArrayList read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            DoubleArrayList list = new DoubleArrayList();
+            in.beginArray();
+            while (in.hasNext()) {
+                list.addDouble(in.nextDouble());
+            }
+            in.endArray();
+            return list;
+        }
+    };
+
+    /**
+     * Type Adapter for {@link StringIntMap}, which reads and writes values without boxing them.
+     */
+    public static final TypeAdapter<StringIntMap> STRING_INT_MAP = new TypeAdapter<StringIntMap>() {
+
+        @Override
+        public void write(JsonWriter out, StringIntMap value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            for (int position = 0, size = value.size(); position < size; position++) {
+                out.name(value.keyAt(position));
+                out.value(value.valueAt(position));
+            }
+            out.endObject();
+        }
+
+        @Override
+        public StringIntMap read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            StringIntMap map = new StringIntMap();
+            in.beginObject();
+            while (in.hasNext()) {
+                String key = in.nextName();
+                int value;
+                try {
+                    value = in.nextInt();
+                } catch (NumberFormatException e) {
+                    throw new JsonSyntaxException(e);
+                }
+                int size = map.size();
+                map.putInt(key, value);
+                // A duplicate key replaces the value in place and leaves the size unchanged.
+                if (map.size() == size) {
+                    throw new JsonSyntaxException("duplicate key: " + key);
+                }
+            }
+            in.endObject();
+            return map;
+        }
+    };
+
     /**
      * Default Instantiator for List, by default it will create the Map of {@link ArrayList} type
      */
@@ -870,6 +1166,137 @@ public final class KnownTypeAdapters {
         }
     }
 
+    /**
+     * Implemented by type adapters whose values are always written as a single JSON string, such as
+     * the type adapters Stag generates for enums. This allows {@link MapTypeAdapter} to write such
+     * values as object keys directly.
+     *
+     * @param <T> the type that is converted to a string.
+     */
+    public interface JsonStringConverter<T> {
+
+        /**
+         * Converts the value to the string that the type adapter would write for it.
+         *
+         * @param value the value to convert.
+         * @return the JSON string for the value, or null if the type adapter would write null.
+         */
+        @Nullable
+        String toJsonString(@Nullable T value);
+
+        /**
+         * Converts a JSON string back to the value that the type adapter would read for it.
+         *
+         * @param string the JSON string to convert.
+         * @return the value for the string, or null if the type adapter would read null.
+         */
+        @Nullable
+        T fromJsonString(@NotNull String string);
+    }
+
+    /**
+     * The strategies used by {@link MapTypeAdapter} to read and write map keys, chosen once when
+     * the adapter is created from the key type adapter.
+     */
+    private enum MapKeyStrategy {
+        /**
+         * Keys are strings and are read and written as names directly.
+         */
+        STRING,
+        /**
+         * Keys are boxed numbers or booleans, written using {@link String#valueOf(Object)} and
+         * parsed directly from the name when read.
+         */
+        INTEGER,
+        LONG,
+        SHORT,
+        BYTE,
+        FLOAT,
+        DOUBLE,
+        BOOLEAN,
+        /**
+         * Keys are converted to and from names with a {@link JsonStringConverter}.
+         */
+        STRING_CONVERTER,
+        /**
+         * Keys are first converted to JSON trees, and the map is written as an array of entries if
+         * any key serializes to an object or an array.
+         */
+        COMPLEX
+    }
+
+    @NotNull
+    private static MapKeyStrategy getMapKeyStrategy(@NotNull TypeAdapter<?> keyTypeAdapter) {
+        if (keyTypeAdapter == TypeAdapters.STRING || keyTypeAdapter == STRING_NULL_SAFE_TYPE_ADAPTER) {
+            return MapKeyStrategy.STRING;
+        } else if (keyTypeAdapter == INTEGER) {
+            return MapKeyStrategy.INTEGER;
+        } else if (keyTypeAdapter == LONG) {
+            return MapKeyStrategy.LONG;
+        } else if (keyTypeAdapter == SHORT) {
+            return MapKeyStrategy.SHORT;
+        } else if (keyTypeAdapter == BYTE) {
+            return MapKeyStrategy.BYTE;
+        } else if (keyTypeAdapter == FLOAT) {
+            return MapKeyStrategy.FLOAT;
+        } else if (keyTypeAdapter == DOUBLE) {
+            return MapKeyStrategy.DOUBLE;
+        } else if (keyTypeAdapter == TypeAdapters.BOOLEAN) {
+            return MapKeyStrategy.BOOLEAN;
+        } else if (keyTypeAdapter instanceof JsonStringConverter) {
+            return MapKeyStrategy.STRING_CONVERTER;
+        } else {
+            return MapKeyStrategy.COMPLEX;
+        }
+    }
+
+    /**
+     * Parses a map key name as a long, accepting the same integral values written as doubles that
+     * {@link JsonReader#nextLong()} accepts for quoted numbers.
+     */
+    private static long parseLongKey(@NotNull String name) {
+        try {
+            return Long.parseLong(name);
+        } catch (NumberFormatException ignored) {
+            // Fall back to parsing as a double, e.g. "1.0".
+        }
+        try {
+            double asDouble = Double.parseDouble(name);
+            long result = (long) asDouble;
+            if (result != asDouble) {
+                throw new JsonSyntaxException("Expected a long map key but was " + name);
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    private static int parseIntKey(@NotNull String name) {
+        long result = parseLongKey(name);
+        if ((int) result != result) {
+            throw new JsonSyntaxException("Expected an int map key but was " + name);
+        }
+        return (int) result;
+    }
+
+    /**
+     * Parses a map key name as a double. Like {@link JsonReader#nextDouble()}, NaN and infinite
+     * keys are only accepted by a lenient reader.
+     */
+    private static double parseDoubleKey(@NotNull String name, boolean lenient) {
+        double result;
+        try {
+            result = Double.parseDouble(name);
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+        if (!lenient && (Double.isNaN(result) || Double.isInfinite(result))) {
+            throw new JsonSyntaxException("JSON forbids NaN and infinities: " + name);
+        }
+        return result;
+    }
+
     /**
      * Type Adapter for {@link Map}. The constructor expects {@link ObjectConstructor} which is
      * used to instantiate maps of particular types eg, {@link HashMap} {@link LinkedHashMap} etc
@@ -879,6 +1306,7 @@ public final class KnownTypeAdapters {
         private final ObjectConstructor<T> objectConstructor;
         private final TypeAdapter<V> valueTypeAdapter;
         private final TypeAdapter<K> keyTypeAdapter;
+        private final MapKeyStrategy keyStrategy;
 
         public MapTypeAdapter(@NotNull TypeAdapter<K> keyTypeAdapter,
                               @NotNull TypeAdapter<V> valueTypeAdapter,
@@ -886,6 +1314,7 @@ public final class KnownTypeAdapters {
             this.keyTypeAdapter = keyTypeAdapter;
             this.valueTypeAdapter = valueTypeAdapter;
             this.objectConstructor = objectConstructor;
+            this.keyStrategy = getMapKeyStrategy(keyTypeAdapter);
         }
 
         @Override
@@ -894,6 +1323,20 @@ public final class KnownTypeAdapters {
                 writer.nullValue();
                 return;
             }
+            if (keyStrategy == MapKeyStrategy.COMPLEX) {
+                writeComplexKeys(writer, value);
+                return;
+            }
+
+            writer.beginObject();
+            for (Map.Entry<K, V> entry : value.entrySet()) {
+                writer.name(keyToName(entry.getKey()));
+                valueTypeAdapter.write(writer, entry.getValue());
+            }
+            writer.endObject();
+        }
+
+        private void writeComplexKeys(@NotNull JsonWriter writer, @NotNull T value) throws IOException {
             boolean hasComplexKeys = false;
             List<JsonElement> keys = new ArrayList<>(value.size());
 
@@ -925,6 +1368,54 @@ public final class KnownTypeAdapters {
             }
         }
 
+        @SuppressWarnings("unchecked")
+        @NotNull
+        private String keyToName(@Nullable K key) {
+            if (key == null) {
+                return "null";
+            }
+            switch (keyStrategy) {
+                case STRING:
+                    return (String) key;
+                case STRING_CONVERTER:
+                    String name = ((JsonStringConverter<K>) keyTypeAdapter).toJsonString(key);
+                    return name != null ? name : "null";
+                default:
+                    return String.valueOf(key);
+            }
+        }
+
+        /**
+         * Converts a name read from a JSON object to a key without promoting the name to a value
+         * and running it back through the key type adapter.
+         */
+        @SuppressWarnings("unchecked")
+        @Nullable
+        private K nameToKey(@NotNull String name, boolean lenient) {
+            switch (keyStrategy) {
+                case STRING:
+                    return (K) name;
+                case INTEGER:
+                    return (K) Integer.valueOf(parseIntKey(name));
+                case LONG:
+                    return (K) Long.valueOf(parseLongKey(name));
+                case SHORT:
+                    return (K) Short.valueOf((short) parseIntKey(name));
+                case BYTE:
+                    return (K) Byte.valueOf((byte) parseIntKey(name));
+                case FLOAT:
+                    return (K) Float.valueOf((float) parseDoubleKey(name, lenient));
+                case DOUBLE:
+                    return (K) Double.valueOf(parseDoubleKey(name, lenient));
+                case BOOLEAN:
+                    return (K) Boolean.valueOf(name);
+                case STRING_CONVERTER:
+                    return ((JsonStringConverter<K>) keyTypeAdapter).fromJsonString(name);
+                default:
+                    throw new AssertionError();
+            }
+        }
+
         @Override
         public T read(JsonReader in) throws IOException {
             JsonToken peek = in.peek();
@@ -950,10 +1441,22 @@ public final class KnownTypeAdapters {
                 in.endArray();
             } else {
                 in.beginObject();
+                boolean complexKeys = keyStrategy == MapKeyStrategy.COMPLEX;
                 while (in.hasNext()) {
-                    JsonReaderInternalAccess.INSTANCE.promoteNameToValue(in);
-                    K key = keyTypeAdapter.read(in);
+                    K key;
+                    if (complexKeys) {
+                        if (in instanceof StagJsonReader) {
+                            // Gson's internal access only knows about the private state of JsonReader.
+                            ((StagJsonReader) in).promoteNameToValue();
+                        } else {
+                            JsonReaderInternalAccess.INSTANCE.promoteNameToValue(in);
+                        }
+                        key = keyTypeAdapter.read(in);
+                    } else {
+                        key = nameToKey(in.nextName(), in.isLenient());
+                    }
                     V value = valueTypeAdapter.read(in);
+                    // put returns the previous value, so duplicates are detected without a lookup.
                     V replaced = map.put(key, value);
                     if (replaced != null) {
                         throw new JsonSyntaxException("duplicate key: " + key);
@@ -1110,4 +1613,191 @@ public final class KnownTypeAdapters {
             return jsonElement != null && jsonElement.isJsonNull() ? jsonElement.getAsJsonNull() : null;
         }
     }.nullSafe();
+
+    /**
+     * Type Adapter for {@link java.util.UUID}, written as its canonical string form. Generated
+     * type adapters resolve {@link java.util.UUID} fields through Gson, so that an adapter
+     * registered for it is honored. Register this adapter with
+     * {@link com.google.gson.GsonBuilder#registerTypeAdapter(java.lang.reflect.Type, Object)} to
+     * use it instead of Gson's own.
+     */
+    public static final TypeAdapter<java.util.UUID> UUID = new TypeAdapter<java.util.UUID>() {
+
+        @Override
+        public void write(JsonWriter out, java.util.UUID value) throws IOException {
+            out.value(value.toString());
+        }
+
+        @Override
+        public java.util.UUID read(JsonReader in) throws IOException {
+            String string = in.nextString();
+            try {
+                return java.util.UUID.fromString(string);
+            } catch (IllegalArgumentException e) {
+                throw new JsonSyntaxException("Invalid UUID: " + string, e);
+            }
+        }
+    }.nullSafe();
+
+    /**
+     * Type Adapter for {@link Date}, written as an ISO-8601 string in UTC. Unlike Gson's default
+     * date adapter, this adapter does not use {@link java.text.DateFormat}, so it neither locks nor
+     * depends on the default locale. Used for fields annotated with {@link TimestampFormat}.
+     */
+    public static final TypeAdapter<Date> ISO_8601_DATE = new TypeAdapter<Date>() {
+
+        @Override
+        public void write(JsonWriter out, Date value) throws IOException {
+            out.value(Iso8601.formatEpochMillis(value.getTime()));
+        }
+
+        @Override
+        public Date read(JsonReader in) throws IOException {
+            return new Date(Iso8601.parse(in.nextString()).getEpochMillis());
+        }
+    }.nullSafe();
+
+    /**
+     * Type Adapter for {@link Date}, written as a number of milliseconds since the epoch. Used for
+     * fields annotated with {@link TimestampFormat.Format#EPOCH_MILLIS}.
+     */
+    public static final TypeAdapter<Date> EPOCH_MILLIS_DATE = new TypeAdapter<Date>() {
+
+        @Override
+        public void write(JsonWriter out, Date value) throws IOException {
+            out.value(value.getTime());
+        }
+
+        @Override
+        public Date read(JsonReader in) throws IOException {
+            return new Date(readEpochMillis(in));
+        }
+    }.nullSafe();
+
+    static long readEpochMillis(@NotNull JsonReader in) throws IOException {
+        try {
+            return in.nextLong();
+        } catch (NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Type Adapters for the {@code java.time} types. These are kept in their own class so that
+     * {@code java.time} is only loaded when one of them is used, which keeps
+     * {@link KnownTypeAdapters} usable on platforms without {@code java.time}.
+     */
+    public static final class JavaTime {
+
+        private JavaTime() {
+            throw new UnsupportedOperationException("JavaTime cannot be instantiated");
+        }
+
+        /**
+         * Type Adapter for {@link Instant}, written as an ISO-8601 string in UTC.
+         */
+        public static final TypeAdapter<Instant> ISO_8601_INSTANT = new TypeAdapter<Instant>() {
+
+            @Override
+            public void write(JsonWriter out, Instant value) throws IOException {
+                out.value(Iso8601.format(value.getEpochSecond(), value.getNano(), 0));
+            }
+
+            @Override
+            public Instant read(JsonReader in) throws IOException {
+                String string = in.nextString();
+                try {
+                    Iso8601.Timestamp timestamp = Iso8601.parse(string);
+                    return Instant.ofEpochSecond(timestamp.getEpochSecond(), timestamp.mNano);
+                } catch (DateTimeException e) {
+                    throw new JsonSyntaxException(e);
+                }
+            }
+        }.nullSafe();
+
+        /**
+         * Type Adapter for {@link Instant}, written as a number of milliseconds since the epoch.
+         */
+        public static final TypeAdapter<Instant> EPOCH_MILLIS_INSTANT = new TypeAdapter<Instant>() {
+
+            @Override
+            public void write(JsonWriter out, Instant value) throws IOException {
+                out.value(value.toEpochMilli());
+            }
+
+            @Override
+            public Instant read(JsonReader in) throws IOException {
+                return Instant.ofEpochMilli(readEpochMillis(in));
+            }
+        }.nullSafe();
+
+        /**
+         * Type Adapter for {@link OffsetDateTime}, written as an ISO-8601 string that keeps its
+         * offset.
+         */
+        public static final TypeAdapter<OffsetDateTime> ISO_8601_OFFSET_DATE_TIME = new TypeAdapter<OffsetDateTime>() {
+
+            @Override
+            public void write(JsonWriter out, OffsetDateTime value) throws IOException {
+                out.value(Iso8601.format(value.toEpochSecond(), value.getNano(),
+                                         value.getOffset().getTotalSeconds()));
+            }
+
+            @Override
+            public OffsetDateTime read(JsonReader in) throws IOException {
+                String string = in.nextString();
+                try {
+                    Iso8601.Timestamp timestamp = Iso8601.parse(string);
+                    return OffsetDateTime.of(timestamp.mYear, timestamp.mMonth, timestamp.mDay,
+                                             timestamp.mHour, timestamp.mMinute, timestamp.mSecond,
+                                             timestamp.mNano,
+                                             ZoneOffset.ofTotalSeconds(timestamp.mOffsetSeconds));
+                } catch (DateTimeException e) {
+                    throw new JsonSyntaxException(e);
+                }
+            }
+        }.nullSafe();
+
+        /**
+         * Type Adapter for {@link OffsetDateTime}, written as a number of milliseconds since the
+         * epoch and read back in UTC.
+         */
+        public static final TypeAdapter<OffsetDateTime> EPOCH_MILLIS_OFFSET_DATE_TIME = new TypeAdapter<OffsetDateTime>() {
+
+            @Override
+            public void write(JsonWriter out, OffsetDateTime value) throws IOException {
+                out.value(value.toInstant().toEpochMilli());
+            }
+
+            @Override
+            public OffsetDateTime read(JsonReader in) throws IOException {
+                return OffsetDateTime.ofInstant(Instant.ofEpochMilli(readEpochMillis(in)), ZoneOffset.UTC);
+            }
+        }.nullSafe();
+
+        /**
+         * Type Adapter for {@link LocalDate}, written as an ISO-8601 calendar date.
+         */
+        public static final TypeAdapter<LocalDate> ISO_8601_LOCAL_DATE = new TypeAdapter<LocalDate>() {
+
+            @Override
+            public void write(JsonWriter out, LocalDate value) throws IOException {
+                out.value(Iso8601.formatDate(value.toEpochDay()));
+            }
+
+            @Override
+            public LocalDate read(JsonReader in) throws IOException {
+                String string = in.nextString();
+                try {
+                    Iso8601.Timestamp timestamp = Iso8601.parse(string);
+                    if (timestamp.mHasTime) {
+                        throw new JsonSyntaxException("Expected an ISO-8601 date without a time: " + string);
+                    }
+                    return LocalDate.of(timestamp.mYear, timestamp.mMonth, timestamp.mDay);
+                } catch (DateTimeException e) {
+                    throw new JsonSyntaxException(e);
+                }
+            }
+        }.nullSafe();
+    }
 }
@@ -0,0 +1,118 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An {@link InputStream} over a file that is mapped into memory with {@link FileChannel#map}
+ * one window at a time, so that files larger than a single mapping, or than the heap, can be read
+ * without copying them through the file system cache into a separate buffer first.
+ */
+final class MappedFileInputStream extends InputStream {
+
+    /**
+     * The size of each mapped window. Mappings are limited to {@link Integer#MAX_VALUE} bytes, and
+     * smaller windows keep the address space that is in use at any one time bounded.
+     */
+    static final int DEFAULT_WINDOW_SIZE = 64 * 1024 * 1024;
+
+    @NotNull
+    private final FileChannel mChannel;
+    private final long mSize;
+    private final int mWindowSize;
+
+    private long mPosition;
+    @Nullable
+    private MappedByteBuffer mWindow;
+
+    MappedFileInputStream(@NotNull File file) throws IOException {
+        this(file, DEFAULT_WINDOW_SIZE);
+    }
+
+    MappedFileInputStream(@NotNull File file, int windowSize) throws IOException {
+        mChannel = new RandomAccessFile(file, "r").getChannel();
+        mSize = mChannel.size();
+        mWindowSize = windowSize;
+    }
+
+    @Override
+    public int read() throws IOException {
+        MappedByteBuffer window = window();
+        return window != null ? window.get() & 0xff : -1;
+    }
+
+    @Override
+    public int read(@NotNull byte[] buffer, int offset, int length) throws IOException {
+        if (length == 0) {
+            return 0;
+        }
+        MappedByteBuffer window = window();
+        if (window == null) {
+            return -1;
+        }
+        int read = Math.min(length, window.remaining());
+        window.get(buffer, offset, read);
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return mWindow != null ? mWindow.remaining() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // The mapping itself is released once the window is garbage collected.
+        mWindow = null;
+        mChannel.close();
+    }
+
+    /**
+     * Returns the current window, mapping the next one if the current one has been read, or null
+     * once the end of the file has been reached.
+     */
+    @Nullable
+    private MappedByteBuffer window() throws IOException {
+        if (mWindow != null && mWindow.hasRemaining()) {
+            return mWindow;
+        }
+        if (mPosition >= mSize) {
+            mWindow = null;
+            return null;
+        }
+        long size = Math.min(mWindowSize, mSize - mPosition);
+        mWindow = mChannel.map(FileChannel.MapMode.READ_ONLY, mPosition, size);
+        mPosition += size;
+        return mWindow;
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses the elements of a JSON array on a {@link ForkJoinPool}. The array is first scanned for
+ * the commas that separate its top level elements, skipping over strings and nested values
+ * without tokenizing them, and is cut into chunks of roughly equal size at those commas. Each
+ * chunk is then read with its own {@link StagJsonReader} and the element {@link TypeAdapter}.
+ */
+final class ParallelArrayParser<T> {
+
+    /**
+     * The smallest chunk worth handing to another thread.
+     */
+    static final int DEFAULT_MIN_CHUNK_SIZE = 64 * 1024;
+    /**
+     * The number of chunks per thread, so that threads that finish early can steal work.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    @NotNull
+    private final TypeAdapter<T> mTypeAdapter;
+    @NotNull
+    private final ByteBuffer mInput;
+    private final int mMinChunkSize;
+
+    ParallelArrayParser(@NotNull TypeAdapter<T> typeAdapter, @NotNull ByteBuffer input, int minChunkSize) {
+        mTypeAdapter = typeAdapter;
+        mInput = input;
+        mMinChunkSize = minChunkSize;
+    }
+
+    /**
+     * Parses the array at {@code path}, see {@link StagStreams#parseParallel}.
+     */
+    @NotNull
+    List<T> parse(@NotNull ForkJoinPool pool, boolean ordered, @NotNull String[] path) {
+        int arrayStart;
+        try {
+            StagJsonReader reader = new StagJsonReader(mInput);
+            if (!StagStreams.moveToArray(reader, path)) {
+                return new ArrayList<>();
+            }
+            arrayStart = mInput.position() + (int) reader.getBytePosition();
+        } catch (MalformedJsonException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException(e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+
+        IntArrayList chunks = scan(arrayStart, pool.getParallelism());
+        int chunkCount = chunks.size() / 2;
+        if (ordered) {
+            // Generic arrays cannot be created, so the array of raw lists is cast.
+            @SuppressWarnings({"unchecked", "rawtypes"})
+            List<T>[] results = new List[chunkCount];
+            pool.invoke(new ChunkTask(chunks, 0, chunkCount, results, null));
+            int size = 0;
+            for (List<T> result : results) {
+                size += result.size();
+            }
+            List<T> elements = new ArrayList<>(size);
+            for (List<T> result : results) {
+                elements.addAll(result);
+            }
+            return elements;
+        } else {
+            List<T> elements = new ArrayList<>();
+            pool.invoke(new ChunkTask(chunks, 0, chunkCount, null, elements));
+            return elements;
+        }
+    }
+
+    /**
+     * Scans the elements of the array whose first element starts at or after {@code arrayStart},
+     * and returns the start and end offset of each chunk, in pairs. The ends are exclusive and point
+     * at the comma or closing bracket after the last element of the chunk.
+     */
+    @NotNull
+    private IntArrayList scan(int arrayStart, int parallelism) {
+        ByteBuffer input = mInput;
+        int limit = input.limit();
+        int chunkSize = Math.max(mMinChunkSize, (limit - arrayStart) / (parallelism * CHUNKS_PER_THREAD));
+        IntArrayList chunks = new IntArrayList();
+
+        int depth = 0;
+        int chunkStart = arrayStart;
+        boolean empty = true;
+        for (int i = arrayStart; i < limit; i++) {
+            byte b = input.get(i);
+            switch (b) {
+                case '"':
+                    // Skip the string, including any escaped quotes in it.
+                    for (i++; i < limit; i++) {
+                        byte c = input.get(i);
+                        if (c == '"') {
+                            break;
+                        } else if (c == '\\') {
+                            i++;
+                        }
+                    }
+                    if (i >= limit) {
+                        throw new JsonSyntaxException("Unterminated string in array at byte " + arrayStart);
+                    }
+                    empty = false;
+                    break;
+                case '[':
+                case '{':
+                    depth++;
+                    empty = false;
+                    break;
+                case ']':
+                case '}':
+                    if (depth == 0) {
+                        if (b != ']') {
+                            throw new JsonSyntaxException("Unexpected '}' at byte " + i);
+                        }
+                        if (!empty) {
+                            chunks.addInt(chunkStart);
+                            chunks.addInt(i);
+                        }
+                        return chunks;
+                    }
+                    depth--;
+                    break;
+                case ',':
+                    if (depth == 0 && i - chunkStart >= chunkSize) {
+                        chunks.addInt(chunkStart);
+                        chunks.addInt(i);
+                        chunkStart = i + 1;
+                    }
+                    break;
+                case ' ':
+                case '\n':
+                case '\r':
+                case '\t':
+                    break;
+                default:
+                    empty = false;
+                    break;
+            }
+        }
+        throw new JsonSyntaxException("Unterminated array at byte " + arrayStart);
+    }
+
+    @NotNull
+    private List<T> parseChunk(int start, int end) {
+        ByteBuffer chunk = mInput.duplicate();
+        chunk.limit(end);
+        chunk.position(start);
+        StagJsonReader reader = new StagJsonReader(chunk);
+        reader.beginImplicitArray();
+        List<T> elements = new ArrayList<>();
+        try {
+            while (reader.hasNext()) {
+                elements.add(mTypeAdapter.read(reader));
+            }
+        } catch (MalformedJsonException | EOFException e) {
+            // A chunk that ends early means the array has a dangling comma.
+            throw new JsonSyntaxException("Malformed element in bytes " + start + " to " + end, e);
+        } catch (IllegalStateException e) {
+            throw new JsonSyntaxException("Malformed element in bytes " + start + " to " + end, e);
+        } catch (IOException e) {
+            throw new JsonIOException(e);
+        }
+        return elements;
+    }
+
+    /**
+     * Parses a range of chunks, splitting it in half until a single chunk is left. Results are
+     * either stored by chunk index, or appended to a shared list as soon as they are parsed.
+     */
+    private final class ChunkTask extends RecursiveAction {
+
+        // Tasks are never serialized, but RecursiveAction is Serializable.
+        private static final long serialVersionUID = 1L;
+
+        @NotNull
+        private final IntArrayList mChunks;
+        private final int mFrom;
+        private final int mTo;
+        @Nullable
+        private final List<T>[] mResults;
+        @Nullable
+        private final List<T> mSharedResult;
+
+        ChunkTask(@NotNull IntArrayList chunks, int from, int to, @Nullable List<T>[] results,
+                  @Nullable List<T> sharedResult) {
+            mChunks = chunks;
+            mFrom = from;
+            mTo = to;
+            mResults = results;
+            mSharedResult = sharedResult;
+        }
+
+        @Override
+        protected void compute() {
+            if (mTo - mFrom > 1) {
+                int middle = (mFrom + mTo) >>> 1;
+                invokeAll(new ChunkTask(mChunks, mFrom, middle, mResults, mSharedResult),
+                          new ChunkTask(mChunks, middle, mTo, mResults, mSharedResult));
+                return;
+            }
+            if (mTo == mFrom) {
+                return;
+            }
+            List<T> elements = parseChunk(mChunks.getInt(2 * mFrom), mChunks.getInt(2 * mFrom + 1));
+            if (mResults != null) {
+                mResults[mFrom] = elements;
+            } else if (mSharedResult != null) {
+                synchronized (mSharedResult) {
+                    mSharedResult.addAll(elements);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * The growth, bounds checking and equality shared by {@link IntArrayList}, {@link LongArrayList}
+ * and {@link DoubleArrayList}. Subclasses own the primitive backing array and only read and write
+ * its elements, while this class tracks the size and moves elements around with
+ * {@link System#arraycopy(Object, int, Object, int, int)}, which works on any array type.
+ *
+ * @param <E> the boxed type of the elements.
+ */
+abstract class PrimitiveArrayList<E> extends AbstractList<E> implements RandomAccess {
+
+    static final int DEFAULT_CAPACITY = 10;
+
+    int mSize;
+
+    /**
+     * Returns the backing array. Only the first {@link #size()} elements are part of the list.
+     */
+    abstract Object elements();
+
+    /**
+     * Returns the length of the backing array.
+     */
+    abstract int capacity();
+
+    /**
+     * Replaces the backing array with a copy of the specified length.
+     */
+    abstract void resize(int capacity);
+
+    /**
+     * Returns whether the elements at the same index of this list and the other list, which is of
+     * the same class and size, are equal in the sense of the boxed type's {@code equals}.
+     */
+    abstract boolean elementsEqual(PrimitiveArrayList<?> other);
+
+    /**
+     * Returns the hash code of the boxed element at the specified index.
+     */
+    abstract int elementHashCode(int index);
+
+    static void checkCapacity(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+    }
+
+    /**
+     * Increases the capacity of this list, if necessary, so that it can hold at least the
+     * specified number of elements without growing.
+     */
+    public void ensureCapacity(int minCapacity) {
+        int capacity = capacity();
+        if (minCapacity > capacity) {
+            resize(Math.max(minCapacity, capacity + (capacity >> 1) + 1));
+        }
+    }
+
+    /**
+     * Shrinks the backing array to the size of this list.
+     */
+    public void trimToSize() {
+        if (mSize < capacity()) {
+            resize(mSize);
+        }
+    }
+
+    /**
+     * Makes room for one more element at the end of the list and returns its index. The backing
+     * array may be replaced, so it must be read after this call.
+     */
+    final int appendIndex() {
+        ensureCapacity(mSize + 1);
+        modCount++;
+        return mSize++;
+    }
+
+    /**
+     * Shifts the elements from the specified index one position to the right, so that a new
+     * element can be stored at the index. The backing array may be replaced, so it must be read
+     * after this call.
+     */
+    final void openGap(int index) {
+        if (index < 0 || index > mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+        ensureCapacity(mSize + 1);
+        Object elements = elements();
+        System.arraycopy(elements, index, elements, index + 1, mSize - index);
+        mSize++;
+        modCount++;
+    }
+
+    /**
+     * Shifts the elements after the specified index one position to the left, dropping the
+     * element at the index.
+     */
+    final void closeGap(int index) {
+        Object elements = elements();
+        System.arraycopy(elements, index + 1, elements, index, mSize - index - 1);
+        mSize--;
+        modCount++;
+    }
+
+    final void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+    }
+
+    @Override
+    public void clear() {
+        mSize = 0;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o == null || o.getClass() != getClass()) {
+            return super.equals(o);
+        }
+        PrimitiveArrayList<?> other = (PrimitiveArrayList<?>) o;
+        return mSize == other.mSize && elementsEqual(other);
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (int index = 0; index < mSize; index++) {
+            hashCode = 31 * hashCode + elementHashCode(index);
+        }
+        return hashCode;
+    }
+}
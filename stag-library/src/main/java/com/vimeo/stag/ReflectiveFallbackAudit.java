@@ -0,0 +1,300 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.internal.$Gson$Types;
+import com.google.gson.internal.bind.ReflectiveTypeAdapterFactory;
+import com.google.gson.internal.bind.TreeTypeAdapter;
+import com.google.gson.reflect.TypeToken;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Records every type that Gson resolves with its reflective adapter, or with the tree based
+ * adapter of a {@link com.google.gson.JsonSerializer} or {@link com.google.gson.JsonDeserializer},
+ * instead of an adapter generated by Stag. Such types are usually models that are not annotated,
+ * such as a nested class, or field types that Stag does not know and looks up with
+ * {@link Gson#getAdapter(TypeToken)}.
+ * <p>
+ * The audit does not change which adapters are used. Since Gson consults the factories registered
+ * later first, it has to be registered after {@code Stag.Factory} and after any type adapters it
+ * should see:
+ * <pre>
+ *     ReflectiveFallbackAudit audit = new ReflectiveFallbackAudit();
+ *     Gson gson = new GsonBuilder()
+ *             .registerTypeAdapterFactory(new Stag.Factory())
+ *             .registerTypeAdapterFactory(audit)
+ *             .create();
+ * </pre>
+ * Every {@link Fallback} has the field path that led to it, such as {@code Video.mUser.mPictures},
+ * which is known when the type was resolved while the adapter of the model holding the field was
+ * being created. Gson caches adapters, so only the first path that led to a type is recorded for
+ * each {@link Gson} instance. In tests, pass {@code true} to {@link #ReflectiveFallbackAudit(boolean)}
+ * to fail as soon as a type falls back.
+ */
+public final class ReflectiveFallbackAudit implements TypeAdapterFactory {
+
+    /**
+     * The kind of adapter that a type fell back to.
+     */
+    public enum Kind {
+        /**
+         * Gson's reflective adapter.
+         */
+        REFLECTIVE,
+        /**
+         * The adapter Gson creates for a {@link com.google.gson.JsonSerializer} or
+         * {@link com.google.gson.JsonDeserializer}, which goes through a {@link com.google.gson.JsonElement} tree.
+         */
+        TREE
+    }
+
+    /**
+     * A type that fell back to a {@link Kind} of adapter.
+     */
+    public static final class Fallback {
+
+        @NotNull
+        private final TypeToken<?> mType;
+        @NotNull
+        private final Kind mKind;
+        @NotNull
+        private final String mPath;
+
+        Fallback(@NotNull TypeToken<?> type, @NotNull Kind kind, @NotNull String path) {
+            mType = type;
+            mKind = kind;
+            mPath = path;
+        }
+
+        @NotNull
+        public TypeToken<?> getType() {
+            return mType;
+        }
+
+        @NotNull
+        public Kind getKind() {
+            return mKind;
+        }
+
+        /**
+         * The type the lookup started from followed by the fields that led to this type, with
+         * {@code []} for the elements of a collection, map or array, or just the type if it was
+         * looked up directly.
+         */
+        @NotNull
+        public String getPath() {
+            return mPath;
+        }
+
+        @Override
+        public String toString() {
+            return mKind + " " + mType + " at " + mPath;
+        }
+    }
+
+    private final boolean mFailFast;
+    @NotNull
+    private final List<Fallback> mFallbacks = new CopyOnWriteArrayList<>();
+    @NotNull
+    private final ThreadLocal<List<TypeToken<?>>> mLookups = new ThreadLocal<List<TypeToken<?>>>() {
+        @Override
+        protected List<TypeToken<?>> initialValue() {
+            return new ArrayList<>();
+        }
+    };
+
+    /**
+     * Creates an audit that records fallbacks.
+     */
+    public ReflectiveFallbackAudit() {
+        this(false);
+    }
+
+    /**
+     * Creates an audit.
+     *
+     * @param failFast true to throw an {@link IllegalStateException} from {@link Gson#getAdapter(TypeToken)}
+     *                 as soon as a type falls back, false to only record it.
+     */
+    public ReflectiveFallbackAudit(boolean failFast) {
+        mFailFast = failFast;
+    }
+
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+        List<TypeToken<?>> lookups = mLookups.get();
+        lookups.add(type);
+        TypeAdapter<T> typeAdapter;
+        try {
+            typeAdapter = gson.getDelegateAdapter(this, type);
+        } finally {
+            lookups.remove(lookups.size() - 1);
+        }
+
+        Kind kind = getFallbackKind(typeAdapter);
+        if (kind != null) {
+            Fallback fallback = new Fallback(type, kind, getPath(lookups, type));
+            mFallbacks.add(fallback);
+            if (mFailFast) {
+                throw new IllegalStateException("Stag did not provide an adapter for " + fallback);
+            }
+        }
+        return typeAdapter;
+    }
+
+    /**
+     * Returns the fallbacks recorded so far, in the order they happened.
+     */
+    @NotNull
+    public List<Fallback> getFallbacks() {
+        return Collections.unmodifiableList(new ArrayList<>(mFallbacks));
+    }
+
+    /**
+     * Returns a report with one line for each fallback recorded so far, or an empty string if
+     * there were none.
+     */
+    @NotNull
+    public String getReport() {
+        StringBuilder builder = new StringBuilder();
+        for (Fallback fallback : mFallbacks) {
+            builder.append(fallback).append('\n');
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Forgets the fallbacks recorded so far.
+     */
+    public void clear() {
+        mFallbacks.clear();
+    }
+
+    /**
+     * Returns the kind of fallback that an adapter is, or null if it is not a fallback.
+     *
+     * @param typeAdapter the adapter that Gson resolved for a type.
+     */
+    @Nullable
+    public static Kind getFallbackKind(@Nullable TypeAdapter<?> typeAdapter) {
+        if (typeAdapter instanceof ReflectiveTypeAdapterFactory.Adapter) {
+            return Kind.REFLECTIVE;
+        } else if (typeAdapter instanceof TreeTypeAdapter) {
+            return Kind.TREE;
+        }
+        return null;
+    }
+
+    /**
+     * Builds the path of a type from the lookups that were in progress on this thread when it was
+     * looked up, outermost first.
+     */
+    @NotNull
+    private static String getPath(@NotNull List<TypeToken<?>> lookups, @NotNull TypeToken<?> type) {
+        if (lookups.isEmpty()) {
+            return type.toString();
+        }
+        StringBuilder path = new StringBuilder(lookups.get(0).toString());
+        for (int idx = 0; idx < lookups.size(); idx++) {
+            TypeToken<?> parent = lookups.get(idx);
+            TypeToken<?> child = idx + 1 < lookups.size() ? lookups.get(idx + 1) : type;
+            String fieldName = getFieldName(parent, child.getType());
+            if (fieldName != null) {
+                path.append('.').append(fieldName);
+            } else if (mentions(parent.getType(), child.getType(), false)) {
+                path.append("[]");
+            } else {
+                path.append(".<").append(child).append('>');
+            }
+        }
+        return path.toString();
+    }
+
+    /**
+     * Returns the name of the first serializable field of the parent whose type is or mentions the
+     * child type, or null if there is none.
+     */
+    @Nullable
+    private static String getFieldName(@NotNull TypeToken<?> parent, @NotNull Type child) {
+        Type parentType = parent.getType();
+        Class<?> rawType = parent.getRawType();
+        while (rawType != null && rawType != Object.class) {
+            for (Field field : rawType.getDeclaredFields()) {
+                if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) != 0) {
+                    continue;
+                }
+                Type fieldType = $Gson$Types.resolve(parentType, parent.getRawType(), field.getGenericType());
+                if (mentions(fieldType, child, true)) {
+                    return field.getName();
+                }
+            }
+            rawType = rawType.getSuperclass();
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if the type arguments or the component type of the type are or mention the
+     * target, or if includeSelf is true and the type is the target itself.
+     */
+    private static boolean mentions(@NotNull Type type, @NotNull Type target, boolean includeSelf) {
+        if (includeSelf && $Gson$Types.equals(type, target)) {
+            return true;
+        }
+        if (type instanceof ParameterizedType) {
+            for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+                if (mentions(argument, target, true)) {
+                    return true;
+                }
+            }
+        } else if (type instanceof GenericArrayType) {
+            return mentions(((GenericArrayType) type).getGenericComponentType(), target, true);
+        } else if (type instanceof Class<?> && ((Class<?>) type).isArray()) {
+            return mentions(((Class<?>) type).getComponentType(), target, true);
+        } else if (type instanceof WildcardType) {
+            for (Type bound : ((WildcardType) type).getUpperBounds()) {
+                if (mentions(bound, target, true)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,1320 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A {@link JsonReader} that tokenizes UTF-8 encoded JSON directly from a {@code byte[]}, a
+ * {@link ByteBuffer} or an {@link InputStream}, without decoding the input through a
+ * {@link Reader} first.
+ * <p>
+ * In addition to the {@link JsonReader} API, this reader can match the next name or string value
+ * against a precomputed set of {@link Options}. {@link #selectName(Options)} compares the raw
+ * bytes of the name with the encoded options and only consumes the name if one of them matches,
+ * so known names never have to be materialized as {@link String}s. The type adapters generated
+ * by Stag use this automatically whenever they are handed a {@link StagJsonReader}, and fall back
+ * to {@link #nextName()} for any other {@link JsonReader}:
+ * <pre>
+ *     MyModel model = gson.fromJson(new StagJsonReader(bytes), MyModel.class);
+ * </pre>
+ * This reader only accepts well formed JSON as described by RFC 7159. Setting it to lenient only
+ * allows multiple top level values and the non finite numbers {@code NaN}, {@code Infinity} and
+ * {@code -Infinity}, quoted or not; comments, other unquoted strings and the other extensions
+ * that {@link JsonReader} accepts in lenient mode are still rejected.
+ * <p>
+ * Any type adapter that only uses the public {@link JsonReader} API can read from this reader.
+ * Gson's own map adapter cannot: it reads map keys through {@code JsonReaderInternalAccess},
+ * which reaches into the private state of {@link JsonReader}, and fails with an
+ * {@link IOException} that says so. Maps declared as fields of Stag models are read with
+ * {@link KnownTypeAdapters.MapTypeAdapter}, which supports this reader; maps read directly with
+ * Gson, or as part of a type without a Stag adapter, need a {@link Reader} based
+ * {@link JsonReader} instead.
+ * <p>
+ * Reading from a {@link ByteBuffer} does not change its position. Closing a reader that reads
+ * from an {@link InputStream} also closes the stream.
+ */
+public class StagJsonReader extends JsonReader {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    private static final long MIN_INCOMPLETE_INTEGER = Long.MIN_VALUE / 10;
+
+    private static final int PEEKED_NONE = 0;
+    private static final int PEEKED_BEGIN_OBJECT = 1;
+    private static final int PEEKED_END_OBJECT = 2;
+    private static final int PEEKED_BEGIN_ARRAY = 3;
+    private static final int PEEKED_END_ARRAY = 4;
+    private static final int PEEKED_TRUE = 5;
+    private static final int PEEKED_FALSE = 6;
+    private static final int PEEKED_NULL = 7;
+    private static final int PEEKED_DOUBLE_QUOTED = 8;
+    private static final int PEEKED_BUFFERED = 9;
+    private static final int PEEKED_DOUBLE_QUOTED_NAME = 10;
+    private static final int PEEKED_BUFFERED_NAME = 11;
+    private static final int PEEKED_LONG = 12;
+    private static final int PEEKED_NUMBER = 13;
+    private static final int PEEKED_EOF = 14;
+
+    private static final int NUMBER_CHAR_NONE = 0;
+    private static final int NUMBER_CHAR_SIGN = 1;
+    private static final int NUMBER_CHAR_DIGIT = 2;
+    private static final int NUMBER_CHAR_DECIMAL = 3;
+    private static final int NUMBER_CHAR_FRACTION_DIGIT = 4;
+    private static final int NUMBER_CHAR_EXP_E = 5;
+    private static final int NUMBER_CHAR_EXP_SIGN = 6;
+    private static final int NUMBER_CHAR_EXP_DIGIT = 7;
+
+    private static final int SCOPE_EMPTY_ARRAY = 1;
+    private static final int SCOPE_NONEMPTY_ARRAY = 2;
+    private static final int SCOPE_EMPTY_OBJECT = 3;
+    private static final int SCOPE_DANGLING_NAME = 4;
+    private static final int SCOPE_NONEMPTY_OBJECT = 5;
+    private static final int SCOPE_EMPTY_DOCUMENT = 6;
+    private static final int SCOPE_NONEMPTY_DOCUMENT = 7;
+    private static final int SCOPE_CLOSED = 8;
+
+    /**
+     * Returned by {@link #nextNonWhitespace(boolean)} at the end of the input. Bytes are returned
+     * unsigned, so this never collides with a byte of the input.
+     */
+    private static final int EOF = -1;
+
+    private static final String[] NON_FINITE_LITERALS = {"NaN", "Infinity", "-Infinity"};
+
+    /**
+     * The {@link JsonReader} constructor requires a {@link Reader}, but all of the reading is done
+     * by this class, so the one handed to it is only reached when code outside of Stag reaches
+     * into the private state of {@link JsonReader}, as Gson's own map adapter does to read keys
+     * through {@code JsonReaderInternalAccess}.
+     */
+    private static final Reader UNUSED_READER = new Reader() {
+        @Override
+        public int read(@NotNull char[] buffer, int offset, int length) throws IOException {
+            throw new IOException("StagJsonReader can only be read through its public methods;"
+                    + " read maps with KnownTypeAdapters.MapTypeAdapter rather than Gson's map adapter");
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Nullable
+    private final InputStream mInputStream;
+    @Nullable
+    private final ByteBuffer mByteBuffer;
+
+    @NotNull
+    private byte[] mBuffer;
+    private int mPos;
+    private int mLimit;
+    /**
+     * The offset in the input of the first byte in {@link #mBuffer}, used for error messages.
+     */
+    private long mBufferOffset;
+    /**
+     * Whether the last string scanned by {@link #findClosingQuote()} contained escape sequences.
+     */
+    private boolean mStringHasEscapes;
+    /**
+     * Whether the input is a run of array elements without the enclosing brackets, see
+     * {@link #beginImplicitArray()}.
+     */
+    private boolean mImplicitArray;
+
+    private int mPeeked = PEEKED_NONE;
+    private long mPeekedLong;
+    private int mPeekedNumberLength;
+    @Nullable
+    private String mPeekedString;
+
+    @NotNull
+    private int[] mStack = new int[32];
+    private int mStackSize;
+    @NotNull
+    private String[] mPathNames = new String[32];
+    @NotNull
+    private int[] mPathIndices = new int[32];
+
+    {
+        mStack[mStackSize++] = SCOPE_EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Creates a reader over all of the UTF-8 encoded {@code bytes}. The array is not copied and
+     * must not be modified while it is being read.
+     */
+    public StagJsonReader(@NotNull byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Creates a reader over {@code length} UTF-8 encoded bytes of {@code bytes}, starting at
+     * {@code offset}. The array is not copied and must not be modified while it is being read.
+     */
+    public StagJsonReader(@NotNull byte[] bytes, int offset, int length) {
+        super(UNUSED_READER);
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", size=" + bytes.length);
+        }
+        mInputStream = null;
+        mByteBuffer = null;
+        mBuffer = bytes;
+        mPos = offset;
+        mLimit = offset + length;
+        mBufferOffset = -offset;
+    }
+
+    /**
+     * Creates a reader over the remaining UTF-8 encoded bytes of {@code byteBuffer}. Heap buffers
+     * are read in place, while direct and memory mapped buffers are copied through a small
+     * internal buffer. The position of {@code byteBuffer} is not changed.
+     */
+    public StagJsonReader(@NotNull ByteBuffer byteBuffer) {
+        super(UNUSED_READER);
+        mInputStream = null;
+        if (byteBuffer.hasArray()) {
+            mByteBuffer = null;
+            mBuffer = byteBuffer.array();
+            mPos = byteBuffer.arrayOffset() + byteBuffer.position();
+            mLimit = mPos + byteBuffer.remaining();
+            mBufferOffset = -mPos;
+        } else {
+            mByteBuffer = byteBuffer.duplicate();
+            mBuffer = new byte[DEFAULT_BUFFER_SIZE];
+        }
+    }
+
+    /**
+     * Creates a reader over the UTF-8 encoded {@code inputStream}. The stream is read in large
+     * chunks, so it does not need to be buffered.
+     */
+    public StagJsonReader(@NotNull InputStream inputStream) {
+        super(UNUSED_READER);
+        mInputStream = inputStream;
+        mByteBuffer = null;
+        mBuffer = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    @Override
+    public void beginArray() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        if (p != PEEKED_BEGIN_ARRAY) {
+            throw new IllegalStateException("Expected BEGIN_ARRAY but was " + peek() + locationString());
+        }
+        push(SCOPE_EMPTY_ARRAY);
+        mPathIndices[mStackSize - 1] = 0;
+        mPeeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void endArray() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        if (p != PEEKED_END_ARRAY) {
+            throw new IllegalStateException("Expected END_ARRAY but was " + peek() + locationString());
+        }
+        mStackSize--;
+        mPathIndices[mStackSize - 1]++;
+        mPeeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void beginObject() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        if (p != PEEKED_BEGIN_OBJECT) {
+            throw new IllegalStateException("Expected BEGIN_OBJECT but was " + peek() + locationString());
+        }
+        push(SCOPE_EMPTY_OBJECT);
+        mPeeked = PEEKED_NONE;
+    }
+
+    @Override
+    public void endObject() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        if (p != PEEKED_END_OBJECT) {
+            throw new IllegalStateException("Expected END_OBJECT but was " + peek() + locationString());
+        }
+        mStackSize--;
+        mPathNames[mStackSize] = null;
+        mPathIndices[mStackSize - 1]++;
+        mPeeked = PEEKED_NONE;
+    }
+
+    @Override
+    public boolean hasNext() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        return p != PEEKED_END_OBJECT && p != PEEKED_END_ARRAY && p != PEEKED_EOF;
+    }
+
+    @Override
+    public JsonToken peek() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        switch (p) {
+            case PEEKED_BEGIN_OBJECT:
+                return JsonToken.BEGIN_OBJECT;
+            case PEEKED_END_OBJECT:
+                return JsonToken.END_OBJECT;
+            case PEEKED_BEGIN_ARRAY:
+                return JsonToken.BEGIN_ARRAY;
+            case PEEKED_END_ARRAY:
+                return JsonToken.END_ARRAY;
+            case PEEKED_DOUBLE_QUOTED_NAME:
+            case PEEKED_BUFFERED_NAME:
+                return JsonToken.NAME;
+            case PEEKED_TRUE:
+            case PEEKED_FALSE:
+                return JsonToken.BOOLEAN;
+            case PEEKED_NULL:
+                return JsonToken.NULL;
+            case PEEKED_DOUBLE_QUOTED:
+            case PEEKED_BUFFERED:
+                return JsonToken.STRING;
+            case PEEKED_LONG:
+            case PEEKED_NUMBER:
+                return JsonToken.NUMBER;
+            case PEEKED_EOF:
+                return JsonToken.END_DOCUMENT;
+            default:
+                throw new AssertionError();
+        }
+    }
+
+    /**
+     * Consumes the next name if it is one of {@code options} and returns its index. If the name is
+     * not one of the options, -1 is returned and the name is left unconsumed, so that it can be
+     * read with {@link #nextName()} or skipped with {@link #skipName()}.
+     * <p>
+     * Names that contain no escape sequences are matched byte for byte without allocating.
+     *
+     * @throws IllegalStateException if the next token is not a name.
+     */
+    public int selectName(@NotNull Options options) throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        int index;
+        if (p == PEEKED_DOUBLE_QUOTED_NAME) {
+            int length = findClosingQuote();
+            if (mStringHasEscapes) {
+                // Escaped names can't be compared byte for byte, so decode and buffer them.
+                mPeekedString = decodeString(mPos, length);
+                mPos += length + 1;
+                mPeeked = PEEKED_BUFFERED_NAME;
+                index = options.indexOf(mPeekedString);
+            } else {
+                index = options.indexOf(mBuffer, mPos, length);
+                if (index != -1) {
+                    mPos += length + 1;
+                }
+            }
+        } else if (p == PEEKED_BUFFERED_NAME) {
+            index = options.indexOf(mPeekedString);
+        } else {
+            throw new IllegalStateException("Expected a name but was " + peek() + locationString());
+        }
+        if (index != -1) {
+            mPeeked = PEEKED_NONE;
+            mPeekedString = null;
+            mPathNames[mStackSize - 1] = options.mStrings[index];
+        }
+        return index;
+    }
+
+    /**
+     * Consumes the next string value if it is one of {@code options} and returns its index. If
+     * the value is not one of the options, -1 is returned and the value is left unconsumed.
+     * <p>
+     * Values that contain no escape sequences are matched byte for byte without allocating.
+     *
+     * @throws IllegalStateException if the next token is not a string.
+     */
+    public int selectString(@NotNull Options options) throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        int index;
+        if (p == PEEKED_DOUBLE_QUOTED) {
+            int length = findClosingQuote();
+            if (mStringHasEscapes) {
+                mPeekedString = decodeString(mPos, length);
+                mPos += length + 1;
+                mPeeked = PEEKED_BUFFERED;
+                index = options.indexOf(mPeekedString);
+            } else {
+                index = options.indexOf(mBuffer, mPos, length);
+                if (index != -1) {
+                    mPos += length + 1;
+                }
+            }
+        } else if (p == PEEKED_BUFFERED) {
+            index = options.indexOf(mPeekedString);
+        } else {
+            throw new IllegalStateException("Expected a string but was " + peek() + locationString());
+        }
+        if (index != -1) {
+            mPeeked = PEEKED_NONE;
+            mPeekedString = null;
+            mPathIndices[mStackSize - 1]++;
+        }
+        return index;
+    }
+
+    /**
+     * Skips the next name without decoding it.
+     *
+     * @throws IllegalStateException if the next token is not a name.
+     */
+    public void skipName() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        if (p == PEEKED_DOUBLE_QUOTED_NAME) {
+            mPos += findClosingQuote() + 1;
+        } else if (p != PEEKED_BUFFERED_NAME) {
+            throw new IllegalStateException("Expected a name but was " + peek() + locationString());
+        }
+        mPeeked = PEEKED_NONE;
+        mPeekedString = null;
+        mPathNames[mStackSize - 1] = "null";
+    }
+
+    @Override
+    public String nextName() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        String result;
+        if (p == PEEKED_DOUBLE_QUOTED_NAME) {
+            result = readQuotedString();
+        } else if (p == PEEKED_BUFFERED_NAME) {
+            result = mPeekedString;
+            mPeekedString = null;
+        } else {
+            throw new IllegalStateException("Expected a name but was " + peek() + locationString());
+        }
+        mPeeked = PEEKED_NONE;
+        mPathNames[mStackSize - 1] = result;
+        return result;
+    }
+
+    @Override
+    public String nextString() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        String result;
+        if (p == PEEKED_DOUBLE_QUOTED) {
+            result = readQuotedString();
+        } else if (p == PEEKED_BUFFERED) {
+            result = mPeekedString;
+            mPeekedString = null;
+        } else if (p == PEEKED_LONG) {
+            result = Long.toString(mPeekedLong);
+        } else if (p == PEEKED_NUMBER) {
+            result = new String(mBuffer, mPos, mPeekedNumberLength, UTF_8);
+            mPos += mPeekedNumberLength;
+        } else {
+            throw new IllegalStateException("Expected a string but was " + peek() + locationString());
+        }
+        mPeeked = PEEKED_NONE;
+        mPathIndices[mStackSize - 1]++;
+        return result;
+    }
+
+    @Override
+    public boolean nextBoolean() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        boolean result;
+        if (p == PEEKED_TRUE) {
+            result = true;
+        } else if (p == PEEKED_FALSE) {
+            result = false;
+        } else {
+            throw new IllegalStateException("Expected a boolean but was " + peek() + locationString());
+        }
+        mPeeked = PEEKED_NONE;
+        mPathIndices[mStackSize - 1]++;
+        return result;
+    }
+
+    @Override
+    public void nextNull() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        if (p != PEEKED_NULL) {
+            throw new IllegalStateException("Expected null but was " + peek() + locationString());
+        }
+        mPeeked = PEEKED_NONE;
+        mPathIndices[mStackSize - 1]++;
+    }
+
+    @Override
+    public double nextDouble() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        if (p == PEEKED_LONG) {
+            mPeeked = PEEKED_NONE;
+            mPathIndices[mStackSize - 1]++;
+            return (double) mPeekedLong;
+        }
+        bufferNumberOrString(p, "a double");
+        double result = Double.parseDouble(mPeekedString); // don't catch this NumberFormatException.
+        if (!isLenient() && (Double.isNaN(result) || Double.isInfinite(result))) {
+            throw new MalformedJsonException("JSON forbids NaN and infinities: " + result + locationString());
+        }
+        mPeekedString = null;
+        mPeeked = PEEKED_NONE;
+        mPathIndices[mStackSize - 1]++;
+        return result;
+    }
+
+    @Override
+    public long nextLong() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        if (p == PEEKED_LONG) {
+            mPeeked = PEEKED_NONE;
+            mPathIndices[mStackSize - 1]++;
+            return mPeekedLong;
+        }
+        bufferNumberOrString(p, "a long");
+        if (p != PEEKED_NUMBER) {
+            try {
+                long result = Long.parseLong(mPeekedString);
+                mPeekedString = null;
+                mPeeked = PEEKED_NONE;
+                mPathIndices[mStackSize - 1]++;
+                return result;
+            } catch (NumberFormatException ignored) {
+                // Fall back to parse as a double below.
+            }
+        }
+        double asDouble = Double.parseDouble(mPeekedString); // don't catch this NumberFormatException.
+        long result = (long) asDouble;
+        if (result != asDouble) { // Make sure no precision was lost casting to 'long'.
+            throw new NumberFormatException("Expected a long but was " + mPeekedString + locationString());
+        }
+        mPeekedString = null;
+        mPeeked = PEEKED_NONE;
+        mPathIndices[mStackSize - 1]++;
+        return result;
+    }
+
+    @Override
+    public int nextInt() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        int result;
+        if (p == PEEKED_LONG) {
+            result = (int) mPeekedLong;
+            if (mPeekedLong != result) { // Make sure no precision was lost casting to 'int'.
+                throw new NumberFormatException("Expected an int but was " + mPeekedLong + locationString());
+            }
+            mPeeked = PEEKED_NONE;
+            mPathIndices[mStackSize - 1]++;
+            return result;
+        }
+        bufferNumberOrString(p, "an int");
+        if (p != PEEKED_NUMBER) {
+            try {
+                result = Integer.parseInt(mPeekedString);
+                mPeekedString = null;
+                mPeeked = PEEKED_NONE;
+                mPathIndices[mStackSize - 1]++;
+                return result;
+            } catch (NumberFormatException ignored) {
+                // Fall back to parse as a double below.
+            }
+        }
+        double asDouble = Double.parseDouble(mPeekedString); // don't catch this NumberFormatException.
+        result = (int) asDouble;
+        if (result != asDouble) { // Make sure no precision was lost casting to 'int'.
+            throw new NumberFormatException("Expected an int but was " + mPeekedString + locationString());
+        }
+        mPeekedString = null;
+        mPeeked = PEEKED_NONE;
+        mPathIndices[mStackSize - 1]++;
+        return result;
+    }
+
+    @Override
+    public void skipValue() throws IOException {
+        int count = 0;
+        do {
+            int p = mPeeked;
+            if (p == PEEKED_NONE) {
+                p = doPeek();
+            }
+            if (p == PEEKED_BEGIN_ARRAY) {
+                push(SCOPE_EMPTY_ARRAY);
+                count++;
+            } else if (p == PEEKED_BEGIN_OBJECT) {
+                push(SCOPE_EMPTY_OBJECT);
+                count++;
+            } else if (p == PEEKED_END_ARRAY || p == PEEKED_END_OBJECT) {
+                mStackSize--;
+                count--;
+            } else if (p == PEEKED_DOUBLE_QUOTED || p == PEEKED_DOUBLE_QUOTED_NAME) {
+                mPos += findClosingQuote() + 1;
+            } else if (p == PEEKED_NUMBER) {
+                mPos += mPeekedNumberLength;
+            } else if (p == PEEKED_EOF) {
+                throw new IllegalStateException("Expected a value but was END_DOCUMENT" + locationString());
+            }
+            mPeeked = PEEKED_NONE;
+            mPeekedString = null;
+        } while (count != 0);
+
+        mPathIndices[mStackSize - 1]++;
+        mPathNames[mStackSize - 1] = "null";
+    }
+
+    @Override
+    public void close() throws IOException {
+        mPeeked = PEEKED_NONE;
+        mPeekedString = null;
+        mStack[0] = SCOPE_CLOSED;
+        mStackSize = 1;
+        if (mInputStream != null) {
+            mInputStream.close();
+        }
+    }
+
+    @Override
+    public String getPath() {
+        StringBuilder result = new StringBuilder().append('$');
+        for (int i = 0, size = mStackSize; i < size; i++) {
+            switch (mStack[i]) {
+                case SCOPE_EMPTY_ARRAY:
+                case SCOPE_NONEMPTY_ARRAY:
+                    result.append('[').append(mPathIndices[i]).append(']');
+                    break;
+                case SCOPE_EMPTY_OBJECT:
+                case SCOPE_DANGLING_NAME:
+                case SCOPE_NONEMPTY_OBJECT:
+                    result.append('.');
+                    if (mPathNames[i] != null) {
+                        result.append(mPathNames[i]);
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        return result.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + locationString();
+    }
+
+    /**
+     * Starts reading a new document from {@code length} bytes of {@code bytes} at {@code offset},
+     * so that one reader can be used for many small documents. Only readers over arrays can be
+     * reset.
+     */
+    void reset(@NotNull byte[] bytes, int offset, int length) {
+        if (mInputStream != null || mByteBuffer != null) {
+            throw new IllegalStateException("Only readers over arrays can be reset");
+        }
+        mBuffer = bytes;
+        mPos = offset;
+        mLimit = offset + length;
+        mBufferOffset = -offset;
+        mPeeked = PEEKED_NONE;
+        mPeekedString = null;
+        mImplicitArray = false;
+        mStackSize = 0;
+        mStack[mStackSize++] = SCOPE_EMPTY_DOCUMENT;
+        mPathNames[0] = null;
+        mPathIndices[0] = 0;
+    }
+
+    /**
+     * Returns the offset in the input of the next byte to be tokenized. Only meaningful when no
+     * token has been peeked.
+     */
+    long getBytePosition() {
+        return mBufferOffset + mPos;
+    }
+
+    /**
+     * Treats the input as the comma separated elements of an array whose brackets are not part of
+     * the input, and which ends with the input. The reader is positioned inside the array, so the
+     * elements are read without calling {@link #beginArray()}, and {@link #hasNext()} returns
+     * false at the end of the input. This must be called before anything is read.
+     */
+    void beginImplicitArray() {
+        if (mStackSize != 1 || mStack[0] != SCOPE_EMPTY_DOCUMENT || mPeeked != PEEKED_NONE) {
+            throw new IllegalStateException("The reader has already been used");
+        }
+        mStack[0] = SCOPE_NONEMPTY_DOCUMENT;
+        push(SCOPE_EMPTY_ARRAY);
+        mPathIndices[mStackSize - 1] = 0;
+        mImplicitArray = true;
+    }
+
+    /**
+     * Turns the next name into a string value, as {@code JsonReaderInternalAccess} does for
+     * {@link JsonReader}, so that map keys can be read with any type adapter. Gson's internal
+     * access only knows about the private state of {@link JsonReader}, so
+     * {@link KnownTypeAdapters.MapTypeAdapter} calls this directly for this reader.
+     */
+    void promoteNameToValue() throws IOException {
+        int p = mPeeked;
+        if (p == PEEKED_NONE) {
+            p = doPeek();
+        }
+        if (p == PEEKED_DOUBLE_QUOTED_NAME) {
+            mPeeked = PEEKED_DOUBLE_QUOTED;
+        } else if (p == PEEKED_BUFFERED_NAME) {
+            mPeeked = PEEKED_BUFFERED;
+        } else {
+            throw new IllegalStateException("Expected a name but was " + peek() + locationString());
+        }
+    }
+
+    /**
+     * Buffers the next number or string value in {@link #mPeekedString} so that it can be parsed,
+     * leaving the reader positioned on it if parsing fails.
+     */
+    private void bufferNumberOrString(int peeked, @NotNull String expected) throws IOException {
+        if (peeked == PEEKED_NUMBER) {
+            mPeekedString = new String(mBuffer, mPos, mPeekedNumberLength, UTF_8);
+            mPos += mPeekedNumberLength;
+        } else if (peeked == PEEKED_DOUBLE_QUOTED) {
+            mPeekedString = readQuotedString();
+        } else if (peeked != PEEKED_BUFFERED) {
+            throw new IllegalStateException("Expected " + expected + " but was " + peek() + locationString());
+        }
+        mPeeked = PEEKED_BUFFERED;
+    }
+
+    private int doPeek() throws IOException {
+        int peekStack = mStack[mStackSize - 1];
+        if (peekStack == SCOPE_EMPTY_ARRAY) {
+            mStack[mStackSize - 1] = SCOPE_NONEMPTY_ARRAY;
+        } else if (peekStack == SCOPE_NONEMPTY_ARRAY) {
+            // Look for a comma before the next element.
+            // Only the outermost implicit array ends with the input rather than with a bracket.
+            boolean implicitEnd = mImplicitArray && mStackSize == 2;
+            int c = nextNonWhitespace(!implicitEnd);
+            if (implicitEnd ? c == EOF : c == ']') {
+                return mPeeked = PEEKED_END_ARRAY;
+            } else if (c != ',') {
+                throw syntaxError("Unterminated array");
+            }
+        } else if (peekStack == SCOPE_EMPTY_OBJECT || peekStack == SCOPE_NONEMPTY_OBJECT) {
+            mStack[mStackSize - 1] = SCOPE_DANGLING_NAME;
+            // Look for a comma before the next element.
+            if (peekStack == SCOPE_NONEMPTY_OBJECT) {
+                int c = nextNonWhitespace(true);
+                if (c == '}') {
+                    return mPeeked = PEEKED_END_OBJECT;
+                } else if (c != ',') {
+                    throw syntaxError("Unterminated object");
+                }
+            }
+            int c = nextNonWhitespace(true);
+            if (c == '"') {
+                return mPeeked = PEEKED_DOUBLE_QUOTED_NAME;
+            } else if (c == '}' && peekStack == SCOPE_EMPTY_OBJECT) {
+                return mPeeked = PEEKED_END_OBJECT;
+            } else {
+                throw syntaxError("Expected name");
+            }
+        } else if (peekStack == SCOPE_DANGLING_NAME) {
+            mStack[mStackSize - 1] = SCOPE_NONEMPTY_OBJECT;
+            // Look for a colon before the value.
+            if (nextNonWhitespace(true) != ':') {
+                throw syntaxError("Expected ':'");
+            }
+        } else if (peekStack == SCOPE_EMPTY_DOCUMENT) {
+            mStack[mStackSize - 1] = SCOPE_NONEMPTY_DOCUMENT;
+        } else if (peekStack == SCOPE_NONEMPTY_DOCUMENT) {
+            int c = nextNonWhitespace(false);
+            if (c == EOF) {
+                return mPeeked = PEEKED_EOF;
+            } else if (!isLenient()) {
+                throw syntaxError("Use JsonReader.setLenient(true) to accept multiple top level values");
+            }
+            mPos--;
+        } else if (peekStack == SCOPE_CLOSED) {
+            throw new IllegalStateException("JsonReader is closed");
+        }
+
+        int c = nextNonWhitespace(true);
+        switch (c) {
+            case ']':
+                if (peekStack == SCOPE_EMPTY_ARRAY) {
+                    return mPeeked = PEEKED_END_ARRAY;
+                }
+                throw syntaxError("Unexpected value");
+            case '"':
+                return mPeeked = PEEKED_DOUBLE_QUOTED;
+            case '[':
+                return mPeeked = PEEKED_BEGIN_ARRAY;
+            case '{':
+                return mPeeked = PEEKED_BEGIN_OBJECT;
+            case 't':
+                return mPeeked = peekKeyword("true", PEEKED_TRUE);
+            case 'f':
+                return mPeeked = peekKeyword("false", PEEKED_FALSE);
+            case 'n':
+                return mPeeked = peekKeyword("null", PEEKED_NULL);
+            default:
+                mPos--;
+                if (c == '-' || (c >= '0' && c <= '9')) {
+                    int result = peekNumber();
+                    if (result != PEEKED_NONE) {
+                        return mPeeked = result;
+                    }
+                }
+                if (isLenient() && (c == 'N' || c == 'I' || c == '-')) {
+                    int result = peekNonFiniteNumber();
+                    if (result != PEEKED_NONE) {
+                        return mPeeked = result;
+                    }
+                }
+                throw syntaxError("Expected value");
+        }
+    }
+
+    /**
+     * Checks that the input continues with the rest of {@code keyword}, whose first character has
+     * already been consumed, and consumes it.
+     */
+    private int peekKeyword(@NotNull String keyword, int peeking) throws IOException {
+        int length = keyword.length();
+        for (int i = 1; i < length; i++) {
+            if (mPos + i > mLimit && !fillBuffer(i)) {
+                throw syntaxError("Expected value");
+            }
+            if (mBuffer[mPos + i - 1] != keyword.charAt(i)) {
+                throw syntaxError("Expected value");
+            }
+        }
+        if ((mPos + length <= mLimit || fillBuffer(length)) && isLiteral(mBuffer[mPos + length - 1])) {
+            throw syntaxError("Expected value");
+        }
+        mPos += length - 1;
+        return peeking;
+    }
+
+    /**
+     * Peeks the unquoted {@code NaN}, {@code Infinity} or {@code -Infinity} that a lenient reader
+     * accepts, buffering it like {@link JsonReader} does for unquoted strings so that it can be
+     * read with {@link #nextDouble()} or {@link #nextString()}.
+     */
+    private int peekNonFiniteNumber() throws IOException {
+        for (String literal : NON_FINITE_LITERALS) {
+            if (matchesLiteral(literal)) {
+                mPeekedString = literal;
+                mPos += literal.length();
+                return PEEKED_BUFFERED;
+            }
+        }
+        return PEEKED_NONE;
+    }
+
+    private boolean matchesLiteral(@NotNull String literal) throws IOException {
+        int length = literal.length();
+        if (mPos + length > mLimit && !fillBuffer(length)) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (mBuffer[mPos + i] != literal.charAt(i)) {
+                return false;
+            }
+        }
+        return !((mPos + length < mLimit || fillBuffer(length + 1)) && isLiteral(mBuffer[mPos + length]));
+    }
+
+    private int peekNumber() throws IOException {
+        long value = 0; // Negative to accommodate Long.MIN_VALUE more easily.
+        boolean negative = false;
+        boolean fitsInLong = true;
+        int last = NUMBER_CHAR_NONE;
+
+        int i = 0;
+
+        charactersOfNumber:
+        for (; true; i++) {
+            if (mPos + i == mLimit && !fillBuffer(i + 1)) {
+                break;
+            }
+
+            byte c = mBuffer[mPos + i];
+            switch (c) {
+                case '-':
+                    if (last == NUMBER_CHAR_NONE) {
+                        negative = true;
+                        last = NUMBER_CHAR_SIGN;
+                        continue;
+                    } else if (last == NUMBER_CHAR_EXP_E) {
+                        last = NUMBER_CHAR_EXP_SIGN;
+                        continue;
+                    }
+                    return PEEKED_NONE;
+
+                case '+':
+                    if (last == NUMBER_CHAR_EXP_E) {
+                        last = NUMBER_CHAR_EXP_SIGN;
+                        continue;
+                    }
+                    return PEEKED_NONE;
+
+                case 'e':
+                case 'E':
+                    if (last == NUMBER_CHAR_DIGIT || last == NUMBER_CHAR_FRACTION_DIGIT) {
+                        last = NUMBER_CHAR_EXP_E;
+                        continue;
+                    }
+                    return PEEKED_NONE;
+
+                case '.':
+                    if (last == NUMBER_CHAR_DIGIT) {
+                        last = NUMBER_CHAR_DECIMAL;
+                        continue;
+                    }
+                    return PEEKED_NONE;
+
+                default:
+                    if (c < '0' || c > '9') {
+                        if (!isLiteral(c)) {
+                            break charactersOfNumber;
+                        }
+                        return PEEKED_NONE;
+                    }
+                    if (last == NUMBER_CHAR_SIGN || last == NUMBER_CHAR_NONE) {
+                        value = -(c - '0');
+                        last = NUMBER_CHAR_DIGIT;
+                    } else if (last == NUMBER_CHAR_DIGIT) {
+                        if (value == 0) {
+                            return PEEKED_NONE; // Leading '0' prefix is not allowed.
+                        }
+                        long newValue = value * 10 - (c - '0');
+                        fitsInLong &= value > MIN_INCOMPLETE_INTEGER
+                                || (value == MIN_INCOMPLETE_INTEGER && newValue < value);
+                        value = newValue;
+                    } else if (last == NUMBER_CHAR_DECIMAL) {
+                        last = NUMBER_CHAR_FRACTION_DIGIT;
+                    } else if (last == NUMBER_CHAR_EXP_E || last == NUMBER_CHAR_EXP_SIGN) {
+                        last = NUMBER_CHAR_EXP_DIGIT;
+                    }
+            }
+        }
+
+        // We've read a complete number. Decide if it's a PEEKED_LONG or a PEEKED_NUMBER.
+        if (last == NUMBER_CHAR_DIGIT && fitsInLong && (value != Long.MIN_VALUE || negative) && (value != 0 || !negative)) {
+            mPeekedLong = negative ? value : -value;
+            mPos += i;
+            return PEEKED_LONG;
+        } else if (last == NUMBER_CHAR_DIGIT || last == NUMBER_CHAR_FRACTION_DIGIT || last == NUMBER_CHAR_EXP_DIGIT) {
+            mPeekedNumberLength = i;
+            return PEEKED_NUMBER;
+        } else {
+            return PEEKED_NONE;
+        }
+    }
+
+    private static boolean isLiteral(int c) {
+        switch (c) {
+            case '/':
+            case '\\':
+            case ';':
+            case '#':
+            case '=':
+            case '{':
+            case '}':
+            case '[':
+            case ']':
+            case ':':
+            case ',':
+            case ' ':
+            case '\t':
+            case '\f':
+            case '\r':
+            case '\n':
+                return false;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Returns the next byte that is not whitespace, as an unsigned value, and consumes it, or
+     * {@link #EOF} if the input is exhausted and {@code throwOnEof} is false.
+     */
+    private int nextNonWhitespace(boolean throwOnEof) throws IOException {
+        while (true) {
+            if (mPos == mLimit && !fillBuffer(1)) {
+                if (throwOnEof) {
+                    throw new EOFException("End of input" + locationString());
+                }
+                return EOF;
+            }
+            int c = mBuffer[mPos++] & 0xff;
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return c;
+            }
+        }
+    }
+
+    /**
+     * Makes sure the string that starts at {@link #mPos} is entirely buffered and returns the
+     * number of bytes before its closing quote. {@link #mStringHasEscapes} is updated to reflect
+     * whether the string needs to be unescaped.
+     */
+    private int findClosingQuote() throws IOException {
+        boolean hasEscapes = false;
+        int i = 0;
+        while (true) {
+            if (mPos + i == mLimit && !fillBuffer(i + 1)) {
+                throw syntaxError("Unterminated string");
+            }
+            byte c = mBuffer[mPos + i];
+            if (c == '"') {
+                mStringHasEscapes = hasEscapes;
+                return i;
+            } else if (c == '\\') {
+                hasEscapes = true;
+                // Skip the escaped character so that an escaped quote doesn't end the string.
+                i++;
+                if (mPos + i == mLimit && !fillBuffer(i + 1)) {
+                    throw syntaxError("Unterminated escape sequence");
+                }
+            }
+            i++;
+        }
+    }
+
+    @NotNull
+    private String readQuotedString() throws IOException {
+        int length = findClosingQuote();
+        String result = mStringHasEscapes
+                ? decodeString(mPos, length)
+                : new String(mBuffer, mPos, length, UTF_8);
+        mPos += length + 1;
+        return result;
+    }
+
+    /**
+     * Decodes the {@code length} bytes at {@code start}, resolving escape sequences.
+     */
+    @NotNull
+    private String decodeString(int start, int length) throws IOException {
+        StringBuilder builder = new StringBuilder(length);
+        int end = start + length;
+        int segmentStart = start;
+        for (int i = start; i < end; i++) {
+            if (mBuffer[i] != '\\') {
+                continue;
+            }
+            // Escape sequences are ASCII, so they never split a multi byte character.
+            builder.append(new String(mBuffer, segmentStart, i - segmentStart, UTF_8));
+            byte escaped = mBuffer[++i];
+            switch (escaped) {
+                case 'u':
+                    if (i + 4 >= end) {
+                        throw syntaxError("Unterminated escape sequence");
+                    }
+                    char result = 0;
+                    for (int j = i + 1; j <= i + 4; j++) {
+                        int c = mBuffer[j];
+                        result <<= 4;
+                        if (c >= '0' && c <= '9') {
+                            result += (c - '0');
+                        } else if (c >= 'a' && c <= 'f') {
+                            result += (c - 'a' + 10);
+                        } else if (c >= 'A' && c <= 'F') {
+                            result += (c - 'A' + 10);
+                        } else {
+                            throw syntaxError("Malformed \\u escape sequence");
+                        }
+                    }
+                    builder.append(result);
+                    i += 4;
+                    break;
+                case 't':
+                    builder.append('\t');
+                    break;
+                case 'b':
+                    builder.append('\b');
+                    break;
+                case 'n':
+                    builder.append('\n');
+                    break;
+                case 'r':
+                    builder.append('\r');
+                    break;
+                case 'f':
+                    builder.append('\f');
+                    break;
+                case '"':
+                case '\'':
+                case '\\':
+                case '/':
+                    builder.append((char) escaped);
+                    break;
+                default:
+                    throw syntaxError("Invalid escape sequence");
+            }
+            segmentStart = i + 1;
+        }
+        builder.append(new String(mBuffer, segmentStart, end - segmentStart, UTF_8));
+        return builder.toString();
+    }
+
+    /**
+     * Reads more input so that at least {@code minimum} bytes are available after {@link #mPos},
+     * moving the unread bytes to the front of the buffer first. Returns false if the input ends
+     * before that many bytes are available. Indices held across this call must be relative to
+     * {@link #mPos}.
+     */
+    private boolean fillBuffer(int minimum) throws IOException {
+        if (mInputStream == null && mByteBuffer == null) {
+            // Arrays are read in place and can't be refilled.
+            return false;
+        }
+        if (mPos > 0) {
+            mBufferOffset += mPos;
+            System.arraycopy(mBuffer, mPos, mBuffer, 0, mLimit - mPos);
+            mLimit -= mPos;
+            mPos = 0;
+        }
+        if (minimum > mBuffer.length) {
+            mBuffer = Arrays.copyOf(mBuffer, Math.max(minimum, mBuffer.length * 2));
+        }
+        while (mLimit < minimum) {
+            int read;
+            if (mInputStream != null) {
+                read = mInputStream.read(mBuffer, mLimit, mBuffer.length - mLimit);
+            } else {
+                read = Math.min(mByteBuffer.remaining(), mBuffer.length - mLimit);
+                if (read == 0) {
+                    read = -1;
+                } else {
+                    mByteBuffer.get(mBuffer, mLimit, read);
+                }
+            }
+            if (read == -1) {
+                return false;
+            }
+            mLimit += read;
+        }
+        return true;
+    }
+
+    private void push(int newTop) {
+        if (mStackSize == mStack.length) {
+            mStack = Arrays.copyOf(mStack, mStackSize * 2);
+            mPathIndices = Arrays.copyOf(mPathIndices, mStackSize * 2);
+            mPathNames = Arrays.copyOf(mPathNames, mStackSize * 2);
+        }
+        mStack[mStackSize++] = newTop;
+    }
+
+    @NotNull
+    private String locationString() {
+        return " at byte " + (mBufferOffset + mPos) + " path " + getPath();
+    }
+
+    @NotNull
+    private IOException syntaxError(@NotNull String message) throws IOException {
+        throw new MalformedJsonException(message + locationString());
+    }
+
+    /**
+     * A precomputed set of names or string values that a {@link StagJsonReader} can select from
+     * with {@link #selectName(Options)} and {@link #selectString(Options)}. Options are immutable
+     * and should be created once and shared, typically as a static field.
+     */
+    public static final class Options {
+
+        private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+        @NotNull
+        final String[] mStrings;
+        @NotNull
+        private final byte[][] mEncodedStrings;
+        /**
+         * Open addressing tables from the hash of an option to its index plus one, zero marking an
+         * empty slot, keyed by {@link #hash(byte[], int, int)} of the encoded option and by
+         * {@link String#hashCode()} of the option. Their length is a power of two at least twice
+         * the number of options, so a lookup costs a hash of the name and, on average, a single
+         * comparison, however many options there are.
+         */
+        @NotNull
+        private final int[] mByteTable;
+        @NotNull
+        private final int[] mStringTable;
+
+        private Options(@NotNull String[] strings) {
+            mStrings = strings;
+            mEncodedStrings = new byte[strings.length][];
+            int tableLength = Integer.highestOneBit(Math.max(strings.length, 1) * 2 - 1) << 1;
+            mByteTable = new int[tableLength];
+            mStringTable = new int[tableLength];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] encoded = strings[i].getBytes(UTF_8);
+                mEncodedStrings[i] = encoded;
+                // The first of duplicate options wins, as it would with a linear search.
+                if (indexOf(encoded, 0, encoded.length) == -1) {
+                    insert(mByteTable, hash(encoded, 0, encoded.length), i);
+                    insert(mStringTable, strings[i].hashCode(), i);
+                }
+            }
+        }
+
+        private static void insert(@NotNull int[] table, int hash, int index) {
+            int mask = table.length - 1;
+            int slot = spread(hash) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = index + 1;
+        }
+
+        private static int hash(@NotNull byte[] buffer, int offset, int length) {
+            int hash = length;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                hash = 31 * hash + buffer[i];
+            }
+            return hash;
+        }
+
+        private static int spread(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+
+        /**
+         * Creates options for the {@code strings}, whose indices are the values returned by
+         * {@link #selectName(Options)} and {@link #selectString(Options)}.
+         */
+        @NotNull
+        public static Options of(@NotNull String... strings) {
+            return new Options(strings.clone());
+        }
+
+        public int size() {
+            return mStrings.length;
+        }
+
+        @NotNull
+        public String get(int index) {
+            return mStrings[index];
+        }
+
+        int indexOf(@Nullable String string) {
+            if (string == null) {
+                return -1;
+            }
+            int mask = mStringTable.length - 1;
+            int slot = spread(string.hashCode()) & mask;
+            int entry;
+            while ((entry = mStringTable[slot]) != 0) {
+                if (mStrings[entry - 1].equals(string)) {
+                    return entry - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the index of the option whose UTF-8 encoding is the {@code length} bytes of
+         * {@code buffer} at {@code offset}, or -1 if there is none.
+         */
+        int indexOf(@NotNull byte[] buffer, int offset, int length) {
+            int mask = mByteTable.length - 1;
+            int slot = spread(hash(buffer, offset, length)) & mask;
+            int entry;
+            candidates:
+            while ((entry = mByteTable[slot]) != 0) {
+                slot = (slot + 1) & mask;
+                byte[] encoded = mEncodedStrings[entry - 1];
+                if (encoded.length != length) {
+                    continue;
+                }
+                for (int j = 0; j < length; j++) {
+                    if (encoded[j] != buffer[offset + j]) {
+                        continue candidates;
+                    }
+                }
+                return entry - 1;
+            }
+            return -1;
+        }
+    }
+}
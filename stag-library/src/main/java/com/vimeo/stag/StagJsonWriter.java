@@ -0,0 +1,689 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonWriter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * A {@link JsonWriter} that encodes JSON as UTF-8 directly into an {@link OutputStream} or a
+ * {@link ByteBuffer}, without going through a {@link Writer}.
+ * <p>
+ * Strings that only contain ASCII characters which don't need to be escaped are copied into the
+ * output without any encoding work, and names can be written from {@link Names}, which hold each
+ * name already quoted, escaped and encoded together with the following colon. The type adapters
+ * generated by Stag write their field names this way whenever they are handed a
+ * {@link StagJsonWriter}, and fall back to {@link #name(String)} for any other {@link JsonWriter}:
+ * <pre>
+ *     StagJsonWriter writer = new StagJsonWriter(outputStream);
+ *     gson.toJson(model, MyModel.class, writer);
+ *     writer.flush();
+ * </pre>
+ * Output is buffered, so {@link #flush()} or {@link #close()} must be called once writing is done.
+ * This writer always writes compact JSON, and ignores {@link #setIndent(String)}.
+ */
+public class StagJsonWriter extends JsonWriter {
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+    /**
+     * The most bytes that a single character can be written as, which is a six byte unicode
+     * escape sequence.
+     */
+    private static final int MAX_BYTES_PER_CHAR = 6;
+
+    private static final int SCOPE_EMPTY_ARRAY = 1;
+    private static final int SCOPE_NONEMPTY_ARRAY = 2;
+    private static final int SCOPE_EMPTY_OBJECT = 3;
+    private static final int SCOPE_DANGLING_NAME = 4;
+    private static final int SCOPE_NONEMPTY_OBJECT = 5;
+    private static final int SCOPE_EMPTY_DOCUMENT = 6;
+    private static final int SCOPE_NONEMPTY_DOCUMENT = 7;
+    /**
+     * A name followed by its colon has been written, and the value is next.
+     */
+    private static final int SCOPE_DANGLING_NAME_TOKEN = 8;
+
+    private static final byte[] NULL = {'n', 'u', 'l', 'l'};
+    private static final byte[] TRUE = {'t', 'r', 'u', 'e'};
+    private static final byte[] FALSE = {'f', 'a', 'l', 's', 'e'};
+    private static final byte[] HEX_DIGITS = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+
+    /**
+     * The escape sequence for each ASCII character that needs one, mirroring the escaping done by
+     * {@link JsonWriter}.
+     */
+    private static final byte[][] REPLACEMENT_BYTES;
+    private static final byte[][] HTML_SAFE_REPLACEMENT_BYTES;
+
+    static {
+        REPLACEMENT_BYTES = new byte[128][];
+        for (int i = 0; i <= 0x1f; i++) {
+            REPLACEMENT_BYTES[i] = unicodeEscape((char) i);
+        }
+        REPLACEMENT_BYTES['"'] = new byte[]{'\\', '"'};
+        REPLACEMENT_BYTES['\\'] = new byte[]{'\\', '\\'};
+        REPLACEMENT_BYTES['\t'] = new byte[]{'\\', 't'};
+        REPLACEMENT_BYTES['\b'] = new byte[]{'\\', 'b'};
+        REPLACEMENT_BYTES['\n'] = new byte[]{'\\', 'n'};
+        REPLACEMENT_BYTES['\r'] = new byte[]{'\\', 'r'};
+        REPLACEMENT_BYTES['\f'] = new byte[]{'\\', 'f'};
+        HTML_SAFE_REPLACEMENT_BYTES = REPLACEMENT_BYTES.clone();
+        HTML_SAFE_REPLACEMENT_BYTES['<'] = unicodeEscape('<');
+        HTML_SAFE_REPLACEMENT_BYTES['>'] = unicodeEscape('>');
+        HTML_SAFE_REPLACEMENT_BYTES['&'] = unicodeEscape('&');
+        HTML_SAFE_REPLACEMENT_BYTES['='] = unicodeEscape('=');
+        HTML_SAFE_REPLACEMENT_BYTES['\''] = unicodeEscape('\'');
+    }
+
+    /**
+     * The {@link JsonWriter} constructor requires a {@link Writer}, but all of the writing is done
+     * by this class, so the one handed to it must never be used.
+     */
+    private static final Writer UNUSED_WRITER = new Writer() {
+        @Override
+        public void write(@NotNull char[] buffer, int offset, int length) {
+            throw new AssertionError("StagJsonWriter does not write characters");
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Nullable
+    private final OutputStream mOutputStream;
+    @Nullable
+    private final ByteBuffer mByteBuffer;
+
+    @NotNull
+    private final byte[] mBuffer;
+    private int mPos;
+    private long mFlushedBytes;
+
+    @NotNull
+    private int[] mStack = new int[32];
+    private int mStackSize;
+
+    @Nullable
+    private String mDeferredName;
+    @Nullable
+    private byte[] mDeferredNameToken;
+
+    {
+        mStack[mStackSize++] = SCOPE_EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Creates a writer that writes UTF-8 encoded JSON to {@code outputStream}. The output is
+     * written in large chunks, so the stream does not need to be buffered.
+     */
+    public StagJsonWriter(@NotNull OutputStream outputStream) {
+        super(UNUSED_WRITER);
+        mOutputStream = outputStream;
+        mByteBuffer = null;
+        mBuffer = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Creates a writer that puts UTF-8 encoded JSON into {@code byteBuffer}, starting at its
+     * position. A {@link java.nio.BufferOverflowException} is thrown if the output does not fit.
+     */
+    public StagJsonWriter(@NotNull ByteBuffer byteBuffer) {
+        super(UNUSED_WRITER);
+        mOutputStream = null;
+        mByteBuffer = byteBuffer;
+        mBuffer = new byte[DEFAULT_BUFFER_SIZE];
+    }
+
+    /**
+     * Writes the name at {@code index} of {@code names}, using its pre-encoded form if
+     * {@code writer} is a {@link StagJsonWriter} and {@link #name(String)} otherwise.
+     */
+    public static void writeName(@NotNull JsonWriter writer, @NotNull Names names, int index) throws IOException {
+        if (writer instanceof StagJsonWriter) {
+            ((StagJsonWriter) writer).name(names, index);
+        } else {
+            writer.name(names.mNames[index]);
+        }
+    }
+
+    @Override
+    public JsonWriter beginArray() throws IOException {
+        writeDeferredName();
+        return open(SCOPE_EMPTY_ARRAY, '[');
+    }
+
+    @Override
+    public JsonWriter endArray() throws IOException {
+        return close(SCOPE_EMPTY_ARRAY, SCOPE_NONEMPTY_ARRAY, ']');
+    }
+
+    @Override
+    public JsonWriter beginObject() throws IOException {
+        writeDeferredName();
+        return open(SCOPE_EMPTY_OBJECT, '{');
+    }
+
+    @Override
+    public JsonWriter endObject() throws IOException {
+        return close(SCOPE_EMPTY_OBJECT, SCOPE_NONEMPTY_OBJECT, '}');
+    }
+
+    @Override
+    public JsonWriter name(String name) throws IOException {
+        if (name == null) {
+            throw new NullPointerException("name == null");
+        }
+        checkCanWriteName();
+        mDeferredName = name;
+        return this;
+    }
+
+    /**
+     * Writes the name at {@code index} of {@code names} without escaping or encoding it.
+     */
+    public JsonWriter name(@NotNull Names names, int index) throws IOException {
+        checkCanWriteName();
+        if (isHtmlSafe()) {
+            mDeferredNameToken = names.mHtmlSafeTokens[index];
+        } else {
+            mDeferredNameToken = names.mTokens[index];
+        }
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter jsonValue(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        beforeValue();
+        writeUtf8(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter nullValue() throws IOException {
+        if (mDeferredName != null || mDeferredNameToken != null) {
+            if (getSerializeNulls()) {
+                writeDeferredName();
+            } else {
+                // Skip the name and the value.
+                mDeferredName = null;
+                mDeferredNameToken = null;
+                return this;
+            }
+        }
+        beforeValue();
+        writeBytes(NULL);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(boolean value) throws IOException {
+        writeDeferredName();
+        beforeValue();
+        writeBytes(value ? TRUE : FALSE);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Boolean value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        return value(value.booleanValue());
+    }
+
+    @Override
+    public JsonWriter value(double value) throws IOException {
+        if (!isLenient() && (Double.isNaN(value) || Double.isInfinite(value))) {
+            throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+        }
+        writeDeferredName();
+        beforeValue();
+        writeUtf8(Double.toString(value));
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(long value) throws IOException {
+        writeDeferredName();
+        beforeValue();
+        writeLong(value);
+        return this;
+    }
+
+    @Override
+    public JsonWriter value(Number value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        writeDeferredName();
+        String string = value.toString();
+        if (!isLenient() && (string.equals("-Infinity") || string.equals("Infinity") || string.equals("NaN"))) {
+            throw new IllegalArgumentException("Numeric values must be finite, but was " + value);
+        }
+        beforeValue();
+        writeUtf8(string);
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (mStackSize == 0) {
+            throw new IllegalStateException("JsonWriter is closed.");
+        }
+        flushBuffer();
+        if (mOutputStream != null) {
+            mOutputStream.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        flushBuffer();
+        if (mOutputStream != null) {
+            mOutputStream.close();
+        }
+
+        int size = mStackSize;
+        if (size > 1 || size == 1 && mStack[size - 1] != SCOPE_NONEMPTY_DOCUMENT) {
+            throw new IOException("Incomplete document");
+        }
+        mStackSize = 0;
+    }
+
+    /**
+     * Ends the current top level value with a newline, after which another top level value can be
+     * written without the writer being lenient. This is how JSON lines are separated.
+     */
+    void endLine() throws IOException {
+        if (mStackSize != 1 || mStack[0] != SCOPE_NONEMPTY_DOCUMENT) {
+            throw new IllegalStateException("Incomplete document");
+        }
+        writeByte('\n');
+        mStack[0] = SCOPE_EMPTY_DOCUMENT;
+    }
+
+    /**
+     * Returns the number of bytes written so far, including those that are still buffered.
+     */
+    long getBytesWritten() {
+        return mFlushedBytes + mPos;
+    }
+
+    private void checkCanWriteName() {
+        if (mDeferredName != null || mDeferredNameToken != null) {
+            throw new IllegalStateException();
+        }
+        if (mStackSize == 0) {
+            throw new IllegalStateException("JsonWriter is closed.");
+        }
+    }
+
+    @NotNull
+    private JsonWriter open(int empty, char openBracket) throws IOException {
+        beforeValue();
+        push(empty);
+        writeByte(openBracket);
+        return this;
+    }
+
+    @NotNull
+    private JsonWriter close(int empty, int nonempty, char closeBracket) throws IOException {
+        int context = peek();
+        if (context != nonempty && context != empty) {
+            throw new IllegalStateException("Nesting problem.");
+        }
+        if (mDeferredName != null || mDeferredNameToken != null) {
+            throw new IllegalStateException("Dangling name: " + (mDeferredName != null ? mDeferredName : new String(mDeferredNameToken, Names.UTF_8)));
+        }
+        mStackSize--;
+        writeByte(closeBracket);
+        return this;
+    }
+
+    private void push(int newTop) {
+        if (mStackSize == mStack.length) {
+            mStack = Arrays.copyOf(mStack, mStackSize * 2);
+        }
+        mStack[mStackSize++] = newTop;
+    }
+
+    private int peek() {
+        if (mStackSize == 0) {
+            throw new IllegalStateException("JsonWriter is closed.");
+        }
+        return mStack[mStackSize - 1];
+    }
+
+    private void writeDeferredName() throws IOException {
+        if (mDeferredNameToken != null) {
+            beforeName();
+            writeBytes(mDeferredNameToken);
+            mStack[mStackSize - 1] = SCOPE_DANGLING_NAME_TOKEN;
+            mDeferredNameToken = null;
+        } else if (mDeferredName != null) {
+            beforeName();
+            writeString(mDeferredName);
+            mDeferredName = null;
+        }
+    }
+
+    private void beforeName() throws IOException {
+        int context = peek();
+        if (context == SCOPE_NONEMPTY_OBJECT) {
+            writeByte(',');
+        } else if (context != SCOPE_EMPTY_OBJECT) {
+            throw new IllegalStateException("Nesting problem.");
+        }
+        mStack[mStackSize - 1] = SCOPE_DANGLING_NAME;
+    }
+
+    private void beforeValue() throws IOException {
+        switch (peek()) {
+            case SCOPE_NONEMPTY_DOCUMENT:
+                if (!isLenient()) {
+                    throw new IllegalStateException("JSON must have only one top-level value.");
+                }
+                break;
+            case SCOPE_EMPTY_DOCUMENT:
+                mStack[mStackSize - 1] = SCOPE_NONEMPTY_DOCUMENT;
+                break;
+            case SCOPE_EMPTY_ARRAY:
+                mStack[mStackSize - 1] = SCOPE_NONEMPTY_ARRAY;
+                break;
+            case SCOPE_NONEMPTY_ARRAY:
+                writeByte(',');
+                break;
+            case SCOPE_DANGLING_NAME:
+                writeByte(':');
+                mStack[mStackSize - 1] = SCOPE_NONEMPTY_OBJECT;
+                break;
+            case SCOPE_DANGLING_NAME_TOKEN:
+                mStack[mStackSize - 1] = SCOPE_NONEMPTY_OBJECT;
+                break;
+            default:
+                throw new IllegalStateException("Nesting problem.");
+        }
+    }
+
+    /**
+     * Writes {@code value} as a quoted and escaped JSON string.
+     */
+    private void writeString(@NotNull String value) throws IOException {
+        byte[][] replacements = isHtmlSafe() ? HTML_SAFE_REPLACEMENT_BYTES : REPLACEMENT_BYTES;
+        byte[] buffer = mBuffer;
+        writeByte('"');
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            // Copy runs of ASCII characters that don't need to be escaped straight into the buffer.
+            int end = Math.min(length, i + buffer.length - mPos);
+            int pos = mPos;
+            for (; i < end; i++) {
+                char c = value.charAt(i);
+                if (c >= 128 || replacements[c] != null) {
+                    break;
+                }
+                buffer[pos++] = (byte) c;
+            }
+            mPos = pos;
+            if (i == end) {
+                if (i < length) {
+                    flushBuffer();
+                }
+                continue;
+            }
+
+            if (mPos + MAX_BYTES_PER_CHAR > buffer.length) {
+                flushBuffer();
+            }
+            int codePoint = value.codePointAt(i);
+            i += Character.charCount(codePoint);
+            mPos = escape(codePoint, replacements, buffer, mPos);
+        }
+        writeByte('"');
+    }
+
+    /**
+     * Writes {@code codePoint} escaped and encoded as UTF-8 into {@code buffer} at {@code pos},
+     * which must have room for {@link #MAX_BYTES_PER_CHAR} bytes, and returns the position after
+     * it.
+     */
+    private static int escape(int codePoint, @NotNull byte[][] replacements, @NotNull byte[] buffer, int pos) {
+        if (codePoint < 128) {
+            byte[] replacement = replacements[codePoint];
+            if (replacement == null) {
+                buffer[pos++] = (byte) codePoint;
+            } else {
+                System.arraycopy(replacement, 0, buffer, pos, replacement.length);
+                pos += replacement.length;
+            }
+        } else if (codePoint < 0x800) {
+            buffer[pos++] = (byte) (0xc0 | (codePoint >> 6));
+            buffer[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+        } else if (codePoint == '\u2028' || codePoint == '\u2029') {
+            byte[] replacement = unicodeEscape((char) codePoint);
+            System.arraycopy(replacement, 0, buffer, pos, replacement.length);
+            pos += replacement.length;
+        } else if (codePoint >= Character.MIN_SUPPLEMENTARY_CODE_POINT) {
+            buffer[pos++] = (byte) (0xf0 | (codePoint >> 18));
+            buffer[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+            buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            buffer[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+        } else if (Character.isSurrogate((char) codePoint)) {
+            // Unpaired surrogates can't be encoded, and are replaced like an encoder would.
+            buffer[pos++] = '?';
+        } else {
+            buffer[pos++] = (byte) (0xe0 | (codePoint >> 12));
+            buffer[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+            buffer[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+        }
+        return pos;
+    }
+
+    /**
+     * Writes {@code value} encoded as UTF-8, without quoting or escaping it.
+     */
+    private void writeUtf8(@NotNull String value) throws IOException {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) >= 128) {
+                writeBytes(value.getBytes(Names.UTF_8));
+                return;
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            if (mPos == mBuffer.length) {
+                flushBuffer();
+            }
+            mBuffer[mPos++] = (byte) value.charAt(i);
+        }
+    }
+
+    /**
+     * Writes the decimal digits of {@code value} without creating a string.
+     */
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            writeUtf8(Long.toString(value));
+            return;
+        }
+        // A long has at most 19 digits and a sign.
+        if (mPos + 20 > mBuffer.length) {
+            flushBuffer();
+        }
+        if (value < 0) {
+            mBuffer[mPos++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long remaining = value / 10; remaining != 0; remaining /= 10) {
+            digits++;
+        }
+        int pos = mPos + digits;
+        mPos = pos;
+        do {
+            mBuffer[--pos] = (byte) ('0' + (value % 10));
+            value /= 10;
+        } while (value != 0);
+    }
+
+    private void writeByte(char b) throws IOException {
+        if (mPos == mBuffer.length) {
+            flushBuffer();
+        }
+        mBuffer[mPos++] = (byte) b;
+    }
+
+    private void writeBytes(@NotNull byte[] bytes) throws IOException {
+        if (mPos + bytes.length > mBuffer.length) {
+            flushBuffer();
+            if (bytes.length > mBuffer.length) {
+                writeToTarget(bytes, 0, bytes.length);
+                return;
+            }
+        }
+        System.arraycopy(bytes, 0, mBuffer, mPos, bytes.length);
+        mPos += bytes.length;
+    }
+
+    private void flushBuffer() throws IOException {
+        if (mPos > 0) {
+            writeToTarget(mBuffer, 0, mPos);
+            mPos = 0;
+        }
+    }
+
+    private void writeToTarget(@NotNull byte[] bytes, int offset, int length) throws IOException {
+        mFlushedBytes += length;
+        if (mOutputStream != null) {
+            mOutputStream.write(bytes, offset, length);
+        } else if (mByteBuffer != null) {
+            mByteBuffer.put(bytes, offset, length);
+        }
+    }
+
+    @NotNull
+    private static byte[] unicodeEscape(char c) {
+        return new byte[]{'\\', 'u', HEX_DIGITS[(c >> 12) & 0xf], HEX_DIGITS[(c >> 8) & 0xf],
+                HEX_DIGITS[(c >> 4) & 0xf], HEX_DIGITS[c & 0xf]};
+    }
+
+    /**
+     * A precomputed set of names that a {@link StagJsonWriter} writes without escaping or encoding
+     * them, through {@link #name(Names, int)} or {@link #writeName(JsonWriter, Names, int)}. Each
+     * name is stored as the bytes of the quoted and escaped name followed by a colon, both with and
+     * without HTML escaping. Names are immutable and should be created once and shared, typically
+     * as a static field.
+     */
+    public static final class Names {
+
+        static final Charset UTF_8 = Charset.forName("UTF-8");
+
+        @NotNull
+        final String[] mNames;
+        @NotNull
+        final byte[][] mTokens;
+        @NotNull
+        final byte[][] mHtmlSafeTokens;
+
+        private Names(@NotNull String[] names) {
+            mNames = names;
+            mTokens = new byte[names.length][];
+            mHtmlSafeTokens = new byte[names.length][];
+            for (int i = 0; i < names.length; i++) {
+                mTokens[i] = encode(names[i], REPLACEMENT_BYTES);
+                byte[] htmlSafeToken = encode(names[i], HTML_SAFE_REPLACEMENT_BYTES);
+                // Most names don't contain any HTML characters, so share the tokens when possible.
+                mHtmlSafeTokens[i] = Arrays.equals(mTokens[i], htmlSafeToken) ? mTokens[i] : htmlSafeToken;
+            }
+        }
+
+        /**
+         * Creates names for the {@code names}, whose indices are the ones passed to
+         * {@link #name(Names, int)}.
+         */
+        @NotNull
+        public static Names of(@NotNull String... names) {
+            return new Names(names.clone());
+        }
+
+        public int size() {
+            return mNames.length;
+        }
+
+        @NotNull
+        public String get(int index) {
+            return mNames[index];
+        }
+
+        /**
+         * Returns {@code name} quoted, escaped and encoded as UTF-8, followed by a colon.
+         */
+        @NotNull
+        private static byte[] encode(@NotNull String name, @NotNull byte[][] replacements) {
+            int length = name.length();
+            // Two quotes and a colon around the escaped name.
+            byte[] token = new byte[length * MAX_BYTES_PER_CHAR + 3];
+            int pos = 0;
+            token[pos++] = '"';
+            for (int i = 0; i < length; ) {
+                int codePoint = name.codePointAt(i);
+                i += Character.charCount(codePoint);
+                pos = escape(codePoint, replacements, token, pos);
+            }
+            token[pos++] = '"';
+            token[pos++] = ':';
+            return Arrays.copyOf(token, pos);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Receives metrics from the type adapters generated with the {@code stag.instrumentation} compiler
+ * option, so that the model types that dominate serialization time can be found. Adapters generated
+ * without the option do not refer to this class at all.
+ * <p>
+ * The instance is installed with {@link #install(StagMetrics)} and picked up by each adapter when
+ * it is created, so it must be installed before the {@link com.google.gson.Gson} instance creates
+ * its adapters. By default, {@link #NO_OP} is installed, which reports that it is disabled so that
+ * the adapters do not even read the clock, and whose calls the JIT compiles away.
+ * <p>
+ * Besides the per object reports of the generated adapters, the generated {@code Stag.Factory} of
+ * a module compiled with the option reports the adapters it creates, and the entry points of this
+ * library that read or write whole documents, {@link JsonLinesReader}, {@link JsonLinesWriter}
+ * and {@link StagStreams.ArrayIterator}, report every root object whether or not the option is used.
+ * <p>
+ * The durations reported for an object include the time spent on the objects nested in it.
+ * Implementations are called from every thread that uses the adapters, so they must be thread safe.
+ */
+public abstract class StagMetrics {
+
+    /**
+     * The metrics that discard everything and are disabled.
+     */
+    @NotNull
+    public static final StagMetrics NO_OP = new NoOpStagMetrics();
+
+    @NotNull
+    private static volatile StagMetrics sInstance = NO_OP;
+
+    /**
+     * Installs the metrics that the adapters created from now on report to.
+     *
+     * @param metrics the metrics to report to, or {@link #NO_OP} to stop reporting.
+     */
+    public static void install(@NotNull StagMetrics metrics) {
+        sInstance = metrics;
+    }
+
+    /**
+     * The metrics that adapters created now report to.
+     *
+     * @return the installed metrics.
+     */
+    @NotNull
+    public static StagMetrics getInstance() {
+        return sInstance;
+    }
+
+    /**
+     * Whether anything should be measured and reported. When this returns false, the adapters and
+     * entry points skip the calls to {@link System#nanoTime()} as well as the reports.
+     *
+     * @return true if the metrics are enabled, false otherwise.
+     */
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Called after an adapter has read an object.
+     *
+     * @param type                 the model type that was read.
+     * @param fieldsRead           the number of fields that were read into the object.
+     * @param unknownFieldsSkipped the number of fields that the model does not have and were skipped.
+     * @param durationNanos        the time it took to read the object.
+     */
+    public abstract void onRead(@NotNull Class<?> type, int fieldsRead, int unknownFieldsSkipped, long durationNanos);
+
+    /**
+     * Called after an adapter has written an object.
+     *
+     * @param type          the model type that was written.
+     * @param durationNanos the time it took to write the object.
+     */
+    public abstract void onWrite(@NotNull Class<?> type, long durationNanos);
+
+    /**
+     * Called after the {@code Stag.Factory} of a module compiled with {@code stag.instrumentation}
+     * has created an adapter. Does nothing by default.
+     *
+     * @param type          the type the adapter was created for.
+     * @param durationNanos the time it took to create the adapter, including the class loading
+     *                      and the adapters of the fields that it looked up.
+     */
+    public void onAdapterCreated(@NotNull Class<?> type, long durationNanos) {
+    }
+
+    /**
+     * Called after an entry point of this library has read a root object. Does nothing by default.
+     *
+     * @param type          the runtime type of the object that was read.
+     * @param bytes         the size of the encoded object, or -1 if the entry point does not know it.
+     * @param durationNanos the time it took to read the object.
+     */
+    public void onRootRead(@NotNull Class<?> type, long bytes, long durationNanos) {
+    }
+
+    /**
+     * Called after an entry point of this library has written a root object. Does nothing by default.
+     *
+     * @param type          the runtime type of the object that was written.
+     * @param bytes         the size of the encoded object.
+     * @param durationNanos the time it took to write the object.
+     */
+    public void onRootWrite(@NotNull Class<?> type, long bytes, long durationNanos) {
+    }
+
+    private static final class NoOpStagMetrics extends StagMetrics {
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void onRead(@NotNull Class<?> type, int fieldsRead, int unknownFieldsSkipped, long durationNanos) {
+        }
+
+        @Override
+        public void onWrite(@NotNull Class<?> type, long durationNanos) {
+        }
+    }
+}
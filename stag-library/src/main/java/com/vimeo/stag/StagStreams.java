@@ -0,0 +1,332 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Reads the elements of a JSON array one at a time, so that arrays that are too large to be held
+ * in memory as a {@link java.util.List} can still be processed. The array can either be the top
+ * level value of the document, or be found by following a path of field names from the top level
+ * object:
+ * <pre>
+ *     try (StagStreams.ArrayIterator&lt;Video&gt; videos = StagStreams.iterate(gson, Video.class, file, "data")) {
+ *         while (videos.hasNext()) {
+ *             process(videos.next());
+ *         }
+ *     }
+ * </pre>
+ * Each element is read with the {@link TypeAdapter} that {@link Gson} provides for it, which is
+ * the generated one for classes annotated with {@link UseStag}. Only the current element is held
+ * in memory. Fields that come before the array are skipped, and anything after it is never read.
+ * <p>
+ * Arrays that fit in memory can also be parsed on all of the threads of a {@link ForkJoinPool}
+ * with {@link #parseParallel(Gson, Class, byte[], ForkJoinPool, boolean, String...)}.
+ * <p>
+ * Iterators can be turned into {@link java.util.stream.Stream streams} with {@link JavaStreams},
+ * which requires Java 8 or Android API level 24.
+ */
+public final class StagStreams {
+
+    private StagStreams() {
+        throw new UnsupportedOperationException("StagStreams cannot be instantiated");
+    }
+
+    /**
+     * Iterates over the array at {@code path} in the document read by {@code reader}. Closing the
+     * iterator closes the reader.
+     *
+     * @param path the names of the fields leading from the top level object to the array, or
+     *             nothing if the document itself is the array. If a field on the path is missing
+     *             or null, the iterator is empty.
+     */
+    @NotNull
+    public static <T> ArrayIterator<T> iterate(@NotNull Gson gson, @NotNull Class<T> elementType,
+                                               @NotNull JsonReader reader, @NotNull String... path) {
+        return new ArrayIterator<>(gson.getAdapter(elementType), reader, path);
+    }
+
+    /**
+     * Iterates over the array at {@code path} in the UTF-8 encoded {@code inputStream}, see
+     * {@link #iterate(Gson, Class, JsonReader, String...)}. Closing the iterator closes the stream.
+     */
+    @NotNull
+    public static <T> ArrayIterator<T> iterate(@NotNull Gson gson, @NotNull Class<T> elementType,
+                                               @NotNull InputStream inputStream, @NotNull String... path) {
+        return iterate(gson, elementType, new StagJsonReader(inputStream), path);
+    }
+
+    /**
+     * Iterates over the array at {@code path} in the UTF-8 encoded {@code file}, see
+     * {@link #iterate(Gson, Class, JsonReader, String...)}. The file is read through
+     * {@link java.nio.channels.FileChannel#map}, one window at a time, so it may be larger than
+     * the heap. Closing the iterator closes the file.
+     */
+    @NotNull
+    public static <T> ArrayIterator<T> iterate(@NotNull Gson gson, @NotNull Class<T> elementType,
+                                               @NotNull File file, @NotNull String... path) throws IOException {
+        return iterate(gson, elementType, new MappedFileInputStream(file), path);
+    }
+
+    /**
+     * Parses the array at {@code path} in the UTF-8 encoded {@code bytes} on {@code pool}. The
+     * array is first scanned for the boundaries of its elements, and is then parsed in chunks of
+     * elements on all of the threads of the pool.
+     *
+     * @param ordered whether the elements are returned in the order of the array. Otherwise each
+     *                chunk of elements is added to the result as soon as it has been parsed.
+     * @param path    the names of the fields leading from the top level object to the array, or
+     *                nothing if the document itself is the array. If a field on the path is
+     *                missing or null, the result is empty.
+     */
+    @NotNull
+    public static <T> List<T> parseParallel(@NotNull Gson gson, @NotNull Class<T> elementType, @NotNull byte[] bytes,
+                                            @NotNull ForkJoinPool pool, boolean ordered, @NotNull String... path) {
+        return parseParallel(gson, elementType, ByteBuffer.wrap(bytes), pool, ordered, path);
+    }
+
+    /**
+     * Parses the array at {@code path} in the remaining UTF-8 encoded bytes of {@code byteBuffer}
+     * on {@code pool}, see {@link #parseParallel(Gson, Class, byte[], ForkJoinPool, boolean, String...)}.
+     * The position of {@code byteBuffer} is not changed.
+     */
+    @NotNull
+    public static <T> List<T> parseParallel(@NotNull Gson gson, @NotNull Class<T> elementType, @NotNull ByteBuffer byteBuffer,
+                                            @NotNull ForkJoinPool pool, boolean ordered, @NotNull String... path) {
+        return new ParallelArrayParser<>(gson.getAdapter(elementType), byteBuffer.slice(),
+                                         ParallelArrayParser.DEFAULT_MIN_CHUNK_SIZE).parse(pool, ordered, path);
+    }
+
+    /**
+     * Parses the array at {@code path} in the UTF-8 encoded {@code file} on {@code pool}, see
+     * {@link #parseParallel(Gson, Class, byte[], ForkJoinPool, boolean, String...)}. The file is
+     * mapped into memory with {@link FileChannel#map}, which limits it to 2 GB. Larger files can be
+     * read one element at a time with {@link #iterate(Gson, Class, File, String...)}.
+     */
+    @NotNull
+    public static <T> List<T> parseParallel(@NotNull Gson gson, @NotNull Class<T> elementType, @NotNull File file,
+                                            @NotNull ForkJoinPool pool, boolean ordered, @NotNull String... path) throws IOException {
+        MappedByteBuffer byteBuffer;
+        FileChannel channel = new RandomAccessFile(file, "r").getChannel();
+        try {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(file + " is too large to be mapped, iterate over it instead");
+            }
+            byteBuffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            channel.close();
+        }
+        return parseParallel(gson, elementType, byteBuffer, pool, ordered, path);
+    }
+
+    /**
+     * Creates {@link Stream streams} over JSON arrays. These are kept in their own class so that
+     * {@code java.util.stream} is only loaded when one of them is used, which keeps
+     * {@link StagStreams} usable on platforms without it.
+     */
+    public static final class JavaStreams {
+
+        private JavaStreams() {
+            throw new UnsupportedOperationException("JavaStreams cannot be instantiated");
+        }
+
+        /**
+         * Returns a sequential {@link Stream} over the array at {@code path} in the UTF-8 encoded
+         * {@code file}, see {@link #iterate(Gson, Class, File, String...)}. Closing the stream
+         * closes the file.
+         */
+        @NotNull
+        public static <T> Stream<T> stream(@NotNull Gson gson, @NotNull Class<T> elementType,
+                                           @NotNull File file, @NotNull String... path) throws IOException {
+            return stream(iterate(gson, elementType, file, path));
+        }
+
+        /**
+         * Returns a sequential {@link Stream} over the remaining elements of {@code iterator}.
+         * Closing the stream closes the iterator.
+         */
+        @NotNull
+        public static <T> Stream<T> stream(@NotNull final ArrayIterator<T> iterator) {
+            Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+            return StreamSupport.stream(spliterator, false).onClose(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        iterator.close();
+                    } catch (IOException e) {
+                        throw new JsonIOException(e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * An {@link Iterator} over the elements of a JSON array that reads each element when it is
+     * requested. Reading errors are thrown from {@link #hasNext()} and {@link #next()} as
+     * {@link JsonSyntaxException} or {@link JsonIOException}, as {@link Gson} does.
+     */
+    public static final class ArrayIterator<T> implements Iterator<T>, Closeable {
+
+        @NotNull
+        private final TypeAdapter<T> mTypeAdapter;
+        @NotNull
+        private final JsonReader mReader;
+        @NotNull
+        private final StagMetrics mMetrics;
+        @Nullable
+        private String[] mPath;
+        private boolean mDone;
+
+        ArrayIterator(@NotNull TypeAdapter<T> typeAdapter, @NotNull JsonReader reader, @NotNull String[] path) {
+            mTypeAdapter = typeAdapter;
+            mReader = reader;
+            mPath = path;
+            mMetrics = StagMetrics.getInstance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (mDone) {
+                return false;
+            }
+            try {
+                if (mPath != null) {
+                    String[] path = mPath;
+                    mPath = null;
+                    if (!moveToArray(mReader, path)) {
+                        mDone = true;
+                        return false;
+                    }
+                }
+                if (mReader.hasNext()) {
+                    return true;
+                }
+                mReader.endArray();
+                mDone = true;
+                return false;
+            } catch (MalformedJsonException e) {
+                throw new JsonSyntaxException(e);
+            } catch (IllegalStateException e) {
+                throw new JsonSyntaxException(e);
+            } catch (IOException e) {
+                throw new JsonIOException(e);
+            }
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            try {
+                if (!mMetrics.isEnabled()) {
+                    return mTypeAdapter.read(mReader);
+                }
+                long startNanos = System.nanoTime();
+                T element = mTypeAdapter.read(mReader);
+                if (element != null) {
+                    mMetrics.onRootRead(element.getClass(), -1, System.nanoTime() - startNanos);
+                }
+                return element;
+            } catch (MalformedJsonException e) {
+                throw new JsonSyntaxException(e);
+            } catch (IllegalStateException e) {
+                throw new JsonSyntaxException(e);
+            } catch (IOException e) {
+                throw new JsonIOException(e);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("remove");
+        }
+
+        @Override
+        public void close() throws IOException {
+            mDone = true;
+            mReader.close();
+        }
+    }
+
+    /**
+     * Follows {@code path} from the top level value of {@code reader} and opens the array at its
+     * end. Returns false if a field on the path is missing or null.
+     */
+    static boolean moveToArray(@NotNull JsonReader reader, @NotNull String[] path) throws IOException {
+        for (String name : path) {
+            if (reader.peek() == JsonToken.NULL) {
+                return false;
+            }
+            reader.beginObject();
+            boolean found = false;
+            while (!found && reader.hasNext()) {
+                if (name.equals(reader.nextName())) {
+                    found = true;
+                } else {
+                    reader.skipValue();
+                }
+            }
+            if (!found) {
+                return false;
+            }
+        }
+        if (reader.peek() == JsonToken.NULL) {
+            return false;
+        }
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            throw new IllegalStateException("Expected an array at " + Arrays.toString(path) + " but was " + reader.peek());
+        }
+        reader.beginArray();
+        return true;
+    }
+}
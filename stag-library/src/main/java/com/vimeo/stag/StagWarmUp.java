@@ -0,0 +1,319 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonWriter;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Creates the type adapters of a set of types ahead of time, so that servers can pay for adapter
+ * construction before they take traffic rather than on the first requests. The generated
+ * {@code Stag.Factory.warmUp} methods call this with every type known to the factory, grouped by
+ * package.
+ * <p>
+ * Each package is warmed up by its own task on the given {@link Executor}, and the time each one
+ * took is reported. Optionally, each type can also be written and read back a number of times, so
+ * that the JIT compiles the generated read and write methods before they are needed. The instance
+ * that is round tripped is read from a sample document with a value for every field, built from
+ * the declared fields of the type, so that the code of each field is compiled too.
+ */
+public final class StagWarmUp {
+
+    @NotNull
+    private static final byte[] EMPTY_OBJECT = "{}".getBytes(Charset.forName("UTF-8"));
+
+    /**
+     * How deeply models nested in a sample document are filled in, which also ends the samples of
+     * recursive models.
+     */
+    private static final int MAX_SAMPLE_DEPTH = 3;
+
+    /**
+     * The time it took to warm up the types of one package.
+     */
+    public static final class PackageReport {
+
+        @NotNull
+        private final String mPackageName;
+        private final int mTypeCount;
+        private final long mDurationNanos;
+
+        PackageReport(@NotNull String packageName, int typeCount, long durationNanos) {
+            mPackageName = packageName;
+            mTypeCount = typeCount;
+            mDurationNanos = durationNanos;
+        }
+
+        /**
+         * The runtime name of the package, which differs from the source name if the package has
+         * been renamed by an obfuscator.
+         */
+        @NotNull
+        public String getPackageName() {
+            return mPackageName;
+        }
+
+        public int getTypeCount() {
+            return mTypeCount;
+        }
+
+        public long getDurationNanos() {
+            return mDurationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return mPackageName + ": " + mTypeCount + " types in " + mDurationNanos / 1000 + "us";
+        }
+    }
+
+    private StagWarmUp() {
+        throw new UnsupportedOperationException("This class is not instantiable");
+    }
+
+    /**
+     * Gets the adapter of each of the {@code types} from {@code gson}, running one task per
+     * package on {@code executor}, and waits for all of them to finish.
+     *
+     * @param gson       the Gson instance whose adapters should be created.
+     * @param executor   the executor that runs the task of each package, which may run them on
+     *                   the calling thread.
+     * @param roundTrips the number of times an instance of each type is written and read back
+     *                   after its adapter has been created, or 0 to only create the adapters.
+     * @param types      the types to warm up, grouped by package.
+     * @return the time taken by each package, in the order of {@code types}.
+     * @throws InterruptedException if the calling thread is interrupted while waiting.
+     */
+    @NotNull
+    public static List<PackageReport> warmUp(@NotNull final Gson gson, @NotNull Executor executor, final int roundTrips,
+                                             @NotNull Class<?>[][] types) throws InterruptedException {
+        if (roundTrips < 0) {
+            throw new IllegalArgumentException("Illegal round trip count: " + roundTrips);
+        }
+        final PackageReport[] reports = new PackageReport[types.length];
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final CountDownLatch remaining = new CountDownLatch(types.length);
+        for (int index = 0; index < types.length; index++) {
+            final int packageIndex = index;
+            final Class<?>[] packageTypes = types[index];
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        long start = System.nanoTime();
+                        for (Class<?> type : packageTypes) {
+                            warmUp(gson, type, roundTrips);
+                        }
+                        reports[packageIndex] = new PackageReport(getPackageName(packageTypes), packageTypes.length,
+                                                                  System.nanoTime() - start);
+                    } catch (Throwable throwable) {
+                        failure.compareAndSet(null, throwable);
+                    } finally {
+                        remaining.countDown();
+                    }
+                }
+            });
+        }
+        remaining.await();
+
+        Throwable throwable = failure.get();
+        if (throwable instanceof RuntimeException) {
+            throw (RuntimeException) throwable;
+        } else if (throwable instanceof Error) {
+            throw (Error) throwable;
+        }
+        List<PackageReport> result = new ArrayList<>(reports.length);
+        Collections.addAll(result, reports);
+        return result;
+    }
+
+    private static <T> void warmUp(@NotNull Gson gson, @NotNull Class<T> type, int roundTrips) {
+        TypeAdapter<T> adapter = gson.getAdapter(type);
+        if (roundTrips == 0) {
+            return;
+        }
+        T value = createInstance(gson, adapter, type);
+        if (value == null) {
+            return;
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            for (int round = 0; round < roundTrips; round++) {
+                outputStream.reset();
+                StagJsonWriter writer = new StagJsonWriter(outputStream);
+                writer.setLenient(true);
+                adapter.write(writer, value);
+                writer.flush();
+
+                StagJsonReader reader = new StagJsonReader(outputStream.toByteArray());
+                reader.setLenient(true);
+                value = adapter.read(reader);
+            }
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            // Not every instance that can be read is valid for every model, for instance if a
+            // field is validated. The adapters have still been created, so there is nothing to do.
+        }
+    }
+
+    /**
+     * Returns an instance to write, which is the first constant of an enum, or the result of
+     * reading a sample document for other types. If the sample can't be read, for instance
+     * because a field has an adapter that expects a different shape, an empty object is read
+     * instead. Returns null if there is no such instance.
+     */
+    @Nullable
+    private static <T> T createInstance(@NotNull Gson gson, @NotNull TypeAdapter<T> adapter, @NotNull Class<T> type) {
+        if (type.isEnum()) {
+            T[] constants = type.getEnumConstants();
+            return constants.length > 0 ? constants[0] : null;
+        }
+        try {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            StagJsonWriter writer = new StagJsonWriter(outputStream);
+            writer.setLenient(true);
+            writeSample(gson, writer, type, 0);
+            writer.flush();
+            return read(adapter, outputStream.toByteArray());
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            // Fall back to an instance with default values.
+        }
+        try {
+            return read(adapter, EMPTY_OBJECT);
+        } catch (IOException | JsonParseException | IllegalStateException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static <T> T read(@NotNull TypeAdapter<T> adapter, @NotNull byte[] json) throws IOException {
+        StagJsonReader reader = new StagJsonReader(json);
+        reader.setLenient(true);
+        return adapter.read(reader);
+    }
+
+    /**
+     * Writes a sample value of {@code type}: a non default value for primitives, strings and
+     * enums, a single element for arrays, collections and maps, and an object with a sample of
+     * every field for other types declared outside of the platform. Anything else is written as
+     * null.
+     */
+    private static void writeSample(@NotNull Gson gson, @NotNull JsonWriter writer, @NotNull Type type, int depth)
+            throws IOException {
+        Class<?> rawType = TypeToken.get(type).getRawType();
+        if (rawType == boolean.class || rawType == Boolean.class) {
+            writer.value(true);
+        } else if ((rawType.isPrimitive() && rawType != char.class) || Number.class.isAssignableFrom(rawType)) {
+            writer.value(1);
+        } else if (rawType == char.class || rawType == Character.class || rawType == String.class
+                   || rawType == CharSequence.class) {
+            writer.value("a");
+        } else if (rawType.isEnum()) {
+            Object[] constants = rawType.getEnumConstants();
+            if (constants.length == 0) {
+                writer.nullValue();
+            } else {
+                gson.toJson(constants[0], rawType, writer);
+            }
+        } else if (rawType.isArray()) {
+            writer.beginArray();
+            writeSample(gson, writer, type instanceof GenericArrayType
+                    ? ((GenericArrayType) type).getGenericComponentType() : rawType.getComponentType(), depth);
+            writer.endArray();
+        } else if (Collection.class.isAssignableFrom(rawType)) {
+            writer.beginArray();
+            writeSample(gson, writer, getLastTypeArgument(type), depth);
+            writer.endArray();
+        } else if (Map.class.isAssignableFrom(rawType)) {
+            // A numeric key can be read as a string or as a number.
+            writer.beginObject();
+            writer.name("1");
+            writeSample(gson, writer, getLastTypeArgument(type), depth);
+            writer.endObject();
+        } else if (depth < MAX_SAMPLE_DEPTH && isModel(rawType)) {
+            writer.beginObject();
+            for (Class<?> clazz = rawType; clazz != null && clazz != Object.class; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) != 0 || field.isSynthetic()) {
+                        continue;
+                    }
+                    SerializedName serializedName = field.getAnnotation(SerializedName.class);
+                    writer.name(serializedName != null ? serializedName.value() : field.getName());
+                    writeSample(gson, writer, field.getGenericType(), depth + 1);
+                }
+            }
+            writer.endObject();
+        } else {
+            writer.nullValue();
+        }
+    }
+
+    @NotNull
+    private static Type getLastTypeArgument(@NotNull Type type) {
+        if (type instanceof ParameterizedType) {
+            Type[] arguments = ((ParameterizedType) type).getActualTypeArguments();
+            return arguments[arguments.length - 1];
+        }
+        return Object.class;
+    }
+
+    private static boolean isModel(@NotNull Class<?> type) {
+        String name = type.getName();
+        return !type.isInterface() && !Modifier.isAbstract(type.getModifiers())
+               && !name.startsWith("java.") && !name.startsWith("javax.") && !name.startsWith("android.");
+    }
+
+    @NotNull
+    private static String getPackageName(@NotNull Class<?>[] types) {
+        if (types.length == 0) {
+            return "";
+        }
+        String name = types[0].getName();
+        int last = name.lastIndexOf('.');
+        return last == -1 ? "" : name.substring(0, last);
+    }
+}
@@ -0,0 +1,396 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A {@link Map} from {@link String} to {@link Integer} that stores its values as {@code int}s
+ * rather than as boxed objects. Entries are kept in insertion order in parallel arrays, and an
+ * open addressing index is used for lookups. The {@link #getInt(String, int)},
+ * {@link #putInt(String, int)}, {@link #keyAt(int)} and {@link #valueAt(int)} methods never box,
+ * and {@link KnownTypeAdapters#STRING_INT_MAP} reads and writes the map without boxing.
+ * <p>
+ * Null keys and values are not supported. Removing an entry rebuilds the index, so this map is
+ * best suited for payloads that are mostly read.
+ */
+public final class StringIntMap extends AbstractMap<String, Integer> {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    @NotNull
+    private String[] mKeys;
+    @NotNull
+    private int[] mValues;
+    /**
+     * Open addressing index from key hash to entry position plus one, zero marking an empty slot.
+     * Its length is a power of two at least twice the capacity of the entry arrays.
+     */
+    @NotNull
+    private int[] mIndex;
+    private int mSize;
+    private int mModCount;
+
+    @Nullable
+    private Set<Map.Entry<String, Integer>> mEntrySet;
+
+    public StringIntMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public StringIntMap(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("Illegal capacity: " + initialCapacity);
+        }
+        int capacity = Math.max(initialCapacity, 1);
+        mKeys = new String[capacity];
+        mValues = new int[capacity];
+        mIndex = new int[indexLengthFor(capacity)];
+    }
+
+    /**
+     * Returns the value mapped to the key without boxing it, or the default value if there is no
+     * mapping for the key.
+     */
+    public int getInt(@NotNull String key, int defaultValue) {
+        int position = positionOf(key);
+        return position < 0 ? defaultValue : mValues[position];
+    }
+
+    /**
+     * Maps the key to the value without boxing it. If the key was already mapped, its value is
+     * replaced and its position is kept.
+     */
+    public void putInt(@NotNull String key, int value) {
+        int position = findOrInsert(key, value);
+        if (position >= 0) {
+            mValues[position] = value;
+        }
+    }
+
+    /**
+     * Returns the key of the entry at the specified position in insertion order.
+     */
+    @NotNull
+    public String keyAt(int position) {
+        checkPosition(position);
+        return mKeys[position];
+    }
+
+    /**
+     * Returns the value of the entry at the specified position in insertion order without boxing
+     * it.
+     */
+    public int valueAt(int position) {
+        checkPosition(position);
+        return mValues[position];
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    @Override
+    public boolean containsKey(@Nullable Object key) {
+        return key instanceof String && positionOf((String) key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(@Nullable Object value) {
+        if (!(value instanceof Integer)) {
+            return false;
+        }
+        int intValue = (Integer) value;
+        for (int position = 0; position < mSize; position++) {
+            if (mValues[position] == intValue) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Nullable
+    @Override
+    public Integer get(@Nullable Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int position = positionOf((String) key);
+        return position < 0 ? null : mValues[position];
+    }
+
+    @Nullable
+    @Override
+    public Integer put(@NotNull String key, @NotNull Integer value) {
+        int intValue = value;
+        int position = findOrInsert(key, intValue);
+        if (position < 0) {
+            return null;
+        }
+        int previous = mValues[position];
+        mValues[position] = intValue;
+        return previous;
+    }
+
+    @Nullable
+    @Override
+    public Integer remove(@Nullable Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int position = positionOf((String) key);
+        if (position < 0) {
+            return null;
+        }
+        int previous = mValues[position];
+        removeAt(position);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(mKeys, 0, mSize, null);
+        Arrays.fill(mIndex, 0);
+        mSize = 0;
+        mModCount++;
+    }
+
+    @NotNull
+    @Override
+    public Set<Map.Entry<String, Integer>> entrySet() {
+        Set<Map.Entry<String, Integer>> entrySet = mEntrySet;
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+            mEntrySet = entrySet;
+        }
+        return entrySet;
+    }
+
+    private int positionOf(@NotNull String key) {
+        int mask = mIndex.length - 1;
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = mIndex[slot]) != 0) {
+            if (mKeys[entry - 1].equals(key)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Probes the index for the key once. Returns the position of the existing entry for the key
+     * without changing it, or appends a new entry with the value at the empty slot that ended the
+     * probe and returns -1.
+     */
+    private int findOrInsert(@NotNull String key, int value) {
+        //noinspection ConstantConditions
+        if (key == null) {
+            throw new NullPointerException("StringIntMap does not support null keys");
+        }
+        int mask = mIndex.length - 1;
+        int slot = hash(key) & mask;
+        int entry;
+        while ((entry = mIndex[slot]) != 0) {
+            if (mKeys[entry - 1].equals(key)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (mSize == mKeys.length) {
+            grow();
+            insertIntoIndex(key, mSize);
+        } else {
+            mIndex[slot] = mSize + 1;
+        }
+        mKeys[mSize] = key;
+        mValues[mSize] = value;
+        mSize++;
+        mModCount++;
+        return -1;
+    }
+
+    private void removeAt(int position) {
+        int newSize = mSize - 1;
+        System.arraycopy(mKeys, position + 1, mKeys, position, newSize - position);
+        System.arraycopy(mValues, position + 1, mValues, position, newSize - position);
+        mKeys[newSize] = null;
+        mSize = newSize;
+        mModCount++;
+        rebuildIndex();
+    }
+
+    private void grow() {
+        int newCapacity = mKeys.length << 1;
+        mKeys = Arrays.copyOf(mKeys, newCapacity);
+        mValues = Arrays.copyOf(mValues, newCapacity);
+        mIndex = new int[indexLengthFor(newCapacity)];
+        rebuildIndex();
+    }
+
+    private void rebuildIndex() {
+        Arrays.fill(mIndex, 0);
+        for (int position = 0; position < mSize; position++) {
+            insertIntoIndex(mKeys[position], position);
+        }
+    }
+
+    private void insertIntoIndex(@NotNull String key, int position) {
+        int mask = mIndex.length - 1;
+        int slot = hash(key) & mask;
+        while (mIndex[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        mIndex[slot] = position + 1;
+    }
+
+    private void checkPosition(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("Position: " + position + ", Size: " + mSize);
+        }
+    }
+
+    private static int hash(@NotNull String key) {
+        int hash = key.hashCode();
+        return hash ^ (hash >>> 16);
+    }
+
+    private static int indexLengthFor(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<String, Integer>> {
+
+        @NotNull
+        @Override
+        public Iterator<Map.Entry<String, Integer>> iterator() {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size() {
+            return mSize;
+        }
+
+        @Override
+        public void clear() {
+            StringIntMap.this.clear();
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<String, Integer>> {
+
+        private int mNextPosition;
+        private int mLastPosition = -1;
+        private int mExpectedModCount = mModCount;
+
+        @Override
+        public boolean hasNext() {
+            return mNextPosition < mSize;
+        }
+
+        @Override
+        public Map.Entry<String, Integer> next() {
+            if (mExpectedModCount != mModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (mNextPosition >= mSize) {
+                throw new NoSuchElementException();
+            }
+            mLastPosition = mNextPosition++;
+            return new Entry(mLastPosition);
+        }
+
+        @Override
+        public void remove() {
+            if (mLastPosition < 0) {
+                throw new IllegalStateException();
+            }
+            if (mExpectedModCount != mModCount) {
+                throw new ConcurrentModificationException();
+            }
+            removeAt(mLastPosition);
+            mNextPosition = mLastPosition;
+            mLastPosition = -1;
+            mExpectedModCount = mModCount;
+        }
+    }
+
+    private final class Entry implements Map.Entry<String, Integer> {
+
+        private final int mPosition;
+
+        Entry(int position) {
+            mPosition = position;
+        }
+
+        @Override
+        public String getKey() {
+            return mKeys[mPosition];
+        }
+
+        @Override
+        public Integer getValue() {
+            return mValues[mPosition];
+        }
+
+        @Override
+        public Integer setValue(@NotNull Integer value) {
+            int previous = mValues[mPosition];
+            mValues[mPosition] = value;
+            return previous;
+        }
+
+        @Override
+        public boolean equals(@Nullable Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+            return getKey().equals(other.getKey()) && getValue().equals(other.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ mValues[mPosition];
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + mValues[mPosition];
+        }
+    }
+}
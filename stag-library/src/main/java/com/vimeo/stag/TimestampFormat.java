@@ -0,0 +1,70 @@
+/*
+ * The MIT License (MIT)
+ * <p/>
+ * Copyright (c) 2016 Vimeo
+ * <p/>
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ * <p/>
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ * <p/>
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package com.vimeo.stag;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Use this annotation on a {@link java.util.Date}, {@code java.time.Instant},
+ * {@code java.time.OffsetDateTime} or {@code java.time.LocalDate} field to choose how Stag
+ * writes it to JSON and reads it back.
+ * <p>
+ * Fields without this annotation keep using the adapter registered with Gson for their type, so
+ * that adapters registered by the app and formats configured with
+ * {@link com.google.gson.GsonBuilder#setDateFormat(String)} are still honored. Annotate
+ * {@code java.time} fields to read and write them without a registered adapter, since Gson has
+ * none for them.
+ * </p>
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target({ElementType.FIELD})
+public @interface TimestampFormat {
+
+    enum Format {
+        /**
+         * An ISO-8601 string such as {@code "2018-04-09T13:45:30.123Z"}. Instants are written in
+         * UTC, offset date times keep their offset, and local dates are written as
+         * {@code "2018-04-09"}.
+         */
+        ISO_8601,
+        /**
+         * A JSON number holding the milliseconds since the epoch. Not supported for
+         * {@code java.time.LocalDate} fields. Offset date times are read back in UTC.
+         */
+        EPOCH_MILLIS
+    }
+
+    /**
+     * The chosen wire format.
+     *
+     * @return the wire format specified, or the default
+     * if none is specified.
+     */
+    @NotNull Format value() default Format.ISO_8601;
+}
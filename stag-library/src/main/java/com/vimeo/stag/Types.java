@@ -4,15 +4,21 @@ import org.jetbrains.annotations.NotNull;
 
 import java.lang.reflect.Type;
 import java.lang.reflect.WildcardType;
+import java.util.Arrays;
 
 @SuppressWarnings("unused")
 public final class Types {
 
     private Types() {}
 
+    /**
+     * Returns the wildcard type with the given bounds, which is equal to any other wildcard type
+     * with the same bounds. Generated adapters keep the wildcard types of their constant type
+     * tokens in static fields, so this is only called once per adapter class for those.
+     */
     @NotNull
     public static WildcardType getWildcardType(@NotNull Type[] upperBounds, @NotNull Type[] lowerBounds) {
-        return new WildcardTypeImpl(upperBounds, lowerBounds);
+        return new WildcardTypeImpl(upperBounds.clone(), lowerBounds.clone());
     }
 
     private static final class WildcardTypeImpl implements WildcardType {
@@ -36,5 +42,23 @@ public final class Types {
         public Type[] getLowerBounds() {
             return lowerBounds.clone();
         }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WildcardType)) {
+                return false;
+            }
+            WildcardType that = (WildcardType) o;
+            return Arrays.equals(upperBounds, that.getUpperBounds()) && Arrays.equals(lowerBounds, that.getLowerBounds());
+        }
+
+        @Override
+        public int hashCode() {
+            // The same hash code as the JDK implementation, so that equal wildcards hash the same.
+            return Arrays.hashCode(lowerBounds) ^ Arrays.hashCode(upperBounds);
+        }
     }
 }
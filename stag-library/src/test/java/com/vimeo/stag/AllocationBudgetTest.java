@@ -0,0 +1,378 @@
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.internal.bind.TypeAdapters;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Measures the bytes that every adapter in {@link KnownTypeAdapters} allocates per value read and
+ * per value written, and compares them against the budgets checked in to
+ * {@code allocation-budgets.properties}. A change that makes an adapter allocate more than its
+ * budget, such as boxing the elements of a primitive array, fails this test.
+ * Large primitive arrays are also checked to be decoded without boxing their elements.
+ * <p>
+ * The measurement is done by {@link AllocationBudgets}. The budgets were measured on a 64 bit
+ * HotSpot JVM with compressed oops and include some headroom; when an adapter legitimately needs to allocate more,
+ * update its budget to the measured value reported in the failure message.
+ */
+@SuppressWarnings("MagicNumber")
+public class AllocationBudgetTest {
+
+    private static final String BUDGETS_RESOURCE = "allocation-budgets.properties";
+
+    // A power of two so that the scratch buffer ends up exactly full and no trailing copy is needed.
+    private static final int LARGE_ELEMENT_COUNT = 16384;
+    // A boxed Integer or Long outside of the small value cache costs at least this much on its own.
+    private static final int BOXED_ELEMENT_SIZE_BYTES = 16;
+
+    // Written to on every read so that the values being measured are never optimized away.
+    private static Object sObjectSink;
+    private static long sPrimitiveSink;
+
+    @Before
+    public void setUp() {
+        Assume.assumeTrue(AllocationBudgets.isSupported());
+    }
+
+    @Test
+    public void knownTypeAdaptersStayWithinTheirAllocationBudgets() throws IOException {
+        AllocationBudgets budgets = new AllocationBudgets(AllocationBudgetTest.class, BUDGETS_RESOURCE);
+        for (Case allocationCase : cases()) {
+            budgets.check(allocationCase.mName, allocationCase.mJson, allocationCase);
+        }
+
+        assertThat(budgets.getFailures()).as("allocations over budget, measured bytes per value").isEmpty();
+        assertThat(budgets.getUnusedBudgets()).as("budgets without an adapter").isEmpty();
+    }
+
+    @Test
+    public void largePrimitiveArraysAreReadWithoutBoxing() throws IOException {
+        int[] ints = new int[LARGE_ELEMENT_COUNT];
+        long[] longs = new long[LARGE_ELEMENT_COUNT];
+        final IntArrayList intList = new IntArrayList(LARGE_ELEMENT_COUNT);
+        for (int idx = 0; idx < LARGE_ELEMENT_COUNT; idx++) {
+            ints[idx] = 1000 + idx;
+            longs[idx] = 1000L + idx;
+            intList.addInt(1000 + idx);
+        }
+        final String json = KnownTypeAdapters.INT_ARRAY_LIST.toJson(intList);
+
+        long intArrayBytes = AllocationBudgets.measure(new AllocationBudgets.Action() {
+            @Override
+            public void run() throws IOException {
+                sObjectSink = KnownTypeAdapters.PrimitiveIntegerArrayAdapter.read(new JsonReader(new StringReader(json)));
+            }
+        });
+        assertThat((int[]) sObjectSink).containsExactly(ints);
+        assertThat(intArrayBytes).isLessThan((long) LARGE_ELEMENT_COUNT * BOXED_ELEMENT_SIZE_BYTES);
+
+        long longArrayBytes = AllocationBudgets.measure(new AllocationBudgets.Action() {
+            @Override
+            public void run() throws IOException {
+                sObjectSink = KnownTypeAdapters.PrimitiveLongArrayAdapter.read(new JsonReader(new StringReader(json)));
+            }
+        });
+        assertThat((long[]) sObjectSink).containsExactly(longs);
+        // A long[] buffer alone is 8 bytes per element, so the budget is one boxed Long plus the buffer.
+        assertThat(longArrayBytes).isLessThan((long) LARGE_ELEMENT_COUNT * (BOXED_ELEMENT_SIZE_BYTES + 8));
+
+        long intListBytes = AllocationBudgets.measure(new AllocationBudgets.Action() {
+            @Override
+            public void run() throws IOException {
+                sObjectSink = KnownTypeAdapters.INT_ARRAY_LIST.read(new JsonReader(new StringReader(json)));
+            }
+        });
+        assertThat(sObjectSink).isEqualTo(intList);
+        assertThat(intListBytes).isLessThan((long) LARGE_ELEMENT_COUNT * BOXED_ELEMENT_SIZE_BYTES);
+    }
+
+    @NotNull
+    private static List<Case> cases() throws IOException {
+        List<Case> cases = new ArrayList<>();
+
+        cases.add(adapterCase("BYTE", KnownTypeAdapters.BYTE, "100"));
+        cases.add(adapterCase("SHORT", KnownTypeAdapters.SHORT, "10000"));
+        cases.add(adapterCase("INTEGER", KnownTypeAdapters.INTEGER, "1000000"));
+        cases.add(adapterCase("LONG", KnownTypeAdapters.LONG, "10000000000"));
+        cases.add(adapterCase("FLOAT", KnownTypeAdapters.FLOAT, "1.5"));
+        cases.add(adapterCase("DOUBLE", KnownTypeAdapters.DOUBLE, "1.25"));
+
+        cases.add(new Case("PrimitiveByteTypeAdapter", "100") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sPrimitiveSink += KnownTypeAdapters.PrimitiveByteTypeAdapter.read(reader, (byte) 0);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveByteTypeAdapter.write(writer, (byte) 100);
+            }
+        });
+        cases.add(new Case("PrimitiveShortTypeAdapter", "10000") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sPrimitiveSink += KnownTypeAdapters.PrimitiveShortTypeAdapter.read(reader, (short) 0);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveShortTypeAdapter.write(writer, (short) 10000);
+            }
+        });
+        cases.add(new Case("PrimitiveIntTypeAdapter", "1000000") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sPrimitiveSink += KnownTypeAdapters.PrimitiveIntTypeAdapter.read(reader, 0);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveIntTypeAdapter.write(writer, 1000000);
+            }
+        });
+        cases.add(new Case("PrimitiveLongTypeAdapter", "10000000000") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sPrimitiveSink += KnownTypeAdapters.PrimitiveLongTypeAdapter.read(reader, 0L);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveLongTypeAdapter.write(writer, 10000000000L);
+            }
+        });
+        cases.add(new Case("PrimitiveFloatTypeAdapter", "1.5") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sPrimitiveSink += (long) KnownTypeAdapters.PrimitiveFloatTypeAdapter.read(reader, 0f);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveFloatTypeAdapter.write(writer, 1.5f);
+            }
+        });
+        cases.add(new Case("PrimitiveDoubleTypeAdapter", "1.25") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sPrimitiveSink += (long) KnownTypeAdapters.PrimitiveDoubleTypeAdapter.read(reader, 0d);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveDoubleTypeAdapter.write(writer, 1.25d);
+            }
+        });
+        cases.add(new Case("PrimitiveCharTypeAdapter", "\"c\"") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sPrimitiveSink += KnownTypeAdapters.PrimitiveCharTypeAdapter.read(reader, ' ');
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveCharTypeAdapter.write(writer, 'c');
+            }
+        });
+        cases.add(new Case("PrimitiveBooleanTypeAdapter", "true") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sPrimitiveSink += KnownTypeAdapters.PrimitiveBooleanTypeAdapter.read(reader, false) ? 1 : 0;
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveBooleanTypeAdapter.write(writer, true);
+            }
+        });
+
+        String smallNumbers = "[1,2,3,4,5,6,7,8]";
+        cases.add(adapterCase("INTEGER_ARRAY_LIST_ADAPTER", KnownTypeAdapters.INTEGER_ARRAY_LIST_ADAPTER, "[1000,2000,3000,4000,5000,6000,7000,8000]"));
+        cases.add(adapterCase("LONG_ARRAY_LIST_ADAPTER", KnownTypeAdapters.LONG_ARRAY_LIST_ADAPTER, "[1000,2000,3000,4000,5000,6000,7000,8000]"));
+        cases.add(adapterCase("DOUBLE_ARRAY_LIST_ADAPTER", KnownTypeAdapters.DOUBLE_ARRAY_LIST_ADAPTER, "[1.5,2.5,3.5,4.5,5.5,6.5,7.5,8.5]"));
+        cases.add(adapterCase("SHORT_ARRAY_LIST_ADAPTER", KnownTypeAdapters.SHORT_ARRAY_LIST_ADAPTER, smallNumbers));
+        cases.add(adapterCase("FLOAT_ARRAY_LIST_ADAPTER", KnownTypeAdapters.FLOAT_ARRAY_LIST_ADAPTER, "[1.5,2.5,3.5,4.5,5.5,6.5,7.5,8.5]"));
+        cases.add(adapterCase("BOOLEAN_ARRAY_LIST_ADAPTER", KnownTypeAdapters.BOOLEAN_ARRAY_LIST_ADAPTER, "[true,false,true,false,true,false,true,false]"));
+        cases.add(adapterCase("BYTE_ARRAY_LIST_ADAPTER", KnownTypeAdapters.BYTE_ARRAY_LIST_ADAPTER, smallNumbers));
+
+        cases.add(adapterCase("ArrayTypeAdapter", new KnownTypeAdapters.ArrayTypeAdapter<>(TypeAdapters.STRING,
+                new KnownTypeAdapters.PrimitiveArrayConstructor<String>() {
+                    @NotNull
+                    @Override
+                    public String[] construct(int size) {
+                        return new String[size];
+                    }
+                }), "[\"a\",\"b\",\"c\",\"d\"]"));
+
+        final int[] ints = {1000, 2000, 3000, 4000, 5000, 6000, 7000, 8000};
+        cases.add(new Case("PrimitiveIntegerArrayAdapter", "[1000,2000,3000,4000,5000,6000,7000,8000]") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sObjectSink = KnownTypeAdapters.PrimitiveIntegerArrayAdapter.read(reader);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveIntegerArrayAdapter.write(writer, ints);
+            }
+        });
+        final long[] longs = {1000L, 2000L, 3000L, 4000L, 5000L, 6000L, 7000L, 8000L};
+        cases.add(new Case("PrimitiveLongArrayAdapter", "[1000,2000,3000,4000,5000,6000,7000,8000]") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sObjectSink = KnownTypeAdapters.PrimitiveLongArrayAdapter.read(reader);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveLongArrayAdapter.write(writer, longs);
+            }
+        });
+        final double[] doubles = {1.5, 2.5, 3.5, 4.5, 5.5, 6.5, 7.5, 8.5};
+        cases.add(new Case("PrimitiveDoubleArrayAdapter", "[1.5,2.5,3.5,4.5,5.5,6.5,7.5,8.5]") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sObjectSink = KnownTypeAdapters.PrimitiveDoubleArrayAdapter.read(reader);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveDoubleArrayAdapter.write(writer, doubles);
+            }
+        });
+        final short[] shorts = {1, 2, 3, 4, 5, 6, 7, 8};
+        cases.add(new Case("PrimitiveShortArrayAdapter", smallNumbers) {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sObjectSink = KnownTypeAdapters.PrimitiveShortArrayAdapter.read(reader);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveShortArrayAdapter.write(writer, shorts);
+            }
+        });
+        final float[] floats = {1.5f, 2.5f, 3.5f, 4.5f, 5.5f, 6.5f, 7.5f, 8.5f};
+        cases.add(new Case("PrimitiveFloatArrayAdapter", "[1.5,2.5,3.5,4.5,5.5,6.5,7.5,8.5]") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sObjectSink = KnownTypeAdapters.PrimitiveFloatArrayAdapter.read(reader);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveFloatArrayAdapter.write(writer, floats);
+            }
+        });
+        final boolean[] booleans = {true, false, true, false, true, false, true, false};
+        cases.add(new Case("PrimitiveBooleanArrayAdapter", "[true,false,true,false,true,false,true,false]") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sObjectSink = KnownTypeAdapters.PrimitiveBooleanArrayAdapter.read(reader);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveBooleanArrayAdapter.write(writer, booleans);
+            }
+        });
+        final byte[] bytes = {1, 2, 3, 4, 5, 6, 7, 8};
+        cases.add(new Case("PrimitiveByteArrayAdapter", smallNumbers) {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sObjectSink = KnownTypeAdapters.PrimitiveByteArrayAdapter.read(reader);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveByteArrayAdapter.write(writer, bytes);
+            }
+        });
+        final char[] chars = "abcdefgh".toCharArray();
+        cases.add(new Case("PrimitiveCharArrayAdapter", "\"abcdefgh\"") {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sObjectSink = KnownTypeAdapters.PrimitiveCharArrayAdapter.read(reader);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                KnownTypeAdapters.PrimitiveCharArrayAdapter.write(writer, chars);
+            }
+        });
+
+        cases.add(adapterCase("INT_ARRAY_LIST", KnownTypeAdapters.INT_ARRAY_LIST, "[1000,2000,3000,4000,5000,6000,7000,8000]"));
+        cases.add(adapterCase("LONG_ARRAY_LIST", KnownTypeAdapters.LONG_ARRAY_LIST, "[1000,2000,3000,4000,5000,6000,7000,8000]"));
+        cases.add(adapterCase("DOUBLE_ARRAY_LIST", KnownTypeAdapters.DOUBLE_ARRAY_LIST, "[1.5,2.5,3.5,4.5,5.5,6.5,7.5,8.5]"));
+        cases.add(adapterCase("STRING_INT_MAP", KnownTypeAdapters.STRING_INT_MAP, "{\"one\":1000,\"two\":2000,\"three\":3000,\"four\":4000}"));
+
+        cases.add(adapterCase("ListTypeAdapter", new KnownTypeAdapters.ListTypeAdapter<>(TypeAdapters.STRING,
+                new KnownTypeAdapters.ListInstantiator<String>()), "[\"a\",\"b\",\"c\",\"d\"]"));
+        cases.add(adapterCase("MapTypeAdapter", new KnownTypeAdapters.MapTypeAdapter<>(TypeAdapters.STRING, KnownTypeAdapters.INTEGER,
+                new KnownTypeAdapters.HashMapInstantiator<String, Integer>()), "{\"one\":1000,\"two\":2000,\"three\":3000,\"four\":4000}"));
+        cases.add(adapterCase("ObjectTypeAdapter", new KnownTypeAdapters.ObjectTypeAdapter(new Gson()),
+                "{\"name\":\"stag\",\"count\":3,\"tags\":[\"a\",\"b\"]}"));
+
+        cases.add(adapterCase("JSON_ELEMENT", KnownTypeAdapters.JSON_ELEMENT, "{\"name\":\"stag\",\"count\":3,\"tags\":[\"a\",\"b\"]}"));
+        cases.add(adapterCase("JSON_OBJECT", KnownTypeAdapters.JSON_OBJECT, "{\"name\":\"stag\",\"count\":3}"));
+        cases.add(adapterCase("JSON_ARRAY", KnownTypeAdapters.JSON_ARRAY, "[\"a\",\"b\",3]"));
+        cases.add(adapterCase("JSON_PRIMITIVE", KnownTypeAdapters.JSON_PRIMITIVE, "\"stag\""));
+        cases.add(adapterCase("JSON_NULL", KnownTypeAdapters.JSON_NULL, "null"));
+
+        cases.add(adapterCase("UUID", KnownTypeAdapters.UUID, "\"123e4567-e89b-12d3-a456-426655440000\""));
+        cases.add(adapterCase("ISO_8601_DATE", KnownTypeAdapters.ISO_8601_DATE, "\"2018-06-01T12:30:45.123Z\""));
+        cases.add(adapterCase("EPOCH_MILLIS_DATE", KnownTypeAdapters.EPOCH_MILLIS_DATE, "1527856245123"));
+        cases.add(adapterCase("JavaTime.ISO_8601_INSTANT", KnownTypeAdapters.JavaTime.ISO_8601_INSTANT, "\"2018-06-01T12:30:45.123Z\""));
+        cases.add(adapterCase("JavaTime.EPOCH_MILLIS_INSTANT", KnownTypeAdapters.JavaTime.EPOCH_MILLIS_INSTANT, "1527856245123"));
+        cases.add(adapterCase("JavaTime.ISO_8601_OFFSET_DATE_TIME", KnownTypeAdapters.JavaTime.ISO_8601_OFFSET_DATE_TIME, "\"2018-06-01T12:30:45.123+02:00\""));
+        cases.add(adapterCase("JavaTime.EPOCH_MILLIS_OFFSET_DATE_TIME", KnownTypeAdapters.JavaTime.EPOCH_MILLIS_OFFSET_DATE_TIME, "1527856245123"));
+        cases.add(adapterCase("JavaTime.ISO_8601_LOCAL_DATE", KnownTypeAdapters.JavaTime.ISO_8601_LOCAL_DATE, "\"2018-06-01\""));
+
+        return cases;
+    }
+
+    @NotNull
+    private static <T> Case adapterCase(@NotNull String name, @NotNull final TypeAdapter<T> adapter,
+                                        @NotNull String json) throws IOException {
+        final T value = adapter.fromJson(json);
+        return new Case(name, json) {
+            @Override
+            public void read(@NotNull JsonReader reader) throws IOException {
+                sObjectSink = adapter.read(reader);
+            }
+
+            @Override
+            public void write(@NotNull JsonWriter writer) throws IOException {
+                adapter.write(writer, value);
+            }
+        };
+    }
+
+    /**
+     * A single adapter under measurement, along with the JSON for one of the values it reads.
+     */
+    private abstract static class Case implements AllocationBudgets.Subject {
+
+        @NotNull final String mName;
+        @NotNull final String mJson;
+
+        Case(@NotNull String name, @NotNull String json) {
+            mName = name;
+            mJson = json;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.vimeo.stag;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Measures the bytes allocated per value read and per value written with
+ * {@code com.sun.management.ThreadMXBean#getThreadAllocatedBytes}, and compares them against the
+ * budgets in a properties resource, keyed by {@code <name>.read} and {@code <name>.write}. Shared
+ * by the allocation budget tests of the library adapters and of the generated adapters.
+ * <p>
+ * Each value is read from, or written to, a single long JSON array so that the cost of creating
+ * the reader or writer is not counted, and the median of several rounds is compared so that JIT
+ * compilation does not make the result flaky.
+ * <p>
+ * The budgets are absolute byte counts, which only hold for the object layout of a 64 bit HotSpot
+ * JVM with compressed oops, so the measurements are only supported on such a JVM.
+ */
+@SuppressWarnings("MagicNumber")
+public final class AllocationBudgets {
+
+    private static final int WARM_UP_VALUES = 3000;
+    private static final int VALUES_PER_ROUND = 1000;
+    private static final int ROUNDS = 5;
+
+    /**
+     * Reads or writes a single value with the adapter under measurement.
+     */
+    public interface Subject {
+
+        void read(@NotNull JsonReader reader) throws IOException;
+
+        void write(@NotNull JsonWriter writer) throws IOException;
+    }
+
+    @NotNull
+    private final com.sun.management.ThreadMXBean mThreadMXBean;
+    @NotNull
+    private final Properties mBudgets;
+    @NotNull
+    private final List<String> mFailures = new ArrayList<>();
+    @NotNull
+    private final Set<String> mUnusedBudgets;
+
+    /**
+     * Performs the allocations under measurement.
+     */
+    public interface Action {
+
+        void run() throws IOException;
+    }
+
+    /**
+     * Returns whether the JVM can measure the bytes allocated by a thread, and lays out objects
+     * like the JVM that the budgets were measured on. Tests should be skipped when it does not.
+     */
+    public static boolean isSupported() {
+        java.lang.management.ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        return threadMXBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()
+                && "64".equals(System.getProperty("sun.arch.data.model"))
+                && hasCompressedOops();
+    }
+
+    private static boolean hasCompressedOops() {
+        try {
+            HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            return hotSpot != null && "true".equals(hotSpot.getVMOption("UseCompressedOops").getValue());
+        } catch (IllegalArgumentException e) {
+            // Not a HotSpot JVM.
+            return false;
+        }
+    }
+
+    /**
+     * Returns the bytes the current thread allocates to run {@code action} once. The action is run
+     * once before it is measured, so that class loading and initialization are not counted.
+     */
+    public static long measure(@NotNull Action action) throws IOException {
+        com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        threadMXBean.setThreadAllocatedMemoryEnabled(true);
+        action.run();
+        long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        action.run();
+        return threadMXBean.getThreadAllocatedBytes(threadId) - before;
+    }
+
+    /**
+     * @param owner    the class that the budgets resource is loaded relative to.
+     * @param resource the name of the properties resource that holds the budgets.
+     */
+    public AllocationBudgets(@NotNull Class<?> owner, @NotNull String resource) throws IOException {
+        mThreadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        mThreadMXBean.setThreadAllocatedMemoryEnabled(true);
+
+        InputStream stream = owner.getResourceAsStream(resource);
+        if (stream == null) {
+            throw new IOException("Missing allocation budgets: " + resource);
+        }
+        mBudgets = new Properties();
+        try {
+            mBudgets.load(stream);
+        } finally {
+            stream.close();
+        }
+        mUnusedBudgets = new TreeSet<>(mBudgets.stringPropertyNames());
+    }
+
+    /**
+     * Measures reading and writing the subject, recording a failure for each measurement that is
+     * over its budget or has no budget.
+     *
+     * @param name    the name of the budgets, without the {@code .read} or {@code .write} suffix.
+     * @param json    the JSON of a single value, as read by the subject.
+     * @param subject the adapter under measurement.
+     */
+    public void check(@NotNull String name, @NotNull String json, @NotNull Subject subject) throws IOException {
+        checkBudget(name + ".read", readBytesPerValue(json, subject));
+        checkBudget(name + ".write", writtenBytesPerValue(subject));
+    }
+
+    /**
+     * Returns the measurements that were over budget or had no budget, with the measured bytes
+     * per value, so that the budgets can be updated from the failure message.
+     */
+    @NotNull
+    public List<String> getFailures() {
+        return mFailures;
+    }
+
+    /**
+     * Returns the budgets that nothing was measured against.
+     */
+    @NotNull
+    public Set<String> getUnusedBudgets() {
+        return mUnusedBudgets;
+    }
+
+    private void checkBudget(@NotNull String key, long measured) {
+        mUnusedBudgets.remove(key);
+        String budget = mBudgets.getProperty(key);
+        if (budget == null) {
+            mFailures.add(key + "=" + measured + " (no budget)");
+        } else if (measured > Long.parseLong(budget.trim())) {
+            mFailures.add(key + "=" + measured + " (budget " + budget.trim() + ")");
+        }
+    }
+
+    private long readBytesPerValue(@NotNull String json, @NotNull Subject subject) throws IOException {
+        StringBuilder array = new StringBuilder("[");
+        for (int idx = 0; idx < WARM_UP_VALUES + VALUES_PER_ROUND * ROUNDS; idx++) {
+            if (idx > 0) {
+                array.append(',');
+            }
+            array.append(json);
+        }
+        array.append(']');
+
+        JsonReader reader = new JsonReader(new StringReader(array.toString()));
+        reader.beginArray();
+        for (int idx = 0; idx < WARM_UP_VALUES; idx++) {
+            subject.read(reader);
+        }
+        long[] rounds = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = allocatedBytes();
+            for (int idx = 0; idx < VALUES_PER_ROUND; idx++) {
+                subject.read(reader);
+            }
+            rounds[round] = (allocatedBytes() - before) / VALUES_PER_ROUND;
+        }
+        reader.endArray();
+        return median(rounds);
+    }
+
+    private long writtenBytesPerValue(@NotNull Subject subject) throws IOException {
+        JsonWriter writer = new JsonWriter(new NullWriter());
+        writer.beginArray();
+        for (int idx = 0; idx < WARM_UP_VALUES; idx++) {
+            subject.write(writer);
+        }
+        long[] rounds = new long[ROUNDS];
+        for (int round = 0; round < ROUNDS; round++) {
+            long before = allocatedBytes();
+            for (int idx = 0; idx < VALUES_PER_ROUND; idx++) {
+                subject.write(writer);
+            }
+            rounds[round] = (allocatedBytes() - before) / VALUES_PER_ROUND;
+        }
+        writer.endArray();
+        return median(rounds);
+    }
+
+    /**
+     * The median of the rounds, so that a round which happens to overlap a JIT compilation of the
+     * adapter does not decide the result.
+     */
+    private static long median(@NotNull long[] rounds) {
+        Arrays.sort(rounds);
+        return rounds[rounds.length / 2];
+    }
+
+    private long allocatedBytes() {
+        return mThreadMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static final class NullWriter extends Writer {
+
+        @Override
+        public void write(@NotNull char[] buffer, int offset, int length) {
+        }
+
+        @Override
+        public void write(@NotNull String string, int offset, int length) {
+        }
+
+        @Override
+        public void write(int character) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.vimeo.stag;
+
+import com.google.gson.JsonSyntaxException;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Date;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+/**
+ * Unit tests for {@link Iso8601} and the timestamp adapters in {@link KnownTypeAdapters}.
+ */
+@SuppressWarnings("MagicNumber")
+public class Iso8601Test {
+
+    private static final long MAX_EPOCH_MILLIS = 253402300799999L; // 9999-12-31T23:59:59.999Z
+    private static final long MIN_EPOCH_MILLIS = -62167219200000L; // 0000-01-01T00:00:00Z
+
+    @Test
+    public void formatAndParseMatchJavaTime() {
+        Random random = new Random(42);
+        for (int idx = 0; idx < 10000; idx++) {
+            long epochMillis = MIN_EPOCH_MILLIS + (long) (random.nextDouble() * (MAX_EPOCH_MILLIS - MIN_EPOCH_MILLIS));
+            Instant instant = Instant.ofEpochMilli(epochMillis);
+
+            String formatted = Iso8601.formatEpochMillis(epochMillis);
+            assertThat(formatted).isEqualTo(instant.toString());
+            assertThat(Iso8601.parse(formatted).getEpochMillis()).isEqualTo(epochMillis);
+
+            long epochDay = Math.floorDiv(epochMillis, 86400000L);
+            assertThat(Iso8601.formatDate(epochDay)).isEqualTo(LocalDate.ofEpochDay(epochDay).toString());
+        }
+    }
+
+    @Test
+    public void parseSupportsOffsetsAndFractions() {
+        long expected = OffsetDateTime.of(2018, 4, 9, 9, 45, 30, 120000000, ZoneOffset.ofHours(-4))
+                .toInstant().toEpochMilli();
+        assertThat(Iso8601.parse("2018-04-09T09:45:30.12-04:00").getEpochMillis()).isEqualTo(expected);
+        assertThat(Iso8601.parse("2018-04-09T09:45:30.12-0400").getEpochMillis()).isEqualTo(expected);
+        assertThat(Iso8601.parse("2018-04-09T09:45:30.120000-04").getEpochMillis()).isEqualTo(expected);
+        assertThat(Iso8601.parse("2018-04-09t13:45:30,12z").getEpochMillis()).isEqualTo(expected);
+
+        assertThat(Iso8601.parse("2018-04-09T13:45Z").getEpochMillis()).isEqualTo(1523281500000L);
+        assertThat(Iso8601.parse("2018-04-09").getEpochMillis()).isEqualTo(1523232000000L);
+        assertThat(Iso8601.parse("2018-04-09T13:45:30.123456789Z").mNano).isEqualTo(123456789);
+    }
+
+    @Test
+    public void formatKeepsOffsetAndFractionPrecision() {
+        assertThat(Iso8601.format(1523281530L, 0, -4 * 3600)).isEqualTo("2018-04-09T09:45:30-04:00");
+        assertThat(Iso8601.format(1523281530L, 123000000, 0)).isEqualTo("2018-04-09T13:45:30.123Z");
+        assertThat(Iso8601.format(1523281530L, 123456000, 0)).isEqualTo("2018-04-09T13:45:30.123456Z");
+        assertThat(Iso8601.format(1523281530L, 123456789, 0)).isEqualTo("2018-04-09T13:45:30.123456789Z");
+        assertThat(Iso8601.format(1523281530L, 123456789, -(5 * 3600 + 30 * 60 + 45)))
+                .isEqualTo("2018-04-09T08:14:45.123456789-05:30:45");
+    }
+
+    @Test
+    public void formatAndParseExpandedYearsLikeJavaTime() {
+        long[] epochMillis = {MAX_EPOCH_MILLIS + 1, MIN_EPOCH_MILLIS - 1, Long.MAX_VALUE, Long.MIN_VALUE,
+                -62198755200000L, 4102444800000000L};
+        for (long millis : epochMillis) {
+            String formatted = Iso8601.formatEpochMillis(millis);
+            assertThat(formatted).isEqualTo(Instant.ofEpochMilli(millis).toString());
+            assertThat(Iso8601.parse(formatted).getEpochMillis()).isEqualTo(millis);
+        }
+        assertThat(Iso8601.formatEpochMillis(MAX_EPOCH_MILLIS + 1)).isEqualTo("+10000-01-01T00:00:00Z");
+
+        for (LocalDate date : new LocalDate[]{LocalDate.MAX, LocalDate.MIN, LocalDate.of(-4, 2, 29)}) {
+            assertThat(Iso8601.formatDate(date.toEpochDay())).isEqualTo(date.toString());
+            assertThat(Iso8601.parse(date.toString()).getEpochSecond()).isEqualTo(date.toEpochDay() * 86400);
+        }
+        assertThat(Iso8601.format(Instant.MAX.getEpochSecond(), Instant.MAX.getNano(), 0))
+                .isEqualTo(Instant.MAX.toString());
+        assertThat(Iso8601.format(Instant.MIN.getEpochSecond(), 0, 0)).isEqualTo(Instant.MIN.toString());
+        OffsetDateTime offsetDateTime = OffsetDateTime.of(-12345, 6, 7, 8, 9, 10, 0, ZoneOffset.ofHours(-18));
+        assertThat(Iso8601.format(offsetDateTime.toEpochSecond(), 0, -18 * 3600)).isEqualTo(offsetDateTime.toString());
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void parseRejectsExpandedYearWithFewerThanFourDigits() {
+        Iso8601.parse("+999-01-01");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void parseRejectsMillisecondsOverflow() {
+        Iso8601.parse("+300000000-01-01T00:00:00Z").getEpochMillis();
+    }
+
+    @Test
+    public void parseSupportsOffsetsWithSeconds() {
+        long expected = OffsetDateTime.of(2018, 4, 9, 9, 45, 30, 0, ZoneOffset.ofHoursMinutesSeconds(5, 30, 45))
+                .toEpochSecond();
+        assertThat(Iso8601.parse("2018-04-09T09:45:30+05:30:45").getEpochSecond()).isEqualTo(expected);
+        assertThat(Iso8601.parse("2018-04-09T09:45:30+053045").getEpochSecond()).isEqualTo(expected);
+        assertThat(Iso8601.parse("2018-04-09T09:45:30+05:30:45").mOffsetSeconds).isEqualTo(19845);
+    }
+
+    @Test
+    public void parseRejectsTruncatedOffsets() {
+        for (String string : new String[]{"2018-04-09T09:45:30+05:", "2018-04-09T09:45:30+05:3",
+                "2018-04-09T09:45:30+05:30:", "2018-04-09T09:45:30+053", "2018-04-09T09:45:30+"}) {
+            try {
+                Iso8601.parse(string);
+                fail("Expected " + string + " to be rejected");
+            } catch (JsonSyntaxException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void parseRejectsInvalidOffsetSeconds() {
+        Iso8601.parse("2018-04-09T09:45:30+05:30:60");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void parseRequiresZoneWithTime() {
+        Iso8601.parse("2018-04-09T13:45:30");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void parseRejectsInvalidDay() {
+        Iso8601.parse("2018-02-29");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void parseRejectsTrailingCharacters() {
+        Iso8601.parse("2018-04-09T13:45:30Zabc");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void parseRejectsTruncatedString() {
+        Iso8601.parse("2018-04");
+    }
+
+    @Test
+    public void dateAdaptersRoundTrip() throws Exception {
+        Date date = new Date(1523281530123L);
+        assertThat(KnownTypeAdapters.ISO_8601_DATE.toJson(date)).isEqualTo("\"2018-04-09T13:45:30.123Z\"");
+        assertThat(KnownTypeAdapters.ISO_8601_DATE.fromJson("\"2018-04-09T13:45:30.123Z\"")).isEqualTo(date);
+        assertThat(KnownTypeAdapters.EPOCH_MILLIS_DATE.toJson(date)).isEqualTo("1523281530123");
+        assertThat(KnownTypeAdapters.EPOCH_MILLIS_DATE.fromJson("1523281530123")).isEqualTo(date);
+        assertThat(KnownTypeAdapters.ISO_8601_DATE.fromJson("null")).isNull();
+        assertThat(KnownTypeAdapters.EPOCH_MILLIS_DATE.toJson(null)).isEqualTo("null");
+
+        // Like the java.time adapters, years outside of 0000-9999 are written with a sign.
+        Date farFuture = new Date(MAX_EPOCH_MILLIS + 1);
+        String farFutureJson = KnownTypeAdapters.ISO_8601_DATE.toJson(farFuture);
+        assertThat(farFutureJson).isEqualTo(KnownTypeAdapters.JavaTime.ISO_8601_INSTANT.toJson(farFuture.toInstant()));
+        assertThat(KnownTypeAdapters.ISO_8601_DATE.fromJson(farFutureJson)).isEqualTo(farFuture);
+    }
+
+    @Test
+    public void javaTimeAdaptersRoundTrip() throws Exception {
+        Instant instant = Instant.ofEpochSecond(1523281530L, 5000);
+        String instantJson = KnownTypeAdapters.JavaTime.ISO_8601_INSTANT.toJson(instant);
+        assertThat(instantJson).isEqualTo("\"2018-04-09T13:45:30.000005Z\"");
+        assertThat(KnownTypeAdapters.JavaTime.ISO_8601_INSTANT.fromJson(instantJson)).isEqualTo(instant);
+
+        Instant farFuture = Instant.parse("+10000-01-01T00:00:00Z");
+        String farFutureJson = KnownTypeAdapters.JavaTime.ISO_8601_INSTANT.toJson(farFuture);
+        assertThat(KnownTypeAdapters.JavaTime.ISO_8601_INSTANT.fromJson(farFutureJson)).isEqualTo(farFuture);
+
+        OffsetDateTime offsetDateTime = OffsetDateTime.of(2018, 4, 9, 9, 45, 30, 0, ZoneOffset.ofHoursMinutes(5, 30));
+        String offsetDateTimeJson = KnownTypeAdapters.JavaTime.ISO_8601_OFFSET_DATE_TIME.toJson(offsetDateTime);
+        assertThat(offsetDateTimeJson).isEqualTo("\"2018-04-09T09:45:30+05:30\"");
+        assertThat(KnownTypeAdapters.JavaTime.ISO_8601_OFFSET_DATE_TIME.fromJson(offsetDateTimeJson)).isEqualTo(offsetDateTime);
+
+        OffsetDateTime offsetWithSeconds = OffsetDateTime.of(2018, 4, 9, 9, 45, 30, 123456789,
+                                                             ZoneOffset.ofHoursMinutesSeconds(-5, -30, -45));
+        String offsetWithSecondsJson = KnownTypeAdapters.JavaTime.ISO_8601_OFFSET_DATE_TIME.toJson(offsetWithSeconds);
+        assertThat(offsetWithSecondsJson).isEqualTo("\"2018-04-09T09:45:30.123456789-05:30:45\"");
+        assertThat(KnownTypeAdapters.JavaTime.ISO_8601_OFFSET_DATE_TIME.fromJson(offsetWithSecondsJson))
+                .isEqualTo(offsetWithSeconds);
+        assertThat(KnownTypeAdapters.JavaTime.ISO_8601_INSTANT.fromJson(offsetWithSecondsJson))
+                .isEqualTo(offsetWithSeconds.toInstant());
+
+        String epochJson = KnownTypeAdapters.JavaTime.EPOCH_MILLIS_OFFSET_DATE_TIME.toJson(offsetDateTime);
+        assertThat(KnownTypeAdapters.JavaTime.EPOCH_MILLIS_OFFSET_DATE_TIME.fromJson(epochJson))
+                .isEqualTo(offsetDateTime.withOffsetSameInstant(ZoneOffset.UTC));
+
+        LocalDate localDate = LocalDate.of(2018, 4, 9);
+        assertThat(KnownTypeAdapters.JavaTime.ISO_8601_LOCAL_DATE.toJson(localDate)).isEqualTo("\"2018-04-09\"");
+        assertThat(KnownTypeAdapters.JavaTime.ISO_8601_LOCAL_DATE.fromJson("\"2018-04-09\"")).isEqualTo(localDate);
+        String maxDateJson = KnownTypeAdapters.JavaTime.ISO_8601_LOCAL_DATE.toJson(LocalDate.MAX);
+        assertThat(maxDateJson).isEqualTo("\"+999999999-12-31\"");
+        assertThat(KnownTypeAdapters.JavaTime.ISO_8601_LOCAL_DATE.fromJson(maxDateJson)).isEqualTo(LocalDate.MAX);
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void localDateAdapterRejectsTime() throws Exception {
+        KnownTypeAdapters.JavaTime.ISO_8601_LOCAL_DATE.fromJson("\"2018-04-09T13:45:30Z\"");
+    }
+
+    @Test
+    public void uuidAdapterRoundTrips() throws Exception {
+        UUID uuid = UUID.fromString("123e4567-e89b-12d3-a456-426655440000");
+        assertThat(KnownTypeAdapters.UUID.toJson(uuid)).isEqualTo("\"123e4567-e89b-12d3-a456-426655440000\"");
+        assertThat(KnownTypeAdapters.UUID.fromJson("\"123e4567-e89b-12d3-a456-426655440000\"")).isEqualTo(uuid);
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void uuidAdapterRejectsInvalidString() throws Exception {
+        KnownTypeAdapters.UUID.fromJson("\"not-a-uuid\"");
+    }
+}
@@ -0,0 +1,168 @@
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link JsonLinesReader} and {@link JsonLinesWriter}.
+ */
+@SuppressWarnings("MagicNumber")
+public class JsonLinesTest {
+
+    private final Gson mGson = new Gson();
+
+    static final class Entry {
+        int id;
+        String name;
+
+        Entry() {
+        }
+
+        Entry(int id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+
+    @Test
+    public void writesAndReadsRecords() throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonLinesWriter<Entry> writer = JsonLinesWriter.create(mGson, Entry.class, outputStream);
+        writer.write(new Entry(1, "a"));
+        writer.write(null);
+        writer.write(new Entry(2, "\u00e9\n"));
+        writer.close();
+
+        assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8))
+                .isEqualTo("{\"id\":1,\"name\":\"a\"}\nnull\n{\"id\":2,\"name\":\"\u00e9\\n\"}\n");
+
+        JsonLinesReader<Entry> reader = JsonLinesReader.create(mGson, Entry.class, new ByteArrayInputStream(outputStream.toByteArray()));
+        assertThat(reader.next().name).isEqualTo("a");
+        assertThat(reader.next()).isNull();
+        assertThat(reader.next().name).isEqualTo("\u00e9\n");
+        assertThat(reader.getLineNumber()).isEqualTo(3);
+        assertThat(reader.hasNext()).isFalse();
+        reader.close();
+    }
+
+    @Test
+    public void skipsBlankLinesAndCarriageReturns() throws IOException {
+        JsonLinesReader<Entry> reader = JsonLinesReader.create(mGson, Entry.class,
+                inputStream("\n{\"id\":1}\r\n  \r\n{\"id\":2}\r\n{\"id\":3}"));
+        assertThat(ids(reader)).containsExactly(1, 2, 3);
+        assertThat(reader.getLineNumber()).isEqualTo(5);
+    }
+
+    @Test
+    public void malformedLineThrowsWithLineNumber() throws IOException {
+        JsonLinesReader<Entry> reader = JsonLinesReader.create(mGson, Entry.class,
+                inputStream("{\"id\":1}\n{\"id\":2} {}\n{\"id\":3}\n"));
+        assertThat(reader.next().id).isEqualTo(1);
+        try {
+            reader.next();
+            fail("Expected a JsonSyntaxException");
+        } catch (JsonSyntaxException expected) {
+            assertThat(expected).hasMessageContaining("line 2");
+        }
+        // The reader moves on to the line after the malformed one.
+        assertThat(reader.next().id).isEqualTo(3);
+    }
+
+    @Test
+    public void malformedLinesAreReportedToHandler() throws IOException {
+        JsonLinesReader<Entry> reader = JsonLinesReader.create(mGson, Entry.class,
+                inputStream("{\"id\":1}\n{\"id\":\n[1]\n{\"id\":\"x\"}\n{\"id\":4}\n"));
+        final List<Long> malformedLines = new ArrayList<>();
+        reader.setMalformedLineHandler((lineNumber, exception) -> malformedLines.add(lineNumber));
+        assertThat(ids(reader)).containsExactly(1, 4);
+        assertThat(malformedLines).containsExactly(2L, 3L, 4L);
+    }
+
+    @Test
+    public void readsBatches() throws IOException {
+        StringBuilder json = new StringBuilder();
+        for (int idx = 0; idx < 10; idx++) {
+            json.append("{\"id\":").append(idx).append("}\n");
+        }
+        JsonLinesReader<Entry> reader = JsonLinesReader.create(mGson, Entry.class, inputStream(json.toString()));
+        final List<Integer> batchSizes = new ArrayList<>();
+        final List<Integer> ids = new ArrayList<>();
+        long count = reader.readBatches(4, batch -> {
+            batchSizes.add(batch.size());
+            for (Entry entry : batch) {
+                ids.add(entry.id);
+            }
+        });
+        assertThat(count).isEqualTo(10);
+        assertThat(batchSizes).containsExactly(4, 4, 2);
+        assertThat(ids).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9);
+    }
+
+    @Test
+    public void readsLinesLongerThanBuffer() throws IOException {
+        StringBuilder name = new StringBuilder();
+        for (int idx = 0; idx < 200000; idx++) {
+            name.append((char) ('a' + idx % 26));
+        }
+        StringBuilder json = new StringBuilder();
+        for (int idx = 0; idx < 5; idx++) {
+            json.append("{\"id\":").append(idx).append(",\"name\":\"").append(name).append("\"}\n");
+        }
+        JsonLinesReader<Entry> reader = JsonLinesReader.create(mGson, Entry.class, inputStream(json.toString()));
+        for (int idx = 0; idx < 5; idx++) {
+            Entry entry = reader.next();
+            assertThat(entry.id).isEqualTo(idx);
+            assertThat(entry.name).isEqualTo(name.toString());
+        }
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    @Test
+    public void parallelWriteKeepsOrder() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        for (int idx = 0; idx < 10000; idx++) {
+            entries.add(new Entry(idx, "entry" + idx));
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        JsonLinesWriter<Entry> writer = JsonLinesWriter.create(mGson, Entry.class, outputStream);
+        writer.write(new Entry(-1, null));
+        writer.writeAllParallel(entries, new ForkJoinPool(4));
+        writer.write(new Entry(-2, null));
+        writer.close();
+
+        JsonLinesReader<Entry> reader = JsonLinesReader.create(mGson, Entry.class, new ByteArrayInputStream(outputStream.toByteArray()));
+        List<Integer> ids = ids(reader);
+        assertThat(ids).hasSize(10002);
+        assertThat(ids.get(0)).isEqualTo(-1);
+        for (int idx = 0; idx < 10000; idx++) {
+            assertThat(ids.get(idx + 1)).isEqualTo(idx);
+        }
+        assertThat(ids.get(10001)).isEqualTo(-2);
+    }
+
+    private static List<Integer> ids(JsonLinesReader<Entry> reader) throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        while (reader.hasNext()) {
+            ids.add(reader.next().id);
+        }
+        return ids;
+    }
+
+    private static InputStream inputStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
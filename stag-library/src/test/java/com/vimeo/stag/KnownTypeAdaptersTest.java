@@ -98,6 +98,18 @@ public class KnownTypeAdaptersTest {
         assertEquals(input, readValue);
     }
 
+    @Test
+    public void primitiveArrayAdaptersTrimResultToExactSize() throws Exception {
+        int[] result = KnownTypeAdapters.PrimitiveIntegerArrayAdapter.read(new JsonReader(new StringReader("[1,2,3]")));
+        assertThat(result).containsExactly(1, 2, 3);
+
+        boolean[] booleans = KnownTypeAdapters.PrimitiveBooleanArrayAdapter.read(new JsonReader(new StringReader("[true,\"false\",true]")));
+        assertThat(booleans).containsExactly(true, false, true);
+
+        double[] doubles = KnownTypeAdapters.PrimitiveDoubleArrayAdapter.read(new JsonReader(new StringReader("[]")));
+        assertThat(doubles).isEmpty();
+    }
+
     /**
      * Test for {@link KnownTypeAdapters#BYTE}
      */
@@ -5,10 +5,12 @@ import com.google.gson.JsonPrimitive
 import com.google.gson.JsonSyntaxException
 import com.google.gson.TypeAdapter
 import com.google.gson.internal.ObjectConstructor
+import com.google.gson.internal.bind.TypeAdapters
 import com.google.gson.stream.JsonReader
 import com.google.gson.stream.JsonToken
 import com.google.gson.stream.JsonWriter
 import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
 import org.junit.Test
 import verification.assertThatClassIsNotInstantiable
 import java.io.StringReader
@@ -269,6 +271,28 @@ class KnownTypeAdaptersTestKt {
         assertThat(arrayTypeAdapter.fromJson(arrayTypeAdapter.toJson(null))).isEqualTo(null)
     }
 
+    @Test
+    fun `ArrayTypeAdapter deserializes nested arrays correctly`() {
+        val stringArrayTypeAdapter = KnownTypeAdapters.ArrayTypeAdapter(KnownTypeAdapters.STRING_NULL_SAFE_TYPE_ADAPTER, KnownTypeAdapters.PrimitiveArrayConstructor<String> { size -> arrayOfNulls<String>(size) })
+        val nestedArrayTypeAdapter = KnownTypeAdapters.ArrayTypeAdapter(stringArrayTypeAdapter, KnownTypeAdapters.PrimitiveArrayConstructor<Array<String>> { size -> Array(size, { emptyArray<String>() }) })
+
+        val testArray = arrayOf(arrayOf("a", "b", "c"), emptyArray(), arrayOf("d"))
+
+        assertThat(nestedArrayTypeAdapter.fromJson(nestedArrayTypeAdapter.toJson(testArray))).isEqualTo(testArray)
+    }
+
+    @Test
+    fun `ArrayTypeAdapter deserializes arrays larger than its scratch buffer correctly`() {
+        val intTypeAdapter = KnownTypeAdapters.INTEGER
+        val arrayTypeAdapter = KnownTypeAdapters.ArrayTypeAdapter(intTypeAdapter, KnownTypeAdapters.PrimitiveArrayConstructor<Int> { size -> Array(size, { 0 }) })
+
+        val largeArray = Array(5000, { it })
+        val smallArray = arrayOf(1, 2, 3)
+
+        assertThat(arrayTypeAdapter.fromJson(arrayTypeAdapter.toJson(largeArray))).isEqualTo(largeArray)
+        assertThat(arrayTypeAdapter.fromJson(arrayTypeAdapter.toJson(smallArray))).isEqualTo(smallArray)
+    }
+
     @Test
     fun `ListInstantiator creates an empty List`() {
         assertThat(KnownTypeAdapters.ListInstantiator<String>().construct()).isEmpty()
@@ -301,6 +325,132 @@ class KnownTypeAdaptersTestKt {
         assertThat(KnownTypeAdapters.JSON_PRIMITIVE.fromJson(json)).isEqualTo(value)
     }
 
+    @Test
+    fun `MapTypeAdapter writes string, number and boolean keys as names`() {
+        val stringKeyAdapter = KnownTypeAdapters.MapTypeAdapter<String, Int, Map<String, Int>>(
+                TypeAdapters.STRING,
+                KnownTypeAdapters.INTEGER,
+                ObjectConstructor<Map<String, Int>> { LinkedHashMap() }
+        )
+        assertThat(stringKeyAdapter.toJson(linkedMapOf("a" to 1, "b" to 2))).isEqualTo("{\"a\":1,\"b\":2}")
+
+        val longKeyAdapter = KnownTypeAdapters.MapTypeAdapter<Long, String, Map<Long, String>>(
+                KnownTypeAdapters.LONG,
+                KnownTypeAdapters.STRING_NULL_SAFE_TYPE_ADAPTER,
+                ObjectConstructor<Map<Long, String>> { LinkedHashMap() }
+        )
+        val longMap = linkedMapOf(1L to "a", 20000000000L to "b")
+        assertThat(longKeyAdapter.toJson(longMap)).isEqualTo("{\"1\":\"a\",\"20000000000\":\"b\"}")
+        assertThat(longKeyAdapter.fromJson(longKeyAdapter.toJson(longMap))).isEqualTo(longMap)
+
+        val booleanKeyAdapter = KnownTypeAdapters.MapTypeAdapter<Boolean?, String, Map<Boolean?, String>>(
+                TypeAdapters.BOOLEAN,
+                KnownTypeAdapters.STRING_NULL_SAFE_TYPE_ADAPTER,
+                ObjectConstructor<Map<Boolean?, String>> { LinkedHashMap() }
+        )
+        assertThat(booleanKeyAdapter.toJson(linkedMapOf(true to "a", null to "b"))).isEqualTo("{\"true\":\"a\",\"null\":\"b\"}")
+    }
+
+    enum class KeyEnum { FIRST, SECOND }
+
+    private class KeyEnumTypeAdapter : TypeAdapter<KeyEnum>(), KnownTypeAdapters.JsonStringConverter<KeyEnum> {
+        override fun toJsonString(value: KeyEnum?): String? = value?.name?.toLowerCase()
+
+        override fun write(out: JsonWriter, value: KeyEnum?) {
+            out.value(toJsonString(value))
+        }
+
+        override fun fromJsonString(string: String): KeyEnum = KeyEnum.valueOf(string.toUpperCase())
+
+        override fun read(input: JsonReader): KeyEnum = fromJsonString(input.nextString())
+    }
+
+    @Test
+    fun `MapTypeAdapter writes keys using a JsonStringConverter`() {
+        val mapTypeAdapter = KnownTypeAdapters.MapTypeAdapter<KeyEnum, String, Map<KeyEnum, String>>(
+                KeyEnumTypeAdapter(),
+                KnownTypeAdapters.STRING_NULL_SAFE_TYPE_ADAPTER,
+                ObjectConstructor<Map<KeyEnum, String>> { LinkedHashMap() }
+        )
+
+        val testMap = linkedMapOf(KeyEnum.FIRST to "a", KeyEnum.SECOND to "b")
+
+        val json = mapTypeAdapter.toJson(testMap)
+        assertThat(json).isEqualTo("{\"first\":\"a\",\"second\":\"b\"}")
+        assertThat(mapTypeAdapter.fromJson(json)).isEqualTo(testMap)
+    }
+
+    @Test
+    fun `MapTypeAdapter reads numeric keys directly from names`() {
+        val intKeyAdapter = KnownTypeAdapters.MapTypeAdapter<Int, String, Map<Int, String>>(
+                KnownTypeAdapters.INTEGER,
+                KnownTypeAdapters.STRING_NULL_SAFE_TYPE_ADAPTER,
+                ObjectConstructor<Map<Int, String>> { LinkedHashMap() }
+        )
+        assertThat(intKeyAdapter.fromJson("{\"1\":\"a\",\"-2\":\"b\",\"3.0\":\"c\"}"))
+                .isEqualTo(linkedMapOf(1 to "a", -2 to "b", 3 to "c"))
+
+        val doubleKeyAdapter = KnownTypeAdapters.MapTypeAdapter<Double, String, Map<Double, String>>(
+                KnownTypeAdapters.DOUBLE,
+                KnownTypeAdapters.STRING_NULL_SAFE_TYPE_ADAPTER,
+                ObjectConstructor<Map<Double, String>> { LinkedHashMap() }
+        )
+        assertThat(doubleKeyAdapter.fromJson("{\"1.5\":\"a\",\"2\":\"b\"}"))
+                .isEqualTo(linkedMapOf(1.5 to "a", 2.0 to "b"))
+    }
+
+    @Test(expected = JsonSyntaxException::class)
+    fun `MapTypeAdapter throws JsonSyntaxException for non integral int keys`() {
+        KnownTypeAdapters.MapTypeAdapter<Int, String, Map<Int, String>>(
+                KnownTypeAdapters.INTEGER,
+                KnownTypeAdapters.STRING_NULL_SAFE_TYPE_ADAPTER,
+                ObjectConstructor<Map<Int, String>> { LinkedHashMap() }
+        ).fromJson("{\"1.5\":\"a\"}")
+    }
+
+    @Test
+    fun `MapTypeAdapter only accepts non finite double keys when lenient`() {
+        val doubleKeyAdapter = KnownTypeAdapters.MapTypeAdapter<Double, String, Map<Double, String>>(
+                KnownTypeAdapters.DOUBLE,
+                KnownTypeAdapters.STRING_NULL_SAFE_TYPE_ADAPTER,
+                ObjectConstructor<Map<Double, String>> { LinkedHashMap() }
+        )
+        val floatKeyAdapter = KnownTypeAdapters.MapTypeAdapter<Float, String, Map<Float, String>>(
+                KnownTypeAdapters.FLOAT,
+                KnownTypeAdapters.STRING_NULL_SAFE_TYPE_ADAPTER,
+                ObjectConstructor<Map<Float, String>> { LinkedHashMap() }
+        )
+        for (name in listOf("NaN", "Infinity", "-Infinity")) {
+            val json = "{\"$name\":\"a\"}"
+            assertThatThrownBy { doubleKeyAdapter.read(JsonReader(StringReader(json))) }
+                    .isInstanceOf(JsonSyntaxException::class.java)
+            assertThatThrownBy { floatKeyAdapter.read(JsonReader(StringReader(json))) }
+                    .isInstanceOf(JsonSyntaxException::class.java)
+
+            val lenientReader = JsonReader(StringReader(json))
+            lenientReader.isLenient = true
+            assertThat(doubleKeyAdapter.read(lenientReader)).isEqualTo(mapOf(name.toDouble() to "a"))
+        }
+    }
+
+    @Test(expected = JsonSyntaxException::class)
+    fun `MapTypeAdapter throws JsonSyntaxException for non numeric long keys`() {
+        KnownTypeAdapters.MapTypeAdapter<Long, String, Map<Long, String>>(
+                KnownTypeAdapters.LONG,
+                KnownTypeAdapters.STRING_NULL_SAFE_TYPE_ADAPTER,
+                ObjectConstructor<Map<Long, String>> { LinkedHashMap() }
+        ).fromJson("{\"one\":\"a\"}")
+    }
+
+    @Test(expected = JsonSyntaxException::class)
+    fun `MapTypeAdapter throws JsonSyntaxException for duplicate string keys`() {
+        KnownTypeAdapters.MapTypeAdapter<String, String, Map<String, String>>(
+                TypeAdapters.STRING,
+                KnownTypeAdapters.STRING_NULL_SAFE_TYPE_ADAPTER,
+                ObjectConstructor<Map<String, String>> { LinkedHashMap() }
+        ).fromJson("{\"a\":\"1\",\"a\":\"2\"}")
+    }
+
     data class KeyTest(val string: String)
 
     @Test
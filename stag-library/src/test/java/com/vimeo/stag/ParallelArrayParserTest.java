@@ -0,0 +1,148 @@
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link ParallelArrayParser} and {@link StagStreams#parseParallel}.
+ */
+@SuppressWarnings("MagicNumber")
+public class ParallelArrayParserTest {
+
+    private static ForkJoinPool sPool;
+
+    private final Gson mGson = new Gson();
+
+    static final class Entry {
+        int id;
+        String name;
+        List<Object> tags;
+    }
+
+    @BeforeClass
+    public static void setUpPool() {
+        sPool = new ForkJoinPool(4);
+    }
+
+    @AfterClass
+    public static void tearDownPool() {
+        sPool.shutdown();
+    }
+
+    @Test
+    public void orderedResultMatchesSequentialParsing() {
+        String json = entries(2000, new Random(1));
+        List<Entry> expected = mGson.fromJson(json, new TypeToken<List<Entry>>() {}.getType());
+
+        // Tiny chunks, so that nearly every element boundary is a chunk boundary.
+        for (int minChunkSize : new int[]{1, 100, 10000, ParallelArrayParser.DEFAULT_MIN_CHUNK_SIZE}) {
+            List<Entry> actual = new ParallelArrayParser<>(mGson.getAdapter(Entry.class), buffer(json), minChunkSize)
+                    .parse(sPool, true, new String[0]);
+            assertEquivalent(actual, expected);
+        }
+    }
+
+    @Test
+    public void unorderedResultContainsEveryElement() {
+        String json = entries(2000, new Random(2));
+        List<Entry> actual = new ParallelArrayParser<>(mGson.getAdapter(Entry.class), buffer(json), 100)
+                .parse(sPool, false, new String[0]);
+
+        assertThat(actual).hasSize(2000);
+        boolean[] seen = new boolean[2000];
+        for (Entry entry : actual) {
+            assertThat(seen[entry.id]).isFalse();
+            seen[entry.id] = true;
+        }
+    }
+
+    @Test
+    public void parsesArrayAtPath() {
+        String json = "{\"skip\":[\"]\",{\"a\":\"[\"}],\"data\":" + entries(100, new Random(3)) + ",\"after\":1}";
+        List<Entry> actual = StagStreams.parseParallel(mGson, Entry.class, json.getBytes(StandardCharsets.UTF_8), sPool, true, "data");
+        assertThat(actual).hasSize(100);
+        for (int idx = 0; idx < actual.size(); idx++) {
+            assertThat(actual.get(idx).id).isEqualTo(idx);
+        }
+
+        assertThat(StagStreams.parseParallel(mGson, Entry.class, bytes("{\"data\":null}"), sPool, true, "data")).isEmpty();
+        assertThat(StagStreams.parseParallel(mGson, Entry.class, bytes(" [ ] "), sPool, true)).isEmpty();
+    }
+
+    @Test
+    public void parsesDirectBuffers() {
+        String json = entries(500, new Random(4));
+        byte[] bytes = bytes(json);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 2);
+        direct.put((byte) ' ').put(bytes).put((byte) ' ').flip();
+        direct.position(1);
+
+        List<Entry> actual = StagStreams.parseParallel(mGson, Entry.class, direct, sPool, true);
+        assertEquivalent(actual, mGson.<List<Entry>>fromJson(json, new TypeToken<List<Entry>>() {}.getType()));
+        assertThat(direct.position()).isEqualTo(1);
+    }
+
+    @Test
+    public void malformedArraysAreRejected() {
+        String[] malformed = {"[1,2", "[\"abc]", "[{\"id\":1}}", "[{\"id\":1},]", "[{\"id\":1} {\"id\":2}]", "{}"};
+        for (String json : malformed) {
+            try {
+                new ParallelArrayParser<>(mGson.getAdapter(Entry.class), buffer(json), 1).parse(sPool, true, new String[0]);
+                fail("Expected " + json + " to be rejected");
+            } catch (JsonSyntaxException expected) {
+            }
+        }
+    }
+
+    private static void assertEquivalent(List<Entry> actual, List<Entry> expected) {
+        assertThat(actual).hasSize(expected.size());
+        for (int idx = 0; idx < expected.size(); idx++) {
+            assertThat(actual.get(idx).id).isEqualTo(expected.get(idx).id);
+            assertThat(actual.get(idx).name).isEqualTo(expected.get(idx).name);
+            assertThat(actual.get(idx).tags).isEqualTo(expected.get(idx).tags);
+        }
+    }
+
+    /**
+     * Returns an array of entries whose strings contain brackets, commas, quotes and escapes that
+     * the pre-scan has to skip over.
+     */
+    private static String entries(int count, Random random) {
+        String[] names = {"plain", "comma, inside", "brackets ] } [ {", "quote \\\" inside", "backslash \\\\", "escaped \\\\\\\"", "\\u005d"};
+        StringBuilder builder = new StringBuilder("[\n");
+        for (int idx = 0; idx < count; idx++) {
+            builder.append(idx == 0 ? "" : ",\n  ")
+                    .append("{\"id\":").append(idx)
+                    .append(", \"name\" : \"").append(names[random.nextInt(names.length)]).append('"')
+                    .append(",\"tags\":[");
+            int tagCount = random.nextInt(4);
+            for (int tag = 0; tag < tagCount; tag++) {
+                builder.append(tag == 0 ? "" : ",").append(random.nextBoolean() ? "[\"a,]\",{}]" : "null");
+            }
+            builder.append("]}");
+        }
+        return builder.append("\n]").toString();
+    }
+
+    private static ByteBuffer buffer(String json) {
+        return ByteBuffer.wrap(bytes(json));
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
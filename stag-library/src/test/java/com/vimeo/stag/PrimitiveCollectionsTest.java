@@ -0,0 +1,193 @@
+package com.vimeo.stag;
+
+import com.google.gson.JsonSyntaxException;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link IntArrayList}, {@link LongArrayList}, {@link DoubleArrayList} and
+ * {@link StringIntMap}, and their type adapters in {@link KnownTypeAdapters}.
+ */
+@SuppressWarnings("MagicNumber")
+public class PrimitiveCollectionsTest {
+
+    @Test
+    public void primitiveArrayListsBehaveLikeList() {
+        IntArrayList ints = new IntArrayList(0);
+        LongArrayList longs = new LongArrayList(0);
+        DoubleArrayList doubles = new DoubleArrayList(0);
+        for (int idx = 0; idx < 100; idx++) {
+            ints.addInt(idx);
+            longs.addLong(idx);
+            doubles.addDouble(idx);
+        }
+        assertThat(ints.getInt(42)).isEqualTo(42);
+        assertThat(longs.getLong(42)).isEqualTo(42L);
+        assertThat(doubles.getDouble(42)).isEqualTo(42.0);
+        assertThat(ints.setInt(0, 7)).isEqualTo(0);
+        assertThat(longs.setLong(0, 7L)).isEqualTo(0L);
+        assertThat(doubles.setDouble(0, 7.0)).isEqualTo(0.0);
+
+        assertBehavesLikeList(ints, -1, 7);
+        assertBehavesLikeList(longs, -1L, 7L);
+        assertBehavesLikeList(doubles, -1.0, 7.0);
+
+        assertThat(new IntArrayList(new int[]{1, 2, 3}).toIntArray()).containsExactly(1, 2, 3);
+        assertThat(new LongArrayList(new long[]{1, 2, 3}).toLongArray()).containsExactly(1L, 2L, 3L);
+        assertThat(new DoubleArrayList(new double[]{1, 2, 3}).toDoubleArray()).containsExactly(1.0, 2.0, 3.0);
+    }
+
+    /**
+     * Checks a list of 100 elements whose first element is {@code first}, against an
+     * {@link ArrayList} holding the same elements.
+     */
+    private static <E> void assertBehavesLikeList(List<E> list, E element, E first) {
+        List<E> expected = new ArrayList<>(list);
+        assertThat(list).hasSize(100);
+
+        list.add(0, element);
+        expected.add(0, element);
+        assertThat(list).isEqualTo(expected);
+        assertThat(list.get(0)).isEqualTo(element);
+        assertThat(list.get(1)).isEqualTo(first);
+        assertThat(list.indexOf(first)).isEqualTo(1);
+
+        list.add(list.size(), element);
+        expected.add(expected.size(), element);
+        assertThat(list.remove(0)).isEqualTo(element);
+        expected.remove(0);
+        assertThat(list.remove(list.size() - 1)).isEqualTo(element);
+        expected.remove(expected.size() - 1);
+        assertThat(list).isEqualTo(expected);
+        assertThat(list.hashCode()).isEqualTo(expected.hashCode());
+
+        list.clear();
+        assertThat(list).isEmpty();
+    }
+
+    @Test
+    public void primitiveArrayListsEqualListsOfTheBoxedType() {
+        assertThat(new IntArrayList(new int[]{1, 2, 3})).isEqualTo(new IntArrayList(new int[]{1, 2, 3}))
+                .isEqualTo(Arrays.asList(1, 2, 3))
+                .isNotEqualTo(new IntArrayList(new int[]{1, 2}));
+        assertThat(new LongArrayList(new long[]{1, 2})).isEqualTo(Arrays.asList(1L, 2L))
+                .isNotEqualTo(new LongArrayList(new long[]{1, 3}));
+
+        // Like Double.equals, NaN equals NaN and 0.0 does not equal -0.0.
+        DoubleArrayList doubles = new DoubleArrayList(new double[]{Double.NaN, 0.0});
+        assertThat(doubles).isEqualTo(new DoubleArrayList(new double[]{Double.NaN, 0.0}))
+                .isNotEqualTo(new DoubleArrayList(new double[]{Double.NaN, -0.0}));
+        assertThat(doubles.hashCode()).isEqualTo(Arrays.asList(Double.NaN, 0.0).hashCode());
+        assertThat(new LongArrayList(new long[]{20000000000L}).hashCode())
+                .isEqualTo(Collections.singletonList(20000000000L).hashCode());
+    }
+
+    @Test
+    public void primitiveArrayListsGrowAndTrim() {
+        IntArrayList list = new IntArrayList(0);
+        list.ensureCapacity(50);
+        list.addInt(1);
+        list.trimToSize();
+        list.addInt(2);
+        assertThat(list).containsExactly(1, 2);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void intArrayListRejectsIndexPastSize() {
+        IntArrayList list = new IntArrayList();
+        list.addInt(1);
+        list.getInt(1);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void longArrayListRejectsNullElements() {
+        new LongArrayList().add(null);
+    }
+
+    @Test
+    public void primitiveArrayListAdaptersRoundTrip() throws Exception {
+        IntArrayList ints = KnownTypeAdapters.INT_ARRAY_LIST.fromJson("[1,2,3]");
+        assertThat(ints).containsExactly(1, 2, 3);
+        assertThat(KnownTypeAdapters.INT_ARRAY_LIST.toJson(ints)).isEqualTo("[1,2,3]");
+
+        LongArrayList longs = KnownTypeAdapters.LONG_ARRAY_LIST.fromJson("[20000000000,-1]");
+        assertThat(longs).containsExactly(20000000000L, -1L);
+        assertThat(KnownTypeAdapters.LONG_ARRAY_LIST.toJson(longs)).isEqualTo("[20000000000,-1]");
+
+        DoubleArrayList doubles = KnownTypeAdapters.DOUBLE_ARRAY_LIST.fromJson("[1.5,2.0]");
+        assertThat(doubles).containsExactly(1.5, 2.0);
+        assertThat(KnownTypeAdapters.DOUBLE_ARRAY_LIST.toJson(doubles)).isEqualTo("[1.5,2.0]");
+
+        assertThat(KnownTypeAdapters.INT_ARRAY_LIST.fromJson("null")).isNull();
+        assertThat(KnownTypeAdapters.INT_ARRAY_LIST.toJson(null)).isEqualTo("null");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void intArrayListAdapterRejectsNonIntegers() throws Exception {
+        KnownTypeAdapters.INT_ARRAY_LIST.fromJson("[1.5]");
+    }
+
+    @Test
+    public void stringIntMapBehavesLikeMap() {
+        StringIntMap map = new StringIntMap(0);
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        for (int idx = 0; idx < 100; idx++) {
+            map.putInt("key" + idx, idx);
+            expected.put("key" + idx, idx);
+        }
+        assertThat(map).isEqualTo(expected);
+        assertThat(map.hashCode()).isEqualTo(expected.hashCode());
+        assertThat(map.getInt("key42", -1)).isEqualTo(42);
+        assertThat(map.getInt("missing", -1)).isEqualTo(-1);
+        assertThat(map.get("missing")).isNull();
+        assertThat(map.containsKey("key99")).isTrue();
+        assertThat(map.containsValue(99)).isTrue();
+
+        assertThat(map.put("key0", 1000)).isEqualTo(0);
+        assertThat(map.put("key100", 100)).isNull();
+        assertThat(map.remove("key100")).isEqualTo(100);
+        assertThat(map.keyAt(0)).isEqualTo("key0");
+        assertThat(map.valueAt(0)).isEqualTo(1000);
+
+        assertThat(map.remove("key0")).isEqualTo(1000);
+        assertThat(map.keyAt(0)).isEqualTo("key1");
+        assertThat(map.getInt("key99", -1)).isEqualTo(99);
+        assertThat(map).hasSize(99);
+
+        Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertThat(map).hasSize(50);
+        assertThat(map.getInt("key51", -1)).isEqualTo(51);
+        assertThat(map.containsKey("key50")).isFalse();
+
+        map.clear();
+        assertThat(map).isEqualTo(Collections.emptyMap());
+    }
+
+    @Test
+    public void stringIntMapAdapterRoundTripsInOrder() throws Exception {
+        StringIntMap map = KnownTypeAdapters.STRING_INT_MAP.fromJson("{\"b\":2,\"a\":1,\"c\":3}");
+        assertThat(map.keyAt(0)).isEqualTo("b");
+        assertThat(map.getInt("c", 0)).isEqualTo(3);
+        assertThat(KnownTypeAdapters.STRING_INT_MAP.toJson(map)).isEqualTo("{\"b\":2,\"a\":1,\"c\":3}");
+    }
+
+    @Test(expected = JsonSyntaxException.class)
+    public void stringIntMapAdapterRejectsDuplicateKeys() throws Exception {
+        KnownTypeAdapters.STRING_INT_MAP.fromJson("{\"a\":1,\"a\":2}");
+    }
+}
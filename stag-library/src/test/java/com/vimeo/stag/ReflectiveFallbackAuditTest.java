@@ -0,0 +1,102 @@
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonDeserializationContext;
+import com.google.gson.JsonDeserializer;
+import com.google.gson.JsonElement;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ReflectiveFallbackAuditTest {
+
+    @Test
+    public void recordsReflectiveTypesWithTheirFieldPaths() {
+        ReflectiveFallbackAudit audit = new ReflectiveFallbackAudit();
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(audit).create();
+
+        gson.getAdapter(Outer.class);
+        gson.getAdapter(Holder.class);
+
+        List<ReflectiveFallbackAudit.Fallback> fallbacks = audit.getFallbacks();
+        assertThat(fallbacks).extracting("path").containsExactly(
+                Outer.class.getName() + ".mInner",
+                Outer.class.getName(),
+                Holder.class.getName() + ".mElementsByName[]",
+                Holder.class.getName());
+        assertThat(fallbacks).extracting("kind").containsOnly(ReflectiveFallbackAudit.Kind.REFLECTIVE);
+        assertThat(fallbacks.get(0).getType()).isEqualTo(TypeToken.get(Inner.class));
+        assertThat(fallbacks.get(2).getType()).isEqualTo(TypeToken.get(Element.class));
+    }
+
+    @Test
+    public void recordsTreeAdaptersAndIgnoresBuiltInAdapters() {
+        ReflectiveFallbackAudit audit = new ReflectiveFallbackAudit();
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(Inner.class, new JsonDeserializer<Inner>() {
+                    @Override
+                    public Inner deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) {
+                        return new Inner();
+                    }
+                })
+                .registerTypeAdapterFactory(audit)
+                .create();
+
+        gson.getAdapter(String.class);
+        gson.getAdapter(new TypeToken<List<Integer>>() {});
+        assertThat(audit.getFallbacks()).isEmpty();
+        assertThat(audit.getReport()).isEmpty();
+
+        gson.getAdapter(Inner.class);
+        assertThat(audit.getFallbacks()).hasSize(1);
+        assertThat(audit.getFallbacks().get(0).getKind()).isEqualTo(ReflectiveFallbackAudit.Kind.TREE);
+        assertThat(audit.getReport()).isEqualTo("TREE " + Inner.class.getName() + " at " + Inner.class.getName() + "\n");
+
+        audit.clear();
+        assertThat(audit.getFallbacks()).isEmpty();
+    }
+
+    @Test
+    public void failFastThrowsOnFirstFallback() {
+        ReflectiveFallbackAudit audit = new ReflectiveFallbackAudit(true);
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(audit).create();
+
+        try {
+            gson.getAdapter(Outer.class);
+            fail("Expected the audit to fail");
+        } catch (IllegalStateException e) {
+            assertThat(e).hasMessageContaining(Outer.class.getName() + ".mInner");
+        }
+        assertThat(audit.getFallbacks()).hasSize(1);
+    }
+
+    @SuppressWarnings("unused")
+    private static class Outer {
+        static Element sIgnored;
+        Inner mInner;
+        List<Inner> mInners;
+    }
+
+    @SuppressWarnings("unused")
+    private static class Holder {
+        Map<String, Element> mElementsByName;
+    }
+
+    @SuppressWarnings("unused")
+    private static class Element {
+        int mValue;
+    }
+
+    @SuppressWarnings("unused")
+    private static class Inner {
+        String mName;
+    }
+}
@@ -0,0 +1,446 @@
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParser;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link StagJsonReader}.
+ */
+@SuppressWarnings("MagicNumber")
+public class StagJsonReaderTest {
+
+    private static final String[] DOCUMENTS = {
+            "{}",
+            "[]",
+            "\"\"",
+            "{\"a\":1,\"b\":[true,false,null],\"c\":{\"d\":\"e\"}}",
+            " [ 0 , -0 , 1.5 , -2e10 , 3E-2 , 9223372036854775807 , -9223372036854775808 , 9223372036854775808 ] ",
+            "{\"escapes\":\"\\\"\\\\\\/\\b\\f\\n\\r\\t\\u00e9\\u20AC\",\"unicode\":\"h\u00e9llo w\u00f6rld \u20ac \ud83d\ude00\"}",
+            "[[[[{\"deep\":[{},[],[{}]]}]]]]",
+            "{\"\\u0061\":\"name with an escape\",\"\u00fc\":\"non ascii name\"}",
+    };
+
+    @Test
+    public void tokensMatchGsonJsonReader() throws IOException {
+        for (String document : DOCUMENTS) {
+            List<String> expected = tokens(new JsonReader(new StringReader(document)));
+            byte[] bytes = document.getBytes(StandardCharsets.UTF_8);
+
+            assertThat(tokens(new StagJsonReader(bytes))).as(document).isEqualTo(expected);
+            assertThat(tokens(new StagJsonReader(new ByteArrayInputStream(bytes)))).as(document).isEqualTo(expected);
+            assertThat(tokens(new StagJsonReader(new OneByteInputStream(bytes)))).as(document).isEqualTo(expected);
+            assertThat(tokens(new StagJsonReader(ByteBuffer.wrap(bytes)))).as(document).isEqualTo(expected);
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).flip();
+            assertThat(tokens(new StagJsonReader(direct))).as(document).isEqualTo(expected);
+            assertThat(direct.position()).isEqualTo(0);
+        }
+    }
+
+    @Test
+    public void readsSliceOfArray() throws IOException {
+        byte[] bytes = "xx[1,2]yy".getBytes(StandardCharsets.UTF_8);
+        StagJsonReader reader = new StagJsonReader(bytes, 2, 5);
+        assertThat(tokens(reader)).containsExactly("BEGIN_ARRAY", "NUMBER 1 $[1]", "NUMBER 2 $[2]", "END_ARRAY");
+    }
+
+    @Test
+    public void readsInputLargerThanBuffer() throws IOException {
+        StringBuilder builder = new StringBuilder("[");
+        for (int idx = 0; idx < 10000; idx++) {
+            builder.append(idx == 0 ? "" : ",").append("{\"name\":\"value ").append(idx).append("\"}");
+        }
+        builder.append(",\"").append(new String(new char[20000]).replace('\0', 'x')).append("\"]");
+        String json = builder.toString();
+
+        List<String> expected = tokens(new JsonReader(new StringReader(json)));
+        assertThat(tokens(new StagJsonReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))))
+                .isEqualTo(expected);
+    }
+
+    @Test
+    public void selectNameMatchesOptionsAndLeavesUnknownNames() throws IOException {
+        StagJsonReader.Options options = StagJsonReader.Options.of("id", "name", "alias");
+        StagJsonReader reader = reader("{\"name\":1,\"other\":2,\"alias\":3,\"\\u0069d\":4,\"n\\u0061me2\":5}");
+        reader.beginObject();
+
+        assertThat(reader.selectName(options)).isEqualTo(1);
+        assertThat(reader.getPath()).isEqualTo("$.name");
+        assertThat(reader.nextInt()).isEqualTo(1);
+
+        assertThat(reader.selectName(options)).isEqualTo(-1);
+        assertThat(reader.peek()).isEqualTo(JsonToken.NAME);
+        assertThat(reader.nextName()).isEqualTo("other");
+        assertThat(reader.nextInt()).isEqualTo(2);
+
+        assertThat(reader.selectName(options)).isEqualTo(2);
+        assertThat(reader.nextInt()).isEqualTo(3);
+
+        // Escaped names are decoded before they are matched.
+        assertThat(reader.selectName(options)).isEqualTo(0);
+        assertThat(reader.nextInt()).isEqualTo(4);
+
+        assertThat(reader.selectName(options)).isEqualTo(-1);
+        assertThat(reader.selectName(options)).isEqualTo(-1);
+        reader.skipName();
+        assertThat(reader.nextInt()).isEqualTo(5);
+
+        reader.endObject();
+        assertThat(reader.peek()).isEqualTo(JsonToken.END_DOCUMENT);
+    }
+
+    @Test
+    public void selectNameMatchesNonAsciiNames() throws IOException {
+        StagJsonReader.Options options = StagJsonReader.Options.of("caf\u00e9", "cafe");
+        StagJsonReader reader = reader("{\"cafe\":1,\"caf\u00e9\":2}");
+        reader.beginObject();
+        assertThat(reader.selectName(options)).isEqualTo(1);
+        reader.skipValue();
+        assertThat(reader.selectName(options)).isEqualTo(0);
+        reader.skipValue();
+        reader.endObject();
+    }
+
+    @Test
+    public void selectStringMatchesValues() throws IOException {
+        StagJsonReader.Options options = StagJsonReader.Options.of("RED", "GREEN");
+        StagJsonReader reader = reader("[\"GREEN\",\"BLUE\",\"R\\u0045D\",1]");
+        reader.beginArray();
+        assertThat(reader.selectString(options)).isEqualTo(1);
+        assertThat(reader.selectString(options)).isEqualTo(-1);
+        assertThat(reader.nextString()).isEqualTo("BLUE");
+        assertThat(reader.selectString(options)).isEqualTo(0);
+        assertThat(reader.getPath()).isEqualTo("$[3]");
+        try {
+            reader.selectString(options);
+            fail("Expected an IllegalStateException for a number");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void numbersAreConvertedLikeGson() throws IOException {
+        StagJsonReader reader = reader("[\"12\",\"1.0\",1e2,\"x\",2.5,2147483648,\"NaN\"]");
+        reader.beginArray();
+        assertThat(reader.nextInt()).isEqualTo(12);
+        assertThat(reader.nextLong()).isEqualTo(1L);
+        assertThat(reader.nextInt()).isEqualTo(100);
+        try {
+            reader.nextInt();
+            fail("Expected a NumberFormatException");
+        } catch (NumberFormatException expected) {
+            assertThat(reader.nextString()).isEqualTo("x");
+        }
+        try {
+            reader.nextLong();
+            fail("Expected a NumberFormatException");
+        } catch (NumberFormatException expected) {
+            assertThat(reader.nextDouble()).isEqualTo(2.5);
+        }
+        try {
+            reader.nextInt();
+            fail("Expected a NumberFormatException");
+        } catch (NumberFormatException expected) {
+            assertThat(reader.nextLong()).isEqualTo(2147483648L);
+        }
+        try {
+            reader.nextDouble();
+            fail("Expected a MalformedJsonException");
+        } catch (MalformedJsonException expected) {
+        }
+    }
+
+    @Test
+    public void malformedJsonIsRejected() throws IOException {
+        String[] malformed = {"{\"a\" 1}", "[1 2]", "[01]", "[1.]", "[-]", "[tru]", "[truex]", "{a:1}", "[1,]",
+                "\"unterminated", "[\"\\x\"]", "[\"\\u12\"]", "{\"a\":1}{}", "// comment\n1", "NaN"};
+        for (String json : malformed) {
+            try {
+                tokens(reader(json));
+                fail("Expected " + json + " to be rejected");
+            } catch (MalformedJsonException expected) {
+            } catch (EOFException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void bytesAboveAsciiAreNotMistakenForEndOfInput() throws IOException {
+        byte[][] malformed = {
+                bytes("{\"a\":1}", 0xff, "xy"),
+                bytes("[1]", 0xff, ""),
+                bytes("", 0xff, ""),
+                bytes("[1", 0x80, "]")
+        };
+        for (byte[] json : malformed) {
+            try {
+                tokens(new StagJsonReader(json));
+                fail("Expected " + Arrays.toString(json) + " to be rejected");
+            } catch (MalformedJsonException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void onlyImplicitArraysEndWithTheInput() throws IOException {
+        byte[][] unterminated = {
+                "[\"x\"".getBytes(StandardCharsets.UTF_8),
+                "[1,[2]".getBytes(StandardCharsets.UTF_8),
+                bytes("[\"x\"", 0xff, "")
+        };
+        for (byte[] json : unterminated) {
+            try {
+                tokens(new StagJsonReader(json));
+                fail("Expected " + Arrays.toString(json) + " to be rejected");
+            } catch (MalformedJsonException expected) {
+            } catch (EOFException expected) {
+            }
+        }
+
+        StagJsonReader reader = reader("1, 2 ");
+        reader.beginImplicitArray();
+        assertThat(reader.nextInt()).isEqualTo(1);
+        assertThat(reader.nextInt()).isEqualTo(2);
+        assertThat(reader.hasNext()).isFalse();
+
+        String[] malformedImplicit = {"1,[2", "1,2]"};
+        for (String json : malformedImplicit) {
+            StagJsonReader implicit = reader(json);
+            implicit.beginImplicitArray();
+            try {
+                while (implicit.hasNext()) {
+                    implicit.skipValue();
+                }
+                fail("Expected " + json + " to be rejected");
+            } catch (MalformedJsonException expected) {
+            } catch (EOFException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void emptyInputThrowsEofException() throws IOException {
+        try {
+            reader("  ").peek();
+            fail("Expected an EOFException");
+        } catch (EOFException expected) {
+        }
+    }
+
+    @Test
+    public void lenientReaderAcceptsMultipleTopLevelValues() throws IOException {
+        StagJsonReader reader = reader("{\"a\":1}\n{\"a\":2} 3");
+        reader.setLenient(true);
+        reader.skipValue();
+        reader.skipValue();
+        assertThat(reader.nextInt()).isEqualTo(3);
+        assertThat(reader.hasNext()).isFalse();
+        assertThat(reader.peek()).isEqualTo(JsonToken.END_DOCUMENT);
+    }
+
+    @Test
+    public void lenientReaderAcceptsUnquotedNonFiniteNumbers() throws IOException {
+        String json = "[NaN,Infinity,-Infinity,\"NaN\"]";
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        for (StagJsonReader reader : Arrays.asList(reader(json),
+                new StagJsonReader(new OneByteInputStream(bytes)))) {
+            reader.setLenient(true);
+            reader.beginArray();
+            assertThat(reader.nextDouble()).isNaN();
+            assertThat(reader.nextDouble()).isEqualTo(Double.POSITIVE_INFINITY);
+            assertThat(reader.nextDouble()).isEqualTo(Double.NEGATIVE_INFINITY);
+            assertThat(reader.nextDouble()).isNaN();
+            reader.endArray();
+        }
+
+        for (String malformed : Arrays.asList("[NaNa]", "[Infinit]", "[-Inf]", "[nan]")) {
+            StagJsonReader reader = reader(malformed);
+            reader.setLenient(true);
+            reader.beginArray();
+            try {
+                reader.nextDouble();
+                fail("Expected a MalformedJsonException for " + malformed);
+            } catch (MalformedJsonException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void gsonMapAdapterCannotReadThroughStagJsonReader() {
+        TypeAdapter<Map<String, Integer>> adapter = new Gson().getAdapter(new TypeToken<Map<String, Integer>>() {});
+        try {
+            adapter.read(reader("{\"a\":1}"));
+            fail("Expected an IOException");
+        } catch (IOException expected) {
+            assertThat(expected).hasMessageContaining("KnownTypeAdapters.MapTypeAdapter");
+        }
+    }
+
+    @Test
+    public void optionsFindEveryNameAndKeepTheFirstDuplicate() throws IOException {
+        String[] names = new String[100];
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < names.length; i++) {
+            names[i] = "field" + i;
+            json.append(i == 0 ? "" : ",").append('"').append(names[i]).append("\":").append(i);
+        }
+        json.append(",\"missing\":-1}");
+        StagJsonReader.Options options = StagJsonReader.Options.of(names);
+        StagJsonReader.Options duplicates = StagJsonReader.Options.of("a", "b", "a");
+
+        StagJsonReader reader = reader(json.toString());
+        reader.beginObject();
+        for (int i = 0; i < names.length; i++) {
+            assertThat(reader.selectName(options)).isEqualTo(i);
+            assertThat(reader.nextInt()).isEqualTo(i);
+        }
+        assertThat(reader.selectName(options)).isEqualTo(-1);
+        assertThat(reader.nextName()).isEqualTo("missing");
+        reader.skipValue();
+        reader.endObject();
+
+        reader = reader("{\"a\":1}");
+        reader.beginObject();
+        assertThat(reader.selectName(duplicates)).isEqualTo(0);
+    }
+
+    @Test
+    public void gsonReadsThroughStagJsonReader() throws IOException {
+        Gson gson = new Gson();
+        String json = "{\"1\":[\"a\",\"b\"],\"\\u0032\":[]}";
+        Map<Integer, List<String>> expected = gson.fromJson(json, new TypeToken<Map<Integer, List<String>>>() {}.getType());
+        // Gson's own integer adapter makes the map promote names to values to read its keys.
+        TypeAdapter<HashMap<Integer, List<String>>> adapter = new KnownTypeAdapters.MapTypeAdapter<>(
+                gson.getAdapter(Integer.class), gson.getAdapter(new TypeToken<List<String>>() {}),
+                new KnownTypeAdapters.HashMapInstantiator<Integer, List<String>>());
+        assertThat(adapter.read(reader(json))).isEqualTo(expected);
+
+        JsonParser parser = new JsonParser();
+        assertThat(parser.parse(reader(DOCUMENTS[3]))).isEqualTo(parser.parse(DOCUMENTS[3]));
+    }
+
+    @Test
+    public void closedReaderThrows() throws IOException {
+        StagJsonReader reader = reader("[]");
+        reader.close();
+        try {
+            reader.peek();
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    private static byte[] bytes(String prefix, int b, String suffix) {
+        byte[] prefixBytes = prefix.getBytes(StandardCharsets.UTF_8);
+        byte[] suffixBytes = suffix.getBytes(StandardCharsets.UTF_8);
+        byte[] bytes = new byte[prefixBytes.length + 1 + suffixBytes.length];
+        System.arraycopy(prefixBytes, 0, bytes, 0, prefixBytes.length);
+        bytes[prefixBytes.length] = (byte) b;
+        System.arraycopy(suffixBytes, 0, bytes, prefixBytes.length + 1, suffixBytes.length);
+        return bytes;
+    }
+
+    private static StagJsonReader reader(String json) {
+        return new StagJsonReader(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns a description of every token in the document, including the path of each value.
+     */
+    private static List<String> tokens(JsonReader reader) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        while (true) {
+            JsonToken token = reader.peek();
+            switch (token) {
+                case BEGIN_ARRAY:
+                    reader.beginArray();
+                    tokens.add(token.name());
+                    break;
+                case END_ARRAY:
+                    reader.endArray();
+                    tokens.add(token.name());
+                    break;
+                case BEGIN_OBJECT:
+                    reader.beginObject();
+                    tokens.add(token.name());
+                    break;
+                case END_OBJECT:
+                    reader.endObject();
+                    tokens.add(token.name());
+                    break;
+                case NAME:
+                    tokens.add(token.name() + " " + reader.nextName());
+                    break;
+                case STRING:
+                    tokens.add(token.name() + " " + reader.nextString() + " " + reader.getPath());
+                    break;
+                case NUMBER:
+                    tokens.add(token.name() + " " + reader.nextString() + " " + reader.getPath());
+                    break;
+                case BOOLEAN:
+                    tokens.add(token.name() + " " + reader.nextBoolean() + " " + reader.getPath());
+                    break;
+                case NULL:
+                    reader.nextNull();
+                    tokens.add(token.name() + " " + reader.getPath());
+                    break;
+                case END_DOCUMENT:
+                    return tokens;
+            }
+        }
+    }
+
+    /**
+     * Returns a single byte from every read, so that every token crosses a buffer boundary.
+     */
+    private static final class OneByteInputStream extends InputStream {
+
+        private final byte[] mBytes;
+        private int mPosition;
+
+        OneByteInputStream(byte[] bytes) {
+            mBytes = bytes;
+        }
+
+        @Override
+        public int read() {
+            return mPosition < mBytes.length ? mBytes[mPosition++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (mPosition == mBytes.length) {
+                return -1;
+            }
+            if (length == 0) {
+                return 0;
+            }
+            buffer[offset] = mBytes[mPosition++];
+            return 1;
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.internal.Streams;
+import com.google.gson.stream.JsonWriter;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link StagJsonWriter}.
+ */
+@SuppressWarnings("MagicNumber")
+public class StagJsonWriterTest {
+
+    private static final String[] STRINGS = {
+            "",
+            "plain ascii",
+            "quotes \" and \\ backslashes / slashes",
+            "controls \u0000 \u0001 \b \t \n \f \r \u001f \u007f",
+            "html <script> & 'quotes' = ",
+            "latin \u00e9\u00fc\u00df, cjk \u4e2d\u6587, euro \u20ac",
+            "separators \u2028 \u2029",
+            "emoji \ud83d\ude00 and unpaired \ud83d and \ude00",
+    };
+
+    @Test
+    public void stringsMatchGsonJsonWriter() throws IOException {
+        for (boolean htmlSafe : new boolean[]{false, true}) {
+            for (String string : STRINGS) {
+                ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+                StagJsonWriter writer = new StagJsonWriter(outputStream);
+                writer.setHtmlSafe(htmlSafe);
+                writer.value(string);
+                writer.flush();
+
+                StringWriter expected = new StringWriter();
+                JsonWriter gsonWriter = new JsonWriter(expected);
+                gsonWriter.setHtmlSafe(htmlSafe);
+                gsonWriter.value(string);
+
+                byte[] expectedBytes = expected.toString().getBytes(StandardCharsets.UTF_8);
+                assertThat(outputStream.toByteArray()).as(string).isEqualTo(expectedBytes);
+            }
+        }
+    }
+
+    @Test
+    public void longStringsCrossTheBufferBoundary() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        for (int idx = 0; idx < 5000; idx++) {
+            builder.append(STRINGS[idx % STRINGS.length]);
+        }
+        String string = builder.toString();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        StagJsonWriter writer = new StagJsonWriter(outputStream);
+        writer.beginArray().value(string).value(string).endArray();
+        writer.close();
+
+        StringWriter expected = new StringWriter();
+        new JsonWriter(expected).beginArray().value(string).value(string).endArray();
+        assertThat(outputStream.toByteArray()).isEqualTo(expected.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void valuesMatchGsonJsonWriter() throws IOException {
+        for (boolean serializeNulls : new boolean[]{false, true}) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            StagJsonWriter writer = new StagJsonWriter(outputStream);
+            writer.setSerializeNulls(serializeNulls);
+            writeValues(writer);
+            writer.close();
+
+            StringWriter expected = new StringWriter();
+            JsonWriter gsonWriter = new JsonWriter(expected);
+            gsonWriter.setSerializeNulls(serializeNulls);
+            writeValues(gsonWriter);
+            gsonWriter.close();
+
+            assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected.toString());
+        }
+    }
+
+    @Test
+    public void namesAreWrittenFromTokens() throws IOException {
+        StagJsonWriter.Names names = StagJsonWriter.Names.of("id", "caf\u00e9", "a<b", "quote\"",
+                "tab\tline\u2028\u0001", "\u20ac\ud83d\ude00", "");
+        for (boolean htmlSafe : new boolean[]{false, true}) {
+            ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+            StagJsonWriter writer = new StagJsonWriter(outputStream);
+            writer.setHtmlSafe(htmlSafe);
+            writer.setSerializeNulls(false);
+            writer.beginObject();
+            for (int idx = 0; idx < names.size(); idx++) {
+                StagJsonWriter.writeName(writer, names, idx);
+                writer.value(idx);
+            }
+            StagJsonWriter.writeName(writer, names, 0);
+            writer.nullValue();
+            writer.endObject();
+            writer.close();
+
+            StringWriter expected = new StringWriter();
+            JsonWriter gsonWriter = new JsonWriter(expected);
+            gsonWriter.setHtmlSafe(htmlSafe);
+            gsonWriter.beginObject();
+            for (int idx = 0; idx < names.size(); idx++) {
+                StagJsonWriter.writeName(gsonWriter, names, idx);
+                gsonWriter.value(idx);
+            }
+            gsonWriter.endObject();
+
+            assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(expected.toString());
+        }
+    }
+
+    @Test
+    public void writesIntoByteBuffer() throws IOException {
+        ByteBuffer byteBuffer = ByteBuffer.allocate(64);
+        StagJsonWriter writer = new StagJsonWriter(byteBuffer);
+        writer.beginArray().value(1).value("\u20ac").endArray();
+        writer.flush();
+        byteBuffer.flip();
+        byte[] bytes = new byte[byteBuffer.remaining()];
+        byteBuffer.get(bytes);
+        assertThat(new String(bytes, StandardCharsets.UTF_8)).isEqualTo("[1,\"\u20ac\"]");
+    }
+
+    @Test
+    public void gsonWritesThroughStagJsonWriter() throws IOException {
+        Gson gson = new GsonBuilder().serializeNulls().create();
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("list", Arrays.asList(1, 2.5, "three", null, true));
+        map.put("html", "<b>");
+        map.put("nested", new LinkedHashMap<>(map));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        StagJsonWriter writer = new StagJsonWriter(outputStream);
+        gson.toJson(map, Map.class, writer);
+        writer.flush();
+        assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(gson.toJson(map));
+
+        JsonElement element = new JsonParser().parse(gson.toJson(map));
+        outputStream.reset();
+        writer = new StagJsonWriter(outputStream);
+        Streams.write(element, writer);
+        writer.flush();
+        assertThat(new String(outputStream.toByteArray(), StandardCharsets.UTF_8)).isEqualTo(element.toString());
+    }
+
+    @Test
+    public void misuseIsRejectedLikeGsonJsonWriter() throws IOException {
+        StagJsonWriter writer = new StagJsonWriter(new ByteArrayOutputStream());
+        try {
+            writer.name("a").value(1);
+            fail("Expected a name outside of an object to be rejected");
+        } catch (IllegalStateException expected) {
+        }
+
+        writer = new StagJsonWriter(new ByteArrayOutputStream());
+        writer.beginArray();
+        try {
+            writer.endObject();
+            fail("Expected a mismatched end to be rejected");
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            writer.value(Double.NaN);
+            fail("Expected NaN to be rejected");
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            writer.close();
+            fail("Expected an incomplete document to be rejected");
+        } catch (IOException expected) {
+        }
+    }
+
+    private static void writeValues(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("longs").beginArray();
+        for (long value : new long[]{0, 1, -1, 9, 10, -10, 123456789, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            writer.value(value);
+        }
+        writer.endArray();
+        writer.name("doubles").beginArray().value(0.0).value(-1.5).value(1e300).value(3.0f).endArray();
+        writer.name("number").value(new BigDecimal("1.10"));
+        writer.name("nullNumber").value((Number) null);
+        writer.name("booleans").beginArray().value(true).value(false).value((Boolean) null).endArray();
+        writer.name("null").nullValue();
+        writer.name("string").value((String) null);
+        writer.name("raw").jsonValue("{\"x\":[1,2]}");
+        writer.name("empty").beginObject().endObject();
+        writer.name("nested").beginArray().beginArray().endArray().beginObject().name("a").value("b").endObject().endArray();
+        writer.endObject();
+    }
+}
@@ -0,0 +1,58 @@
+package com.vimeo.stag;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link StagMetrics} and {@link InMemoryStagMetrics}.
+ */
+@SuppressWarnings("MagicNumber")
+public class StagMetricsTest {
+
+    @After
+    public void tearDown() {
+        StagMetrics.install(StagMetrics.NO_OP);
+    }
+
+    @Test
+    public void noOpIsInstalledByDefaultAndDisabled() {
+        assertThat(StagMetrics.getInstance()).isSameAs(StagMetrics.NO_OP);
+        assertThat(StagMetrics.NO_OP.isEnabled()).isFalse();
+
+        InMemoryStagMetrics metrics = new InMemoryStagMetrics();
+        StagMetrics.install(metrics);
+        assertThat(StagMetrics.getInstance()).isSameAs(metrics);
+        assertThat(metrics.isEnabled()).isTrue();
+    }
+
+    @Test
+    public void inMemoryMetricsKeepTotalsPerType() {
+        InMemoryStagMetrics metrics = new InMemoryStagMetrics();
+        metrics.onRead(String.class, 3, 1, 100L);
+        metrics.onRead(String.class, 2, 0, 50L);
+        metrics.onWrite(String.class, 20L);
+        metrics.onWrite(Integer.class, 5L);
+
+        InMemoryStagMetrics.TypeMetrics strings = metrics.getTypeMetrics(String.class);
+        assertThat(strings).isNotNull();
+        assertThat(strings.getObjectsRead()).isEqualTo(2);
+        assertThat(strings.getFieldsRead()).isEqualTo(5);
+        assertThat(strings.getUnknownFieldsSkipped()).isEqualTo(1);
+        assertThat(strings.getReadNanos()).isEqualTo(150L);
+        assertThat(strings.getObjectsWritten()).isEqualTo(1);
+        assertThat(strings.getWriteNanos()).isEqualTo(20L);
+
+        InMemoryStagMetrics.TypeMetrics integers = metrics.getTypeMetrics(Integer.class);
+        assertThat(integers).isNotNull();
+        assertThat(integers.getObjectsRead()).isZero();
+        assertThat(integers.getObjectsWritten()).isEqualTo(1);
+
+        assertThat(metrics.getTypeMetrics()).containsOnlyKeys(String.class, Integer.class);
+        assertThat(metrics.getTypeMetrics(Long.class)).isNull();
+
+        metrics.reset();
+        assertThat(metrics.getTypeMetrics()).isEmpty();
+    }
+}
@@ -0,0 +1,203 @@
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonReader;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link StagStreams}.
+ */
+@SuppressWarnings("MagicNumber")
+public class StagStreamsTest {
+
+    /**
+     * The heap of the JVM that reads the large file, which is written to be a few times larger.
+     */
+    private static final String CHILD_MAX_HEAP = "-Xmx24m";
+    private static final long LARGE_FILE_SIZE = 96L * 1024 * 1024;
+
+    @Rule
+    public TemporaryFolder mTemporaryFolder = new TemporaryFolder();
+
+    private final Gson mGson = new Gson();
+
+    static final class Entry {
+        int id;
+        String name;
+    }
+
+    @Test
+    public void iteratesTopLevelArray() throws IOException {
+        StagStreams.ArrayIterator<Entry> iterator = StagStreams.iterate(mGson, Entry.class,
+                inputStream("[{\"id\":1,\"name\":\"a\"},null,{\"id\":2}]"));
+        assertThat(iterator.next().id).isEqualTo(1);
+        assertThat(iterator.next()).isNull();
+        assertThat(iterator.next().id).isEqualTo(2);
+        assertThat(iterator.hasNext()).isFalse();
+        try {
+            iterator.next();
+            fail("Expected a NoSuchElementException");
+        } catch (NoSuchElementException expected) {
+        }
+        iterator.close();
+    }
+
+    @Test
+    public void iteratesArrayAtPath() throws IOException {
+        String json = "{\"total\":2,\"paging\":{\"next\":[1,2]},\"data\":{\"skip\":[{}],\"videos\":[{\"id\":3},{\"id\":4}],\"after\":true}}";
+        List<Integer> ids = new ArrayList<>();
+        StagStreams.ArrayIterator<Entry> iterator = StagStreams.iterate(mGson, Entry.class,
+                new JsonReader(new StringReader(json)), "data", "videos");
+        while (iterator.hasNext()) {
+            ids.add(iterator.next().id);
+        }
+        assertThat(ids).containsExactly(3, 4);
+    }
+
+    @Test
+    public void missingOrNullPathIsEmpty() throws IOException {
+        assertThat(StagStreams.iterate(mGson, Entry.class, inputStream("{\"data\":null}"), "data").hasNext()).isFalse();
+        assertThat(StagStreams.iterate(mGson, Entry.class, inputStream("{\"other\":[1]}"), "data").hasNext()).isFalse();
+        assertThat(StagStreams.iterate(mGson, Entry.class, inputStream("{\"a\":null}"), "a", "b").hasNext()).isFalse();
+        assertThat(StagStreams.iterate(mGson, Entry.class, inputStream("[]")).hasNext()).isFalse();
+    }
+
+    @Test
+    public void malformedInputThrowsJsonSyntaxException() throws IOException {
+        try {
+            StagStreams.iterate(mGson, Entry.class, inputStream("{\"data\":{}}"), "data").hasNext();
+            fail("Expected a JsonSyntaxException");
+        } catch (JsonSyntaxException expected) {
+        }
+        StagStreams.ArrayIterator<Entry> iterator = StagStreams.iterate(mGson, Entry.class, inputStream("[{\"id\":1} {}]"));
+        iterator.next();
+        try {
+            iterator.hasNext();
+            fail("Expected a JsonSyntaxException");
+        } catch (JsonSyntaxException expected) {
+        }
+    }
+
+    @Test
+    public void streamsMappedFileAcrossWindows() throws IOException {
+        File file = mTemporaryFolder.newFile("entries.json");
+        writeEntries(file, 10000, 0);
+
+        try (Stream<Entry> stream = StagStreams.JavaStreams.stream(mGson, Entry.class, file, "data")) {
+            List<Integer> ids = stream.map(entry -> entry.id).collect(Collectors.toList());
+            assertThat(ids).hasSize(10000);
+            for (int idx = 0; idx < ids.size(); idx++) {
+                assertThat(ids.get(idx)).isEqualTo(idx);
+            }
+        }
+
+        // Windows that don't line up with tokens must not change the result.
+        StagStreams.ArrayIterator<Entry> iterator = StagStreams.iterate(mGson, Entry.class,
+                new StagJsonReader(new MappedFileInputStream(file, 1000)), "data");
+        int count = 0;
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            assertThat(entry.id).isEqualTo(count);
+            assertThat(entry.name).isEqualTo("entry " + count);
+            count++;
+        }
+        iterator.close();
+        assertThat(count).isEqualTo(10000);
+    }
+
+    @Test
+    public void parsesFileLargerThanHeap() throws Exception {
+        File file = mTemporaryFolder.newFile("large.json");
+        long count = writeEntries(file, 0, LARGE_FILE_SIZE);
+
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, CHILD_MAX_HEAP, "-cp", System.getProperty("java.class.path"),
+                                             LargeFileMain.class.getName(), file.getAbsolutePath())
+                .redirectErrorStream(true)
+                .start();
+        List<String> output = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                output.add(line);
+            }
+        }
+        assertThat(process.waitFor()).as(output.toString()).isEqualTo(0);
+
+        long maxMemory = Long.parseLong(output.get(0));
+        assertThat(file.length()).isGreaterThan(maxMemory);
+        assertThat(Long.parseLong(output.get(1))).isEqualTo(count);
+        assertThat(Long.parseLong(output.get(2))).isEqualTo(count * (count - 1) / 2);
+    }
+
+    /**
+     * Reads every entry of the file passed as the only argument, and prints the maximum heap size,
+     * the number of entries and the sum of their ids.
+     */
+    public static final class LargeFileMain {
+
+        public static void main(String[] args) throws IOException {
+            long count = 0;
+            long sum = 0;
+            try (StagStreams.ArrayIterator<Entry> iterator = StagStreams.iterate(new Gson(), Entry.class, new File(args[0]), "data")) {
+                while (iterator.hasNext()) {
+                    sum += iterator.next().id;
+                    count++;
+                }
+            }
+            System.out.println(Runtime.getRuntime().maxMemory());
+            System.out.println(count);
+            System.out.println(sum);
+        }
+    }
+
+    /**
+     * Writes {"data":[{"id":0,"name":"entry 0"},...]} to {@code file}, with at least
+     * {@code minimumCount} entries and at least {@code minimumSize} bytes. Returns the entry count.
+     */
+    private static long writeEntries(File file, long minimumCount, long minimumSize) throws IOException {
+        long count = 0;
+        long size = 0;
+        try (OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file), 65536)) {
+            size += write(outputStream, "{\"ignored\":{\"id\":-1},\"data\":[");
+            while (count < minimumCount || size < minimumSize) {
+                size += write(outputStream, (count == 0 ? "" : ",") + "{\"id\":" + count + ",\"name\":\"entry " + count + "\"}");
+                count++;
+            }
+            write(outputStream, "],\"after\":[1,2,3]}");
+        }
+        return count;
+    }
+
+    private static int write(OutputStream outputStream, String string) throws IOException {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        outputStream.write(bytes);
+        return bytes.length;
+    }
+
+    private static ByteArrayInputStream inputStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
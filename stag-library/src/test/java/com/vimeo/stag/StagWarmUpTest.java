@@ -0,0 +1,203 @@
+package com.vimeo.stag;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Unit tests for {@link StagWarmUp}.
+ */
+@SuppressWarnings("MagicNumber")
+public class StagWarmUpTest {
+
+    static final class First {
+        int id;
+    }
+
+    static final class Second {
+        String name;
+    }
+
+    enum Color {
+        RED, GREEN
+    }
+
+    static final class Rejected {
+        String name;
+    }
+
+    static class Base {
+        long createdTime;
+    }
+
+    static final class Populated extends Base {
+        static final String IGNORED = "ignored";
+
+        boolean enabled;
+        double ratio;
+        char initial;
+        @com.google.gson.annotations.SerializedName("display_name")
+        String displayName;
+        Color color;
+        int[] numbers;
+        List<Second> seconds;
+        Populated child;
+        transient String cached;
+    }
+
+    @Test
+    public void createsAdaptersAndReportsEachPackage() throws InterruptedException {
+        final AtomicInteger created = new AtomicInteger();
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                created.incrementAndGet();
+                return null;
+            }
+        }).create();
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<StagWarmUp.PackageReport> reports = StagWarmUp.warmUp(gson, executor, 0, new Class<?>[][]{
+                    {First.class, Second.class},
+                    {String.class}
+            });
+            assertThat(reports).hasSize(2);
+            assertThat(reports.get(0).getPackageName()).isEqualTo("com.vimeo.stag");
+            assertThat(reports.get(0).getTypeCount()).isEqualTo(2);
+            assertThat(reports.get(1).getPackageName()).isEqualTo("java.lang");
+            assertThat(reports.get(1).getDurationNanos()).isGreaterThanOrEqualTo(0);
+        } finally {
+            executor.shutdown();
+        }
+        // Both models and the int and String fields.
+        assertThat(created.get()).isGreaterThanOrEqualTo(3);
+    }
+
+    @Test
+    public void roundTripsUseEachAdapter() throws InterruptedException {
+        final Map<Class<?>, AtomicInteger> writes = new ConcurrentHashMap<>();
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                final TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+                final AtomicInteger count = new AtomicInteger();
+                writes.put(type.getRawType(), count);
+                return new TypeAdapter<T>() {
+                    @Override
+                    public void write(JsonWriter out, T value) throws IOException {
+                        count.incrementAndGet();
+                        delegate.write(out, value);
+                    }
+
+                    @Override
+                    public T read(JsonReader in) throws IOException {
+                        T value = delegate.read(in);
+                        if (value instanceof Rejected) {
+                            throw new JsonSyntaxException("Rejected");
+                        }
+                        return value;
+                    }
+                };
+            }
+        }).create();
+
+        List<StagWarmUp.PackageReport> reports = StagWarmUp.warmUp(gson, new DirectExecutor(), 5, new Class<?>[][]{
+                {First.class, Color.class, Rejected.class}
+        });
+        assertThat(reports).hasSize(1);
+        assertThat(writes.get(First.class).get()).isEqualTo(5);
+        assertThat(writes.get(Color.class).get()).isEqualTo(5);
+        // No instance of Rejected can be read, so it is never written.
+        assertThat(writes.get(Rejected.class).get()).isEqualTo(0);
+    }
+
+    @Test
+    public void roundTripsPopulateEveryField() throws InterruptedException {
+        final List<Populated> reads = new java.util.concurrent.CopyOnWriteArrayList<>();
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                final TypeAdapter<T> delegate = gson.getDelegateAdapter(this, type);
+                return new TypeAdapter<T>() {
+                    @Override
+                    public void write(JsonWriter out, T value) throws IOException {
+                        delegate.write(out, value);
+                    }
+
+                    @Override
+                    public T read(JsonReader in) throws IOException {
+                        T value = delegate.read(in);
+                        if (value instanceof Populated) {
+                            reads.add((Populated) value);
+                        }
+                        return value;
+                    }
+                };
+            }
+        }).create();
+
+        StagWarmUp.warmUp(gson, new DirectExecutor(), 2, new Class<?>[][]{{Populated.class}});
+
+        // Maps aren't sampled here, since Gson's own map adapter can't read from a StagJsonReader.
+        assertThat(reads).isNotEmpty();
+        Populated populated = reads.get(reads.size() - 1);
+        assertThat(populated.createdTime).isEqualTo(1);
+        assertThat(populated.enabled).isTrue();
+        assertThat(populated.ratio).isEqualTo(1);
+        assertThat(populated.initial).isEqualTo('a');
+        assertThat(populated.displayName).isEqualTo("a");
+        assertThat(populated.color).isEqualTo(Color.RED);
+        assertThat(populated.numbers).containsExactly(1);
+        assertThat(populated.seconds).hasSize(1);
+        assertThat(populated.seconds.get(0).name).isEqualTo("a");
+        assertThat(populated.cached).isNull();
+        // Recursive models are only filled in a few levels deep.
+        assertThat(populated.child.child).isNotNull();
+        assertThat(populated.child.child.child).isNull();
+    }
+
+    @Test
+    public void failuresArePropagated() throws InterruptedException {
+        Gson gson = new GsonBuilder().registerTypeAdapterFactory(new TypeAdapterFactory() {
+            @Override
+            public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+                if (type.getRawType() == Second.class) {
+                    throw new IllegalArgumentException("Unsupported");
+                }
+                return null;
+            }
+        }).create();
+        try {
+            StagWarmUp.warmUp(gson, new DirectExecutor(), 0, new Class<?>[][]{{First.class}, {Second.class}});
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException expected) {
+            assertThat(expected).hasMessage("Unsupported");
+        }
+    }
+
+    private static final class DirectExecutor implements java.util.concurrent.Executor {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    }
+}
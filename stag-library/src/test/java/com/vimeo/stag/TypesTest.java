@@ -0,0 +1,49 @@
+package com.vimeo.stag;
+
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Test;
+
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Unit tests for {@link Types}.
+ */
+public class TypesTest {
+
+    @Test
+    public void wildcardTypesWithEqualBoundsAreEqual() {
+        WildcardType first = Types.getWildcardType(new Type[]{Number.class}, new Type[]{});
+        WildcardType second = Types.getWildcardType(new Type[]{Number.class}, new Type[]{});
+        WildcardType other = Types.getWildcardType(new Type[]{Object.class}, new Type[]{Integer.class});
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second.hashCode()).isEqualTo(first.hashCode());
+        assertThat(other).isNotEqualTo(first);
+        assertThat(other.getUpperBounds()).containsExactly(Object.class);
+        assertThat(other.getLowerBounds()).containsExactly(Integer.class);
+    }
+
+    @Test
+    public void wildcardTypesEqualOtherImplementations() {
+        WildcardType wildcardType = Types.getWildcardType(new Type[]{Number.class}, new Type[]{});
+        Type gsonType = new TypeToken<List<? extends Number>>() {}.getType();
+        WildcardType gsonWildcardType = (WildcardType) ((java.lang.reflect.ParameterizedType) gsonType).getActualTypeArguments()[0];
+
+        assertThat(wildcardType).isEqualTo(gsonWildcardType);
+        assertThat(wildcardType.hashCode()).isEqualTo(gsonWildcardType.hashCode());
+    }
+
+    @Test
+    public void boundsCannotBeChangedThroughArguments() {
+        Type[] upperBounds = {CharSequence.class};
+        WildcardType wildcardType = Types.getWildcardType(upperBounds, new Type[]{});
+        upperBounds[0] = Object.class;
+
+        assertThat(wildcardType.getUpperBounds()).containsExactly(CharSequence.class);
+    }
+}